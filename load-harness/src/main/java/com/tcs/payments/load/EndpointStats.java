@@ -0,0 +1,103 @@
+package com.tcs.payments.load;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Latency and outcome counts for one endpoint.
+ *
+ * Latency runs from the request's scheduled start, not the moment it was sent, so a stalled
+ * server or client shows up in the tail instead of silently lowering the offered rate.
+ * Every second the interval histogram goes to &lt;endpoint&gt;.hlog (HdrHistogram log format);
+ * after warmup it is also added to the run total used for the .hgrm and report.json.
+ */
+final class EndpointStats {
+
+    private static final long MAX_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    final String name;
+    private final Recorder recorder = new Recorder(MAX_NANOS, 3);
+    private final Histogram total = new Histogram(MAX_NANOS, 3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder transportErrors = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final PrintStream logOut;
+    private final HistogramLogWriter log;
+    private Histogram interval;
+
+    EndpointStats(String name, Path outDir, long startMillis) throws FileNotFoundException {
+        this.name = name;
+        this.logOut = new PrintStream(outDir.resolve(name + ".hlog").toFile());
+        this.log = new HistogramLogWriter(logOut);
+        log.outputLogFormatVersion();
+        log.outputStartTime(startMillis);
+        log.setBaseTime(startMillis);
+        log.outputLegend();
+    }
+
+    void recordLatency(long nanos, int status) {
+        recorder.recordValue(Math.min(nanos, MAX_NANOS));
+        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    void recordTransportError(long nanos) {
+        recorder.recordValue(Math.min(nanos, MAX_NANOS));
+        transportErrors.increment();
+    }
+
+    /** Not sent because the in-flight cap was hit: the client, not the server, was the bottleneck. */
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    /** Called once a second by the reporter thread. */
+    synchronized void roll(boolean measuring) {
+        interval = recorder.getIntervalHistogram(interval);
+        log.outputIntervalHistogram(interval);
+        if (measuring) total.add(interval);
+    }
+
+    synchronized void resetCounts() {
+        statuses.clear();
+        transportErrors.reset();
+        dropped.reset();
+    }
+
+    synchronized void writeDistribution(Path outDir) throws FileNotFoundException {
+        try (PrintStream out = new PrintStream(outDir.resolve(name + ".hgrm").toFile())) {
+            total.outputPercentileDistribution(out, 1_000_000.0); // in milliseconds
+        }
+        logOut.close();
+    }
+
+    synchronized Map<String, Object> summary(double seconds) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        long count = total.getTotalCount();
+        out.put("requests", count);
+        out.put("throughputPerSec", seconds > 0 ? count / seconds : 0);
+        Map<String, Long> byStatus = new TreeMap<>();
+        statuses.forEach((s, n) -> byStatus.put(String.valueOf(s), n.sum()));
+        out.put("statuses", byStatus);
+        out.put("transportErrors", transportErrors.sum());
+        out.put("dropped", dropped.sum());
+        Map<String, Double> pct = new LinkedHashMap<>();
+        for (double p : new double[] {50, 90, 99, 99.9, 99.99}) {
+            pct.put("p" + p, total.getValueAtPercentile(p) / 1e6);
+        }
+        pct.put("max", total.getMaxValue() / 1e6);
+        pct.put("mean", total.getMean() / 1e6);
+        out.put("latencyMs", pct);
+        return out;
+    }
+}
@@ -0,0 +1,58 @@
+package com.tcs.payments.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Harness settings: the bundled load.properties, then an optional file given on the command
+ * line, then -Dload.* system properties (highest precedence).
+ */
+public final class LoadConfig {
+
+    private final Properties props = new Properties();
+
+    public LoadConfig(String file) throws IOException {
+        try (InputStream in = LoadConfig.class.getResourceAsStream("/load.properties")) {
+            if (in != null) props.load(in);
+        }
+        if (file != null) {
+            try (Reader r = Files.newBufferedReader(Path.of(file), StandardCharsets.UTF_8)) {
+                props.load(r);
+            }
+        }
+        System.getProperties().forEach((k, v) -> {
+            String key = k.toString();
+            if (key.startsWith("load.")) props.setProperty(key.substring(5), v.toString());
+        });
+    }
+
+    public String get(String key, String def) {
+        String v = props.getProperty(key);
+        return v == null || v.isBlank() ? def : v.trim();
+    }
+
+    public int getInt(String key, int def) {
+        return Integer.parseInt(get(key, String.valueOf(def)));
+    }
+
+    public double getDouble(String key, double def) {
+        return Double.parseDouble(get(key, String.valueOf(def)));
+    }
+
+    /** All "prefix.name=weight" entries, sorted by name. */
+    public Map<String, Double> weights(String prefix) {
+        Map<String, Double> out = new LinkedHashMap<>();
+        props.stringPropertyNames().stream()
+                .filter(k -> k.startsWith(prefix + "."))
+                .sorted()
+                .forEach(k -> out.put(k.substring(prefix.length() + 1), Double.parseDouble(props.getProperty(k).trim())));
+        return out;
+    }
+}
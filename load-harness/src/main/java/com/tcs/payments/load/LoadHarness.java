@@ -0,0 +1,180 @@
+package com.tcs.payments.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * End-to-end load run against a PaymentProcess instance.
+ *
+ * Usage: java -jar load-harness.jar [load.properties]
+ *
+ * With launch.app-jar (and optionally launch.simulator-jar) set, the harness starts the PSP
+ * simulator and the app pointed at it, waits for /actuator/health, runs, then stops both.
+ * Otherwise it drives whatever is listening on "target".
+ *
+ * Output goes to out-dir/&lt;timestamp&gt;/: per endpoint an .hlog (per-second HdrHistogram
+ * intervals, for plotting) and an .hgrm (percentile distribution of the measured phase),
+ * plus report.json with throughput, status counts and percentiles, so builds can be compared.
+ */
+public class LoadHarness {
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig cfg = new LoadConfig(args.length > 0 ? args[0] : null);
+        String runId = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path outDir = Path.of(cfg.get("out-dir", "load-results"), runId);
+        Files.createDirectories(outDir);
+
+        List<Process> launched = new ArrayList<>();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> launched.forEach(Process::destroy)));
+        try {
+            launch(cfg, launched, outDir);
+            run(cfg, runId, outDir);
+        } finally {
+            for (Process p : launched) {
+                p.destroy();
+                p.waitFor(10, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    private static void run(LoadConfig cfg, String runId, Path outDir) throws Exception {
+        long startMillis = System.currentTimeMillis();
+        Map<String, EndpointStats> stats = new LinkedHashMap<>();
+        for (String endpoint : cfg.weights("mix.endpoint").keySet()) {
+            stats.put(endpoint, new EndpointStats(endpoint, outDir, startMillis));
+        }
+        if (!stats.containsKey("initiate")) {
+            // Capture/refund slots fall back to initiate until intents exist
+            stats.put("initiate", new EndpointStats("initiate", outDir, startMillis));
+        }
+
+        long warmupNanos = TimeUnit.SECONDS.toNanos(cfg.getInt("warmup-seconds", 10));
+        long durationNanos = TimeUnit.SECONDS.toNanos(cfg.getInt("duration-seconds", 60));
+        OpenLoop loop = new OpenLoop(cfg, stats, runId);
+        long start = System.nanoTime();
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        boolean[] measuring = {false};
+        reporter.scheduleAtFixedRate(() -> {
+            boolean inMeasurement = System.nanoTime() - start >= warmupNanos;
+            if (inMeasurement && !measuring[0]) {
+                measuring[0] = true;
+                stats.values().forEach(EndpointStats::resetCounts);
+            }
+            stats.values().forEach(s -> s.roll(measuring[0]));
+        }, 1, 1, TimeUnit.SECONDS);
+
+        System.out.printf("Driving %s at %s req/s for %ds (+%ds warmup) -> %s%n", cfg.get("target", "http://localhost:8763"),
+                cfg.get("rate", "100"), TimeUnit.NANOSECONDS.toSeconds(durationNanos),
+                TimeUnit.NANOSECONDS.toSeconds(warmupNanos), outDir);
+        long sent = loop.run(start, warmupNanos + durationNanos);
+
+        reporter.shutdown();
+        reporter.awaitTermination(5, TimeUnit.SECONDS);
+        stats.values().forEach(s -> s.roll(true));
+
+        double measuredSeconds = TimeUnit.NANOSECONDS.toMillis(durationNanos) / 1000.0;
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("runId", runId);
+        report.put("target", cfg.get("target", "http://localhost:8763"));
+        report.put("offeredRatePerSec", cfg.getDouble("rate", 100));
+        report.put("warmupSeconds", TimeUnit.NANOSECONDS.toSeconds(warmupNanos));
+        report.put("measuredSeconds", measuredSeconds);
+        report.put("requestsScheduled", sent);
+        report.put("pools", loop.poolSizes());
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (EndpointStats s : stats.values()) {
+            endpoints.put(s.name, s.summary(measuredSeconds));
+            s.writeDistribution(outDir);
+        }
+        report.put("endpoints", endpoints);
+
+        ObjectMapper json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        json.writeValue(outDir.resolve("report.json").toFile(), report);
+        printTable(endpoints);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void printTable(Map<String, Object> endpoints) {
+        System.out.printf("%-18s %9s %9s %9s %9s %9s %9s %8s%n", "endpoint", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors", "dropped");
+        endpoints.forEach((name, o) -> {
+            Map<String, Object> s = (Map<String, Object>) o;
+            Map<String, Double> l = (Map<String, Double>) s.get("latencyMs");
+            Map<String, Long> statuses = (Map<String, Long>) s.get("statuses");
+            long errors = (Long) s.get("transportErrors")
+                    + statuses.entrySet().stream().filter(e -> e.getKey().startsWith("5")).mapToLong(Map.Entry::getValue).sum();
+            System.out.printf("%-18s %9.1f %9.1f %9.1f %9.1f %9.1f %9d %8d%n", name, (Double) s.get("throughputPerSec"),
+                    l.get("p50.0"), l.get("p99.0"), l.get("p99.9"), l.get("max"), errors, (Long) s.get("dropped"));
+        });
+    }
+
+    // ---- optional process management ----
+
+    private static void launch(LoadConfig cfg, List<Process> launched, Path outDir) throws Exception {
+        String simJar = cfg.get("launch.simulator-jar", null);
+        String appJar = cfg.get("launch.app-jar", null);
+        if (simJar != null) {
+            List<String> cmd = new ArrayList<>(List.of("java", "-jar", simJar));
+            String simConfig = cfg.get("launch.simulator-config", null);
+            if (simConfig != null) cmd.add(simConfig);
+            launched.add(start(cmd, outDir.resolve("simulator.log").toFile()));
+            waitFor(cfg.get("launch.simulator-url", "http://localhost:12111") + "/__sim/stats", 30);
+        }
+        if (appJar != null) {
+            List<String> cmd = new ArrayList<>();
+            cmd.add("java");
+            cmd.addAll(split(cfg.get("launch.app-jvm-args", "")));
+            cmd.add("-jar");
+            cmd.add(appJar);
+            // Simulator wiring (payments.stripe.apiBase) is in launch.app-args; Spring joins repeated args with a comma
+            cmd.addAll(split(cfg.get("launch.app-args", "")));
+            launched.add(start(cmd, outDir.resolve("app.log").toFile()));
+            waitFor(cfg.get("target", "http://localhost:8763") + "/actuator/health", cfg.getInt("launch.app-start-timeout-seconds", 120));
+        }
+    }
+
+    private static List<String> split(String args) {
+        return args.isBlank() ? List.of() : Arrays.asList(args.trim().split("\\s+"));
+    }
+
+    private static Process start(List<String> cmd, File log) throws IOException {
+        System.out.println("Starting: " + String.join(" ", cmd));
+        return new ProcessBuilder(cmd).redirectErrorStream(true).redirectOutput(log).start();
+    }
+
+    private static void waitFor(String url, int timeoutSeconds) throws Exception {
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        while (System.nanoTime() < deadline) {
+            try {
+                HttpResponse<Void> r = http.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+                        HttpResponse.BodyHandlers.discarding());
+                if (r.statusCode() == 200) return;
+            } catch (IOException e) {
+                // not up yet
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("Timed out waiting for " + url);
+    }
+}
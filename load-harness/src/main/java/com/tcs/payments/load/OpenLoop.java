@@ -0,0 +1,207 @@
+package com.tcs.payments.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Constant-arrival-rate (open model) driver.
+ *
+ * Request n is due at start + n / rate regardless of how earlier requests are doing; it is sent
+ * asynchronously so a slow response never delays the next send. Latency is measured from the due
+ * time (see EndpointStats). If the in-flight cap is reached the request is counted as dropped.
+ *
+ * Captures and refunds use intents authorized/captured earlier in the run; when none is available
+ * yet the slot is used for an initiate, so the offered rate stays constant.
+ */
+final class OpenLoop {
+
+    private static final int POOL_LIMIT = 100_000;
+
+    private final LoadConfig cfg;
+    private final ObjectMapper json = new ObjectMapper();
+    private final HttpClient client;
+    private final String target;
+    private final RequestMix mix;
+    private final WeightedChoice endpoints;
+    private final Map<String, EndpointStats> stats;
+    private final long seed;
+    private final int maxInFlight;
+    private final String webhookSecret;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final ConcurrentLinkedQueue<String[]> authorized = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<String[]> captured = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger authorizedSize = new AtomicInteger();
+    private final AtomicInteger capturedSize = new AtomicInteger();
+
+    OpenLoop(LoadConfig cfg, Map<String, EndpointStats> stats, String runId) {
+        this.cfg = cfg;
+        this.stats = stats;
+        this.target = cfg.get("target", "http://localhost:8763");
+        this.seed = Long.parseLong(cfg.get("seed", "42"));
+        this.maxInFlight = cfg.getInt("max-in-flight", 2000);
+        this.webhookSecret = cfg.get("webhook.stripe-secret", "");
+        this.mix = new RequestMix(cfg, json, runId);
+        this.endpoints = new WeightedChoice(cfg.weights("mix.endpoint"));
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(cfg.getInt("client-threads", 8)))
+                .build();
+    }
+
+    /** Sends at the configured rate until durationNanos has elapsed; returns the number of requests due. */
+    long run(long startNanos, long durationNanos) {
+        double rate = cfg.getDouble("rate", 100);
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long seq = 0;
+        while (true) {
+            long due = startNanos + seq * intervalNanos;
+            if (due - startNanos >= durationNanos) break;
+            long wait = due - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+            fire(seq++, due);
+        }
+        // Give in-flight requests a chance to finish before the final report
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+        return seq;
+    }
+
+    private void fire(long seq, long due) {
+        SplittableRandom rnd = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + seq);
+        String endpoint = endpoints.pick(rnd);
+        HttpRequest req = build(endpoint, seq, rnd);
+        if (req == null) {
+            endpoint = "initiate";
+            req = build(endpoint, seq, rnd);
+        }
+        EndpointStats s = stats.get(endpoint);
+        if (inFlight.get() >= maxInFlight) {
+            s.recordDropped();
+            return;
+        }
+        inFlight.incrementAndGet();
+        String ep = endpoint;
+        client.sendAsync(req, HttpResponse.BodyHandlers.ofString()).whenComplete((resp, err) -> {
+            inFlight.decrementAndGet();
+            long latency = System.nanoTime() - due;
+            if (err != null) {
+                s.recordTransportError(latency);
+                return;
+            }
+            s.recordLatency(latency, resp.statusCode());
+            remember(ep, resp);
+        });
+    }
+
+    private HttpRequest build(String endpoint, long seq, SplittableRandom rnd) {
+        switch (endpoint) {
+            case "initiate":
+                return post("/api/payments/initiate", mix.initiate(seq, rnd), Map.of());
+            case "capture": {
+                String[] intent = take(authorized, authorizedSize);
+                if (intent == null) return null;
+                return post("/api/payments/capture",
+                        "{\"provider\":\"" + intent[0] + "\",\"intentId\":\"" + intent[1] + "\"}", Map.of());
+            }
+            case "refund": {
+                String[] payment = take(captured, capturedSize);
+                if (payment == null) return null;
+                return post("/api/payments/refund",
+                        "{\"provider\":\"" + payment[0] + "\",\"paymentId\":\"" + payment[1] + "\"}", Map.of());
+            }
+            case "webhook_stripe": {
+                String payload = "{\"id\":\"evt_load_" + seq + "\",\"object\":\"event\",\"type\":\"payment_intent.succeeded\","
+                        + "\"data\":{\"object\":{\"id\":\"pi_load_" + seq + "\",\"object\":\"payment_intent\"}}}";
+                return post("/api/webhooks/stripe", payload, Map.of("Stripe-Signature", stripeSignature(payload)));
+            }
+            case "webhook_razorpay":
+                return post("/api/webhooks/razorpay",
+                        "{\"entity\":\"event\",\"event\":\"payment.captured\",\"payload\":{\"payment\":{\"entity\":{\"id\":\"pay_load_" + seq + "\"}}}}",
+                        Map.of("X-Razorpay-Signature", "load"));
+            default:
+                throw new IllegalArgumentException("Unknown endpoint in mix.endpoint: " + endpoint);
+        }
+    }
+
+    private HttpRequest post(String path, String body, Map<String, String> headers) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(target + path))
+                .timeout(Duration.ofSeconds(cfg.getInt("request-timeout-seconds", 30)))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8));
+        headers.forEach(b::header);
+        return b.build();
+    }
+
+    /** Feeds authorized intents to captures and captured payments to refunds. */
+    private void remember(String endpoint, HttpResponse<String> resp) {
+        if (resp.statusCode() != 200 || !("initiate".equals(endpoint) || "capture".equals(endpoint))) return;
+        try {
+            JsonNode r = json.readTree(resp.body());
+            String provider = r.path("provider").asText(null);
+            String intentId = r.path("intentId").asText(null);
+            if (provider == null || intentId == null) return;
+            String status = r.path("status").asText();
+            if ("initiate".equals(endpoint) && "AUTHORIZED".equals(status)) {
+                offer(authorized, authorizedSize, new String[] {provider, intentId});
+            } else if ("capture".equals(endpoint) && "CAPTURED".equals(status)) {
+                offer(captured, capturedSize, new String[] {provider, intentId});
+            }
+        } catch (Exception e) {
+            // Not a PaymentResponse; nothing to remember
+        }
+    }
+
+    private static void offer(ConcurrentLinkedQueue<String[]> q, AtomicInteger size, String[] item) {
+        if (size.get() >= POOL_LIMIT) return;
+        q.offer(item);
+        size.incrementAndGet();
+    }
+
+    private static String[] take(ConcurrentLinkedQueue<String[]> q, AtomicInteger size) {
+        String[] item = q.poll();
+        if (item != null) size.decrementAndGet();
+        return item;
+    }
+
+    /** Stripe-Signature for the payload; without a secret the webhook is expected to answer 400. */
+    private String stripeSignature(String payload) {
+        long ts = System.currentTimeMillis() / 1000;
+        if (webhookSecret.isEmpty()) return "t=" + ts + ",v1=unsigned";
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(webhookSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] sig = mac.doFinal((ts + "." + payload).getBytes(StandardCharsets.UTF_8));
+            return "t=" + ts + ",v1=" + HexFormat.of().formatHex(sig);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    Map<String, Object> poolSizes() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("authorizedWaitingCapture", authorizedSize.get());
+        out.put("capturedWaitingRefund", capturedSize.get());
+        return out;
+    }
+}
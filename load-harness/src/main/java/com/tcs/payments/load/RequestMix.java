@@ -0,0 +1,101 @@
+package com.tcs.payments.load;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Builds /initiate bodies with the configured mix of region, method, coupon, 3DS and amount.
+ *
+ * mix.region.&lt;REGION&gt; and mix.method.&lt;REGION&gt;.&lt;METHOD&gt; are relative weights;
+ * coupon-ratio, three-ds-ratio and high-amount-ratio are fractions of initiate requests.
+ * 3DS requests use Stripe's 3DS-required test card (the simulator challenges it too);
+ * high amounts (>= 1000.00) push FraudEngine towards REVIEW / REQUEST_3DS.
+ */
+final class RequestMix {
+
+    private static final Map<String, String> CURRENCY = Map.of(
+            "US", "USD", "IN", "INR", "EU", "EUR", "UK", "GBP", "AU", "AUD",
+            "SG", "SGD", "AE", "AED", "JP", "JPY", "CA", "CAD");
+
+    private final ObjectMapper json;
+    private final WeightedChoice regions;
+    private final Map<String, WeightedChoice> methods = new HashMap<>();
+    private final double couponRatio;
+    private final double threeDsRatio;
+    private final double highAmountRatio;
+    private final String runId;
+
+    RequestMix(LoadConfig cfg, ObjectMapper json, String runId) {
+        this.json = json;
+        this.runId = runId;
+        Map<String, Double> regionWeights = cfg.weights("mix.region");
+        this.regions = new WeightedChoice(regionWeights);
+        for (String region : regionWeights.keySet()) {
+            methods.put(region, new WeightedChoice(cfg.weights("mix.method." + region)));
+        }
+        this.couponRatio = cfg.getDouble("coupon-ratio", 0.2);
+        this.threeDsRatio = cfg.getDouble("three-ds-ratio", 0.1);
+        this.highAmountRatio = cfg.getDouble("high-amount-ratio", 0.05);
+    }
+
+    /** Body for request number seq; the same seq always yields the same request. */
+    String initiate(long seq, SplittableRandom rnd) {
+        String region = regions.pick(rnd);
+        String method = methods.get(region).pick(rnd);
+        String currency = CURRENCY.getOrDefault(region, "USD");
+
+        ObjectNode req = json.createObjectNode();
+        req.put("idempotencyKey", "load-" + runId + "-" + seq);
+        req.put("region", region);
+        req.put("method", method);
+
+        long value = rnd.nextDouble() < highAmountRatio
+                ? 100_000 + rnd.nextLong(900_000)
+                : ("INR".equals(currency) ? 10_000 + rnd.nextLong(490_000) : 500 + rnd.nextLong(29_500));
+        ObjectNode amount = req.putObject("amount");
+        amount.put("value", value);
+        amount.put("currency", currency);
+
+        ObjectNode customer = req.putObject("customer");
+        customer.put("id", "cus_load_" + (seq % 50_000));
+        // Some customers carry no contact details (FraudEngine low_customer_signal)
+        if (rnd.nextInt(10) != 0) {
+            customer.put("email", "user" + (seq % 50_000) + "@example.com");
+            customer.put("phone", "+1415555" + String.format("%04d", seq % 10_000));
+        }
+
+        boolean threeDs = rnd.nextDouble() < threeDsRatio;
+        switch (method) {
+            case "CARD":
+                req.put("provider", "stripe");
+                req.put("cardToken", threeDs ? "pm_card_threeDSecure2Required" : "pm_card_visa");
+                break;
+            case "APPLE_PAY":
+            case "GOOGLE_PAY":
+                req.put("provider", "stripe");
+                req.put("walletToken", threeDs ? "pm_card_threeDSecure2Required" : "pm_card_visa");
+                break;
+            case "EMI": {
+                req.put("provider", "razorpay");
+                ObjectNode plan = req.putObject("emiPlan");
+                plan.put("tenureMonths", new int[] {3, 6, 9, 12}[rnd.nextInt(4)]);
+                plan.put("provider", "razorpay");
+                break;
+            }
+            default:
+                req.put("codNote", "leave at door");
+        }
+        if (rnd.nextDouble() < couponRatio) {
+            req.put("couponCode", "IN".equals(region) && rnd.nextBoolean() ? "IN-FESTIVE-10" : "GLOBAL-5");
+        }
+        req.put("returnUrl", "http://localhost:3000/success");
+        ObjectNode md = req.putObject("metadata");
+        md.put("orderId", "ord_" + runId + "_" + seq);
+        md.put("channel", rnd.nextBoolean() ? "web" : "app");
+        return req.toString();
+    }
+}
@@ -0,0 +1,33 @@
+package com.tcs.payments.load;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/** Picks a key with probability proportional to its weight. */
+final class WeightedChoice {
+
+    private final String[] keys;
+    private final double[] cumulative;
+
+    WeightedChoice(Map<String, Double> weights) {
+        if (weights.isEmpty()) throw new IllegalArgumentException("no weights configured");
+        keys = new String[weights.size()];
+        cumulative = new double[weights.size()];
+        double sum = 0;
+        int i = 0;
+        for (Map.Entry<String, Double> e : weights.entrySet()) {
+            sum += e.getValue();
+            keys[i] = e.getKey();
+            cumulative[i++] = sum;
+        }
+        for (i = 0; i < cumulative.length; i++) cumulative[i] /= sum;
+    }
+
+    String pick(SplittableRandom rnd) {
+        double r = rnd.nextDouble();
+        for (int i = 0; i < cumulative.length; i++) {
+            if (r < cumulative[i]) return keys[i];
+        }
+        return keys[keys.length - 1];
+    }
+}
@@ -0,0 +1,66 @@
+package com.tcs.payments.sim;
+
+import java.util.SplittableRandom;
+
+/**
+ * Response delay distribution, parsed from a spec string:
+ * - fixed:MS
+ * - uniform:MIN:MAX
+ * - lognormal:MEDIAN:P99  (long right tail, closest to real PSP latency)
+ */
+public final class LatencyModel {
+
+    private static final double Z_99 = 2.3263;
+
+    private final String spec;
+    private final int kind; // 0 fixed, 1 uniform, 2 lognormal
+    private final double a;
+    private final double b;
+
+    private LatencyModel(String spec, int kind, double a, double b) {
+        this.spec = spec;
+        this.kind = kind;
+        this.a = a;
+        this.b = b;
+    }
+
+    public static LatencyModel parse(String spec) {
+        String[] f = spec.trim().split(":");
+        switch (f[0]) {
+            case "fixed":
+                return new LatencyModel(spec, 0, Double.parseDouble(f[1]), 0);
+            case "uniform":
+                return new LatencyModel(spec, 1, Double.parseDouble(f[1]), Double.parseDouble(f[2]));
+            case "lognormal": {
+                double median = Double.parseDouble(f[1]);
+                double p99 = Double.parseDouble(f[2]);
+                if (median <= 0 || p99 < median) throw new IllegalArgumentException("lognormal needs 0 < median <= p99: " + spec);
+                double mu = Math.log(median);
+                double sigma = (Math.log(p99) - mu) / Z_99;
+                return new LatencyModel(spec, 2, mu, sigma);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown latency spec: " + spec);
+        }
+    }
+
+    public long sampleMillis(SplittableRandom rnd) {
+        switch (kind) {
+            case 0: return (long) a;
+            case 1: return (long) (a + rnd.nextDouble() * (b - a));
+            default: return (long) Math.exp(a + b * gaussian(rnd));
+        }
+    }
+
+    // Box-Muller; SplittableRandom has no nextGaussian on release 17
+    private static double gaussian(SplittableRandom rnd) {
+        double u1 = 1.0 - rnd.nextDouble();
+        double u2 = rnd.nextDouble();
+        return Math.sqrt(-2.0 * Math.log(u1)) * Math.cos(2.0 * Math.PI * u2);
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+}
@@ -0,0 +1,238 @@
+package com.tcs.payments.sim;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+/**
+ * Local stand-in for the Stripe and Razorpay HTTP APIs used by the payment providers.
+ *
+ * Usage: java -jar psp-simulator.jar [simulator.properties]
+ *
+ * Stripe: point the app at it with payments.stripe.apiBase=http://localhost:12111.
+ * Razorpay: razorpay-java always calls https://api.razorpay.com, so run the simulator with
+ * https.port=443 and a keystore for api.razorpay.com, and start the app with
+ * -Djdk.net.hosts.file=(file mapping api.razorpay.com to 127.0.0.1) and a trust store holding that cert.
+ *
+ * Latency, error rate, 429s, declines and the 3DS requires_action ratio are configured per
+ * provider and operation (see simulator.properties). Outcomes are drawn from a random stream
+ * seeded by (seed, operation, idempotency key or object id), so the same load script sees the
+ * same outcomes run after run regardless of thread interleaving.
+ * GET /__sim/stats returns counts per provider/operation/outcome; POST /__sim/reset clears them and the
+ * remembered idempotent replies and Razorpay payments.
+ */
+public class PspSimulator {
+
+    /** A response to send after the simulated delay. */
+    static final class Reply {
+        final int status;
+        final String body;
+        final String outcome;
+
+        Reply(int status, String body, String outcome) {
+            this.status = status;
+            this.body = body;
+            this.outcome = outcome;
+        }
+    }
+
+    private final SimulatorConfig cfg;
+    private final ObjectMapper json = new ObjectMapper();
+    private final ScheduledExecutorService delayer;
+    private final Map<String, TokenBucket> limiters = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> stats = new ConcurrentHashMap<>();
+    private final StripeApi stripe;
+    private final RazorpayApi razorpay;
+
+    public PspSimulator(SimulatorConfig cfg) {
+        this.cfg = cfg;
+        this.delayer = Executors.newScheduledThreadPool(cfg.getInt("delay-threads", 4));
+        this.stripe = new StripeApi(this, json);
+        this.razorpay = new RazorpayApi(this, json);
+    }
+
+    public static void main(String[] args) throws Exception {
+        SimulatorConfig cfg = new SimulatorConfig(args.length > 0 ? args[0] : null);
+        new PspSimulator(cfg).start();
+    }
+
+    public void start() throws Exception {
+        int threads = cfg.getInt("threads", 16);
+        int port = cfg.getInt("port", 12111);
+        HttpServer http = HttpServer.create(new InetSocketAddress(port), 1024);
+        http.createContext("/", this::handle);
+        http.setExecutor(Executors.newFixedThreadPool(threads));
+        http.start();
+        System.out.println("psp-simulator listening on http://localhost:" + port);
+
+        int httpsPort = cfg.getInt("https.port", 0);
+        if (httpsPort > 0) {
+            HttpsServer https = HttpsServer.create(new InetSocketAddress(httpsPort), 1024);
+            https.setHttpsConfigurator(new HttpsConfigurator(sslContext()));
+            https.createContext("/", this::handle);
+            https.setExecutor(Executors.newFixedThreadPool(threads));
+            https.start();
+            System.out.println("psp-simulator listening on https://localhost:" + httpsPort);
+        }
+    }
+
+    private SSLContext sslContext() throws Exception {
+        char[] password = cfg.get("https.keystore-password", "changeit").toCharArray();
+        KeyStore ks = KeyStore.getInstance("PKCS12");
+        try (InputStream in = new FileInputStream(cfg.get("https.keystore", "psp-simulator.p12"))) {
+            ks.load(in, password);
+        }
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        kmf.init(ks, password);
+        SSLContext ctx = SSLContext.getInstance("TLS");
+        ctx.init(kmf.getKeyManagers(), null, null);
+        return ctx;
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        String path = ex.getRequestURI().getPath();
+        String body;
+        try (InputStream in = ex.getRequestBody()) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        try {
+            if (path.startsWith("/__sim/")) {
+                send(ex, admin(ex.getRequestMethod(), path));
+                return;
+            }
+            // Stripe is form-encoded with a Bearer key; Razorpay is JSON with Basic auth
+            String auth = ex.getRequestHeaders().getFirst("Authorization");
+            boolean isStripe = auth != null && auth.startsWith("Bearer ");
+            Delayed d = isStripe ? stripe.handle(ex, path, body) : razorpay.handle(ex, path, body);
+            count(d.provider + "." + d.op + "." + d.reply.outcome);
+            if (d.delayMillis <= 0) {
+                send(ex, d.reply);
+            } else {
+                delayer.schedule(() -> send(ex, d.reply), d.delayMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (RuntimeException | IOException e) {
+            send(ex, new Reply(500, "{\"error\":{\"message\":\"simulator: " + e.getClass().getSimpleName() + "\"}}", "sim_error"));
+        }
+    }
+
+    /** A reply plus the delay before it is sent. */
+    static final class Delayed {
+        final String provider;
+        final String op;
+        final Reply reply;
+        final long delayMillis;
+
+        Delayed(String provider, String op, Reply reply, long delayMillis) {
+            this.provider = provider;
+            this.op = op;
+            this.reply = reply;
+            this.delayMillis = delayMillis;
+        }
+    }
+
+    // ---- shared fault injection ----
+
+    /** Deterministic random stream for one simulated call. */
+    SplittableRandom random(String op, String key) {
+        long h = cfg.seed() * 0x9E3779B97F4A7C15L + op.hashCode();
+        return new SplittableRandom(h * 31 + (key == null ? 0 : key.hashCode()));
+    }
+
+    long delay(String provider, String op, SplittableRandom rnd) {
+        return cfg.latency(provider, op).sampleMillis(rnd);
+    }
+
+    /** Returns "rate_limited" or "error" when the call should fail before business logic, else null. */
+    String injectFault(String provider, String op, SplittableRandom rnd) {
+        int perSecond = cfg.rateLimitPerSecond(provider);
+        if (perSecond > 0 && !limiters.computeIfAbsent(provider, p -> new TokenBucket(perSecond)).tryTake()) {
+            return "rate_limited";
+        }
+        if (rnd.nextDouble() < cfg.ratio(provider, op, "rate-limit-ratio")) return "rate_limited";
+        if (rnd.nextDouble() < cfg.ratio(provider, op, "error-rate")) return "error";
+        return null;
+    }
+
+    double ratio(String provider, String op, String key) {
+        return cfg.ratio(provider, op, key);
+    }
+
+    private void count(String key) {
+        stats.computeIfAbsent(key, k -> new LongAdder()).increment();
+    }
+
+    private Reply admin(String method, String path) throws IOException {
+        if ("/__sim/reset".equals(path) && "POST".equals(method)) {
+            stats.clear();
+            stripe.reset();
+            razorpay.reset();
+            return new Reply(200, "{\"reset\":true}", "admin");
+        }
+        if ("/__sim/stats".equals(path)) {
+            Map<String, Long> out = new TreeMap<>();
+            stats.forEach((k, v) -> out.put(k, v.sum()));
+            return new Reply(200, json.writeValueAsString(out), "admin");
+        }
+        return new Reply(404, "{\"error\":\"not_found\"}", "admin");
+    }
+
+    private static void send(HttpExchange ex, Reply r) {
+        try {
+            byte[] bytes = r.body.getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().set("Content-Type", "application/json");
+            ex.getResponseHeaders().set("Request-Id", "req_sim_" + Long.toHexString(System.nanoTime()));
+            ex.sendResponseHeaders(r.status, bytes.length);
+            try (OutputStream out = ex.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            // Client gave up (timeout); nothing to do
+        } finally {
+            ex.close();
+        }
+    }
+
+    /** Requests per second allowed per provider before answering 429. */
+    static final class TokenBucket {
+        private final double perNano;
+        private final double capacity;
+        private double tokens;
+        private long last = System.nanoTime();
+
+        TokenBucket(int perSecond) {
+            this.perNano = perSecond / 1e9;
+            this.capacity = perSecond;
+            this.tokens = perSecond;
+        }
+
+        synchronized boolean tryTake() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - last) * perNano);
+            last = now;
+            if (tokens < 1) return false;
+            tokens -= 1;
+            return true;
+        }
+    }
+}
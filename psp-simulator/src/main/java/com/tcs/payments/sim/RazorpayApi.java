@@ -0,0 +1,194 @@
+package com.tcs.payments.sim;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * The slice of the Razorpay API used by EmiProviderRazorpay:
+ * POST /v1/orders, GET /v1/payments/{id}, POST /v1/payments/{id}/capture, POST /v1/payments/{id}/refund,
+ * GET /v1/payments.
+ * Every response carries "entity" because razorpay-java picks the model class from it.
+ * Checkout is not simulated: order order_simN counts as paid at once by payment pay_simN, which
+ * GET /v1/payments/{id} and capture then report against that order.
+ */
+final class RazorpayApi {
+
+    private static final Pattern PAYMENT_OP = Pattern.compile("/v1/payments/([^/]+)/(capture|refund)");
+    private static final Pattern PAYMENT = Pattern.compile("/v1/payments/([^/]+)");
+    private static final int MAX_PAYMENTS = 100_000;
+
+    private final PspSimulator sim;
+    private final ObjectMapper json;
+    private final AtomicLong ids = new AtomicLong();
+    // pay_ id -> the payment of a simulated order, oldest dropped first
+    private final Map<String, Payment> payments = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Payment> eldest) {
+            return size() > MAX_PAYMENTS;
+        }
+    };
+
+    private static final class Payment {
+        final String orderId;
+        final long amount;
+        final String currency;
+        boolean captured;
+
+        Payment(String orderId, long amount, String currency) {
+            this.orderId = orderId;
+            this.amount = amount;
+            this.currency = currency;
+        }
+    }
+
+    RazorpayApi(PspSimulator sim, ObjectMapper json) {
+        this.sim = sim;
+        this.json = json;
+    }
+
+    void reset() {
+        synchronized (payments) {
+            payments.clear();
+        }
+    }
+
+    PspSimulator.Delayed handle(HttpExchange ex, String path, String body) throws JsonProcessingException {
+        JsonNode req = body == null || body.isBlank() ? json.createObjectNode() : json.readTree(body);
+        String op;
+        String key;
+        Matcher m = PAYMENT_OP.matcher(path);
+        Matcher fetch = PAYMENT.matcher(path);
+        if (path.equals("/v1/orders")) {
+            op = "authorize";
+            key = req.path("receipt").asText(null);
+        } else if (m.matches()) {
+            op = m.group(2);
+            key = m.group(1);
+        } else if (fetch.matches() && "GET".equals(ex.getRequestMethod())) {
+            op = "fetch";
+            key = fetch.group(1);
+        } else if (path.equals("/v1/payments") && "GET".equals(ex.getRequestMethod())) {
+            op = "list";
+            key = null;
+        } else {
+            return new PspSimulator.Delayed("razorpay", "unknown", error(404, "BAD_REQUEST_ERROR", "The requested URL was not found on the server."), 0);
+        }
+
+        SplittableRandom rnd = sim.random(op, key);
+        long delay = sim.delay("razorpay", op, rnd);
+        PspSimulator.Reply reply;
+        String fault = sim.injectFault("razorpay", op, rnd);
+        if ("rate_limited".equals(fault)) {
+            reply = error(429, "BAD_REQUEST_ERROR", "Too many requests");
+        } else if ("error".equals(fault)) {
+            reply = error(500, "SERVER_ERROR", "The server encountered an error. The incident has been reported to admins.");
+        } else {
+            switch (op) {
+                case "authorize": reply = order(req); break;
+                case "capture": reply = capture(m.group(1), req, rnd); break;
+                case "refund": reply = refund(m.group(1), req); break;
+                case "fetch": reply = fetch(key); break;
+                default: reply = ok(Map.of("entity", "collection", "count", 0, "items", List.of()), "ok");
+            }
+        }
+        return new PspSimulator.Delayed("razorpay", op, reply, delay);
+    }
+
+    private PspSimulator.Reply order(JsonNode req) throws JsonProcessingException {
+        long n = ids.incrementAndGet();
+        String currency = req.path("currency").asText("INR");
+        synchronized (payments) {
+            payments.put("pay_sim" + n, new Payment("order_sim" + n, req.path("amount").asLong(), currency));
+        }
+        Map<String, Object> o = new LinkedHashMap<>();
+        o.put("id", "order_sim" + n);
+        o.put("entity", "order");
+        o.put("amount", req.path("amount").asLong());
+        o.put("amount_paid", 0);
+        o.put("amount_due", req.path("amount").asLong());
+        o.put("currency", currency);
+        o.put("receipt", req.path("receipt").asText(null));
+        o.put("status", "created");
+        o.put("notes", req.path("notes"));
+        o.put("created_at", System.currentTimeMillis() / 1000);
+        return ok(o, "authorized");
+    }
+
+    private PspSimulator.Reply capture(String paymentId, JsonNode req, SplittableRandom rnd) throws JsonProcessingException {
+        if (rnd.nextDouble() < sim.ratio("razorpay", "capture", "decline-ratio")) {
+            return error(400, "BAD_REQUEST_ERROR", "Capture amount must be equal to the amount authorized");
+        }
+        Payment known;
+        synchronized (payments) {
+            known = payments.get(paymentId);
+            if (known != null) known.captured = true;
+        }
+        Map<String, Object> p = new LinkedHashMap<>();
+        p.put("id", paymentId);
+        p.put("entity", "payment");
+        p.put("amount", req.path("amount").asLong());
+        p.put("currency", req.path("currency").asText("INR"));
+        p.put("status", "captured");
+        p.put("order_id", known != null ? known.orderId : "order_sim" + ids.incrementAndGet());
+        p.put("method", "emi");
+        p.put("captured", true);
+        return ok(p, "captured");
+    }
+
+    private PspSimulator.Reply fetch(String paymentId) throws JsonProcessingException {
+        Payment known;
+        boolean captured;
+        synchronized (payments) {
+            known = payments.get(paymentId);
+            captured = known != null && known.captured;
+        }
+        if (known == null) return error(400, "BAD_REQUEST_ERROR", "The id provided does not exist");
+        Map<String, Object> p = new LinkedHashMap<>();
+        p.put("id", paymentId);
+        p.put("entity", "payment");
+        p.put("amount", known.amount);
+        p.put("currency", known.currency);
+        p.put("status", captured ? "captured" : "authorized");
+        p.put("order_id", known.orderId);
+        p.put("method", "emi");
+        p.put("captured", captured);
+        return ok(p, "ok");
+    }
+
+    private PspSimulator.Reply refund(String paymentId, JsonNode req) throws JsonProcessingException {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("id", "rfnd_sim" + ids.incrementAndGet());
+        r.put("entity", "refund");
+        r.put("payment_id", paymentId);
+        if (req.has("amount")) r.put("amount", req.get("amount").asLong());
+        r.put("currency", "INR");
+        r.put("status", "processed");
+        return ok(r, "refunded");
+    }
+
+    private PspSimulator.Reply ok(Map<String, Object> body, String outcome) throws JsonProcessingException {
+        return new PspSimulator.Reply(200, json.writeValueAsString(body), outcome);
+    }
+
+    private PspSimulator.Reply error(int status, String code, String description) {
+        Map<String, Object> err = new LinkedHashMap<>();
+        err.put("code", code);
+        err.put("description", description);
+        try {
+            return new PspSimulator.Reply(status, json.writeValueAsString(Map.of("error", err)),
+                    status == 429 ? "rate_limited" : status >= 500 ? "error" : "declined");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.tcs.payments.sim;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Simulator settings. Loaded from the bundled simulator.properties, then an optional file
+ * given on the command line, then -Dsim.* system properties (highest precedence).
+ *
+ * Behaviour keys are looked up as "provider.operation.key", then "provider.key", e.g.
+ * stripe.authorize.latency, stripe.error-rate, razorpay.capture.rate-limit-ratio.
+ */
+public final class SimulatorConfig {
+
+    private final Properties props = new Properties();
+    private final Map<String, LatencyModel> latencies = new ConcurrentHashMap<>();
+
+    public SimulatorConfig(String file) throws IOException {
+        try (InputStream in = SimulatorConfig.class.getResourceAsStream("/simulator.properties")) {
+            if (in != null) props.load(in);
+        }
+        if (file != null) {
+            try (Reader r = Files.newBufferedReader(Path.of(file), StandardCharsets.UTF_8)) {
+                props.load(r);
+            }
+        }
+        System.getProperties().forEach((k, v) -> {
+            String key = k.toString();
+            if (key.startsWith("sim.")) props.setProperty(key.substring(4), v.toString());
+        });
+    }
+
+    public String get(String key, String def) {
+        return props.getProperty(key, def);
+    }
+
+    public int getInt(String key, int def) {
+        String v = props.getProperty(key);
+        return v == null || v.isBlank() ? def : Integer.parseInt(v.trim());
+    }
+
+    public long seed() {
+        return Long.parseLong(get("seed", "42"));
+    }
+
+    public double ratio(String provider, String op, String key) {
+        String v = lookup(provider, op, key);
+        return v == null ? 0.0 : Double.parseDouble(v.trim());
+    }
+
+    public int rateLimitPerSecond(String provider) {
+        return getInt(provider + ".rate-limit-per-second", 0);
+    }
+
+    public LatencyModel latency(String provider, String op) {
+        return latencies.computeIfAbsent(provider + "." + op, k -> {
+            String spec = lookup(provider, op, "latency");
+            return LatencyModel.parse(spec == null ? "fixed:0" : spec);
+        });
+    }
+
+    private String lookup(String provider, String op, String key) {
+        String v = props.getProperty(provider + "." + op + "." + key);
+        return v != null ? v : props.getProperty(provider + "." + key);
+    }
+}
@@ -0,0 +1,183 @@
+package com.tcs.payments.sim;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * The slice of the Stripe API used by the Stripe providers:
+ * POST /v1/payment_intents, POST /v1/payment_intents/{id}/capture, POST /v1/refunds, GET /v1/balance.
+ * Idempotency-Key replays the first stored response, like Stripe (429 and 5xx are not stored).
+ */
+final class StripeApi {
+
+    private static final Pattern CAPTURE = Pattern.compile("/v1/payment_intents/([^/]+)/capture");
+    private static final int MAX_IDEMPOTENT = 100_000;
+
+    private final PspSimulator sim;
+    private final ObjectMapper json;
+    private final AtomicLong ids = new AtomicLong();
+    private final Map<String, PspSimulator.Reply> idempotent = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PspSimulator.Reply> eldest) {
+            return size() > MAX_IDEMPOTENT;
+        }
+    };
+
+    StripeApi(PspSimulator sim, ObjectMapper json) {
+        this.sim = sim;
+        this.json = json;
+    }
+
+    void reset() {
+        synchronized (idempotent) {
+            idempotent.clear();
+        }
+    }
+
+    PspSimulator.Delayed handle(HttpExchange ex, String path, String body) throws JsonProcessingException {
+        Map<String, String> form = parseForm(body);
+        String idemKey = ex.getRequestHeaders().getFirst("Idempotency-Key");
+        String op;
+        String key;
+        Matcher m = CAPTURE.matcher(path);
+        if (path.equals("/v1/payment_intents")) {
+            op = "authorize";
+            key = idemKey;
+        } else if (m.matches()) {
+            op = "capture";
+            key = m.group(1);
+        } else if (path.equals("/v1/refunds")) {
+            op = "refund";
+            key = idemKey != null ? idemKey : form.get("payment_intent");
+        } else if (path.equals("/v1/balance")) {
+            op = "balance";
+            key = null;
+        } else {
+            return new PspSimulator.Delayed("stripe", "unknown", error(404, "invalid_request_error", "resource_missing", "Unrecognized request URL"), 0);
+        }
+
+        SplittableRandom rnd = sim.random(op, key);
+        long delay = sim.delay("stripe", op, rnd);
+        if (idemKey != null) {
+            PspSimulator.Reply stored;
+            synchronized (idempotent) {
+                stored = idempotent.get(op + ":" + idemKey);
+            }
+            if (stored != null) return new PspSimulator.Delayed("stripe", op, stored, delay);
+        }
+
+        PspSimulator.Reply reply;
+        String fault = sim.injectFault("stripe", op, rnd);
+        if ("rate_limited".equals(fault)) {
+            reply = error(429, "invalid_request_error", "rate_limit", "Too many requests hit the API too quickly.");
+        } else if ("error".equals(fault)) {
+            reply = error(500, "api_error", null, "An unknown error occurred");
+        } else {
+            switch (op) {
+                case "authorize": reply = createIntent(form, rnd); break;
+                case "capture": reply = capture(m.group(1), form); break;
+                case "refund": reply = refund(form); break;
+                default: reply = ok(Map.of("object", "balance", "livemode", false,
+                        "available", new Object[0], "pending", new Object[0]), "ok");
+            }
+        }
+        if (idemKey != null && reply.status != 429 && reply.status < 500) {
+            synchronized (idempotent) {
+                idempotent.put(op + ":" + idemKey, reply);
+            }
+        }
+        return new PspSimulator.Delayed("stripe", op, reply, delay);
+    }
+
+    private PspSimulator.Reply createIntent(Map<String, String> form, SplittableRandom rnd) throws JsonProcessingException {
+        String paymentMethod = form.getOrDefault("payment_method", "");
+        if (paymentMethod.contains("Declined") || rnd.nextDouble() < sim.ratio("stripe", "authorize", "decline-ratio")) {
+            return error(402, "card_error", "card_declined", "Your card was declined.");
+        }
+        String id = "pi_sim" + ids.incrementAndGet();
+        // request_three_d_secure=any and 3DS test cards always challenge; otherwise a configured share does
+        boolean challenge = "any".equals(form.get("payment_method_options[card][request_three_d_secure]"))
+                || paymentMethod.contains("threeDSecure")
+                || rnd.nextDouble() < sim.ratio("stripe", "authorize", "requires-action-ratio");
+        Map<String, Object> pi = new LinkedHashMap<>();
+        pi.put("id", id);
+        pi.put("object", "payment_intent");
+        pi.put("amount", Long.parseLong(form.getOrDefault("amount", "0")));
+        pi.put("currency", form.getOrDefault("currency", "usd"));
+        pi.put("capture_method", form.getOrDefault("capture_method", "automatic"));
+        pi.put("client_secret", id + "_secret_sim");
+        pi.put("payment_method", paymentMethod);
+        pi.put("status", challenge ? "requires_action" : "requires_capture");
+        pi.put("livemode", false);
+        return ok(pi, challenge ? "requires_action" : "authorized");
+    }
+
+    private PspSimulator.Reply capture(String intentId, Map<String, String> form) throws JsonProcessingException {
+        Map<String, Object> pi = new LinkedHashMap<>();
+        pi.put("id", intentId);
+        pi.put("object", "payment_intent");
+        pi.put("status", "succeeded");
+        String chargeId = "ch_sim" + ids.incrementAndGet();
+        if (form.containsValue("latest_charge")) {
+            Map<String, Object> charge = new LinkedHashMap<>();
+            charge.put("id", chargeId);
+            charge.put("object", "charge");
+            charge.put("receipt_url", "https://pay.stripe.com/receipts/sim/" + chargeId);
+            pi.put("latest_charge", charge);
+        } else {
+            pi.put("latest_charge", chargeId);
+        }
+        pi.put("livemode", false);
+        return ok(pi, "captured");
+    }
+
+    private PspSimulator.Reply refund(Map<String, String> form) throws JsonProcessingException {
+        Map<String, Object> re = new LinkedHashMap<>();
+        re.put("id", "re_sim" + ids.incrementAndGet());
+        re.put("object", "refund");
+        re.put("payment_intent", form.get("payment_intent"));
+        if (form.containsKey("amount")) re.put("amount", Long.parseLong(form.get("amount")));
+        re.put("status", "succeeded");
+        return ok(re, "refunded");
+    }
+
+    private PspSimulator.Reply ok(Map<String, Object> body, String outcome) throws JsonProcessingException {
+        return new PspSimulator.Reply(200, json.writeValueAsString(body), outcome);
+    }
+
+    private PspSimulator.Reply error(int status, String type, String code, String message) {
+        Map<String, Object> err = new LinkedHashMap<>();
+        err.put("type", type);
+        if (code != null) err.put("code", code);
+        err.put("message", message);
+        try {
+            return new PspSimulator.Reply(status, json.writeValueAsString(Map.of("error", err)),
+                    status == 429 ? "rate_limited" : status >= 500 ? "error" : code);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, String> parseForm(String body) {
+        Map<String, String> out = new HashMap<>();
+        if (body == null || body.isEmpty()) return out;
+        for (String pair : body.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq < 0) continue;
+            out.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return out;
+    }
+}
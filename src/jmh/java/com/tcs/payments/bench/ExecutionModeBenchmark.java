@@ -0,0 +1,201 @@
+package com.tcs.payments.bench;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.tcs.payments.config.ExecutionConfig;
+import com.tcs.payments.ledger.PaymentLedger;
+import com.tcs.payments.model.PaymentRequest;
+import com.tcs.payments.model.PaymentResponse;
+import com.tcs.payments.provider.AuthorizationContext;
+import com.tcs.payments.provider.PaymentProvider;
+import com.tcs.payments.resilience.ProviderResilience;
+import com.tcs.payments.risk.FraudEngine;
+import com.tcs.payments.security.CryptoEngine;
+import com.tcs.payments.service.IdempotencyStore;
+import com.tcs.payments.service.InitiateMetrics;
+import com.tcs.payments.service.PaymentOrchestrator;
+import com.tcs.payments.service.PaymentsProperties;
+
+/**
+ * payments.execution.mode under load: each op is a wave of inFlight concurrent initiates against stub
+ * providers that block for pspLatencyMs, like a PSP round trip. platform runs them on a 200-thread pool
+ * (Tomcat's default max threads), virtual on the executor ExecutionConfig builds. payments/s is the
+ * throughput; the per-request p99 over each iteration's waves is printed at its end.
+ *
+ * virtual needs JDK 21+: mvn -Pbenchmarks verify -Djmh.args="ExecutionMode -jvm /path/to/jdk21/bin/java"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ExecutionModeBenchmark {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    @Param({"1000", "4000"})
+    public int inFlight;
+
+    @Param({"50"})
+    public int pspLatencyMs;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private PaymentOrchestrator orchestrator;
+    private Executor executor;
+    private String body;
+    private long[] latencies;
+    private long[] samples;
+    private int sampleCount;
+    private long[] iterationP99s = new long[0];
+
+    /** Requests completed, reported by JMH as a rate next to the wave time. */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Completed {
+        public long payments;
+    }
+
+    /** InitiateBenchmark's stub, after a blocking sleep standing in for the PSP round trip. */
+    static final class SlowProvider implements PaymentProvider {
+        private final PaymentProvider stub;
+        private final long latencyMs;
+
+        SlowProvider(String label, long latencyMs) {
+            this.stub = new InitiateBenchmark.StubProvider(label);
+            this.latencyMs = latencyMs;
+        }
+
+        @Override
+        public PaymentResponse authorize(PaymentRequest req, AuthorizationContext ctx) throws Exception {
+            Thread.sleep(latencyMs);
+            return stub.authorize(req, ctx);
+        }
+
+        @Override
+        public PaymentResponse capture(String intentId) throws Exception {
+            Thread.sleep(latencyMs);
+            return stub.capture(intentId);
+        }
+
+        @Override
+        public PaymentResponse refund(String paymentId, Integer amount) throws Exception {
+            Thread.sleep(latencyMs);
+            return stub.refund(paymentId, amount);
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        PaymentsProperties props = new PaymentsProperties();
+        props.getStripe().setSecretKey("sk_test_bench");
+        props.getRazorpay().setKeyId("rzp_test_bench");
+        props.getRazorpay().setKeySecret("bench");
+        props.getSecurity().setPciMetaKeyBase64("mB0Ltl3zlH8BFn6Xp0biUHk4owazHPF4In8GKa8v6S0=");
+        props.getIdempotency().setEnabled(false);
+        props.getLedger().setEnabled(false);
+        props.getExecution().setMode(mode);
+        props.setSupportedRegions(List.of(region("US", "USD", "stripe"), region("IN", "INR", "razorpay")));
+
+        ProviderResilience stubs = new ProviderResilience(props) {
+            @Override
+            public PaymentProvider wrap(String name, String providerLabel, PaymentProvider delegate) {
+                return new SlowProvider(providerLabel, pspLatencyMs);
+            }
+        };
+        // Thread-per-request: the request thread itself blocks on the PSP, so the pool is the concurrency limit
+        executor = "virtual".equals(mode)
+                ? new ExecutionConfig().paymentExecutor(props)
+                : Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+        orchestrator = new PaymentOrchestrator(props, Runnable::run, new IdempotencyStore(props),
+                new PaymentLedger(props), stubs, new InitiateMetrics(new SimpleMeterRegistry()),
+                new CryptoEngine(props), new FraudEngine(props, null, null, null));
+        body = Payloads.load("typical");
+        latencies = new long[inFlight];
+        samples = new long[inFlight * 16];
+    }
+
+    @Setup(Level.Iteration)
+    public void resetSamples() {
+        sampleCount = 0;
+    }
+
+    @TearDown
+    public void tearDown() {
+        ((ExecutorService) executor).shutdownNow();
+        long[] p99s = iterationP99s.clone();
+        Arrays.sort(p99s);
+        if (p99s.length > 0) {
+            System.out.printf("%n%s inFlight=%d: per-request p99 median over iterations %d ms%n",
+                    mode, inFlight, p99s[p99s.length / 2]);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void recordP99() {
+        if (sampleCount == 0) return;
+        long[] sorted = Arrays.copyOf(samples, sampleCount);
+        Arrays.sort(sorted);
+        long p99 = TimeUnit.NANOSECONDS.toMillis(sorted[(int) Math.ceil(sorted.length * 0.99) - 1]);
+        iterationP99s = Arrays.copyOf(iterationP99s, iterationP99s.length + 1);
+        iterationP99s[iterationP99s.length - 1] = p99;
+        System.out.printf(" (p99 %d ms)", p99);
+    }
+
+    private static PaymentsProperties.RegionConfig region(String code, String currency, String provider) {
+        PaymentsProperties.RegionConfig r = new PaymentsProperties.RegionConfig();
+        r.setCode(code);
+        r.setCurrency(currency);
+        r.setProvider(provider);
+        return r;
+    }
+
+    @Benchmark
+    public void wave(Completed completed) throws Exception {
+        CompletableFuture<?>[] wave = new CompletableFuture<?>[inFlight];
+        for (int i = 0; i < inFlight; i++) {
+            int slot = i;
+            long queued = System.nanoTime();
+            wave[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    orchestrator.initiate(json.readValue(body, PaymentRequest.class));
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                // From arrival, so time spent queued for a pool thread counts against the request
+                latencies[slot] = System.nanoTime() - queued;
+            }, executor);
+        }
+        CompletableFuture.allOf(wave).join();
+        if (sampleCount + inFlight > samples.length) samples = Arrays.copyOf(samples, samples.length * 2);
+        System.arraycopy(latencies, 0, samples, sampleCount, inFlight);
+        sampleCount += inFlight;
+        completed.payments += inFlight;
+    }
+}
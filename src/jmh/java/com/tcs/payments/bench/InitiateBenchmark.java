@@ -0,0 +1,123 @@
+package com.tcs.payments.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.tcs.payments.ledger.PaymentLedger;
+import com.tcs.payments.model.PaymentRequest;
+import com.tcs.payments.model.PaymentResponse;
+import com.tcs.payments.provider.AuthorizationContext;
+import com.tcs.payments.provider.PaymentProvider;
+import com.tcs.payments.resilience.ProviderResilience;
+import com.tcs.payments.risk.FraudEngine;
+import com.tcs.payments.security.CryptoEngine;
+import com.tcs.payments.service.IdempotencyStore;
+import com.tcs.payments.service.InitiateMetrics;
+import com.tcs.payments.service.PaymentOrchestrator;
+import com.tcs.payments.service.PaymentsProperties;
+
+/**
+ * Full PaymentOrchestrator.initiate (JSON binding, coupon, fraud, 3DS, metadata encryption, routing)
+ * with every provider replaced by an in-memory stub. Idempotency and the ledger are disabled so
+ * the numbers are CPU cost only, not disk or PSP latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InitiateBenchmark {
+
+    @Param({"small", "typical", "large"})
+    public String payload;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private PaymentOrchestrator orchestrator;
+    private String body;
+
+    /** Answers authorize/capture/refund locally. */
+    static final class StubProvider implements PaymentProvider {
+        private final String label;
+        private final AtomicLong ids = new AtomicLong();
+
+        StubProvider(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public PaymentResponse authorize(PaymentRequest req, AuthorizationContext ctx) {
+            PaymentResponse r = PaymentResponse.of(ctx.isRequest3ds()
+                    ? PaymentResponse.Status.REQUIRES_ACTION : PaymentResponse.Status.AUTHORIZED, label);
+            r.setIntentId("stub_" + ids.incrementAndGet());
+            return r;
+        }
+
+        @Override
+        public PaymentResponse capture(String intentId) {
+            PaymentResponse r = PaymentResponse.of(PaymentResponse.Status.CAPTURED, label);
+            r.setIntentId(intentId);
+            return r;
+        }
+
+        @Override
+        public PaymentResponse refund(String paymentId, Integer amount) {
+            PaymentResponse r = PaymentResponse.of(PaymentResponse.Status.CAPTURED, label);
+            r.setIntentId(paymentId);
+            return r;
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        PaymentsProperties props = new PaymentsProperties();
+        props.getStripe().setSecretKey("sk_test_bench");
+        props.getRazorpay().setKeyId("rzp_test_bench");
+        props.getRazorpay().setKeySecret("bench");
+        props.getSecurity().setPciMetaKeyBase64("mB0Ltl3zlH8BFn6Xp0biUHk4owazHPF4In8GKa8v6S0=");
+        props.getIdempotency().setEnabled(false);
+        props.getLedger().setEnabled(false);
+        props.setSupportedRegions(List.of(region("US", "USD", "stripe"), region("IN", "INR", "razorpay")));
+
+        // Swap every provider for a stub at the resilience seam
+        ProviderResilience stubs = new ProviderResilience(props) {
+            @Override
+            public PaymentProvider wrap(String name, String providerLabel, PaymentProvider delegate) {
+                return new StubProvider(providerLabel);
+            }
+        };
+        orchestrator = new PaymentOrchestrator(props, Runnable::run, new IdempotencyStore(props),
+                new PaymentLedger(props), stubs, new InitiateMetrics(new SimpleMeterRegistry()),
+                new CryptoEngine(props), new FraudEngine(props, null, null, null));
+        body = Payloads.load(payload);
+    }
+
+    private static PaymentsProperties.RegionConfig region(String code, String currency, String provider) {
+        PaymentsProperties.RegionConfig r = new PaymentsProperties.RegionConfig();
+        r.setCode(code);
+        r.setCurrency(currency);
+        r.setProvider(provider);
+        return r;
+    }
+
+    @Benchmark
+    public PaymentResponse initiate() throws Exception {
+        // Bind per call, as the controller does; initiate also mutates the request
+        return orchestrator.initiate(json.readValue(body, PaymentRequest.class));
+    }
+}
@@ -0,0 +1,26 @@
+package com.tcs.payments.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sample PaymentRequest bodies used by the benchmarks (src/jmh/resources/payloads):
+ * - small: COD in IN, bare customer (~160 B)
+ * - typical: card in US with coupon and a few metadata entries (~0.5 KB)
+ * - large: EMI in IN with a 60-line cart in metadata (~5 KB)
+ */
+public final class Payloads {
+
+    private Payloads() {}
+
+    public static String load(String name) {
+        try (InputStream in = Payloads.class.getResourceAsStream("/payloads/" + name + ".json")) {
+            if (in == null) throw new IllegalArgumentException("No payload " + name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.tcs.payments.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.tcs.payments.api.PaymentJson;
+import com.tcs.payments.api.PaymentJsonModule;
+import com.tcs.payments.model.PaymentRequest;
+import com.tcs.payments.model.PaymentResponse;
+
+/**
+ * PaymentRequest binding and PaymentResponse writing: stock Jackson (reflective bean (de)serializers,
+ * configured like application.yml) against PaymentJson, called directly and through PaymentJsonModule.
+ * The profile runs with -prof gc, so gc.alloc.rate.norm gives bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentJsonBenchmark {
+
+    @Param({"small", "typical", "large"})
+    public String payload;
+
+    private final ObjectMapper stock = JsonMapper.builder()
+            .enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .serializationInclusion(JsonInclude.Include.NON_NULL)
+            .build();
+    private final ObjectMapper withModule = JsonMapper.builder()
+            .enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .addModule(new PaymentJsonModule())
+            .build();
+    private byte[] body;
+    private PaymentResponse response;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+
+    @Setup
+    public void setUp() {
+        body = Payloads.load(payload).getBytes(StandardCharsets.UTF_8);
+        response = PaymentResponse.of(PaymentResponse.Status.REQUIRES_ACTION, "Stripe");
+        response.setIntentId("pi_3QxYz2FXsdj6jjAL0abcdEFG");
+        response.setClientSecret("pi_3QxYz2FXsdj6jjAL0abcdEFG_secret_Wq1lPz9mXo2bTn7vKc4Rj");
+        response.setRedirectUrl("https://hooks.stripe.com/3d_secure_2/hosted?merchant=acct_1ShunD&payment_intent=pi_3QxYz2");
+    }
+
+    @Benchmark
+    public PaymentRequest readStockJackson() throws Exception {
+        return stock.readValue(body, PaymentRequest.class);
+    }
+
+    @Benchmark
+    public PaymentRequest readModule() throws Exception {
+        return withModule.readValue(body, PaymentRequest.class);
+    }
+
+    @Benchmark
+    public PaymentRequest readDirect() throws Exception {
+        try (JsonParser p = withModule.createParser(body)) {
+            p.nextToken();
+            return PaymentJson.readRequest(p);
+        }
+    }
+
+    @Benchmark
+    public byte[] writeStockJackson() throws Exception {
+        return stock.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] writeModule() throws Exception {
+        return withModule.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public int writeDirect() throws Exception {
+        out.reset();
+        try (JsonGenerator g = withModule.createGenerator(out)) {
+            PaymentJson.writeResponse(response, g);
+        }
+        return out.size();
+    }
+}
@@ -0,0 +1,76 @@
+package com.tcs.payments.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcs.payments.model.PaymentRequest;
+import com.tcs.payments.policy.PolicyEvaluator;
+import com.tcs.payments.policy.PolicyResult;
+import com.tcs.payments.policy.RegionResolver;
+import com.tcs.payments.risk.FraudEngine;
+import com.tcs.payments.service.CouponsService;
+import com.tcs.payments.service.PaymentsProperties;
+
+/**
+ * Per-request rule evaluation: fraud score, coupon, region policy and currency lookup.
+ * Policy/region INFO logging is turned down so the numbers show rule cost, not console I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RulesBenchmark {
+
+    @Param({"small", "typical", "large"})
+    public String payload;
+
+    private final FraudEngine fraud = new FraudEngine(new PaymentsProperties(), null, null, null);
+    private final CouponsService coupons = new CouponsService();
+    private final RegionResolver resolver = new RegionResolver();
+    private final PolicyEvaluator policy = new PolicyEvaluator(resolver);
+    private PaymentRequest req;
+    private String currency;
+
+    @Setup
+    public void setUp() throws Exception {
+        Logger.getLogger("com.tcs.payments.policy").setLevel(Level.WARNING);
+        req = new ObjectMapper().readValue(Payloads.load(payload), PaymentRequest.class);
+        currency = req.getAmount().getCurrency().name();
+    }
+
+    @Benchmark
+    public FraudEngine.Verdict fraudEvaluate() {
+        return fraud.evaluate(req);
+    }
+
+    @Benchmark
+    public CouponsService.Result couponApply() {
+        return coupons.apply(req.getRegion(), req.getAmount(), req.getCouponCode());
+    }
+
+    @Benchmark
+    public PolicyResult policyEvaluate() {
+        return policy.evaluate(req);
+    }
+
+    @Benchmark
+    public Object resolveByCurrency() {
+        return resolver.resolveByCurrency(currency);
+    }
+}
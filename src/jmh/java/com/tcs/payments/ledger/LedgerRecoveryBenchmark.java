@@ -0,0 +1,97 @@
+package com.tcs.payments.ledger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tcs.payments.service.PaymentsProperties;
+
+/**
+ * Startup recovery time of a PaymentLedger holding tens of millions of records (4 per intent), in
+ * seconds per recovery. "snapshot" is the default compaction (snapshot every 4 segment rolls, replay the
+ * tail); "replay" never snapshots, so every segment is replayed. Setup writes the ledger once per trial
+ * and takes a few minutes; the index needs a large heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx16g")
+public class LedgerRecoveryBenchmark {
+
+    private static final int WRITERS = 64;
+
+    @Param({"10000000", "30000000"})
+    public int records;
+
+    @Param({"snapshot", "replay"})
+    public String compaction;
+
+    private Path dir;
+    private PaymentsProperties props;
+
+    @Setup
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("ledger-recovery-bench");
+        props = new PaymentsProperties();
+        props.getLedger().setDir(dir.toString());
+        props.getLedger().setForceOnCommit(false);
+        props.getLedger().setSnapshotEverySegments("snapshot".equals(compaction) ? 4 : Integer.MAX_VALUE);
+        PaymentLedger ledger = new PaymentLedger(props);
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                int writer = w;
+                writers.add(pool.submit(() -> {
+                    for (long n = writer; n < records; n += WRITERS) {
+                        LedgerEntry e = LedgerEntry.of(LedgerEntry.Type.values()[(int) (n & 3)], "Stripe",
+                                "pi_" + (n >>> 2), 5_000, "USD");
+                        e.idempotencyKey = "idem-" + (n >>> 2);
+                        ledger.record(e);
+                    }
+                }));
+            }
+            for (Future<?> f : writers) f.get();
+        } finally {
+            pool.shutdown();
+            ledger.close();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        LedgerWriteBenchmark.delete(dir);
+    }
+
+    @Benchmark
+    public PaymentState recover() {
+        // The constructor recovers before it returns; close() leaves the files as they were
+        PaymentLedger ledger = new PaymentLedger(props);
+        try {
+            return ledger.find("pi_0");
+        } finally {
+            ledger.close();
+        }
+    }
+}
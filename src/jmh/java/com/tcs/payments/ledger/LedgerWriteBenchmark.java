@@ -0,0 +1,79 @@
+package com.tcs.payments.ledger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tcs.payments.service.PaymentsProperties;
+
+/**
+ * PaymentLedger.record throughput with 64 concurrent writers, one op = one durable record (the caller
+ * waits for its batch). forceOnCommit=true is the production setting: one msync per group-committed
+ * batch, so throughput should scale with batch size rather than with the number of writers. Segments
+ * roll and snapshots are written during the run, so their cost is included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class LedgerWriteBenchmark {
+
+    @Param({"true", "false"})
+    public boolean forceOnCommit;
+
+    private final AtomicLong next = new AtomicLong();
+    private Path dir;
+    private PaymentLedger ledger;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("ledger-write-bench");
+        PaymentsProperties props = new PaymentsProperties();
+        props.getLedger().setDir(dir.toString());
+        props.getLedger().setForceOnCommit(forceOnCommit);
+        ledger = new PaymentLedger(props);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        ledger.close();
+        delete(dir);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void record() {
+        long n = next.getAndIncrement();
+        // Four transitions per intent, as initiate/capture/refund would write them
+        LedgerEntry e = LedgerEntry.of(LedgerEntry.Type.values()[(int) (n & 3)], "Stripe", "pi_" + (n >>> 2),
+                5_000, "USD");
+        e.idempotencyKey = "idem-" + (n >>> 2);
+        ledger.record(e);
+    }
+
+    static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.tcs.payments.provider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.KeyStore;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stripe.StripeClient;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import com.tcs.payments.model.Amount;
+import com.tcs.payments.model.Currency;
+import com.tcs.payments.model.PaymentRequest;
+import com.tcs.payments.model.PaymentResponse;
+
+/**
+ * Card authorize through CardProviderStripe against a local HTTPS stand-in (self-signed certificate made
+ * with keytool at setup), to show what connection setup adds per call. SampleTime, so the output has
+ * p50/p99. 16 callers, one JVM per variant since the JDK reads these properties once:
+ *   keepAlive     http.maxConnections=64, as PaymentsApplication sets it: every caller reuses a connection
+ *   jdkDefault    the JDK's 5 idle connections per host: most calls close theirs, the next one reconnects
+ *   noKeepAlive   http.keepAlive=false: TCP connect and TLS handshake on every call
+ * The stand-in answers at once, so the numbers are client and handshake cost over loopback, not PSP
+ * latency; connections opened per call are printed at the end of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+public class StripeConnectionBenchmark {
+
+    private static final char[] PASSWORD = "changeit".toCharArray();
+    private static final byte[] AUTHORIZED_INTENT = ("{\"id\":\"pi_bench\",\"object\":\"payment_intent\","
+            + "\"status\":\"requires_capture\",\"client_secret\":\"pi_bench_secret_1\"}").getBytes(StandardCharsets.UTF_8);
+
+    private final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+    private final LongAdder calls = new LongAdder();
+    private Path dir;
+    private HttpsServer server;
+    private ExecutorService serverThreads;
+    private PaymentProvider card;
+    private PaymentRequest request;
+    private AuthorizationContext ctx;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        // The JDK server otherwise sends headers and body in separate packets and waits on delayed ACKs
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        dir = Files.createTempDirectory("stripe-standin");
+        SSLContext tls = selfSigned(dir.resolve("standin.p12"));
+
+        serverThreads = Executors.newFixedThreadPool(32);
+        server = HttpsServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setHttpsConfigurator(new HttpsConfigurator(tls));
+        server.createContext("/", this::answer);
+        server.setExecutor(serverThreads);
+        server.start();
+
+        // stripe-java opens HttpsURLConnections with the default socket factory
+        HttpsURLConnection.setDefaultSSLSocketFactory(tls.getSocketFactory());
+        StripeClient client = StripeClient.builder()
+                .setApiKey("sk_test_bench")
+                .setApiBase("https://localhost:" + server.getAddress().getPort())
+                .setMaxNetworkRetries(0)
+                .build();
+        card = new CardProviderStripe(client);
+
+        request = new PaymentRequest();
+        request.setIdempotencyKey("idem-bench");
+        request.setCardToken("pm_card_visa");
+        Amount amount = new Amount();
+        amount.setValue(5_000);
+        amount.setCurrency(Currency.USD);
+        request.setAmount(amount);
+        request.setMetadata(Map.of("encMeta", "AQAAAA"));
+        ctx = new AuthorizationContext(false, false, List.of(), Map.of());
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        server.stop(0);
+        serverThreads.shutdownNow();
+        System.out.printf("%n%d calls over %d connections (http.keepAlive=%s, http.maxConnections=%s)%n", calls.sum(),
+                connections.size(), System.getProperty("http.keepAlive", "true"), System.getProperty("http.maxConnections", "5"));
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dhttp.maxConnections=64")
+    public PaymentResponse keepAlive() throws Exception {
+        return card.authorize(request, ctx);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dhttp.maxConnections=5")
+    public PaymentResponse jdkDefault() throws Exception {
+        return card.authorize(request, ctx);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dhttp.keepAlive=false")
+    public PaymentResponse noKeepAlive() throws Exception {
+        return card.authorize(request, ctx);
+    }
+
+    private void answer(HttpExchange ex) throws IOException {
+        connections.add(ex.getRemoteAddress());
+        calls.increment();
+        ex.getRequestBody().readAllBytes();
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(200, AUTHORIZED_INTENT.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(AUTHORIZED_INTENT);
+        }
+    }
+
+    /** Key pair for localhost from keytool, used by the server as its key and by the client as its trust store. */
+    private static SSLContext selfSigned(Path keystore) throws Exception {
+        Process keytool = new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "keytool").toString(),
+                "-genkeypair", "-alias", "standin", "-keyalg", "EC", "-groupname", "secp256r1",
+                "-dname", "CN=localhost", "-ext", "SAN=dns:localhost", "-validity", "1",
+                "-storetype", "PKCS12", "-keystore", keystore.toString(),
+                "-storepass", new String(PASSWORD), "-keypass", new String(PASSWORD))
+                .redirectErrorStream(true)
+                .start();
+        keytool.getInputStream().readAllBytes();
+        if (keytool.waitFor() != 0) throw new IllegalStateException("keytool failed");
+
+        KeyStore ks = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(keystore)) {
+            ks.load(in, PASSWORD);
+        }
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        kmf.init(ks, PASSWORD);
+        TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        tmf.init(ks);
+        SSLContext tls = SSLContext.getInstance("TLS");
+        tls.init(kmf.getKeyManagers(), tmf.getTrustManagers(), null);
+        return tls;
+    }
+}
@@ -0,0 +1,104 @@
+package com.tcs.payments.risk;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tcs.payments.model.Amount;
+import com.tcs.payments.model.Currency;
+import com.tcs.payments.model.Customer;
+import com.tcs.payments.model.PaymentMethod;
+import com.tcs.payments.model.PaymentRequest;
+import com.tcs.payments.model.RegionCode;
+
+/**
+ * Denylist lookups against 1M listed emails, in ns/op: a miss (usually answered by the bloom filter), a hit
+ * (bloom plus index), and CustomerRiskProfiles.check for a payment whose card token, email and phone are
+ * all unlisted (three probes). None of them should allocate (gc.alloc.rate.norm ~0).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DenylistBenchmark {
+
+    private static final int ENTRIES = 1_000_000;
+    private static final int KEYS = 1 << 12;
+
+    private Path dir;
+    private Denylist denylist;
+    private CustomerRiskProfiles profiles;
+    private final String[] misses = new String[KEYS];
+    private final String[] hits = new String[KEYS];
+    private final PaymentRequest[] payments = new PaymentRequest[KEYS];
+    private final FraudEngine.Verdict verdict = new FraudEngine.Verdict();
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("denylist-bench");
+        Path file = dir.resolve("denylist.txt");
+        try (BufferedWriter w = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < ENTRIES; i++) w.write("email:bad" + i + "@example.com\n");
+        }
+        denylist = new Denylist(file.toString(), 0, ENTRIES);
+        profiles = new CustomerRiskProfiles(denylist);
+        for (int i = 0; i < KEYS; i++) {
+            misses[i] = "user" + i + "@example.com";
+            hits[i] = "bad" + (i * 241) + "@example.com";
+            PaymentRequest r = new PaymentRequest();
+            Customer c = new Customer();
+            c.setId("cus_" + i);
+            c.setEmail(misses[i]);
+            c.setPhone("+1 555 " + (1_000_000 + i));
+            r.setCustomer(c);
+            r.setRegion(RegionCode.US);
+            r.setMethod(PaymentMethod.CARD);
+            r.setCardToken("pm_card_" + i);
+            r.setAmount(new Amount(5_000, Currency.USD));
+            payments[i] = r;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        denylist.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public boolean miss() {
+        return denylist.contains(VelocityTracker.Key.EMAIL, misses[next++ & (KEYS - 1)]);
+    }
+
+    @Benchmark
+    public boolean hit() {
+        return denylist.contains(VelocityTracker.Key.EMAIL, hits[next++ & (KEYS - 1)]);
+    }
+
+    @Benchmark
+    public int customerCheck() {
+        profiles.check(payments[next++ & (KEYS - 1)], verdict);
+        return verdict.denylisted;
+    }
+}
@@ -0,0 +1,84 @@
+package com.tcs.payments.risk;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcs.payments.bench.Payloads;
+import com.tcs.payments.model.PaymentRequest;
+
+/**
+ * FraudEngine.evaluate with velocity counts and a 100k-entry denylist, in ns/op: check groups one after
+ * another vs. in parallel under the deadline. The difference is the price of the executor hand-off, paid
+ * for bounding a slow group (e.g. a denylist page fault) to deadline-millis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FraudEngineBenchmark {
+
+    @Param({"sequential", "parallel"})
+    public String mode;
+
+    private Path dir;
+    private Denylist denylist;
+    private ExecutorService executor;
+    private FraudEngine engine;
+    private PaymentRequest req;
+    private final FraudEngine.Verdict reused = new FraudEngine.Verdict();
+
+    @Setup
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("fraud-bench");
+        Path file = dir.resolve("denylist.txt");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) sb.append("email:bad").append(i).append("@example.com\n");
+        Files.writeString(file, sb);
+        denylist = new Denylist(file.toString(), 0, 100_000);
+        executor = mode.equals("parallel") ? Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()) : null;
+        FraudRules rules;
+        try (var in = FraudEngine.class.getResourceAsStream("/fraud-rules.json")) {
+            rules = FraudRules.parse(in);
+        }
+        engine = FraudEngine.withRules(rules, new VelocityTracker(true, 50_000, 4, 8192),
+                new CustomerRiskProfiles(denylist), executor, 50, FraudEngine.Action.REVIEW);
+        req = new ObjectMapper().readValue(Payloads.load("typical"), PaymentRequest.class);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (executor != null) executor.shutdownNow();
+        denylist.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public FraudEngine.Action evaluate() {
+        engine.evaluate(req, reused);
+        return reused.action;
+    }
+}
@@ -0,0 +1,99 @@
+package com.tcs.payments.risk;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcs.payments.bench.Payloads;
+import com.tcs.payments.model.PaymentRequest;
+
+/**
+ * FraudRules evaluation per request, in ns/op (budget: under 1 µs at 256 rules). "bundled" is the
+ * shipped fraud-rules.json; 256 is a generated ruleset using every condition type, 64 reasons and
+ * 24 coupon prefixes. evaluateInto reuses one Verdict, so gc.alloc.rate.norm should read ~0.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FraudRulesBenchmark {
+
+    @Param({"small", "typical", "large"})
+    public String payload;
+
+    @Param({"bundled", "256"})
+    public String rules;
+
+    private FraudEngine engine;
+    private PaymentRequest req;
+    private final FraudEngine.Verdict reused = new FraudEngine.Verdict();
+
+    @Setup
+    public void setUp() throws Exception {
+        engine = FraudEngine.withRules(rules.equals("bundled") ? null : FraudRules.parse(generated(256)), null, null,
+                null, 0, FraudEngine.Action.REVIEW);
+        req = new ObjectMapper().readValue(Payloads.load(payload), PaymentRequest.class);
+    }
+
+    @Benchmark
+    public long evaluateInto() {
+        engine.evaluate(req, reused);
+        return reused.reasonBits;
+    }
+
+    @Benchmark
+    public FraudEngine.Verdict evaluate() {
+        return engine.evaluate(req);
+    }
+
+    /** Deterministic ruleset cycling through the condition types. */
+    static String generated(int count) {
+        String[] regions = {"IN", "US", "EU", "UK", "AU", "SG", "AE", "JP", "CA"};
+        String[] methods = {"CARD", "APPLE_PAY", "GOOGLE_PAY", "COD", "EMI"};
+        String[] currencies = {"USD", "EUR", "INR", "GBP", "AUD", "SGD", "AED", "JPY", "CAD"};
+        StringBuilder sb = new StringBuilder("{\"version\":\"bench-").append(count)
+                .append("\",\"thresholds\":{\"review\":400,\"request3ds\":500,\"block\":800},\"rules\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"reason\":\"r").append(i % 64).append("\",\"score\":").append(1 + i % 37).append(",\"when\":{");
+            switch (i % 6) {
+                case 0:
+                    sb.append("\"amountAtLeast\":").append(1000L * (i + 1));
+                    break;
+                case 1:
+                    sb.append("\"region\":[\"").append(regions[i % regions.length]).append("\",\"")
+                            .append(regions[(i / 6) % regions.length]).append("\"],\"method\":\"")
+                            .append(methods[i % methods.length]).append('"');
+                    break;
+                case 2:
+                    sb.append("\"noEmail\":").append(i % 4 == 2).append(",\"noPhone\":true");
+                    break;
+                case 3:
+                    sb.append("\"couponPrefix\":\"P").append(i % 24).append("\",\"amountBelow\":").append(500000 + i);
+                    break;
+                case 4:
+                    sb.append("\"currency\":[\"").append(currencies[i % currencies.length]).append("\"],\"saveCard\":")
+                            .append(i % 8 == 4);
+                    break;
+                default:
+                    sb.append("\"hasCoupon\":true,\"amountAtLeast\":").append(100L * i).append(",\"amountBelow\":")
+                            .append(100L * i + 50000);
+            }
+            sb.append("}}");
+        }
+        return sb.append("]}").toString();
+    }
+}
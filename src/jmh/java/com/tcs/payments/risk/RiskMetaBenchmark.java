@@ -0,0 +1,103 @@
+package com.tcs.payments.risk;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcs.payments.security.ThreeDSDecider;
+
+/**
+ * encMeta payload: RiskMetaCodec against the JSON PaymentOrchestrator used to build (new ObjectMapper
+ * per request, and a shared one for reference). Plaintext sizes of both are printed at the end of each
+ * trial; encMeta adds 37 bytes (key id header, IV, tag) and Base64's 4/3 on top.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RiskMetaBenchmark {
+
+    /** none: clean low-value order; one: generic coupon; all: every reason, 3DS requested. */
+    @Param({"none", "one", "all"})
+    public String verdict;
+
+    private final ObjectMapper shared = new ObjectMapper();
+    private FraudEngine.Verdict v;
+    private ThreeDSDecider.Decision d;
+    private byte[] buffer;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        v = new FraudEngine.Verdict();
+        switch (verdict) {
+            case "none":
+                v.reasons = List.of();
+                break;
+            case "one":
+                v.reasons = List.of("generic_coupon");
+                v.score = 5;
+                break;
+            default:
+                v.reasons = List.of("high_amount", "region_method_mismatch", "low_customer_signal", "generic_coupon");
+                v.score = 70;
+        }
+        v.action = v.score >= 50 ? FraudEngine.Action.REQUEST_3DS : FraudEngine.Action.ALLOW;
+        d = new ThreeDSDecider().decide(ThreeDSDecider.Pref.RISK_BASED, v.action);
+        buffer = new byte[64];
+        encoded = RiskMetaCodec.encode(v, d);
+    }
+
+    @TearDown(Level.Trial)
+    public void printSizes() throws Exception {
+        System.out.printf("%n[%s] json %d bytes, binary %d bytes%n", verdict, json(shared).length, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] jsonPerRequestMapper() throws Exception {
+        return json(new ObjectMapper());
+    }
+
+    @Benchmark
+    public byte[] jsonSharedMapper() throws Exception {
+        return json(shared);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return RiskMetaCodec.encode(v, d);
+    }
+
+    @Benchmark
+    public int binaryEncodeReusedBuffer() {
+        return RiskMetaCodec.encode(v, d, buffer, 0);
+    }
+
+    @Benchmark
+    public RiskMetaCodec.RiskMeta binaryDecode() {
+        return RiskMetaCodec.decode(encoded);
+    }
+
+    private byte[] json(ObjectMapper mapper) throws Exception {
+        String json = "{\"reasons\":" + mapper.writeValueAsString(v.reasons)
+                + ",\"threeDS\":" + mapper.writeValueAsString(d) + "}";
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
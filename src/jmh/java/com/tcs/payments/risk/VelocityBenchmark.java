@@ -0,0 +1,87 @@
+package com.tcs.payments.risk;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tcs.payments.model.Amount;
+import com.tcs.payments.model.Currency;
+import com.tcs.payments.model.Customer;
+import com.tcs.payments.model.PaymentMethod;
+import com.tcs.payments.model.PaymentRequest;
+import com.tcs.payments.model.RegionCode;
+
+/**
+ * VelocityTracker.record throughput, one op = one attempt (4 key updates, 12 window reads). Target:
+ * well over 100k ops/s on all cores. Traffic is skewed: half the attempts come from 1,000 hot customers,
+ * the rest from 200k, so the exact tier (default 50k keys) fills up and the sketch takes the long tail.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VelocityBenchmark {
+
+    private static final int POOL = 1 << 16;
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+        final VelocityTracker tracker = new VelocityTracker(true, 50_000, 4, 8192);
+        final PaymentRequest[] requests = new PaymentRequest[POOL];
+
+        @Setup
+        public void setUp() {
+            Random rnd = new Random(42);
+            for (int i = 0; i < POOL; i++) {
+                int customer = rnd.nextBoolean() ? rnd.nextInt(1_000) : 1_000 + rnd.nextInt(200_000);
+                PaymentRequest r = new PaymentRequest();
+                Customer c = new Customer();
+                c.setEmail("user" + customer + "@example.com");
+                c.setPhone("+1 555 " + (1_000_000 + customer));
+                r.setCustomer(c);
+                r.setRegion(RegionCode.US);
+                r.setMethod(customer % 3 == 0 ? PaymentMethod.APPLE_PAY : PaymentMethod.CARD);
+                if (customer % 3 == 0) r.setWalletToken("tok_wallet_" + customer);
+                else r.setCardToken("pm_card_" + customer + "_" + (customer % 2));
+                r.setAmount(new Amount(1_000 + rnd.nextInt(100_000), Currency.USD));
+                requests[i] = r;
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        final int[] counts = new int[VelocityTracker.DIMENSIONS];
+        int next = (int) (Thread.currentThread().getId() * 7919);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int recordOneThread(Shared s, Cursor c) {
+        return record(s, c);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public int recordAllCores(Shared s, Cursor c) {
+        return record(s, c);
+    }
+
+    private static int record(Shared s, Cursor c) {
+        PaymentRequest r = s.requests[c.next++ & (POOL - 1)];
+        s.tracker.record(r, System.currentTimeMillis(), c.counts);
+        return c.counts[0];
+    }
+}
@@ -0,0 +1,93 @@
+package com.tcs.payments.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tcs.payments.bench.Payloads;
+
+/**
+ * AES-GCM encryption of PCI metadata: CryptoEngine against the per-call Cipher.getInstance +
+ * new SecureRandom that CryptoUtil did, single-threaded and with 8 threads sharing one instance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CryptoBenchmark {
+
+    // Same test key as application.yml
+    private static final String KEY = "mB0Ltl3zlH8BFn6Xp0biUHk4owazHPF4In8GKa8v6S0=";
+
+    @Param({"small", "typical", "large"})
+    public String payload;
+
+    private CryptoEngine engine;
+    private SecretKeySpec key;
+    private byte[] plaintext;
+    private byte[] encrypted;
+
+    @Setup
+    public void setUp() throws Exception {
+        byte[] keyBytes = Base64.getDecoder().decode(KEY);
+        engine = new CryptoEngine(keyBytes);
+        key = new SecretKeySpec(keyBytes, "AES");
+        plaintext = Payloads.load(payload).getBytes(StandardCharsets.UTF_8);
+        encrypted = engine.encrypt(plaintext);
+    }
+
+    @Benchmark
+    public byte[] perCallEncrypt() throws Exception {
+        byte[] iv = new byte[12];
+        new SecureRandom().nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, iv));
+        byte[] ct = cipher.doFinal(plaintext);
+        byte[] out = new byte[iv.length + ct.length];
+        System.arraycopy(iv, 0, out, 0, iv.length);
+        System.arraycopy(ct, 0, out, iv.length, ct.length);
+        return out;
+    }
+
+    @Benchmark
+    public byte[] engineEncrypt() throws Exception {
+        return engine.encrypt(plaintext);
+    }
+
+    @Benchmark
+    public byte[] engineDecrypt() throws Exception {
+        return engine.decrypt(encrypted);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public byte[] perCallEncryptContended() throws Exception {
+        return perCallEncrypt();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public byte[] engineEncryptContended() throws Exception {
+        return engine.encrypt(plaintext);
+    }
+}
@@ -0,0 +1,47 @@
+package com.tcs.payments.security;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tcs.payments.bench.Payloads;
+import com.tcs.payments.service.PaymentsProperties;
+
+/** PCI body scan run by PciGuardFilter on every POST /api request. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PciGuardBenchmark {
+
+    @Param({"small", "typical", "large"})
+    public String payload;
+
+    private final PciGuardFilter filter = new PciGuardFilter(new PaymentsProperties(),
+            new BodyBufferPool(new PaymentsProperties()));
+    private ByteBuffer body;
+
+    @Setup
+    public void setUp() {
+        body = ByteBuffer.wrap(Payloads.load(payload).getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+    }
+
+    @Benchmark
+    public boolean containsPciData() {
+        return filter.containsPciData(body);
+    }
+}
@@ -0,0 +1,63 @@
+package com.tcs.payments.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PciScanner against the four-regex check PciGuardFilter used before it, on clean bodies of 1 KB to 1 MB
+ * (the whole body is scanned either way). The body is kept on one line: the old ".*x.*" patterns
+ * stop at the first newline, which would flatter them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PciScanBenchmark {
+
+    @Param({"1024", "16384", "131072", "1048576"})
+    public int size;
+
+    private final PciScanner scanner = new PciScanner(true);
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder(size + 128)
+                .append("{\"idempotencyKey\":\"bench-scan-0001\",\"region\":\"IN\",\"method\":\"EMI\",")
+                .append("\"customer\":{\"id\":\"cus_in_55120\",\"phone\":\"+919812345678\"},\"metadata\":{");
+        for (int i = 0; sb.length() < size - 64; i++) {
+            sb.append(String.format("\"line_%05d_sku\":\"SKU-%06d-BLUE-XL\",\"line_%05d_note\":\"gift wrap requested\",", i, i * 7, i));
+        }
+        sb.append("\"channel\":\"web\"}}");
+        bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public boolean regex() {
+        String body = new String(bytes, StandardCharsets.UTF_8);
+        boolean hasPan = body.matches(".*\\b\\d{12,19}\\b.*");
+        boolean hasCvv = body.matches(".*\\b(cvv|cvc)\\b.*");
+        boolean hasExpiry = body.matches(".*\\b(expiry|expMonth|expYear)\\b.*");
+        boolean hasCardNumberKey = body.matches(".*\\b(cardNumber)\\b.*");
+        return hasPan || hasCvv || hasExpiry || hasCardNumberKey;
+    }
+
+    @Benchmark
+    public boolean scanner() {
+        return scanner.containsPciData(bytes);
+    }
+}
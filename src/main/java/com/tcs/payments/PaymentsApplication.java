@@ -15,7 +15,16 @@ import com.tcs.payments.service.PaymentsProperties;
 @EnableConfigurationProperties(PaymentsProperties.class)
 public class PaymentsApplication {
 
+	// Idle keep-alive connections the JDK keeps per host (http.maxConnections, default 5); stripe-java sends
+	// over HttpURLConnection, so above that PSP calls close their connection and the next pays a new TLS handshake
+	static final String KEEP_ALIVE_CONNECTIONS = "64";
+
 	public static void main(String[] args) {
+	// Read once, on the JVM's first HTTP request, so it is set before Spring (and discovery) start;
+	// -Dhttp.maxConnections=N on the command line wins
+	if (System.getProperty("http.maxConnections") == null) {
+		System.setProperty("http.maxConnections", KEEP_ALIVE_CONNECTIONS);
+	}
 	SpringApplication.run(PaymentsApplication.class, args);
 
 	}
@@ -8,6 +8,7 @@ import org.springframework.web.bind.annotation.RestController;
 import com.tcs.payments.model.RegionCode;
 import com.tcs.payments.policy.RegionPolicy;
 import com.tcs.payments.policy.RegionResolver;
+import com.tcs.payments.service.PaymentOrchestrator;
 
 import java.util.EnumMap;
 import java.util.HashMap;
@@ -17,6 +18,12 @@ import java.util.Map;
 @RequestMapping("/debug")
 public class DebugController {
 
+    private final PaymentOrchestrator orchestrator;
+
+    public DebugController(PaymentOrchestrator orchestrator) {
+        this.orchestrator = orchestrator;
+    }
+
     @GetMapping("/policies")
     public Map<String, Object> dumpPolicies() {
         Map<String, Object> out = new HashMap<>();
@@ -40,4 +47,9 @@ public class DebugController {
         out.put("resolved", resolver.resolveByCurrency(currency));
         return out;
     }
+
+    @GetMapping("/remote-calls")
+    public Map<String, Map<String, Long>> remoteCalls() {
+        return orchestrator.remoteCallCounts();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+package com.tcs.payments.api;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+/**
+ * Error bodies as ready-made UTF-8 JSON, written by ByteArrayHttpMessageConverter without a trip
+ * through Jackson. Fixed bodies are built once; bodies with a message reuse a pre-encoded prefix and
+ * only escape the message.
+ */
+final class ErrorBodies {
+
+    static final byte[] EMPTY_BATCH = of("empty_batch");
+    static final byte[] MISSING_PARAMS = of("missing_params");
+    static final byte[] INVALID_JOB_ID = of("invalid_job_id");
+    static final byte[] INVALID_AMOUNT = of("invalid_amount");
+    static final byte[] IDEMPOTENCY_KEY_REUSED = of("idempotency_key_reused");
+    static final byte[] PCI_VIOLATION = utf8("{\"error\":\"pci_violation\",\"message\":\"Do not send PAN/CVV; use PSP tokenization.\"}");
+
+    static final byte[] SERVER_ERROR_PREFIX = prefix("server_error");
+    static final byte[] JOB_RUNNING_PREFIX = prefix("job_running");
+    static final byte[] JSON_PARSE_ERROR_PREFIX = prefix("json_parse_error");
+    static final byte[] PROVIDER_UNAVAILABLE_PREFIX = prefix("provider_unavailable");
+
+    private static final byte[] NULL_MESSAGE_SUFFIX = utf8("null}");
+
+    private ErrorBodies() {}
+
+    /** {"error":"&lt;error&gt;"} */
+    static byte[] of(String error) {
+        return utf8("{\"error\":\"" + error + "\"}");
+    }
+
+    /** {"error":"&lt;error&gt;","message": ... for withMessage. */
+    static byte[] prefix(String error) {
+        return utf8("{\"error\":\"" + error + "\",\"message\":");
+    }
+
+    /** prefix + message as a JSON string (null as JSON null) + "}". */
+    static byte[] withMessage(byte[] prefix, String message) {
+        if (message == null) {
+            byte[] out = new byte[prefix.length + NULL_MESSAGE_SUFFIX.length];
+            System.arraycopy(prefix, 0, out, 0, prefix.length);
+            System.arraycopy(NULL_MESSAGE_SUFFIX, 0, out, prefix.length, NULL_MESSAGE_SUFFIX.length);
+            return out;
+        }
+        byte[] escaped = JsonStringEncoder.getInstance().quoteAsUTF8(message);
+        byte[] out = new byte[prefix.length + escaped.length + 3];
+        System.arraycopy(prefix, 0, out, 0, prefix.length);
+        out[prefix.length] = '"';
+        System.arraycopy(escaped, 0, out, prefix.length + 1, escaped.length);
+        out[out.length - 2] = '"';
+        out[out.length - 1] = '}';
+        return out;
+    }
+
+    static ResponseEntity<byte[]> status(int status, byte[] body) {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    static ResponseEntity<byte[]> badRequest(byte[] body) {
+        return status(400, body);
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,43 @@
+package com.tcs.payments.api;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.tcs.payments.risk.FraudEngine;
+
+// Active fraud ruleset (version, rule count, reasons, thresholds) and forced reload of the rules file
+@RestController
+@RequestMapping("/admin/fraud-rules")
+public class FraudRulesController {
+
+    private static final Logger log = LoggerFactory.getLogger(FraudRulesController.class);
+
+    private final FraudEngine fraud;
+
+    public FraudRulesController(FraudEngine fraud) {
+        this.fraud = fraud;
+    }
+
+    @GetMapping
+    public Map<String, Object> rules() {
+        return fraud.describe();
+    }
+
+    @PostMapping("/reload")
+    public ResponseEntity<?> reload() {
+        try {
+            fraud.reload();
+            return ResponseEntity.ok(fraud.describe());
+        } catch (Exception e) {
+            log.error("fraud_rules_reload_error", e);
+            return ResponseEntity.unprocessableEntity().body(Map.of("error", "reload_failed", "message", String.valueOf(e.getMessage())));
+        }
+    }
+}
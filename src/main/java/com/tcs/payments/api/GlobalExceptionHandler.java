@@ -7,6 +7,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
 
+import com.tcs.payments.security.PciScanningParser;
+
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -23,12 +25,18 @@ public class GlobalExceptionHandler {
         ));
     }
 
+    // Parse-once rejections (PCI data, missing required fields) carry their own body
+    @org.springframework.web.bind.annotation.ExceptionHandler(PaymentRequestConverter.RejectedRequestException.class)
+    public ResponseEntity<?> handleRejected(PaymentRequestConverter.RejectedRequestException ex) {
+        if (ex.getCause() instanceof PciScanningParser.PciViolationException) {
+            return ErrorBodies.badRequest(ErrorBodies.PCI_VIOLATION);
+        }
+        return ResponseEntity.badRequest().body(ex.getBody());
+    }
+
     @org.springframework.web.bind.annotation.ExceptionHandler(HttpMessageNotReadableException.class)
-    public ResponseEntity<Map<String, Object>> handleJsonBinding(HttpMessageNotReadableException ex) {
+    public ResponseEntity<byte[]> handleJsonBinding(HttpMessageNotReadableException ex) {
         String message = ex.getMostSpecificCause() != null ? ex.getMostSpecificCause().getMessage() : ex.getMessage();
-        return ResponseEntity.badRequest().body(Map.of(
-            "error", "json_parse_error",
-            "message", message
-        ));
+        return ErrorBodies.badRequest(ErrorBodies.withMessage(ErrorBodies.JSON_PARSE_ERROR_PREFIX, message));
     }
 }
@@ -0,0 +1,70 @@
+package com.tcs.payments.api;
+
+import java.io.FileNotFoundException;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.tcs.payments.security.CryptoEngine;
+import com.tcs.payments.security.EncMetaRekeyJob;
+
+// encMeta key ring status, reload and bulk re-keying; never returns key material
+@RestController
+@RequestMapping("/admin/keys")
+public class KeysController {
+
+    private static final Logger log = LoggerFactory.getLogger(KeysController.class);
+
+    private final CryptoEngine crypto;
+    private final EncMetaRekeyJob rekey;
+
+    public KeysController(CryptoEngine crypto, EncMetaRekeyJob rekey) {
+        this.crypto = crypto;
+        this.rekey = rekey;
+    }
+
+    @GetMapping
+    public Map<String, Object> ring() {
+        return crypto.describe();
+    }
+
+    @PostMapping("/reload")
+    public ResponseEntity<?> reload() {
+        try {
+            crypto.reload();
+            return ResponseEntity.ok(crypto.describe());
+        } catch (Exception e) {
+            log.error("key_reload_error", e);
+            return ResponseEntity.status(500).body(Map.of("error", "reload_failed", "message", String.valueOf(e.getMessage())));
+        }
+    }
+
+    @PostMapping("/rekey/{jobId}")
+    public ResponseEntity<?> startRekey(@PathVariable String jobId) {
+        if (!EncMetaRekeyJob.isValidJobId(jobId))
+            return ResponseEntity.badRequest().body(Map.of("error", "invalid_job_id"));
+        try {
+            return ResponseEntity.accepted().body(rekey.start(jobId));
+        } catch (FileNotFoundException e) {
+            return ResponseEntity.status(404).body(Map.of("error", "input_not_found", "message", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("error", "job_running", "message", e.getMessage()));
+        } catch (Exception e) {
+            log.error("rekey_start_error", e);
+            return ResponseEntity.status(500).body(Map.of("error", "server_error", "message", String.valueOf(e.getMessage())));
+        }
+    }
+
+    @GetMapping("/rekey/{jobId}")
+    public ResponseEntity<?> rekeyStatus(@PathVariable String jobId) {
+        Map<String, Object> status = EncMetaRekeyJob.isValidJobId(jobId) ? rekey.status(jobId) : null;
+        return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+    }
+}
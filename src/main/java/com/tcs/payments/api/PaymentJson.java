@@ -0,0 +1,261 @@
+package com.tcs.payments.api;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.tcs.payments.model.Amount;
+import com.tcs.payments.model.Currency;
+import com.tcs.payments.model.Customer;
+import com.tcs.payments.model.EmiPlan;
+import com.tcs.payments.model.PaymentMethod;
+import com.tcs.payments.model.PaymentRequest;
+import com.tcs.payments.model.PaymentResponse;
+import com.tcs.payments.model.RegionCode;
+
+/**
+ * Streaming reader for PaymentRequest and writer for PaymentResponse, written out per field instead of
+ * going through Jackson's reflective bean (de)serializers. Registered with the shared ObjectMapper by
+ * PaymentJsonModule and called directly by PaymentRequestConverter.
+ *
+ * Reading matches the application's Jackson setup: unknown properties are skipped (through the parser's
+ * skipChildren, so PciScanningParser still sees them), enums are case-insensitive
+ * (spring.jackson.mapper.accept-case-insensitive-enums) or by index, scalars are coerced to strings and
+ * numeric strings to numbers. Writing drops null PaymentResponse fields; names are pre-encoded.
+ * A new model field has to be added here as well.
+ */
+public final class PaymentJson {
+
+    private static final SerializedString STATUS = new SerializedString("status");
+    private static final SerializedString PROVIDER = new SerializedString("provider");
+    private static final SerializedString INTENT_ID = new SerializedString("intentId");
+    private static final SerializedString CLIENT_SECRET = new SerializedString("clientSecret");
+    private static final SerializedString REDIRECT_URL = new SerializedString("redirectUrl");
+    private static final SerializedString FAILURE_REASON = new SerializedString("failureReason");
+    private static final SerializedString RECEIPT_URL = new SerializedString("receiptUrl");
+    private static final SerializedString[] STATUS_NAMES = serializedNames(PaymentResponse.Status.values());
+
+    private static final RegionCode[] REGIONS = RegionCode.values();
+    private static final PaymentMethod[] METHODS = PaymentMethod.values();
+    private static final Currency[] CURRENCIES = Currency.values();
+
+    private PaymentJson() {}
+
+    /** Reads one PaymentRequest; p is on its START_OBJECT (or first FIELD_NAME, as Jackson may hand it over). */
+    public static PaymentRequest readRequest(JsonParser p) throws IOException {
+        JsonToken t = startObject(p, PaymentRequest.class);
+        PaymentRequest r = new PaymentRequest();
+        for (; t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+            String name = p.currentName();
+            p.nextToken();
+            switch (name) {
+                case "idempotencyKey": r.setIdempotencyKey(text(p)); break;
+                case "region": r.setRegion(enumValue(p, REGIONS, RegionCode.class)); break;
+                case "method": r.setMethod(enumValue(p, METHODS, PaymentMethod.class)); break;
+                case "amount": r.setAmount(readAmount(p)); break;
+                case "customer": r.setCustomer(readCustomer(p)); break;
+                case "cardToken": r.setCardToken(text(p)); break;
+                case "walletToken": r.setWalletToken(text(p)); break;
+                case "provider": r.setProvider(text(p)); break;
+                case "saveCard": r.setSaveCard(bool(p)); break;
+                case "emiPlan": r.setEmiPlan(readEmiPlan(p)); break;
+                case "codNote": r.setCodNote(text(p)); break;
+                case "couponCode": r.setCouponCode(text(p)); break;
+                case "metadata": r.setMetadata(readMetadata(p)); break;
+                case "returnUrl": r.setReturnUrl(text(p)); break;
+                default: p.skipChildren();
+            }
+        }
+        endObject(p, t, PaymentRequest.class);
+        return r;
+    }
+
+    /** Writes r as a JSON object, leaving out null fields. */
+    public static void writeResponse(PaymentResponse r, JsonGenerator g) throws IOException {
+        g.writeStartObject();
+        if (r.getStatus() != null) {
+            g.writeFieldName(STATUS);
+            g.writeString(STATUS_NAMES[r.getStatus().ordinal()]);
+        }
+        writeString(g, PROVIDER, r.getProvider());
+        writeString(g, INTENT_ID, r.getIntentId());
+        writeString(g, CLIENT_SECRET, r.getClientSecret());
+        writeString(g, REDIRECT_URL, r.getRedirectUrl());
+        writeString(g, FAILURE_REASON, r.getFailureReason());
+        writeString(g, RECEIPT_URL, r.getReceiptUrl());
+        g.writeEndObject();
+    }
+
+    private static Amount readAmount(JsonParser p) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NULL) return null;
+        JsonToken t = startObject(p, Amount.class);
+        Amount a = new Amount();
+        for (; t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+            String name = p.currentName();
+            p.nextToken();
+            switch (name) {
+                case "value": a.setValue(longValue(p)); break;
+                case "currency": a.setCurrency(enumValue(p, CURRENCIES, Currency.class)); break;
+                default: p.skipChildren();
+            }
+        }
+        endObject(p, t, Amount.class);
+        return a;
+    }
+
+    private static Customer readCustomer(JsonParser p) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NULL) return null;
+        JsonToken t = startObject(p, Customer.class);
+        Customer c = new Customer();
+        for (; t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+            String name = p.currentName();
+            p.nextToken();
+            switch (name) {
+                case "id": c.setId(text(p)); break;
+                case "email": c.setEmail(text(p)); break;
+                case "phone": c.setPhone(text(p)); break;
+                case "name": c.setName(text(p)); break;
+                default: p.skipChildren();
+            }
+        }
+        endObject(p, t, Customer.class);
+        return c;
+    }
+
+    private static EmiPlan readEmiPlan(JsonParser p) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NULL) return null;
+        JsonToken t = startObject(p, EmiPlan.class);
+        EmiPlan e = new EmiPlan();
+        for (; t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+            String name = p.currentName();
+            p.nextToken();
+            switch (name) {
+                case "tenureMonths": e.setTenureMonths(intValue(p)); break;
+                case "provider": e.setProvider(text(p)); break;
+                default: p.skipChildren();
+            }
+        }
+        endObject(p, t, EmiPlan.class);
+        return e;
+    }
+
+    private static Map<String, String> readMetadata(JsonParser p) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NULL) return null;
+        JsonToken t = startObject(p, Map.class);
+        Map<String, String> m = new LinkedHashMap<>();
+        for (; t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+            String key = p.currentName();
+            p.nextToken();
+            m.put(key, text(p));
+        }
+        endObject(p, t, Map.class);
+        return m;
+    }
+
+    /** Checks for an object start and returns the first token inside it. */
+    private static JsonToken startObject(JsonParser p, Class<?> type) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.START_OBJECT) return p.nextToken();
+        if (t == JsonToken.FIELD_NAME) return t;
+        if (t == null) throw MismatchedInputException.from(p, type, "No content to map due to end-of-input");
+        throw MismatchedInputException.from(p, type, "Cannot deserialize " + type.getSimpleName() + " from " + t);
+    }
+
+    private static void endObject(JsonParser p, JsonToken t, Class<?> type) throws IOException {
+        if (t != JsonToken.END_OBJECT) {
+            throw MismatchedInputException.from(p, type, "Unexpected end of " + type.getSimpleName() + ": " + t);
+        }
+    }
+
+    private static String text(JsonParser p) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.VALUE_NULL) return null;
+        if (t != null && t.isScalarValue()) return p.getText();
+        throw MismatchedInputException.from(p, String.class, "Cannot deserialize String from " + t);
+    }
+
+    private static long longValue(JsonParser p) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.VALUE_NUMBER_INT || t == JsonToken.VALUE_NUMBER_FLOAT) return p.getValueAsLong();
+        if (t == JsonToken.VALUE_NULL) return 0;
+        if (t == JsonToken.VALUE_STRING) {
+            String s = p.getText().trim();
+            try {
+                return s.isEmpty() ? 0 : Long.parseLong(s);
+            } catch (NumberFormatException e) {
+                throw InvalidFormatException.from(p, "not a valid long value", s, long.class);
+            }
+        }
+        throw MismatchedInputException.from(p, long.class, "Cannot deserialize long from " + t);
+    }
+
+    private static int intValue(JsonParser p) throws IOException {
+        long v = longValue(p);
+        if (v != (int) v) throw InvalidFormatException.from(p, "out of range of int", v, int.class);
+        return (int) v;
+    }
+
+    private static boolean bool(JsonParser p) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.VALUE_TRUE) return true;
+        if (t == JsonToken.VALUE_FALSE || t == JsonToken.VALUE_NULL) return false;
+        if (t == JsonToken.VALUE_STRING) {
+            String s = p.getText().trim();
+            if (s.equalsIgnoreCase("true")) return true;
+            if (s.equalsIgnoreCase("false") || s.isEmpty()) return false;
+            throw InvalidFormatException.from(p, "only \"true\" or \"false\" recognized", s, boolean.class);
+        }
+        if (t == JsonToken.VALUE_NUMBER_INT) return p.getLongValue() != 0;
+        throw MismatchedInputException.from(p, boolean.class, "Cannot deserialize boolean from " + t);
+    }
+
+    /** Case-insensitive name or ordinal; compares against the constants without building an upper-case copy. */
+    private static <E extends Enum<E>> E enumValue(JsonParser p, E[] values, Class<E> type) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.VALUE_NULL) return null;
+        if (t == JsonToken.VALUE_STRING) {
+            char[] buf = p.getTextCharacters();
+            int off = p.getTextOffset();
+            int len = p.getTextLength();
+            for (E e : values) {
+                if (equalsIgnoreCase(e.name(), buf, off, len)) return e;
+            }
+            String s = p.getText();
+            throw InvalidFormatException.from(p, "not one of the values accepted for Enum class " + type.getSimpleName(), s, type);
+        }
+        if (t == JsonToken.VALUE_NUMBER_INT) {
+            int i = p.getIntValue();
+            if (i >= 0 && i < values.length) return values[i];
+            throw InvalidFormatException.from(p, "index value outside legal index range", i, type);
+        }
+        throw MismatchedInputException.from(p, type, "Cannot deserialize " + type.getSimpleName() + " from " + t);
+    }
+
+    private static boolean equalsIgnoreCase(String name, char[] buf, int off, int len) {
+        if (name.length() != len) return false;
+        for (int i = 0; i < len; i++) {
+            char a = name.charAt(i);
+            char b = buf[off + i];
+            if (a != b && Character.toUpperCase(a) != Character.toUpperCase(b)) return false;
+        }
+        return true;
+    }
+
+    private static void writeString(JsonGenerator g, SerializedString name, String value) throws IOException {
+        if (value == null) return;
+        g.writeFieldName(name);
+        g.writeString(value);
+    }
+
+    private static SerializedString[] serializedNames(Enum<?>[] values) {
+        SerializedString[] out = new SerializedString[values.length];
+        for (Enum<?> e : values) out[e.ordinal()] = new SerializedString(e.name());
+        return out;
+    }
+}
@@ -0,0 +1,51 @@
+package com.tcs.payments.api;
+
+import java.io.IOException;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.tcs.payments.model.PaymentRequest;
+import com.tcs.payments.model.PaymentResponse;
+
+/**
+ * Puts PaymentJson behind the shared ObjectMapper (Spring Boot registers Module beans), so every
+ * message converter, /batch lists and the NDJSON result lines use it instead of reflective binding.
+ */
+@Component
+public class PaymentJsonModule extends SimpleModule {
+
+    public PaymentJsonModule() {
+        super("PaymentJsonModule");
+        addDeserializer(PaymentRequest.class, new RequestDeserializer());
+        addSerializer(PaymentResponse.class, new ResponseSerializer());
+    }
+
+    static final class RequestDeserializer extends StdDeserializer<PaymentRequest> {
+        RequestDeserializer() {
+            super(PaymentRequest.class);
+        }
+
+        @Override
+        public PaymentRequest deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return PaymentJson.readRequest(p);
+        }
+    }
+
+    static final class ResponseSerializer extends StdSerializer<PaymentResponse> {
+        ResponseSerializer() {
+            super(PaymentResponse.class);
+        }
+
+        @Override
+        public void serialize(PaymentResponse value, JsonGenerator g, SerializerProvider provider) throws IOException {
+            PaymentJson.writeResponse(value, g);
+        }
+    }
+}
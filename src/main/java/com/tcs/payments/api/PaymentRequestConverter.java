@@ -0,0 +1,182 @@
+package com.tcs.payments.api;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcs.payments.model.PaymentRequest;
+import com.tcs.payments.security.PciScanner;
+import com.tcs.payments.security.PciScanningParser;
+
+/**
+ * Parse-once binding for @RequestBody PaymentRequest (payments.request-body.parse-once).
+ *
+ * One streaming pass does three jobs: PciScanningParser checks every name and value for card data,
+ * ValidatingParser enforces the top-level constraints of PaymentRequest (@NotBlank idempotencyKey,
+ * @NotNull region/method/amount/customer), and PaymentJson binds. Either check stops the parse at the
+ * offending token. Content after the root object is rejected, since PciGuardFilter skips its own body
+ * scan for these requests.
+ */
+public class PaymentRequestConverter extends AbstractHttpMessageConverter<PaymentRequest> {
+
+    private final ObjectMapper mapper;
+    private final PciScanner scanner;
+
+    public PaymentRequestConverter(ObjectMapper mapper, PciScanner scanner) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.mapper = mapper;
+        this.scanner = scanner;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return PaymentRequest.class == clazz;
+    }
+
+    @Override
+    protected boolean canWrite(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected PaymentRequest readInternal(Class<? extends PaymentRequest> clazz, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        try (JsonParser p = new PciScanningParser(new ValidatingParser(mapper.createParser(inputMessage.getBody())), scanner)) {
+            p.nextToken();
+            PaymentRequest request = PaymentJson.readRequest(p);
+            // Jackson accepts several root values; anything after the object would skip the checks above
+            if (p.nextToken() != null) {
+                throw new HttpMessageNotReadableException("JSON parse error: unexpected content after the request object",
+                        inputMessage);
+            }
+            return request;
+        } catch (PciScanningParser.PciViolationException e) {
+            throw pciViolation(e, inputMessage);
+        } catch (ValidationFailedException e) {
+            throw validationFailed(e, inputMessage);
+        } catch (JsonProcessingException e) {
+            // Nested deserializers may still wrap our exceptions
+            if (e.getCause() instanceof PciScanningParser.PciViolationException pci) throw pciViolation(pci, inputMessage);
+            if (e.getCause() instanceof ValidationFailedException v) throw validationFailed(v, inputMessage);
+            throw new HttpMessageNotReadableException("JSON parse error: " + e.getOriginalMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(PaymentRequest request, HttpOutputMessage outputMessage) {
+        throw new UnsupportedOperationException("PaymentRequest is read-only here");
+    }
+
+    private static RejectedRequestException pciViolation(IOException e, HttpInputMessage in) {
+        return new RejectedRequestException(Map.of("error", "pci_violation", "message", e.getMessage()), e, in);
+    }
+
+    private static RejectedRequestException validationFailed(ValidationFailedException e, HttpInputMessage in) {
+        return new RejectedRequestException(Map.of("error", "validation_error", "fields", e.fields), e, in);
+    }
+
+    /** Tracks the root object's fields and fails on a null/blank required value or, at its end, a missing one. */
+    private static final class ValidatingParser extends JsonParserDelegate {
+
+        private static final String[] REQUIRED = {"idempotencyKey", "region", "method", "amount", "customer"};
+
+        private int depth;
+        private int required = -1; // index in REQUIRED of the current root field, -1 if not required
+        private int seen;          // bit per REQUIRED entry
+
+        ValidatingParser(JsonParser delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public JsonToken nextToken() throws IOException {
+            JsonToken t = delegate.nextToken();
+            if (t == null) return null;
+            if (t.isStructStart()) {
+                if (depth++ == 1) present();
+            } else if (t.isStructEnd()) {
+                if (--depth == 0) checkMissing();
+            } else if (depth == 1) {
+                if (t == JsonToken.FIELD_NAME) {
+                    required = indexOf(delegate.currentName());
+                } else if (t == JsonToken.VALUE_NULL) {
+                    if (required >= 0) throw new ValidationFailedException(REQUIRED[required], message(required));
+                } else {
+                    if (required == 0 && t == JsonToken.VALUE_STRING && delegate.getText().isBlank()) {
+                        throw new ValidationFailedException(REQUIRED[0], message(0));
+                    }
+                    present();
+                }
+            }
+            return t;
+        }
+
+        @Override
+        public JsonToken nextValue() throws IOException {
+            JsonToken t = nextToken();
+            return t == JsonToken.FIELD_NAME ? nextToken() : t;
+        }
+
+        private void present() {
+            if (required >= 0) seen |= 1 << required;
+        }
+
+        private void checkMissing() throws ValidationFailedException {
+            if (seen == (1 << REQUIRED.length) - 1) return;
+            Map<String, String> fields = new LinkedHashMap<>();
+            for (int i = 0; i < REQUIRED.length; i++) {
+                if ((seen & (1 << i)) == 0) fields.put(REQUIRED[i], message(i));
+            }
+            throw new ValidationFailedException(fields);
+        }
+
+        private static int indexOf(String name) {
+            for (int i = 0; i < REQUIRED.length; i++) {
+                if (REQUIRED[i].equals(name)) return i;
+            }
+            return -1;
+        }
+
+        // Same wording as Hibernate Validator's defaults, so both paths answer alike
+        private static String message(int i) {
+            return i == 0 ? "must not be blank" : "must not be null";
+        }
+    }
+
+    /** Plain IOException so Jackson rethrows it unwrapped. */
+    private static final class ValidationFailedException extends IOException {
+        final Map<String, String> fields;
+
+        ValidationFailedException(String field, String message) {
+            this(Map.of(field, message));
+        }
+
+        ValidationFailedException(Map<String, String> fields) {
+            super("Invalid PaymentRequest: " + fields);
+            this.fields = fields;
+        }
+    }
+
+    /** Carries the 400 body; handled by GlobalExceptionHandler. */
+    public static class RejectedRequestException extends HttpMessageNotReadableException {
+        private final Map<String, Object> body;
+
+        RejectedRequestException(Map<String, Object> body, Throwable cause, HttpInputMessage in) {
+            super(String.valueOf(body.get("error")), cause, in);
+            this.body = body;
+        }
+
+        public Map<String, Object> getBody() { return body; }
+    }
+}
@@ -1,18 +1,37 @@
 package com.tcs.payments.api;
 
 
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.tcs.payments.model.PaymentRequest;
 import com.tcs.payments.model.PaymentResponse;
+import com.tcs.payments.model.CaptureJob;
+import com.tcs.payments.resilience.ProviderUnavailableException;
+import com.tcs.payments.service.BatchPaymentService;
+import com.tcs.payments.service.BulkRefundProcessor;
+import com.tcs.payments.service.CaptureScheduler;
+import com.tcs.payments.service.IdempotencyStore;
 import com.tcs.payments.service.PaymentOrchestrator;
+import com.tcs.payments.service.PaymentsProperties;
+import com.tcs.payments.service.StageTimings;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 @RestController
@@ -22,62 +41,140 @@ public class PaymentsController {
 	private static final Logger log = LoggerFactory.getLogger(PaymentsController.class);
 	
 private final PaymentOrchestrator orchestrator;
-public PaymentsController(PaymentOrchestrator orchestrator) {
+private final BatchPaymentService batch;
+private final CaptureScheduler captureScheduler;
+private final BulkRefundProcessor bulkRefunds;
+private final boolean serverTimingHeader;
+// Error bodies are pre-encoded (ErrorBodies); maxItems is fixed at startup
+private final byte[] batchTooLarge;
+public PaymentsController(PaymentOrchestrator orchestrator, BatchPaymentService batch, CaptureScheduler captureScheduler,
+		BulkRefundProcessor bulkRefunds, PaymentsProperties props) {
 	this.orchestrator = orchestrator;
+	this.batch = batch;
+	this.captureScheduler = captureScheduler;
+	this.bulkRefunds = bulkRefunds;
+	this.serverTimingHeader = props.getMetrics().isServerTimingHeader();
+	this.batchTooLarge = ("{\"error\":\"batch_too_large\",\"maxItems\":" + batch.maxItems() + "}").getBytes(StandardCharsets.UTF_8);
 }
 
 @PostMapping("/initiate")
-public ResponseEntity<?> initiate(@RequestBody PaymentRequest req){
-	try {
-		PaymentResponse result = orchestrator.initiate(req);
-		return ResponseEntity.status(result.getStatus() == PaymentResponse.Status.FAILED ? 400 : 200) .body(result);
-	}catch(Exception e) {
-		log.error("initiate_error",e);
-		return ResponseEntity.status(500).body(java.util.Map.of("error","server_error","message",e.getMessage()));
-		
-	}
+public CompletableFuture<ResponseEntity<?>> initiate(@RequestBody PaymentRequest req){
+	StageTimings timings = new StageTimings();
+	return orchestrator.initiateAsync(req, timings)
+			.<ResponseEntity<?>>thenApply(result -> {
+				ResponseEntity<?> response = toResponse(result);
+				if(!serverTimingHeader)
+					return response;
+				// Stage breakdown for browser dev tools / load test clients
+				return ResponseEntity.status(response.getStatusCode())
+						.header("Server-Timing", timings.toServerTiming())
+						.body(response.getBody());
+			})
+			.exceptionally(e -> serverError("initiate_error", e));
+}
+
+// Streams one NDJSON line per request as each finishes (completion order, not input order)
+@PostMapping("/batch")
+public ResponseEntity<?> batch(@RequestBody java.util.List<PaymentRequest> requests){
+	if(requests == null || requests.isEmpty())
+		return ErrorBodies.badRequest(ErrorBodies.EMPTY_BATCH);
+	if(requests.size() > batch.maxItems())
+		return ErrorBodies.badRequest(batchTooLarge);
+	
+	StreamingResponseBody body = out -> batch.stream(requests, out);
+	return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
 }
 
 @PostMapping("/capture")
-public ResponseEntity<?> capture(@RequestBody java.util.Map<String,String> body){
-	try {
-		String provider = body.get("provider");
-		String intentId = body.get("intentId");
-		if(provider == null || intentId == null)
-			return ResponseEntity.badRequest().body(java.util.Map.of("error","missing_params"));
-		
-		PaymentResponse result = orchestrator.capture(provider, intentId);
-		return ResponseEntity.status(result.getStatus() == PaymentResponse.Status.FAILED ? 400 : 200).body(result);
-	} catch(Exception e) {
-		log.error("capture_error",e);
-		return ResponseEntity.status(500).body(java.util.Map.of("error","server_error","message",e.getMessage()));
-	}
+public CompletableFuture<ResponseEntity<?>> capture(@RequestBody java.util.Map<String,String> body){
+	String provider = body.get("provider");
+	String intentId = body.get("intentId");
+	if(provider == null || intentId == null)
+		return CompletableFuture.completedFuture(ErrorBodies.badRequest(ErrorBodies.MISSING_PARAMS));
+	
+	return orchestrator.captureAsync(provider, intentId)
+			.<ResponseEntity<?>>thenApply(PaymentsController::toResponse)
+			.exceptionally(e -> serverError("capture_error", e));
+}
+
+// Queues capture jobs for the scheduler; returns immediately with accepted/duplicate counts
+@PostMapping("/capture/bulk")
+public ResponseEntity<?> captureBulk(@RequestBody java.util.List<CaptureJob> jobs){
+	if(jobs == null || jobs.isEmpty())
+		return ErrorBodies.badRequest(ErrorBodies.EMPTY_BATCH);
+	return ResponseEntity.accepted().body(captureScheduler.submit(jobs));
+}
+
+@GetMapping("/capture/bulk/stats")
+public ResponseEntity<?> captureBulkStats(){
+	return ResponseEntity.ok(captureScheduler.stats());
 }
 
 
 //below method added for refund option
 @PostMapping("/refund")
-public ResponseEntity<?> refund(@RequestBody java.util.Map<String, Object> body) {
-    try {
-        String provider = (String) body.get("provider");
-        String paymentId = (String) body.get("paymentId");
-        
-        // Amount is optional for full refund, mandatory for partial refund
-        // Razorpay expects amount in paise (e.g., 50000 for ₹500)
-        Integer amount = (Integer) body.get("amount"); 
-
-        if (provider == null || paymentId == null) {
-            return ResponseEntity.badRequest().body(java.util.Map.of("error", "missing_params"));
-        }
-
-        // Logic: Orchestrator calls the Razorpay API to process the refund
-        PaymentResponse result = orchestrator.refund(provider, paymentId, amount);
-        
-        return ResponseEntity.status(result.getStatus() == PaymentResponse.Status.FAILED ? 400 : 200)
-                             .body(result);
-    } catch (Exception e) {
-        log.error("refund_error", e);
-        return ResponseEntity.status(500).body(java.util.Map.of("error", "server_error", "message", e.getMessage()));
+public CompletableFuture<ResponseEntity<?>> refund(@RequestBody java.util.Map<String, Object> body) {
+    Object provider = body.get("provider");
+    Object paymentId = body.get("paymentId");
+    
+    // Amount is optional for full refund, mandatory for partial refund
+    // Razorpay expects amount in paise (e.g., 50000 for ₹500)
+    Object amount = body.get("amount"); 
+
+    if (!(provider instanceof String) || !(paymentId instanceof String)) {
+        return CompletableFuture.completedFuture(ErrorBodies.badRequest(ErrorBodies.MISSING_PARAMS));
     }
+    // Same rule as /refund/bulk: a positive whole number of minor units; Jackson binds larger ones as Long
+    if (amount != null && !(amount instanceof Integer i && i > 0)) {
+        return CompletableFuture.completedFuture(ErrorBodies.badRequest(ErrorBodies.INVALID_AMOUNT));
+    }
+
+    // Logic: Orchestrator calls the Razorpay API to process the refund
+    return orchestrator.refundAsync((String) provider, (String) paymentId, (Integer) amount)
+            .<ResponseEntity<?>>thenApply(PaymentsController::toResponse)
+            .exceptionally(e -> serverError("refund_error", e));
+}
+
+// Streams a CSV (text/csv) or NDJSON upload of provider,paymentId,amount rows; re-running a jobId skips finished rows
+@PostMapping(value = "/refund/bulk", consumes = {"text/csv", "application/x-ndjson"})
+public ResponseEntity<?> refundBulk(@RequestParam String jobId, HttpServletRequest request) {
+	if(!BulkRefundProcessor.isValidJobId(jobId))
+		return ErrorBodies.badRequest(ErrorBodies.INVALID_JOB_ID);
+	boolean csv = request.getContentType() != null && request.getContentType().startsWith("text/csv");
+	try {
+		return ResponseEntity.ok(bulkRefunds.process(jobId, request.getInputStream(), csv));
+	} catch (IllegalStateException e) {
+		return ErrorBodies.status(409, ErrorBodies.withMessage(ErrorBodies.JOB_RUNNING_PREFIX, e.getMessage()));
+	} catch (Exception e) {
+		log.error("refund_bulk_error", e);
+		return ErrorBodies.status(500, ErrorBodies.withMessage(ErrorBodies.SERVER_ERROR_PREFIX, String.valueOf(e.getMessage())));
+	}
+}
+
+@GetMapping(value = "/refund/bulk/{jobId}/results", produces = "application/x-ndjson")
+public ResponseEntity<?> refundBulkResults(@PathVariable String jobId) {
+	if(!BulkRefundProcessor.isValidJobId(jobId))
+		return ErrorBodies.badRequest(ErrorBodies.INVALID_JOB_ID);
+	java.io.File f = bulkRefunds.resultFile(jobId);
+	if(!f.exists())
+		return ResponseEntity.notFound().build();
+	return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(new FileSystemResource(f));
+}
+
+private static ResponseEntity<?> toResponse(PaymentResponse result) {
+	return ResponseEntity.status(result.getStatus() == PaymentResponse.Status.FAILED ? 400 : 200).body(result);
+}
+
+private static ResponseEntity<?> serverError(String event, Throwable e) {
+	Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+	if(cause instanceof IdempotencyStore.KeyReusedException) {
+		return ErrorBodies.status(422, ErrorBodies.IDEMPOTENCY_KEY_REUSED);
+	}
+	if(cause instanceof ProviderUnavailableException) {
+		// Breaker open / bulkhead full: nothing reached the PSP and nothing was stored, so the client can retry
+		return ErrorBodies.status(503, ErrorBodies.withMessage(ErrorBodies.PROVIDER_UNAVAILABLE_PREFIX, cause.getMessage()));
+	}
+	log.error(event, cause);
+	return ErrorBodies.status(500, ErrorBodies.withMessage(ErrorBodies.SERVER_ERROR_PREFIX, String.valueOf(cause.getMessage())));
 }
 }
\ No newline at end of file
@@ -17,21 +17,18 @@ import jakarta.servlet.http.HttpServletRequest;
 
 import com.stripe.exception.SignatureVerificationException;
 import com.stripe.net.Webhook;
-import com.stripe.Stripe;
 
 @RestController
 @RequestMapping("/api/webhooks")
 public class WebhooksController {
 	
 	private static final Logger log = LoggerFactory.getLogger(WebhooksController.class);
-	@Value("${payments.stripe.secretKey}") String stripeKey;
 	@Value("${payments.stripe.webhookSecret}") String stripeWebhookSecret;
 	@Value("${payments.razorpay.keySecret}") String razorpayWebhookSecret;
 	
 	
 	@PostMapping("/stripe")
 	public ResponseEntity<?> stripe(HttpServletRequest request, @RequestHeader("Stripe-Signature") String sig) throws IOException {
-		Stripe.apiKey = stripeKey;
 		String payload = request.getReader().lines().collect(Collectors.joining(""));
 		try {
 			Event event = Webhook.constructEvent(payload,sig,stripeWebhookSecret);
@@ -0,0 +1,79 @@
+package com.tcs.payments.config;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.tcs.payments.service.PaymentsProperties;
+
+/**
+ * Provides the executor used by the async orchestrator methods, and the one FraudEngine runs check groups on.
+ *
+ * payments.execution.mode:
+ * - platform (default): work runs inline on the Tomcat request thread, same as before
+ * - virtual: each payment runs on its own virtual thread, so blocking PSP I/O does not pin a request thread;
+ *   needs JDK 21+, startup fails on an older runtime rather than silently running on unbounded platform threads
+ *
+ * Also declares applicationTaskExecutor, which Boot stops creating once any Executor bean exists.
+ */
+@Configuration
+public class ExecutionConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutionConfig.class);
+
+    @Bean("paymentExecutor")
+    public Executor paymentExecutor(PaymentsProperties props) {
+        String mode = props.getExecution().getMode();
+        if (!"virtual".equalsIgnoreCase(mode)) {
+            return Runnable::run;
+        }
+        ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+        if (virtual == null) {
+            // A platform pool sized for 1k+ in-flight PSP calls is what virtual mode exists to avoid
+            throw new IllegalStateException("payments.execution.mode=virtual needs JDK 21+, running on "
+                    + Runtime.version() + "; use mode platform on this runtime");
+        }
+        log.info("Payment execution mode: virtual threads");
+        return virtual;
+    }
+
+    /** FraudEngine check groups (payments.fraud.parallel): virtual threads, else one daemon thread per core. */
+    @Bean("fraudExecutor")
+    public ExecutorService fraudExecutor() {
+        ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+        if (virtual != null) return virtual;
+        AtomicInteger n = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread t = new Thread(r, "fraud-check-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Boot's own task executor (spring.task.execution.*), declared here because the beans above make its
+     * auto-configuration back off. Spring MVC picks it up by name for async requests (the StreamingResponseBody
+     * of /batch, CompletableFuture results), which would otherwise fall back to a thread per request.
+     */
+    @Bean("applicationTaskExecutor")
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    // Looked up reflectively so the project still compiles with release 17
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
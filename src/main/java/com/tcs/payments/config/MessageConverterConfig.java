@@ -0,0 +1,32 @@
+package com.tcs.payments.config;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcs.payments.api.PaymentRequestConverter;
+import com.tcs.payments.security.PciScanner;
+import com.tcs.payments.service.PaymentsProperties;
+
+@Configuration
+public class MessageConverterConfig implements WebMvcConfigurer {
+
+    private final ObjectMapper mapper;
+    private final PaymentsProperties props;
+
+    public MessageConverterConfig(ObjectMapper mapper, PaymentsProperties props) {
+        this.mapper = mapper;
+        this.props = props;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        if (props.getRequestBody().isParseOnce()) {
+            // Ahead of Jackson so @RequestBody PaymentRequest is bound in one checked pass
+            converters.add(0, new PaymentRequestConverter(mapper, new PciScanner(props.getSecurity().isPciLuhnCheck())));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.tcs.payments.ledger;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One payment state transition as written to the ledger.
+ *
+ * Binary layout (version 1):
+ * [byte version][byte type][long timestampMillis][long amount]
+ * [str currency][str provider][str intentId][str idempotencyKey]
+ * where str = [short length, -1 for null][utf-8 bytes].
+ */
+public class LedgerEntry {
+
+    public enum Type {
+        INITIATED, AUTHORIZED, CAPTURED, REFUNDED, FAILED
+    }
+
+    private static final byte VERSION = 1;
+
+    public Type type;
+    public long timestamp;
+    public long amount;         // minor units; 0 on capture/refund means "full"
+    public String currency;     // ISO 4217, upper case
+    public String provider;
+    public String intentId;
+    public String idempotencyKey;
+
+    public static LedgerEntry of(Type type, String provider, String intentId, long amount, String currency) {
+        LedgerEntry e = new LedgerEntry();
+        e.type = type;
+        e.timestamp = System.currentTimeMillis();
+        e.provider = provider;
+        e.intentId = intentId;
+        e.amount = amount;
+        e.currency = currency;
+        return e;
+    }
+
+    public byte[] encode() {
+        byte[] cur = utf8(currency), prov = utf8(provider), intent = utf8(intentId), key = utf8(idempotencyKey);
+        int size = 1 + 1 + 8 + 8 + strSize(cur) + strSize(prov) + strSize(intent) + strSize(key);
+        ByteBuffer b = ByteBuffer.allocate(size);
+        b.put(VERSION);
+        b.put((byte) type.ordinal());
+        b.putLong(timestamp);
+        b.putLong(amount);
+        putStr(b, cur);
+        putStr(b, prov);
+        putStr(b, intent);
+        putStr(b, key);
+        return b.array();
+    }
+
+    public static LedgerEntry decode(ByteBuffer b) {
+        byte version = b.get();
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported ledger record version " + version);
+        }
+        LedgerEntry e = new LedgerEntry();
+        e.type = Type.values()[b.get()];
+        e.timestamp = b.getLong();
+        e.amount = b.getLong();
+        e.currency = getStr(b);
+        e.provider = getStr(b);
+        e.intentId = getStr(b);
+        e.idempotencyKey = getStr(b);
+        return e;
+    }
+
+    private static byte[] utf8(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int strSize(byte[] s) {
+        return 2 + (s == null ? 0 : s.length);
+    }
+
+    private static void putStr(ByteBuffer b, byte[] s) {
+        if (s == null) {
+            b.putShort((short) -1);
+            return;
+        }
+        b.putShort((short) s.length);
+        b.put(s);
+    }
+
+    static String getStr(ByteBuffer b) {
+        short len = b.getShort();
+        if (len < 0) return null;
+        byte[] s = new byte[len];
+        b.get(s);
+        return new String(s, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,455 @@
+package com.tcs.payments.ledger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.tcs.payments.service.PaymentsProperties;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Append-only ledger of payment state transitions.
+ *
+ * - Records go to memory-mapped segment files (ledger-NNNNNNNNNNNNNNNN.seg) as
+ *   [int length][int crc32][LedgerEntry bytes]; a zero length marks the end of a segment.
+ * - A single writer thread drains the queue in batches and forces the segment once per
+ *   batch (group commit); callers wait for their batch to be durable.
+ * - An in-memory index keeps the latest PaymentState per intentId for capture/refund.
+ * - Every N segment rolls the writer hands a copy of the index to the snapshot thread, which
+ *   writes it to snapshot.dat and deletes older segments; recording never waits for it.
+ *   Recovery loads the snapshot and replays only the segments after it.
+ * - Snapshots and recovery drop index entries past their retention (shorter for failed or
+ *   fully refunded intents), so the index does not grow with every payment ever made.
+ */
+@Component
+public class PaymentLedger {
+    private static final Logger log = LoggerFactory.getLogger(PaymentLedger.class);
+
+    private static final int HEADER_BYTES = 8;
+    private static final int SNAPSHOT_MAGIC_V1 = 0x4C444753; // "LDGS", no updatedAt
+    private static final int SNAPSHOT_MAGIC = 0x4C444732; // "LDG2"
+    private static final String SNAPSHOT_FILE = "snapshot.dat";
+
+    private final boolean enabled;
+    private final File dir;
+    private final int segmentBytes;
+    private final boolean forceOnCommit;
+    private final int maxBatch;
+    private final int snapshotEverySegments;
+    private final long terminalRetentionMillis;
+    private final long retentionMillis;
+
+    private final ConcurrentHashMap<String, PaymentState> index = new ConcurrentHashMap<>();
+    private final BlockingQueue<Pending> queue;
+    private Thread writer;
+    private ExecutorService snapshotter;
+    private volatile boolean running;
+
+    // Owned by the writer thread after start()
+    private long segmentId;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int writePos;
+    private int segmentsSinceSnapshot;
+    private Future<?> snapshot;
+
+    private static final class Pending {
+        final LedgerEntry entry;
+        final byte[] payload;
+        final CompletableFuture<Void> durable = new CompletableFuture<>();
+        Pending(LedgerEntry entry) {
+            this.entry = entry;
+            this.payload = entry.encode();
+        }
+    }
+
+    public PaymentLedger(PaymentsProperties props) {
+        PaymentsProperties.Ledger cfg = props.getLedger();
+        this.enabled = cfg.isEnabled();
+        this.dir = new File(cfg.getDir());
+        this.segmentBytes = cfg.getSegmentSizeMb() * 1024 * 1024;
+        this.forceOnCommit = cfg.isForceOnCommit();
+        this.maxBatch = Math.max(1, cfg.getMaxBatch());
+        this.snapshotEverySegments = Math.max(1, cfg.getSnapshotEverySegments());
+        this.terminalRetentionMillis = TimeUnit.HOURS.toMillis(cfg.getTerminalRetentionHours());
+        this.retentionMillis = TimeUnit.DAYS.toMillis(cfg.getRetentionDays());
+        this.queue = new ArrayBlockingQueue<>(Math.max(maxBatch, cfg.getQueueCapacity()));
+        if (enabled) start();
+    }
+
+    /** Latest state for an intent/payment id, or null if the ledger has not seen it. */
+    public PaymentState find(String intentId) {
+        return intentId == null ? null : index.get(intentId);
+    }
+
+    /**
+     * Appends an entry and waits until its batch is committed.
+     * Ledger failures are logged, never thrown: the PSP call has already happened.
+     */
+    public void record(LedgerEntry entry) {
+        if (!running) return;
+        Pending p = new Pending(entry);
+        try {
+            if (!queue.offer(p, 1, TimeUnit.SECONDS)) {
+                log.error("ledger_queue_full type={} intent={}", entry.type, entry.intentId);
+                return;
+            }
+            p.durable.get(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("ledger_append_failed type={} intent={}", entry.type, entry.intentId, e);
+        }
+    }
+
+    // ---- writer thread ----
+
+    private void start() {
+        try {
+            dir.mkdirs();
+            recover();
+        } catch (IOException e) {
+            log.error("Ledger recovery failed in {}; ledger disabled", dir, e);
+            return;
+        }
+        running = true;
+        snapshotter = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "payment-ledger-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+        writer = new Thread(this::writeLoop, "payment-ledger-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                for (Pending p : batch) {
+                    append(p.payload);
+                    applyToIndex(p.entry);
+                }
+                if (forceOnCommit) segment.force();
+                for (Pending p : batch) p.durable.complete(null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Ledger batch write failed", e);
+                for (Pending p : batch) p.durable.completeExceptionally(e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void append(byte[] payload) throws IOException {
+        if (writePos + HEADER_BYTES + payload.length + 4 > segmentBytes) {
+            roll();
+        }
+        int pos = writePos;
+        segment.putInt(pos + 4, crc32(payload, 0, payload.length));
+        segment.put(pos + HEADER_BYTES, payload);
+        terminate(pos + HEADER_BYTES + payload.length);
+        // Length last: a torn write leaves the old terminator visible to recovery
+        segment.putInt(pos, payload.length);
+        writePos = pos + HEADER_BYTES + payload.length;
+    }
+
+    private void applyToIndex(LedgerEntry e) {
+        if (e.intentId == null) return;
+        index.compute(e.intentId, (k, prev) -> PaymentState.apply(prev, e));
+    }
+
+    private void roll() throws IOException {
+        segment.force();
+        channel.close();
+        segmentsSinceSnapshot++;
+        long next = segmentId + 1;
+        // One snapshot at a time; if the last one is still writing, try again at the next roll
+        if (segmentsSinceSnapshot >= snapshotEverySegments && (snapshot == null || snapshot.isDone())) {
+            // Every record up to the closed segment is in the index and only this thread changes it,
+            // so a copy taken here is exactly the state as of segment next
+            List<PaymentState> states = new ArrayList<>(index.values());
+            snapshot = snapshotter.submit(() -> snapshotAndCompact(states, next));
+            segmentsSinceSnapshot = 0;
+        }
+        openSegment(next, true);
+    }
+
+    private void openSegment(long id, boolean fresh) throws IOException {
+        File f = segmentFile(id);
+        RandomAccessFile raf = new RandomAccessFile(f, "rw");
+        if (raf.length() < segmentBytes) raf.setLength(segmentBytes);
+        this.channel = raf.getChannel();
+        this.segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        this.segmentId = id;
+        if (fresh) {
+            this.writePos = 0;
+            terminate(0);
+        }
+    }
+
+    private void terminate(int pos) {
+        if (pos + 4 <= segmentBytes) segment.putInt(pos, 0);
+    }
+
+    // ---- recovery ----
+
+    private void recover() throws IOException {
+        long start = System.nanoTime();
+        long firstSegment = readSnapshot();
+        TreeMap<Long, File> segments = listSegments();
+        long replayed = 0;
+        long lastId = firstSegment;
+        int lastPos = 0;
+        for (Map.Entry<Long, File> s : segments.tailMap(firstSegment, true).entrySet()) {
+            int[] end = new int[1];
+            replayed += replaySegment(s.getValue(), end);
+            lastId = s.getKey();
+            lastPos = end[0];
+        }
+        deleteSegmentsBefore(firstSegment);
+        openSegment(lastId, false);
+        this.writePos = lastPos;
+        terminate(lastPos);
+        long now = System.currentTimeMillis();
+        index.values().removeIf(s -> expired(s, now));
+        long tookMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Ledger recovered: {} intents, {} records replayed from {} segment(s) in {} ms",
+                index.size(), replayed, segments.tailMap(firstSegment, true).size(), tookMs);
+    }
+
+    private long replaySegment(File f, int[] end) throws IOException {
+        long count = 0;
+        try (FileChannel ch = FileChannel.open(f.toPath())) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            int pos = 0;
+            int cap = buf.capacity();
+            while (pos + HEADER_BYTES <= cap) {
+                int len = buf.getInt(pos);
+                if (len <= 0 || pos + HEADER_BYTES + len > cap) break;
+                int crc = buf.getInt(pos + 4);
+                ByteBuffer payload = buf.slice(pos + HEADER_BYTES, len);
+                if (crc32(payload) != crc) {
+                    log.warn("Ledger {}: torn record at offset {}, truncating", f.getName(), pos);
+                    break;
+                }
+                applyToIndex(LedgerEntry.decode(payload));
+                pos += HEADER_BYTES + len;
+                count++;
+            }
+            end[0] = pos;
+        }
+        return count;
+    }
+
+    // ---- snapshot / compaction ----
+
+    private boolean expired(PaymentState s, long now) {
+        return now - s.getUpdatedAt() > (s.isTerminal() ? terminalRetentionMillis : retentionMillis);
+    }
+
+    /** Runs on the snapshot thread with the index as of nextSegment. */
+    private void snapshotAndCompact(List<PaymentState> states, long nextSegment) {
+        try {
+            long now = System.currentTimeMillis();
+            List<PaymentState> live = new ArrayList<>(states.size());
+            for (PaymentState s : states) {
+                if (!expired(s, now)) {
+                    live.add(s);
+                } else {
+                    // Only if the writer has not moved the intent on since the copy
+                    index.remove(s.getIntentId(), s);
+                }
+            }
+            writeSnapshot(live, nextSegment);
+            deleteSegmentsBefore(nextSegment);
+        } catch (IOException | RuntimeException e) {
+            log.error("Ledger snapshot failed; older segments kept for replay", e);
+        }
+    }
+
+    /**
+     * Snapshot layout: [magic][long nextSegment][int count] states... [long crc32 of everything before].
+     * Format 1 (SNAPSHOT_MAGIC_V1) states have no updatedAt.
+     */
+    private void writeSnapshot(List<PaymentState> states, long nextSegment) throws IOException {
+        File tmp = new File(dir, SNAPSHOT_FILE + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp)) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(fos, 1 << 16), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(nextSegment);
+            out.writeInt(states.size());
+            for (PaymentState s : states) {
+                writeStr(out, s.getProvider());
+                writeStr(out, s.getIntentId());
+                writeStr(out, s.getCurrency());
+                out.writeLong(s.getAuthorizedAmount());
+                out.writeLong(s.getCapturedAmount());
+                out.writeLong(s.getRefundedAmount());
+                out.writeByte(s.getStatus().ordinal());
+                out.writeLong(s.getUpdatedAt());
+            }
+            out.flush();
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            fos.getFD().sync();
+        }
+        Files.move(tmp.toPath(), new File(dir, SNAPSHOT_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        log.info("Ledger snapshot written: {} intents, replay from segment {}", states.size(), nextSegment);
+    }
+
+    /** Loads the snapshot into the index and returns the first segment id to replay. */
+    private long readSnapshot() throws IOException {
+        File f = new File(dir, SNAPSHOT_FILE);
+        if (!f.exists()) return 0;
+        Map<String, PaymentState> loaded = new HashMap<>();
+        long nextSegment;
+        try (FileInputStream fis = new FileInputStream(f)) {
+            CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(fis, 1 << 16), new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+            int magic = in.readInt();
+            if (magic != SNAPSHOT_MAGIC && magic != SNAPSHOT_MAGIC_V1) {
+                log.warn("Ledger snapshot has bad magic; replaying all segments");
+                return 0;
+            }
+            // Format 1 has no updatedAt; retention for its states starts now
+            long loadedAt = System.currentTimeMillis();
+            nextSegment = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String provider = readStr(in);
+                String intent = readStr(in);
+                String currency = readStr(in);
+                long authorized = in.readLong();
+                long captured = in.readLong();
+                long refunded = in.readLong();
+                LedgerEntry.Type status = LedgerEntry.Type.values()[in.readUnsignedByte()];
+                long updatedAt = magic == SNAPSHOT_MAGIC ? in.readLong() : loadedAt;
+                loaded.put(intent, new PaymentState(provider, intent, currency, authorized, captured, refunded, status,
+                        updatedAt));
+            }
+            long expected = checked.getChecksum().getValue();
+            if (in.readLong() != expected) {
+                log.warn("Ledger snapshot checksum mismatch; replaying all segments");
+                return 0;
+            }
+        } catch (EOFException e) {
+            log.warn("Ledger snapshot truncated; replaying all segments");
+            return 0;
+        }
+        index.putAll(loaded);
+        return nextSegment;
+    }
+
+    private void deleteSegmentsBefore(long id) {
+        for (Map.Entry<Long, File> s : listSegments().headMap(id, false).entrySet()) {
+            if (!s.getValue().delete()) log.warn("Could not delete compacted ledger segment {}", s.getValue());
+        }
+    }
+
+    private TreeMap<Long, File> listSegments() {
+        TreeMap<Long, File> out = new TreeMap<>();
+        File[] files = dir.listFiles((d, name) -> name.startsWith("ledger-") && name.endsWith(".seg"));
+        if (files == null) return out;
+        for (File f : files) {
+            String n = f.getName();
+            out.put(Long.parseLong(n.substring(7, n.length() - 4)), f);
+        }
+        return out;
+    }
+
+    private File segmentFile(long id) {
+        return new File(dir, String.format("ledger-%016d.seg", id));
+    }
+
+    private static void writeStr(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeShort(-1);
+            return;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(b.length);
+        out.write(b);
+    }
+
+    private static String readStr(DataInputStream in) throws IOException {
+        short len = in.readShort();
+        if (len < 0) return null;
+        byte[] b = new byte[len];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static int crc32(byte[] b, int off, int len) {
+        CRC32 crc = new CRC32();
+        crc.update(b, off, len);
+        return (int) crc.getValue();
+    }
+
+    private static int crc32(ByteBuffer b) {
+        CRC32 crc = new CRC32();
+        crc.update(b.duplicate());
+        return (int) crc.getValue();
+    }
+
+    @PreDestroy
+    void close() {
+        if (!running) return;
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+            segment.force();
+            channel.close();
+            snapshotter.shutdown();
+            snapshotter.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Ledger close failed: {}", e.getMessage());
+        }
+    }
+}
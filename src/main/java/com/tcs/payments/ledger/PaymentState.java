@@ -0,0 +1,75 @@
+package com.tcs.payments.ledger;
+
+/**
+ * Latest known state of one intent, folded from its ledger entries.
+ * Immutable: the ledger swaps in a new instance on every transition.
+ */
+public final class PaymentState {
+
+    private final String provider;
+    private final String intentId;
+    private final String currency;
+    private final long authorizedAmount;
+    private final long capturedAmount;
+    private final long refundedAmount;
+    private final LedgerEntry.Type status;
+    private final long updatedAt; // timestamp of the last entry applied, epoch millis
+
+    public PaymentState(String provider, String intentId, String currency, long authorizedAmount,
+                        long capturedAmount, long refundedAmount, LedgerEntry.Type status, long updatedAt) {
+        this.provider = provider;
+        this.intentId = intentId;
+        this.currency = currency;
+        this.authorizedAmount = authorizedAmount;
+        this.capturedAmount = capturedAmount;
+        this.refundedAmount = refundedAmount;
+        this.status = status;
+        this.updatedAt = updatedAt;
+    }
+
+    /** Applies a transition; prev may be null for the first entry of an intent. */
+    static PaymentState apply(PaymentState prev, LedgerEntry e) {
+        String provider = e.provider != null ? e.provider : (prev != null ? prev.provider : null);
+        String currency = e.currency != null ? e.currency : (prev != null ? prev.currency : null);
+        long authorized = prev != null ? prev.authorizedAmount : 0;
+        long captured = prev != null ? prev.capturedAmount : 0;
+        long refunded = prev != null ? prev.refundedAmount : 0;
+
+        switch (e.type) {
+            case INITIATED:
+            case AUTHORIZED:
+                authorized = e.amount;
+                break;
+            case CAPTURED:
+                captured += e.amount > 0 ? e.amount : authorized - captured;
+                break;
+            case REFUNDED:
+                long refundable = (captured > 0 ? captured : authorized) - refunded;
+                refunded += e.amount > 0 ? e.amount : refundable;
+                break;
+            case FAILED:
+            default:
+                break;
+        }
+        return new PaymentState(provider, e.intentId, currency, authorized, captured, refunded, e.type, e.timestamp);
+    }
+
+    public String getProvider() { return provider; }
+    public String getIntentId() { return intentId; }
+    public String getCurrency() { return currency; }
+    public long getAuthorizedAmount() { return authorizedAmount; }
+    public long getCapturedAmount() { return capturedAmount; }
+    public long getRefundedAmount() { return refundedAmount; }
+    public LedgerEntry.Type getStatus() { return status; }
+    public long getUpdatedAt() { return updatedAt; }
+
+    /** Failed, or refunded in full: no capture or refund can follow. */
+    public boolean isTerminal() {
+        return status == LedgerEntry.Type.FAILED || (status == LedgerEntry.Type.REFUNDED && getRefundableAmount() == 0);
+    }
+
+    /** Amount still refundable: captured (or authorized if never captured) minus refunds so far. */
+    public long getRefundableAmount() {
+        return Math.max(0, (capturedAmount > 0 ? capturedAmount : authorizedAmount) - refundedAmount);
+    }
+}
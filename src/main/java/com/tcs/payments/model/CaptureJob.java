@@ -0,0 +1,28 @@
+package com.tcs.payments.model;
+
+public class CaptureJob {
+
+	private String provider;
+	private String intentId;
+
+	public CaptureJob() {}
+	public CaptureJob(String provider, String intentId) { this.provider = provider; this.intentId = intentId; }
+
+	public String getProvider() {
+		return provider;
+	}
+	public void setProvider(String provider) {
+		this.provider = provider;
+	}
+	public String getIntentId() {
+		return intentId;
+	}
+	public void setIntentId(String intentId) {
+		this.intentId = intentId;
+	}
+
+	/** Dedup key: one capture per provider + intent. */
+	public String key() {
+		return provider + ":" + intentId;
+	}
+}
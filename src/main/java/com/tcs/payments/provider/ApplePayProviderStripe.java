@@ -1,9 +1,13 @@
 package com.tcs.payments.provider;
 
-import com.stripe.Stripe;
+import com.stripe.StripeClient;
+import com.stripe.exception.CardException;
+import com.stripe.exception.IdempotencyException;
+import com.stripe.exception.InvalidRequestException;
 import com.stripe.model.PaymentIntent;
 import com.stripe.model.Refund;
 import com.stripe.net.RequestOptions;
+import com.stripe.param.PaymentIntentCaptureParams;
 import com.stripe.param.PaymentIntentCreateParams;
 import com.stripe.param.RefundCreateParams;
 import com.tcs.payments.model.PaymentRequest;
@@ -11,13 +15,29 @@ import com.tcs.payments.model.PaymentResponse;
 import java.util.HashMap;
 
 public class ApplePayProviderStripe implements PaymentProvider {
+
+    private final RemoteCallCounter calls = new RemoteCallCounter();
+    
+    // API key and timeouts come from this client, not the static Stripe.apiKey
+    private final StripeClient client;
     
-    public ApplePayProviderStripe(String secretKey) {
-        Stripe.apiKey = secretKey;
+    public ApplePayProviderStripe(StripeClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public RemoteCallCounter remoteCalls() {
+        return calls;
     }
 
     @Override
-    public PaymentResponse authorize(PaymentRequest req) throws Exception {
+    public void warmUp() throws Exception {
+        calls.increment("warmUp");
+        client.balance().retrieve();
+    }
+
+    @Override
+    public PaymentResponse authorize(PaymentRequest req, AuthorizationContext ctx) throws Exception {
         // 1. Build parameters with 2025 Mandatory return_url and Manual Capture
         PaymentIntentCreateParams params = PaymentIntentCreateParams.builder()
             .setAmount(req.getAmount().getValue())
@@ -37,7 +57,8 @@ public class ApplePayProviderStripe implements PaymentProvider {
             .build();
 
         // 3. Create the Intent
-        PaymentIntent intent = PaymentIntent.create(params, requestOptions);
+        calls.increment("authorize");
+        PaymentIntent intent = client.paymentIntents().create(params, requestOptions);
 
         // 4. Map the response
         PaymentResponse r = new PaymentResponse();
@@ -67,8 +88,9 @@ public class ApplePayProviderStripe implements PaymentProvider {
     @Override
     public PaymentResponse capture(String intentId) throws Exception {
         // Capture logic for Wallet payments is identical to Card
-        PaymentIntent intent = PaymentIntent.retrieve(intentId);
-        intent = intent.capture();
+        // Single round trip: capture by id without retrieving the intent first
+        calls.increment("capture");
+        PaymentIntent intent = client.paymentIntents().capture(intentId, PaymentIntentCaptureParams.builder().build());
         
         PaymentResponse r = new PaymentResponse();
         r.setStatus(PaymentResponse.Status.CAPTURED);
@@ -80,6 +102,11 @@ public class ApplePayProviderStripe implements PaymentProvider {
     //added for refund option
     @Override
     public PaymentResponse refund(String intentId, Integer amount) throws Exception {
+        return refund(intentId, amount, null);
+    }
+
+    @Override
+    public PaymentResponse refund(String intentId, Integer amount, String idempotencyKey) throws Exception {
         try {
             RefundCreateParams.Builder builder = RefundCreateParams.builder()
                 .setPaymentIntent(intentId);
@@ -89,7 +116,9 @@ public class ApplePayProviderStripe implements PaymentProvider {
             }
 
             // 1. Execute the refund on Stripe
-            Refund stripeRefund = Refund.create(builder.build());
+            calls.increment("refund");
+            Refund stripeRefund = client.refunds().create(builder.build(),
+                    RequestOptions.builder().setIdempotencyKey(idempotencyKey).build());
 
             PaymentResponse r = new PaymentResponse();
             
@@ -109,7 +138,9 @@ public class ApplePayProviderStripe implements PaymentProvider {
             
             return r;
 
-        } catch (Exception e) {
+        } catch (CardException | IdempotencyException | InvalidRequestException e) {
+            // Stripe refused the refund (already refunded, amount over the charge, key reused): that is the
+            // answer. Connection, rate-limit and 5xx errors propagate so the caller retries and the breaker counts them
             PaymentResponse r = new PaymentResponse();
             r.setStatus(PaymentResponse.Status.FAILED);
             r.setProvider("Stripe");
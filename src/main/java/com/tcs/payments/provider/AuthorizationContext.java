@@ -0,0 +1,48 @@
+package com.tcs.payments.provider;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-call authorization inputs decided by the orchestrator (3DS, risk reasons, routing hints).
+ *
+ * Passed to PaymentProvider.authorize instead of being set on the provider,
+ * so provider singletons stay stateless and safe to call concurrently.
+ */
+public final class AuthorizationContext {
+
+    private static final AuthorizationContext NONE = new AuthorizationContext(false, false, List.of(), Map.of());
+
+    private final boolean request3ds;
+    private final boolean challengePreferred;
+    private final List<String> riskReasons;
+    private final Map<String, String> routingHints;
+
+    public AuthorizationContext(boolean request3ds, boolean challengePreferred,
+                                List<String> riskReasons, Map<String, String> routingHints) {
+        this.request3ds = request3ds;
+        this.challengePreferred = challengePreferred;
+        this.riskReasons = riskReasons == null ? List.of() : List.copyOf(riskReasons);
+        this.routingHints = routingHints == null ? Map.of() : Map.copyOf(routingHints);
+    }
+
+    public static AuthorizationContext none() {
+        return NONE;
+    }
+
+    public boolean isRequest3ds() {
+        return request3ds;
+    }
+
+    public boolean isChallengePreferred() {
+        return challengePreferred;
+    }
+
+    public List<String> getRiskReasons() {
+        return riskReasons;
+    }
+
+    public Map<String, String> getRoutingHints() {
+        return routingHints;
+    }
+}
@@ -1,32 +1,45 @@
 package com.tcs.payments.provider;
 
 import java.util.HashMap;
-import java.util.Map;
 
-import com.stripe.Stripe;
+import com.stripe.StripeClient;
+import com.stripe.exception.CardException;
+import com.stripe.exception.IdempotencyException;
+import com.stripe.exception.InvalidRequestException;
 import com.stripe.model.Charge;
 import com.stripe.model.PaymentIntent;
 import com.stripe.model.Refund;
 import com.stripe.net.RequestOptions;
+import com.stripe.param.PaymentIntentCaptureParams;
 import com.stripe.param.PaymentIntentCreateParams;
 import com.stripe.param.RefundCreateParams;
 import com.tcs.payments.model.PaymentRequest;
 import com.tcs.payments.model.PaymentResponse;
 
 public class CardProviderStripe implements PaymentProvider { 
+
+    private final RemoteCallCounter calls = new RemoteCallCounter();
     
-    public CardProviderStripe(String secretKey) {
-        Stripe.apiKey = secretKey;
-    }
-    
-    private Boolean request3ds = false;
+    // API key and timeouts come from this client, not the static Stripe.apiKey
+    private final StripeClient client;
     
-    public void setRequest3ds(Boolean b) {
-        this.request3ds = b; 
+    public CardProviderStripe(StripeClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public RemoteCallCounter remoteCalls() {
+        return calls;
+    }
+
+    @Override
+    public void warmUp() throws Exception {
+        calls.increment("warmUp");
+        client.balance().retrieve();
     }
     
     @Override
-    public PaymentResponse authorize(PaymentRequest req) throws Exception {
+    public PaymentResponse authorize(PaymentRequest req, AuthorizationContext ctx) throws Exception {
         PaymentIntentCreateParams.Builder builder = PaymentIntentCreateParams.builder()
                 .setAmount(req.getAmount().getValue())
                 .setCurrency(req.getAmount().getCurrency().name().toLowerCase())
@@ -38,9 +51,9 @@ public class CardProviderStripe implements PaymentProvider {
                 .setCaptureMethod(PaymentIntentCreateParams.CaptureMethod.MANUAL)
                 .putAllMetadata(req.getMetadata() == null ? new HashMap<>() : req.getMetadata());
 
-        // Configure 3D Secure
+        // Configure 3D Secure from this call's context (no shared provider state)
         PaymentIntentCreateParams.PaymentMethodOptions.Card.RequestThreeDSecure request3dsType = 
-                request3ds ? PaymentIntentCreateParams.PaymentMethodOptions.Card.RequestThreeDSecure.ANY :
+                ctx.isRequest3ds() ? PaymentIntentCreateParams.PaymentMethodOptions.Card.RequestThreeDSecure.ANY :
                              PaymentIntentCreateParams.PaymentMethodOptions.Card.RequestThreeDSecure.AUTOMATIC;
 
         builder.setPaymentMethodOptions(
@@ -55,7 +68,8 @@ public class CardProviderStripe implements PaymentProvider {
                 .setIdempotencyKey(req.getIdempotencyKey())
                 .build();
 
-        PaymentIntent intent = PaymentIntent.create(builder.build(), options);
+        calls.increment("authorize");
+        PaymentIntent intent = client.paymentIntents().create(builder.build(), options);
 
         PaymentResponse r = new PaymentResponse();
         r.setProvider("Stripe");
@@ -84,16 +98,12 @@ public class CardProviderStripe implements PaymentProvider {
 
     @Override
     public PaymentResponse capture(String intentId) throws Exception {
-        // Retrieve the intent to ensure it's in the correct state
-        PaymentIntent intent = PaymentIntent.retrieve(intentId);
-        
-        // Capture the authorized funds
-        intent = intent.capture();
-
-        // Expand to get the receipt URL from the latest charge
-        Map<String, Object> expandParams = new HashMap<>();
-        expandParams.put("expand", java.util.List.of("latest_charge"));
-        intent = PaymentIntent.retrieve(intentId, expandParams, null);
+        // Single round trip: capture by id (no prior retrieve) and expand latest_charge on the capture itself
+        PaymentIntentCaptureParams params = PaymentIntentCaptureParams.builder()
+                .addExpand("latest_charge")
+                .build();
+        calls.increment("capture");
+        PaymentIntent intent = client.paymentIntents().capture(intentId, params);
         
         Charge latestCharge = (Charge) intent.getLatestChargeObject();
         String receiptUrl = latestCharge != null ? latestCharge.getReceiptUrl() : null;
@@ -108,6 +118,11 @@ public class CardProviderStripe implements PaymentProvider {
     
     @Override
     public PaymentResponse refund(String intentId, Integer amount) throws Exception {
+        return refund(intentId, amount, null);
+    }
+
+    @Override
+    public PaymentResponse refund(String intentId, Integer amount, String idempotencyKey) throws Exception {
         try {
             // 1. Build refund parameters
             RefundCreateParams.Builder builder = RefundCreateParams.builder()
@@ -119,7 +134,9 @@ public class CardProviderStripe implements PaymentProvider {
             }
 
             // 3. Execute the refund call to Stripe API
-            Refund stripeRefund = Refund.create(builder.build());
+            calls.increment("refund");
+            Refund stripeRefund = client.refunds().create(builder.build(),
+                    RequestOptions.builder().setIdempotencyKey(idempotencyKey).build());
 
             // 4. Map the response
             PaymentResponse r = new PaymentResponse();
@@ -137,8 +154,9 @@ public class CardProviderStripe implements PaymentProvider {
             }
             return r;
 
-        } catch (Exception e) {
-            // Handle Stripe errors (e.g., already refunded, insufficient funds)
+        } catch (CardException | IdempotencyException | InvalidRequestException e) {
+            // Stripe refused the refund (already refunded, amount over the charge, key reused): that is the
+            // answer. Connection, rate-limit and 5xx errors propagate so the caller retries and the breaker counts them
             PaymentResponse r = new PaymentResponse();
             r.setStatus(PaymentResponse.Status.FAILED);
             r.setProvider("Stripe");
@@ -5,7 +5,7 @@ import com.tcs.payments.model.PaymentResponse;
 
 public class CodProvider implements PaymentProvider {
 	@Override
-	public PaymentResponse authorize(PaymentRequest req) {
+	public PaymentResponse authorize(PaymentRequest req, AuthorizationContext ctx) {
 		PaymentResponse r = PaymentResponse.of(PaymentResponse.Status.AUTHORIZED,"COD");
 		r.setIntentId("cod_"+System.currentTimeMillis());
 		return r;	
@@ -5,20 +5,36 @@ import com.razorpay.Order;
 import com.razorpay.Payment;
 import com.razorpay.RazorpayClient;
 import com.razorpay.Refund;
+import com.tcs.payments.model.Amount;
 import com.tcs.payments.model.PaymentRequest;
 import com.tcs.payments.model.PaymentResponse;
 
 public class EmiProviderRazorpay implements PaymentProvider {
     
     private final RazorpayClient client;
+    private final RemoteCallCounter calls = new RemoteCallCounter();
 
     public EmiProviderRazorpay(String keyId, String keySecret) throws Exception {
         // Authenticates with Razorpay using keys from application.yml
         this.client = new RazorpayClient(keyId, keySecret);
     }
+
+    @Override
+    public RemoteCallCounter remoteCalls() {
+        return calls;
+    }
+
+    @Override
+    public void warmUp() throws Exception {
+        // Cheapest authenticated call; opens the TLS connection RazorpayClient reuses afterwards
+        calls.increment("warmUp");
+        JSONObject probe = new JSONObject();
+        probe.put("count", 1);
+        client.payments.fetchAll(probe);
+    }
     
     @Override
-    public PaymentResponse authorize(PaymentRequest req) throws Exception {
+    public PaymentResponse authorize(PaymentRequest req, AuthorizationContext ctx) throws Exception {
         JSONObject orderRequest = new JSONObject();
         
         // Amount in minor units (paise). 100 paise = 1 INR.
@@ -39,6 +55,7 @@ public class EmiProviderRazorpay implements PaymentProvider {
         orderRequest.put("notes", notes);
 
         // API Call: Create the Order
+        calls.increment("authorize");
         Order order = client.orders.create(orderRequest);
 
         PaymentResponse r = PaymentResponse.of(PaymentResponse.Status.AUTHORIZED, "Razorpay");
@@ -47,19 +64,37 @@ public class EmiProviderRazorpay implements PaymentProvider {
         return r;
     }
     
+    @Override
+    public String authorizationId(String paymentId) throws Exception {
+        // authorize() returns the order; the customer then pays it as a separate pay_... payment
+        if (paymentId == null || paymentId.startsWith("order_")) return paymentId;
+        calls.increment("authorizationId");
+        Payment payment = client.payments.fetch(paymentId);
+        Object orderId = payment.get("order_id");
+        return orderId instanceof String ? (String) orderId : null;
+    }
+
     @Override
     public PaymentResponse capture(String paymentId) throws Exception {
+        // Razorpay needs the authorized amount and currency; without the ledger's record there is nothing safe to send
+        PaymentResponse r = PaymentResponse.of(PaymentResponse.Status.FAILED, "Razorpay");
+        r.setIntentId(paymentId);
+        r.setFailureReason("authorization_not_found");
+        return r;
+    }
+
+    @Override
+    public PaymentResponse capture(String paymentId, Amount authorized) throws Exception {
         // 2025 Razorpay Capture Logic:
         // Note: You capture a Payment ID (pay_...), not an Order ID.
         JSONObject captureRequest = new JSONObject();
         
-        // Amount and currency must match the original authorized transaction.
-        // In a real production app, you would retrieve these from your database.
-        // For testing, ensure this matches your initiate amount (e.g., 300000 for ₹3000).
-        captureRequest.put("amount", 300000); 
-        captureRequest.put("currency", "INR");
+        // Amount and currency must match the original authorized transaction (read from the payment ledger).
+        captureRequest.put("amount", authorized.getValue()); 
+        captureRequest.put("currency", authorized.getCurrency().name().toUpperCase());
 
         // API Call: Finalize the payment
+        calls.increment("capture");
         Payment payment = client.payments.capture(paymentId, captureRequest);
 
         PaymentResponse r = new PaymentResponse();
@@ -82,6 +117,7 @@ public class EmiProviderRazorpay implements PaymentProvider {
             }
 
             // API Call: Initiate refund for the specific Payment ID (pay_...)
+            calls.increment("refund");
             Refund refund = client.payments.refund(paymentId, refundRequest);
 
             PaymentResponse r = new PaymentResponse();
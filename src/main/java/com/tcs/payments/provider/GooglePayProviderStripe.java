@@ -2,23 +2,43 @@ package com.tcs.payments.provider;
 
 import java.util.HashMap;
 
-import com.stripe.Stripe;
+import com.stripe.StripeClient;
+import com.stripe.exception.CardException;
+import com.stripe.exception.IdempotencyException;
+import com.stripe.exception.InvalidRequestException;
 import com.stripe.model.PaymentIntent;
 import com.stripe.model.Refund;
 import com.stripe.net.RequestOptions;
+import com.stripe.param.PaymentIntentCaptureParams;
 import com.stripe.param.PaymentIntentCreateParams;
 import com.stripe.param.RefundCreateParams;
 import com.tcs.payments.model.PaymentRequest;
 import com.tcs.payments.model.PaymentResponse;
 
 public class GooglePayProviderStripe implements PaymentProvider {
+
+    private final RemoteCallCounter calls = new RemoteCallCounter();
+    
+    // API key and timeouts come from this client, not the static Stripe.apiKey
+    private final StripeClient client;
     
-    public GooglePayProviderStripe(String secretKey) {
-        Stripe.apiKey = secretKey;
+    public GooglePayProviderStripe(StripeClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public RemoteCallCounter remoteCalls() {
+        return calls;
+    }
+
+    @Override
+    public void warmUp() throws Exception {
+        calls.increment("warmUp");
+        client.balance().retrieve();
     }
     
     @Override
-    public PaymentResponse authorize(PaymentRequest req) throws Exception {
+    public PaymentResponse authorize(PaymentRequest req, AuthorizationContext ctx) throws Exception {
         // Build parameters with 2025 Mandatory return_url and Manual Capture
         PaymentIntentCreateParams.Builder builder = PaymentIntentCreateParams.builder()
             .setAmount(req.getAmount().getValue())
@@ -36,7 +56,9 @@ public class GooglePayProviderStripe implements PaymentProvider {
             .setIdempotencyKey(req.getIdempotencyKey())
             .build();
 
-        PaymentIntent intent = PaymentIntent.create(builder.build(), requestOptions);
+        calls.increment("authorize");
+
+        PaymentIntent intent = client.paymentIntents().create(builder.build(), requestOptions);
 
         PaymentResponse r = new PaymentResponse();
         r.setProvider("Stripe");
@@ -64,8 +86,9 @@ public class GooglePayProviderStripe implements PaymentProvider {
 
     @Override
     public PaymentResponse capture(String intentId) throws Exception {
-        PaymentIntent intent = PaymentIntent.retrieve(intentId);
-        intent = intent.capture();
+        // Single round trip: capture by id without retrieving the intent first
+        calls.increment("capture");
+        PaymentIntent intent = client.paymentIntents().capture(intentId, PaymentIntentCaptureParams.builder().build());
         
         PaymentResponse r = new PaymentResponse();
         r.setStatus(PaymentResponse.Status.CAPTURED);
@@ -76,6 +99,11 @@ public class GooglePayProviderStripe implements PaymentProvider {
     
     @Override
     public PaymentResponse refund(String intentId, Integer amount) throws Exception {
+        return refund(intentId, amount, null);
+    }
+
+    @Override
+    public PaymentResponse refund(String intentId, Integer amount, String idempotencyKey) throws Exception {
         try {
             // 1. Build refund parameters linked to the original PaymentIntent ID (pi_...)
             RefundCreateParams.Builder builder = RefundCreateParams.builder()
@@ -87,7 +115,9 @@ public class GooglePayProviderStripe implements PaymentProvider {
             }
 
             // 3. Execute the refund call to Stripe API
-            Refund stripeRefund = Refund.create(builder.build());
+            calls.increment("refund");
+            Refund stripeRefund = client.refunds().create(builder.build(),
+                    RequestOptions.builder().setIdempotencyKey(idempotencyKey).build());
 
             // 4. Map the response
             PaymentResponse r = new PaymentResponse();
@@ -105,8 +135,9 @@ public class GooglePayProviderStripe implements PaymentProvider {
             }
             return r;
 
-        } catch (Exception e) {
-            // Handle Stripe errors (e.g., already refunded, API rate limits)
+        } catch (CardException | IdempotencyException | InvalidRequestException e) {
+            // Stripe refused the refund (already refunded, amount over the charge, key reused): that is the
+            // answer. Connection, rate-limit and 5xx errors propagate so the caller retries and the breaker counts them
             PaymentResponse r = new PaymentResponse();
             r.setStatus(PaymentResponse.Status.FAILED);
             r.setProvider("Stripe");
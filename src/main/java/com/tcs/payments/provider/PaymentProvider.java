@@ -1,11 +1,42 @@
 package com.tcs.payments.provider;
 
+import com.tcs.payments.model.Amount;
 import com.tcs.payments.model.PaymentRequest;
 import com.tcs.payments.model.PaymentResponse;
 
 public interface PaymentProvider {
-	 PaymentResponse authorize(PaymentRequest req) throws Exception;
+	 PaymentResponse authorize(PaymentRequest req, AuthorizationContext ctx) throws Exception;
 	 PaymentResponse capture(String intentId) throws Exception;
 	 PaymentResponse refund(String paymentId, Integer amount) throws Exception;
 
-}
\ No newline at end of file
+	 default PaymentResponse authorize(PaymentRequest req) throws Exception {
+		 return authorize(req, AuthorizationContext.none());
+	 }
+
+	 // Refund that the PSP applies at most once per idempotencyKey (null = no key), so a retry after an
+	 // unknown outcome is safe; providers without PSP-side dedup ignore the key
+	 default PaymentResponse refund(String paymentId, Integer amount, String idempotencyKey) throws Exception {
+		 return refund(paymentId, amount);
+	 }
+
+	 // Capture with the locally recorded authorized amount; providers that don't need it ignore it
+	 default PaymentResponse capture(String intentId, Amount authorized) throws Exception {
+		 return capture(intentId);
+	 }
+
+	 // Id authorize() returned for the payment, which is what the ledger is keyed by; same id unless the PSP
+	 // captures something other than what it authorized (Razorpay: pay_ id -> order_ id). Null if unknown.
+	 default String authorizationId(String paymentId) throws Exception {
+		 return paymentId;
+	 }
+
+	 // Remote PSP calls made per operation; providers without remote calls keep the default
+	 default RemoteCallCounter remoteCalls() {
+		 return RemoteCallCounter.NONE;
+	 }
+
+	 // Opens the connection to the PSP ahead of the first payment; no-op for local providers
+	 default void warmUp() throws Exception {
+	 }
+
+}
@@ -0,0 +1,41 @@
+package com.tcs.payments.provider;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts remote PSP calls per provider operation (e.g. "authorize", "capture", "refund"),
+ * so the call budget of each PaymentProvider method can be checked.
+ */
+public class RemoteCallCounter {
+
+    /** Shared counter for providers that never call out (e.g. COD); ignores increments, so it always reads zero. */
+    public static final RemoteCallCounter NONE = new RemoteCallCounter() {
+        @Override
+        public void increment(String operation) {
+        }
+    };
+
+    private final ConcurrentHashMap<String, LongAdder> calls = new ConcurrentHashMap<>();
+
+    public void increment(String operation) {
+        calls.computeIfAbsent(operation, k -> new LongAdder()).increment();
+    }
+
+    public long get(String operation) {
+        LongAdder a = calls.get(operation);
+        return a == null ? 0 : a.sum();
+    }
+
+    public Map<String, Long> snapshot() {
+        Map<String, Long> out = new TreeMap<>();
+        calls.forEach((k, v) -> out.put(k, v.sum()));
+        return out;
+    }
+
+    public void reset() {
+        calls.clear();
+    }
+}
@@ -0,0 +1,126 @@
+package com.tcs.payments.resilience;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.tcs.payments.service.PaymentsProperties;
+
+/**
+ * Count-based circuit breaker over the last windowSize calls.
+ *
+ * A call counts as bad if it failed (a PSP outage, see ResilientPaymentProvider) or took longer than
+ * slowCallMillis. The breaker opens when either the failure rate or the slow-call rate reaches its
+ * threshold (after minCalls), stays open for openMillis, then lets halfOpenCalls trial calls through to decide whether to close.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final PaymentsProperties.Resilience.Settings cfg;
+
+    // Ring buffer of outcomes: bit 0 = failed, bit 1 = slow
+    private final byte[] window;
+    private int next;
+    private int recorded;
+    private int failures;
+    private int slow;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenIssued;
+    private long rejected;
+
+    public CircuitBreaker(String name, PaymentsProperties.Resilience.Settings cfg) {
+        this.name = name;
+        this.cfg = cfg;
+        this.window = new byte[Math.max(1, cfg.getWindowSize())];
+    }
+
+    /** Returns false if the call must fail fast. */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < cfg.getOpenMillis()) {
+                rejected++;
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenIssued = 0;
+            reset();
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenIssued >= cfg.getHalfOpenCalls()) {
+                rejected++;
+                return false;
+            }
+            halfOpenIssued++;
+        }
+        return true;
+    }
+
+    /** Gives back a permit from tryAcquire when the call was never made (e.g. bulkhead full). */
+    public synchronized void cancel() {
+        if (state == State.HALF_OPEN && halfOpenIssued > 0) halfOpenIssued--;
+    }
+
+    public synchronized void record(long elapsedMillis, boolean failed) {
+        boolean isSlow = elapsedMillis >= cfg.getSlowCallMillis();
+        byte outcome = (byte) ((failed ? 1 : 0) | (isSlow ? 2 : 0));
+        if (recorded == window.length) {
+            byte old = window[next];
+            if ((old & 1) != 0) failures--;
+            if ((old & 2) != 0) slow--;
+        } else {
+            recorded++;
+        }
+        window[next] = outcome;
+        next = (next + 1) % window.length;
+        if (failed) failures++;
+        if (isSlow) slow++;
+
+        if (state == State.HALF_OPEN) {
+            if (recorded >= cfg.getHalfOpenCalls()) {
+                if (tripped()) open();
+                else {
+                    state = State.CLOSED;
+                    reset();
+                }
+            }
+        } else if (state == State.CLOSED && recorded >= cfg.getMinCalls() && tripped()) {
+            open();
+        }
+    }
+
+    private boolean tripped() {
+        int failureRate = failures * 100 / recorded;
+        int slowRate = slow * 100 / recorded;
+        return failureRate >= cfg.getFailureRateThreshold() || slowRate >= cfg.getSlowCallRateThreshold();
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+    }
+
+    private void reset() {
+        next = 0;
+        recorded = 0;
+        failures = 0;
+        slow = 0;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("name", name);
+        out.put("state", state);
+        out.put("bufferedCalls", recorded);
+        out.put("failureRate", recorded == 0 ? 0 : failures * 100 / recorded);
+        out.put("slowCallRate", recorded == 0 ? 0 : slow * 100 / recorded);
+        out.put("rejectedCalls", rejected);
+        return out;
+    }
+}
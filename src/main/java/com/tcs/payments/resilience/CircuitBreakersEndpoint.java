@@ -0,0 +1,24 @@
+package com.tcs.payments.resilience;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/** Exposes breaker and bulkhead state per provider at /actuator/circuitbreakers. */
+@Component
+@Endpoint(id = "circuitbreakers")
+public class CircuitBreakersEndpoint {
+
+    private final ProviderResilience resilience;
+
+    public CircuitBreakersEndpoint(ProviderResilience resilience) {
+        this.resilience = resilience;
+    }
+
+    @ReadOperation
+    public Map<String, Object> circuitBreakers() {
+        return resilience.snapshot();
+    }
+}
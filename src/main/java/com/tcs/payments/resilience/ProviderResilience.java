@@ -0,0 +1,38 @@
+package com.tcs.payments.resilience;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import com.tcs.payments.provider.PaymentProvider;
+import com.tcs.payments.service.PaymentsProperties;
+
+/**
+ * Creates the per-provider bulkhead/breaker wrappers and keeps them for reporting.
+ * Settings come from payments.resilience.defaults, overridden field by field per provider name.
+ */
+@Component
+public class ProviderResilience {
+
+    private final PaymentsProperties.Resilience cfg;
+    private final Map<String, ResilientPaymentProvider> providers = new ConcurrentHashMap<>();
+
+    public ProviderResilience(PaymentsProperties props) {
+        this.cfg = props.getResilience();
+    }
+
+    public PaymentProvider wrap(String name, String providerLabel, PaymentProvider delegate) {
+        if (!cfg.isEnabled()) return delegate;
+        ResilientPaymentProvider wrapped = new ResilientPaymentProvider(name, providerLabel, delegate, cfg.settingsFor(name));
+        providers.put(name, wrapped);
+        return wrapped;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> out = new TreeMap<>();
+        providers.forEach((name, p) -> out.put(name, p.snapshot()));
+        return out;
+    }
+}
@@ -0,0 +1,20 @@
+package com.tcs.payments.resilience;
+
+/**
+ * Thrown instead of calling the PSP when its circuit breaker is open or its bulkhead is full.
+ * Nothing was sent, so the attempt is not a payment outcome: it is not stored by IdempotencyStore
+ * and the client may retry with the same key. The message is the reason ("circuit_open" / "bulkhead_full").
+ */
+public class ProviderUnavailableException extends Exception {
+
+    private final String provider;
+
+    public ProviderUnavailableException(String provider, String reason) {
+        super(reason);
+        this.provider = provider;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+}
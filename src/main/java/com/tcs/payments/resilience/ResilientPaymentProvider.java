@@ -0,0 +1,144 @@
+package com.tcs.payments.resilience;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+
+import com.tcs.payments.model.Amount;
+import com.tcs.payments.model.PaymentRequest;
+import com.tcs.payments.model.PaymentResponse;
+import com.tcs.payments.provider.AuthorizationContext;
+import com.tcs.payments.provider.PaymentProvider;
+import com.tcs.payments.provider.RemoteCallCounter;
+import com.tcs.payments.service.PaymentsProperties;
+
+/**
+ * Decorates a PaymentProvider with its own bulkhead (bounded concurrent calls) and circuit breaker.
+ *
+ * When the breaker is open or the bulkhead is full the call fails fast with ProviderUnavailableException
+ * ("circuit_open" / "bulkhead_full"), so a slow PSP cannot hold threads needed by other methods.
+ * Only PSP outages count against the breaker: connection errors, timeouts, 5xx and slow calls.
+ * Declines and other 4xx errors (e.g. a Stripe CardException) are the caller's problem, not the PSP's.
+ */
+public class ResilientPaymentProvider implements PaymentProvider {
+
+    private final String name;
+    private final String providerLabel;
+    private final PaymentProvider delegate;
+    private final CircuitBreaker breaker;
+    private final Semaphore bulkhead;
+    private final int maxConcurrent;
+    private final long maxWaitMillis;
+
+    public ResilientPaymentProvider(String name, String providerLabel, PaymentProvider delegate,
+                                    PaymentsProperties.Resilience.Settings cfg) {
+        this.name = name;
+        this.providerLabel = providerLabel;
+        this.delegate = delegate;
+        this.breaker = new CircuitBreaker(name, cfg);
+        this.maxConcurrent = Math.max(1, cfg.getMaxConcurrent());
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.maxWaitMillis = cfg.getMaxWaitMillis();
+    }
+
+    @Override
+    public PaymentResponse authorize(PaymentRequest req, AuthorizationContext ctx) throws Exception {
+        return call(() -> delegate.authorize(req, ctx));
+    }
+
+    @Override
+    public PaymentResponse capture(String intentId) throws Exception {
+        return call(() -> delegate.capture(intentId));
+    }
+
+    @Override
+    public PaymentResponse capture(String intentId, Amount authorized) throws Exception {
+        return call(() -> delegate.capture(intentId, authorized));
+    }
+
+    @Override
+    public PaymentResponse refund(String paymentId, Integer amount) throws Exception {
+        return call(() -> delegate.refund(paymentId, amount));
+    }
+
+    @Override
+    public PaymentResponse refund(String paymentId, Integer amount, String idempotencyKey) throws Exception {
+        return call(() -> delegate.refund(paymentId, amount, idempotencyKey));
+    }
+
+    @Override
+    public String authorizationId(String paymentId) throws Exception {
+        // One lookup per unseen payment id, ahead of the capture/refund that goes through the breaker
+        return delegate.authorizationId(paymentId);
+    }
+
+    @Override
+    public RemoteCallCounter remoteCalls() {
+        return delegate.remoteCalls();
+    }
+
+    @Override
+    public void warmUp() throws Exception {
+        // Startup only; not counted by the breaker
+        delegate.warmUp();
+    }
+
+    private PaymentResponse call(Callable<PaymentResponse> c) throws Exception {
+        if (!breaker.tryAcquire()) {
+            throw new ProviderUnavailableException(providerLabel, "circuit_open");
+        }
+        boolean acquired = maxWaitMillis > 0
+                ? bulkhead.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)
+                : bulkhead.tryAcquire();
+        if (!acquired) {
+            breaker.cancel();
+            throw new ProviderUnavailableException(providerLabel, "bulkhead_full");
+        }
+        long start = System.currentTimeMillis();
+        boolean failed = false;
+        try {
+            return c.call();
+        } catch (Exception e) {
+            failed = isOutage(e);
+            throw e;
+        } finally {
+            bulkhead.release();
+            breaker.record(System.currentTimeMillis() - start, failed);
+        }
+    }
+
+    /**
+     * Whether an exception from the PSP call means the PSP is unhealthy rather than the request bad:
+     * a Stripe connection error (connect/read timeouts included) or 5xx, or an I/O error or timeout
+     * anywhere in the cause chain (how the Razorpay client surfaces network failures).
+     */
+    static boolean isOutage(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof ApiConnectionException) return true;
+            if (t instanceof StripeException) {
+                Integer status = ((StripeException) t).getStatusCode();
+                return status != null && status >= 500;
+            }
+            if (t instanceof IOException || t instanceof TimeoutException) return true;
+        }
+        return false;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> out = new LinkedHashMap<>(breaker.snapshot());
+        out.put("bulkheadMaxConcurrent", maxConcurrent);
+        out.put("bulkheadInUse", maxConcurrent - bulkhead.availablePermits());
+        return out;
+    }
+}
@@ -0,0 +1,49 @@
+package com.tcs.payments.risk;
+
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.tcs.payments.model.Customer;
+import com.tcs.payments.model.PaymentRequest;
+import com.tcs.payments.risk.VelocityTracker.Key;
+
+/**
+ * Denylist check for the identifiers on a payment: card and wallet token, customer email and phone. Each
+ * is one Denylist probe, usually answered by the bloom filter alone, so nothing is cached per Customer.id:
+ * the id is whatever the caller sent, and every request is judged only by the identifiers it carries.
+ */
+@Component
+public class CustomerRiskProfiles {
+
+    private final Denylist denylist;
+
+    public CustomerRiskProfiles(Denylist denylist) {
+        this.denylist = denylist;
+    }
+
+    /** False when no denylist file is configured; check() then always reports nothing. */
+    public boolean enabled() {
+        return denylist.enabled();
+    }
+
+    /** Sets out.denylisted and out.customerDenylisted for req. */
+    public void check(PaymentRequest req, FraudEngine.Verdict out) {
+        int hits = 0;
+        if (denylist.enabled()) {
+            hits = hit(Key.CARD_TOKEN, req.getCardToken()) | hit(Key.WALLET_TOKEN, req.getWalletToken());
+            Customer c = req.getCustomer();
+            if (c != null) hits |= hit(Key.EMAIL, c.getEmail()) | hit(Key.PHONE, c.getPhone());
+        }
+        out.denylisted = hits;
+        out.customerDenylisted = hits != 0;
+    }
+
+    public Map<String, Object> describe() {
+        return denylist.describe();
+    }
+
+    private int hit(Key key, String value) {
+        return denylist.contains(VelocityTracker.hash(key, value)) ? 1 << key.ordinal() : 0;
+    }
+}
@@ -0,0 +1,499 @@
+package com.tcs.payments.risk;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.tcs.payments.risk.VelocityTracker.Key;
+import com.tcs.payments.service.PaymentsProperties;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Known-bad emails, phones and card/wallet tokens from payments.denylist.file: one "type:value" per line
+ * (email, phone, cardToken, walletToken; values normalised as in VelocityTracker), "-type:value" removes
+ * an entry and # starts a comment. Lookups never leave the process:
+ *  - a blocked bloom filter (&lt;file&gt;.bloom, 16 bits per entry at full load, 7 probes within one 64-byte
+ *    block) turns most misses away after one cache line;
+ *  - a hit is confirmed in an open-addressing table of 64-bit key hashes (&lt;file&gt;.idx), so a bloom false
+ *    positive never denies a payment.
+ * Both are memory-mapped: the sets live off-heap in the page cache, cost the GC nothing and are reused
+ * after a restart. The list is treated as append-only. Every refresh-seconds only the bytes past the last
+ * applied offset are read and applied in place (new bits and slots, tombstones for removals). The whole
+ * file is re-read only when it was replaced or truncated (new inode, smaller, or different first 4 KB),
+ * and the index is re-hashed into a larger one when it reaches half full; both are built off to the side
+ * (lookups keep using the current tables until then) and swapped in with one volatile write in install().
+ * Lookups are lock-free; one thread writes.
+ */
+@Component
+public class Denylist {
+    private static final Logger log = LoggerFactory.getLogger(Denylist.class);
+
+    private static final int MAGIC = 0x444E594C; // "DNYL"
+    private static final int FORMAT = 1;
+    // int magic, int format, int capacity, int headLen, long entries, long tombstones, long consumed, long headCrc
+    private static final int HEADER_BYTES = 64;
+    private static final int HEAD_CHECK_BYTES = 4096;
+    private static final int MIN_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = 1 << 27; // index file just over 1 GB
+    private static final long WINDOW_BYTES = 64L << 20;
+    private static final long EMPTY = 0;
+    private static final long TOMBSTONE = -1;
+    private static final int PROBES = 7;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final File file;
+    private final int expectedEntries;
+    private final ScheduledExecutorService refresher;
+    private volatile Tables tables;
+    private volatile long generation;
+
+    // Writer state, guarded by this
+    private Object fileKey;
+    private byte[] line = new byte[256];
+    private long skipped;
+
+    /** Bloom filter and index, with the header fields the writer keeps in step with the files. */
+    private static final class Tables {
+        final MappedByteBuffer bloom;
+        final MappedByteBuffer index;
+        final int capacity; // index slots, a power of two; the bloom filter has capacity bytes
+        long entries;
+        long tombstones;
+        long consumed;
+        int headLen;
+        long headCrc;
+
+        Tables(MappedByteBuffer bloom, MappedByteBuffer index, int capacity) {
+            this.bloom = bloom;
+            this.index = index;
+            this.capacity = capacity;
+        }
+    }
+
+    @Autowired
+    public Denylist(PaymentsProperties props) {
+        this(props.getDenylist().getFile(), props.getDenylist().getRefreshSeconds(), props.getDenylist().getExpectedEntries());
+    }
+
+    public Denylist(String file, int refreshSeconds, int expectedEntries) {
+        this.file = file == null || file.isBlank() ? null : new File(file);
+        this.expectedEntries = Math.max(MIN_CAPACITY / 2, expectedEntries);
+        if (this.file == null) {
+            this.refresher = null;
+            return;
+        }
+        try {
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load denylist " + file, e);
+        }
+        if (refreshSeconds > 0) {
+            this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "denylist-refresh");
+                t.setDaemon(true);
+                return t;
+            });
+            refresher.scheduleWithFixedDelay(this::refreshQuietly, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+        } else {
+            this.refresher = null;
+        }
+    }
+
+    public boolean enabled() {
+        return file != null;
+    }
+
+    /** Bumped whenever the set changes. */
+    public long generation() {
+        return generation;
+    }
+
+    public boolean contains(Key key, String value) {
+        return contains(VelocityTracker.hash(key, value));
+    }
+
+    /** h from VelocityTracker.hash; 0 (absent value) is never listed. */
+    boolean contains(long h) {
+        Tables t = tables;
+        if (t == null || h == EMPTY) return false;
+        h = slotKey(h);
+        return mightContain(t, h) && indexContains(t, h);
+    }
+
+    /** Applies whatever was appended since the last refresh, or re-reads a replaced file. */
+    public synchronized void refresh() throws IOException {
+        if (file == null) return;
+        BasicFileAttributes attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        Tables t = tables;
+        boolean replaced = fileKey != null && !Objects.equals(fileKey, attrs.fileKey());
+        if (replaced || attrs.size() < t.consumed || !headMatches(t)) {
+            rebuild("file replaced");
+        } else if (attrs.size() > t.consumed) {
+            long before = generation;
+            long start = System.nanoTime();
+            try (FileChannel ch = FileChannel.open(file.toPath())) {
+                // Appends go into the live tables; apply may have grown (and installed) new ones
+                t = apply(ch, t.consumed, attrs.size(), t);
+            }
+            commit(t);
+            if (generation != before) {
+                log.info("denylist updated in place: {} entries, {} skipped line(s), {} ms", tables.entries, skipped,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        }
+        fileKey = attrs.fileKey();
+    }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        Tables t = tables;
+        out.put("file", file == null ? null : file.getPath());
+        if (t != null) {
+            out.put("entries", t.entries);
+            out.put("capacity", t.capacity);
+            out.put("appliedBytes", t.consumed);
+            out.put("generation", generation);
+        }
+        return out;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (refresher != null) refresher.shutdownNow();
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (IOException | RuntimeException e) {
+            log.warn("denylist refresh failed, keeping {} entries: {}", tables.entries, e.toString());
+        }
+    }
+
+    // ---- loading ----
+
+    private synchronized void open() throws IOException {
+        if (!file.isFile()) throw new IOException("No such file");
+        Tables t = reopen();
+        if (t != null && file.length() >= t.consumed && headMatches(t)) {
+            tables = t;
+            long resumed = t.consumed;
+            refresh();
+            log.info("denylist reopened: {} entries, {} new byte(s) applied", tables.entries, tables.consumed - resumed);
+        } else {
+            rebuild(t == null ? "no usable index" : "file changed");
+        }
+        fileKey = Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+    }
+
+    /** Existing .idx/.bloom files, or null if missing or not ours. */
+    private Tables reopen() throws IOException {
+        File idx = sidecar(".idx");
+        File bloom = sidecar(".bloom");
+        if (!idx.isFile() || !bloom.isFile() || idx.length() < HEADER_BYTES) return null;
+        int capacity;
+        try (FileChannel ch = FileChannel.open(idx.toPath())) {
+            ByteBuffer h = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            ch.read(h, 0);
+            capacity = h.getInt(8);
+            if (h.getInt(0) != MAGIC || h.getInt(4) != FORMAT || capacity < MIN_CAPACITY || capacity > MAX_CAPACITY
+                    || Integer.bitCount(capacity) != 1) return null;
+        }
+        if (idx.length() != HEADER_BYTES + 8L * capacity || bloom.length() != capacity) return null;
+        Tables t = map(idx, bloom, capacity);
+        ByteBuffer h = t.index;
+        t.headLen = h.getInt(12);
+        t.entries = h.getLong(16);
+        t.tombstones = h.getLong(24);
+        t.consumed = h.getLong(32);
+        t.headCrc = h.getLong(40);
+        return t;
+    }
+
+    /** Reads the whole file into fresh tables sized for it and swaps them in once complete. */
+    private void rebuild(String why) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel ch = FileChannel.open(file.toPath())) {
+            long size = ch.size();
+            // Every line adds at most one entry or tombstone, so sizing for the line count means no re-hash mid-build
+            Tables t = create(capacityFor(Math.max(expectedEntries, countLines(ch, size))));
+            // Lookups stay on the current tables until install
+            install(apply(ch, 0, size, t));
+        }
+        log.info("denylist built ({}): {} entries, {} skipped line(s), capacity {}, {} ms", why, tables.entries, skipped,
+                tables.capacity, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Applies the complete lines in [from, to) to t, sets consumed to the offset after the last one and returns
+     * the tables that hold them (t, or larger ones if it had to grow).
+     */
+    private Tables apply(FileChannel ch, long from, long to, Tables t) throws IOException {
+        skipped = 0;
+        long pos = from;
+        while (pos < to) {
+            long len = Math.min(to - pos, WINDOW_BYTES);
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, len);
+            int end = (int) len;
+            while (end > 0 && buf.get(end - 1) != '\n') end--;
+            if (end == 0) {
+                if (len == WINDOW_BYTES) throw new IOException("Line longer than " + WINDOW_BYTES + " bytes at offset " + pos);
+                break; // unterminated last line: picked up once it is complete
+            }
+            int lineStart = 0;
+            for (int i = 0; i < end; i++) {
+                if (buf.get(i) == '\n') {
+                    t = line(buf, lineStart, i, t);
+                    lineStart = i + 1;
+                }
+            }
+            pos += end;
+        }
+        t.consumed = pos;
+        return t;
+    }
+
+    private Tables line(MappedByteBuffer buf, int from, int to, Tables t) throws IOException {
+        int n = to - from;
+        if (n > line.length) line = new byte[Math.max(n, line.length * 2)];
+        buf.get(from, line, 0, n);
+        String s = new String(line, 0, n, StandardCharsets.UTF_8);
+        int start = 0;
+        int end = s.length();
+        while (start < end && s.charAt(start) <= ' ') start++;
+        while (end > start && s.charAt(end - 1) <= ' ') end--;
+        if (start == end || s.charAt(start) == '#') return t;
+        boolean remove = s.charAt(start) == '-';
+        if (remove) start++;
+        int colon = s.indexOf(':', start);
+        Key key = colon < 0 ? null : key(s, start, colon);
+        long h = key == null ? EMPTY : VelocityTracker.hash(key, s, colon + 1, end);
+        if (h == EMPTY) {
+            skipped++;
+            return t;
+        }
+        h = slotKey(h);
+        if (remove) {
+            if (remove(t, h)) generation++;
+        } else {
+            if ((t.entries + t.tombstones + 1) * 2 > t.capacity) t = grow(t);
+            if (insert(t, h)) generation++;
+        }
+        return t;
+    }
+
+    private static Key key(String s, int start, int end) {
+        for (Key k : Key.values()) {
+            if (k.label.length() == end - start && s.regionMatches(true, start, k.label, 0, end - start)) return k;
+        }
+        return null;
+    }
+
+    /** Re-hashes t's entries into tables with room to spare; swaps them in only if t is the published tables. */
+    private Tables grow(Tables t) throws IOException {
+        Tables next = create(capacityFor(t.entries * 2));
+        for (int i = 0; i < t.capacity; i++) {
+            long h = slot(t, i);
+            if (h != EMPTY && h != TOMBSTONE) insert(next, h);
+        }
+        next.consumed = t.consumed;
+        next.headLen = t.headLen;
+        next.headCrc = t.headCrc;
+        // While rebuilding, t is the unpublished .tmp pair; next has just replaced those names and install()
+        // publishes it when the build is done
+        if (t == tables) install(next);
+        log.info("denylist index grown to capacity {} ({} entries)", next.capacity, next.entries);
+        return next;
+    }
+
+    /** Persists t under the final .idx/.bloom names and makes it current. */
+    private void install(Tables t) throws IOException {
+        commit(t);
+        // Replacing the names leaves earlier mappings (still in use by readers) intact
+        Files.move(sidecar(".bloom.tmp").toPath(), sidecar(".bloom").toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(sidecar(".idx.tmp").toPath(), sidecar(".idx").toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        tables = t;
+        generation++;
+    }
+
+    /** Flushes t and then its header, so a crash re-applies (idempotently) rather than loses lines. */
+    private void commit(Tables t) throws IOException {
+        if (t.headLen < HEAD_CHECK_BYTES && t.consumed > t.headLen) {
+            t.headLen = (int) Math.min(t.consumed, HEAD_CHECK_BYTES);
+            t.headCrc = headCrc(t.headLen);
+        }
+        t.bloom.force();
+        t.index.force();
+        ByteBuffer h = t.index;
+        h.putInt(0, MAGIC);
+        h.putInt(4, FORMAT);
+        h.putInt(8, t.capacity);
+        h.putInt(12, t.headLen);
+        h.putLong(16, t.entries);
+        h.putLong(24, t.tombstones);
+        h.putLong(32, t.consumed);
+        h.putLong(40, t.headCrc);
+        t.index.force();
+    }
+
+    private Tables create(int capacity) throws IOException {
+        File idx = sidecar(".idx.tmp");
+        File bloom = sidecar(".bloom.tmp");
+        Files.deleteIfExists(idx.toPath());
+        Files.deleteIfExists(bloom.toPath());
+        return map(idx, bloom, capacity);
+    }
+
+    private static Tables map(File idx, File bloom, int capacity) throws IOException {
+        try (RandomAccessFile i = new RandomAccessFile(idx, "rw"); RandomAccessFile b = new RandomAccessFile(bloom, "rw")) {
+            i.setLength(HEADER_BYTES + 8L * capacity);
+            b.setLength(capacity);
+            // Mappings stay valid after the channels close
+            MappedByteBuffer index = i.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, i.length());
+            MappedByteBuffer filter = b.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, b.length());
+            index.order(ByteOrder.LITTLE_ENDIAN);
+            filter.order(ByteOrder.LITTLE_ENDIAN);
+            return new Tables(filter, index, capacity);
+        }
+    }
+
+    private boolean headMatches(Tables t) throws IOException {
+        return t.headLen == 0 || (file.length() >= t.headLen && headCrc(t.headLen) == t.headCrc);
+    }
+
+    private long headCrc(int len) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(len);
+        try (FileChannel ch = FileChannel.open(file.toPath())) {
+            while (head.hasRemaining() && ch.read(head, head.position()) > 0) { }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(head.flip());
+        return crc.getValue();
+    }
+
+    private static long countLines(FileChannel ch, long size) throws IOException {
+        long lines = 0;
+        for (long pos = 0; pos < size; pos += WINDOW_BYTES) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(size - pos, WINDOW_BYTES));
+            for (int i = 0, n = buf.limit(); i < n; i++) {
+                if (buf.get(i) == '\n') lines++;
+            }
+        }
+        return lines;
+    }
+
+    /** Slots for up to `entries` at half load, as a power of two. */
+    private static int capacityFor(long entries) {
+        long slots = Math.max(MIN_CAPACITY, Long.highestOneBit(Math.max(1, entries * 2 - 1)) << 1);
+        if (slots > MAX_CAPACITY) throw new IllegalStateException("Denylist over " + MAX_CAPACITY / 2 + " entries");
+        return (int) slots;
+    }
+
+    private File sidecar(String suffix) {
+        return new File(file.getPath() + suffix);
+    }
+
+    // ---- bloom filter and index over the mapped files ----
+
+    private static long slotKey(long h) {
+        return h == TOMBSTONE ? 2 : h;
+    }
+
+    private static long slot(Tables t, int i) {
+        return (long) LONGS.getAcquire(t.index, HEADER_BYTES + 8 * i);
+    }
+
+    private static boolean indexContains(Tables t, long h) {
+        int mask = t.capacity - 1;
+        for (int i = (int) h & mask; ; i = (i + 1) & mask) {
+            long v = slot(t, i);
+            if (v == h) return true;
+            if (v == EMPTY) return false;
+        }
+    }
+
+    private static boolean insert(Tables t, long h) {
+        int mask = t.capacity - 1;
+        int free = -1;
+        int i = (int) h & mask;
+        for (; ; i = (i + 1) & mask) {
+            long v = slot(t, i);
+            if (v == h) return false;
+            if (v == EMPTY) break;
+            if (v == TOMBSTONE && free < 0) free = i;
+        }
+        if (free >= 0) t.tombstones--;
+        else free = i;
+        // Bloom bits first: a reader that finds the slot must also pass the filter
+        for (int p = 0; p < PROBES; p++) {
+            int word = bloomWord(t, h, p);
+            LONGS.setRelease(t.bloom, word, (long) LONGS.get(t.bloom, word) | bloomBit(h, p));
+        }
+        LONGS.setRelease(t.index, HEADER_BYTES + 8 * free, h);
+        t.entries++;
+        return true;
+    }
+
+    private static boolean remove(Tables t, long h) {
+        int mask = t.capacity - 1;
+        for (int i = (int) h & mask; ; i = (i + 1) & mask) {
+            long v = slot(t, i);
+            if (v == EMPTY) return false;
+            if (v == h) {
+                // Bloom bits stay set; the index has the last word
+                LONGS.setRelease(t.index, HEADER_BYTES + 8 * i, TOMBSTONE);
+                t.entries--;
+                t.tombstones++;
+                return true;
+            }
+        }
+    }
+
+    private static boolean mightContain(Tables t, long h) {
+        for (int p = 0; p < PROBES; p++) {
+            long bit = bloomBit(h, p);
+            if (((long) LONGS.getOpaque(t.bloom, bloomWord(t, h, p)) & bit) == 0) return false;
+        }
+        return true;
+    }
+
+    /** Byte offset of probe p's word: the block comes from the high hash bits, the word within it from bloomBit's bits. */
+    private static int bloomWord(Tables t, long h, int p) {
+        int block = (int) (h >>> 32) & ((t.capacity >>> 6) - 1);
+        return (block << 6) + (((int) (probeBits(h) >>> (9 * p)) & 0x1C0) >>> 3);
+    }
+
+    private static long bloomBit(long h, int p) {
+        return 1L << (probeBits(h) >>> (9 * p));
+    }
+
+    /** Seven 9-bit positions within a 512-bit block, independent of the index and block bits. */
+    private static long probeBits(long h) {
+        long g = h * 0x9E3779B97F4A7C15L;
+        return g ^ (g >>> 31);
+    }
+}
@@ -1,59 +1,344 @@
 package com.tcs.payments.risk;
 
-import java.util.ArrayList;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
 
 import com.tcs.payments.model.PaymentRequest;
+import com.tcs.payments.service.PaymentsProperties;
 
+/**
+ * Scores a payment with the current FraudRules. Rules and thresholds come from payments.fraud.rules-file
+ * (blank = the bundled fraud-rules.json). The file is checked for changes every refresh-seconds and a
+ * new ruleset is compiled off to the side and swapped in with one volatile write, so requests never see
+ * a half-loaded ruleset; a file that fails to compile is logged and the current ruleset kept.
+ *
+ * Before the rules run, the independent check groups (CheckGroup: velocity counts, denylist) fill their
+ * parts of the Verdict. With payments.fraud.parallel they all run at once on the fraud executor while the
+ * caller waits, each into its own scratch Verdict that is copied over only if it finished within
+ * deadline-millis of the start. A group that misses the deadline counts as having found
+ * nothing, adds timeout_&lt;group&gt; to the reasons and raises the action to at least timeout-action (REVIEW
+ * or REQUEST_3DS), so everything downstream (ThreeDSDecider, encMeta) sees one settled verdict.
+ */
+@Component
 public class FraudEngine {
-	private final int SCORE_3DS = 50;
-	private final int SCORE_BLOCK =80;
+	private static final Logger log = LoggerFactory.getLogger(FraudEngine.class);
+	private static final String BUNDLED_RULES = "/fraud-rules.json";
+	private static final String[] NO_REASONS = new String[0];
+
 	public static class Verdict {
 		public int score;
 		public Action action;
-		public List<String> reasons;
+		// Live view over reasonBits/reasonNames unless replaced
+		public List<String> reasons = new ReasonList(this);
+		// Bit i set = reasonNames[i] fired; indexes are per ruleset (see rulesVersion)
+		public long reasonBits;
+		public String rulesVersion;
+		// Attempt counts from VelocityTracker, by VelocityTracker.dimension(key, window); zeros without one
+		public final int[] velocity = new int[VelocityTracker.DIMENSIONS];
+		// Bit VelocityTracker.Key ordinal set per identifier on the Denylist; customerDenylisted = any is set
+		// (see CustomerRiskProfiles)
+		public int denylisted;
+		public boolean customerDenylisted;
+		// Bit CheckGroup ordinal set per group cut off by the deadline; listed after the rule reasons
+		public int timedOut;
+		String[] reasonNames = NO_REASONS;
 	}
 	public enum Action {
 		ALLOW,REVIEW,BLOCK,REQUEST_3DS
 	}
-	
-	public Verdict evaluate(PaymentRequest req) {
-		int score = 0;
-		List<String> reasons = new ArrayList<>();
-		if(req.getAmount().getValue() >= 100000) {
-			score +=30;
-			reasons.add("high_amount");
-		}
-		if(req.getRegion() == com.tcs.payments.model.RegionCode.IN &&
-				req.getMethod() == com.tcs.payments.model.PaymentMethod.APPLE_PAY) {
-			score +=25;
-			reasons.add("region_method_mismatch");
-		}
-		if((req.getCustomer().getEmail() == null || 
-			req.getCustomer().getEmail().isBlank()) &&
-		(req.getCustomer().getPhone() == null ||
-		req.getCustomer().getPhone().isBlank())){
-			score +=10;
-			reasons.add("low_customer_signal");
-		}
-		if(req.getCouponCode() != null &&
-				req.getCouponCode().startsWith("GLOBAL")) {
-			score +=5;
-			reasons.add("generic_coupon");
+	/** Independent checks run before the rules; each fills only its own Verdict fields. */
+	public enum CheckGroup {
+		VELOCITY, DENYLIST;
+
+		final String timeoutReason = "timeout_" + name().toLowerCase(Locale.ROOT);
+	}
+
+	private static final CheckGroup[] GROUPS = CheckGroup.values();
+	// Action.ordinal -> how strict it is; timeouts only ever raise the action
+	private static final int[] SEVERITY = {0, 1, 3, 2};
+
+	private final String rulesFile;
+	private final long refreshNanos;
+	private final VelocityTracker velocity;
+	private final CustomerRiskProfiles profiles;
+	private final ExecutorService checkExecutor;
+	private final long deadlineNanos;
+	private final Action timeoutAction;
+	private final LongAdder[] timeouts = new LongAdder[GROUPS.length];
+	private volatile FraudRules rules;
+	private volatile long loadedMtime;
+	private volatile long nextRefresh;
+
+	/** Check groups run in parallel under the deadline if payments.fraud.parallel and fraudExecutor is set. */
+	@Autowired
+	public FraudEngine(PaymentsProperties props, VelocityTracker velocity, CustomerRiskProfiles profiles,
+					   @Qualifier("fraudExecutor") ExecutorService fraudExecutor) {
+		this(props.getFraud().getRulesFile(), null, props.getFraud().getRefreshSeconds(), velocity, profiles,
+				props.getFraud().isParallel() ? fraudExecutor : null, props.getFraud().getDeadlineMillis(),
+				timeoutAction(props.getFraud().getTimeoutAction()));
+	}
+
+	/**
+	 * Fixed ruleset (null = the bundled one) and no reloading, e.g. for benchmarks. velocity and profiles may be
+	 * null; checkExecutor null = check groups run one after another on the caller, without a deadline.
+	 */
+	static FraudEngine withRules(FraudRules rules, VelocityTracker velocity, CustomerRiskProfiles profiles,
+								 ExecutorService checkExecutor, long deadlineMillis, Action timeoutAction) {
+		return new FraudEngine(null, rules, 0, velocity, profiles, checkExecutor, deadlineMillis, timeoutAction);
+	}
+
+	private FraudEngine(String rulesFile, FraudRules fixedRules, int refreshSeconds, VelocityTracker velocity,
+						CustomerRiskProfiles profiles, ExecutorService checkExecutor, long deadlineMillis,
+						Action timeoutAction) {
+		this.rulesFile = fixedRules != null || rulesFile == null || rulesFile.isBlank() ? null : rulesFile;
+		this.velocity = velocity;
+		this.profiles = profiles;
+		this.checkExecutor = checkExecutor;
+		this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, deadlineMillis));
+		this.timeoutAction = checkedTimeoutAction(timeoutAction);
+		for (int i = 0; i < timeouts.length; i++) timeouts[i] = new LongAdder();
+		this.refreshNanos = this.rulesFile != null && refreshSeconds > 0 ? TimeUnit.SECONDS.toNanos(refreshSeconds) : 0;
+		if (fixedRules != null) {
+			this.rules = fixedRules;
+		} else {
+			try {
+				load();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Cannot read fraud rules " + source(), e);
+			}
 		}
+		this.nextRefresh = System.nanoTime() + refreshNanos;
+	}
+
+	public Verdict evaluate(PaymentRequest req) {
 		Verdict v = new Verdict();
-		v.score = score;
-		v.reasons = reasons;
-		if(score >= SCORE_BLOCK) {
-			v.action = Action.BLOCK;
-			return v;
+		evaluate(req, v);
+		return v;
+	}
+
+	/**
+	 * Runs the check groups (counting the attempt, checking the denylist) and the rules into out. Without the
+	 * parallel executor a reused Verdict means no allocation.
+	 */
+	public void evaluate(PaymentRequest req, Verdict out) {
+		long now = System.currentTimeMillis();
+		out.timedOut = 0;
+		if (checkExecutor == null) {
+			for (CheckGroup g : GROUPS) run(g, req, now, out);
+		} else {
+			runParallel(req, now, out);
 		}
-		if(score >= SCORE_3DS) {
-			v.action = Action.REQUEST_3DS;
-			return v;
+		currentRules().evaluate(req, out);
+		if (out.timedOut != 0 && SEVERITY[timeoutAction.ordinal()] > SEVERITY[out.action.ordinal()]) {
+			out.action = timeoutAction;
+		}
+	}
+
+	public Map<String, Object> describe() {
+		Map<String, Object> out = new LinkedHashMap<>(currentRules().describe());
+		out.put("source", source());
+		if (profiles != null) out.put("denylist", profiles.describe());
+		if (checkExecutor != null) {
+			Map<String, Object> parallel = new LinkedHashMap<>();
+			parallel.put("deadlineMillis", TimeUnit.NANOSECONDS.toMillis(deadlineNanos));
+			parallel.put("timeoutAction", timeoutAction);
+			for (CheckGroup g : GROUPS) parallel.put(g.timeoutReason, timeouts[g.ordinal()].sum());
+			out.put("parallel", parallel);
+		}
+		return out;
+	}
+
+	/** Re-reads the rules file now; throws (keeping the current ruleset) if it does not compile. */
+	public synchronized void reload() throws IOException {
+		load();
+	}
+
+	private void load() throws IOException {
+		FraudRules next;
+		long mtime = 0;
+		if (rulesFile == null) {
+			try (InputStream in = FraudEngine.class.getResourceAsStream(BUNDLED_RULES)) {
+				if (in == null) throw new IOException("Missing " + BUNDLED_RULES + " on the classpath");
+				next = FraudRules.parse(in);
+			}
+		} else {
+			File f = new File(rulesFile);
+			mtime = f.lastModified();
+			try (InputStream in = Files.newInputStream(f.toPath())) {
+				next = FraudRules.parse(in);
+			}
+		}
+		FraudRules prev = rules;
+		loadedMtime = mtime;
+		rules = next;
+		log.info("fraud rules {}: version {}, {} rule(s) from {}", prev == null ? "loaded" : "swapped",
+				next.version(), next.size(), source());
+	}
+
+	private FraudRules currentRules() {
+		FraudRules r = rules;
+		if (refreshNanos > 0 && System.nanoTime() - nextRefresh >= 0) {
+			nextRefresh = System.nanoTime() + refreshNanos;
+			if (new File(rulesFile).lastModified() != loadedMtime) {
+				try {
+					reload();
+				} catch (IOException | RuntimeException e) {
+					// Retried on the next change of the file
+					loadedMtime = new File(rulesFile).lastModified();
+					log.warn("fraud rules reload failed, keeping version {}: {}", r.version(), e.getMessage());
+				}
+				r = rules;
+			}
+		}
+		return r;
+	}
+
+	private String source() {
+		return rulesFile != null ? rulesFile : "classpath:" + BUNDLED_RULES;
+	}
+
+	/**
+	 * Every configured group on checkExecutor, so the deadline bounds all of them; copies what finished by the
+	 * deadline into out.
+	 */
+	@SuppressWarnings("unchecked")
+	private void runParallel(PaymentRequest req, long now, Verdict out) {
+		long deadline = System.nanoTime() + deadlineNanos;
+		Future<Verdict>[] forked = new Future[GROUPS.length];
+		for (CheckGroup g : GROUPS) {
+			if (!configured(g)) continue;
+			try {
+				forked[g.ordinal()] = checkExecutor.submit(() -> {
+					Verdict scratch = new Verdict();
+					run(g, req, now, scratch);
+					return scratch;
+				});
+			} catch (RejectedExecutionException e) {
+				// Executor shut down: run it here like the sequential mode
+			}
+		}
+		for (CheckGroup g : GROUPS) {
+			if (forked[g.ordinal()] == null) run(g, req, now, out);
+		}
+		for (CheckGroup g : GROUPS) {
+			Future<Verdict> f = forked[g.ordinal()];
+			if (f == null) continue;
+			try {
+				copy(g, f.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS), out);
+			} catch (TimeoutException | InterruptedException e) {
+				if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+				// The late result lands in its own scratch Verdict and is dropped
+				f.cancel(false);
+				run(g, null, now, out);
+				out.timedOut |= 1 << g.ordinal();
+				timeouts[g.ordinal()].increment();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof Error) throw (Error) cause;
+				throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+			}
 		}
-		v.action = (score >= 40) ? Action.REVIEW : Action.ALLOW;
-		return v;
 	}
 
-}
\ No newline at end of file
+	private boolean configured(CheckGroup g) {
+		return g == CheckGroup.VELOCITY ? velocity != null : profiles != null && profiles.enabled();
+	}
+
+	/** Fills g's fields of into; req null (or g not configured) = nothing found. */
+	private void run(CheckGroup g, PaymentRequest req, long now, Verdict into) {
+		boolean active = req != null && configured(g);
+		switch (g) {
+			case VELOCITY:
+				if (active) velocity.record(req, now, into.velocity);
+				else Arrays.fill(into.velocity, 0);
+				break;
+			case DENYLIST:
+				if (active) {
+					profiles.check(req, into);
+				} else {
+					into.denylisted = 0;
+					into.customerDenylisted = false;
+				}
+				break;
+		}
+	}
+
+	private static void copy(CheckGroup g, Verdict from, Verdict to) {
+		switch (g) {
+			case VELOCITY:
+				System.arraycopy(from.velocity, 0, to.velocity, 0, to.velocity.length);
+				break;
+			case DENYLIST:
+				to.denylisted = from.denylisted;
+				to.customerDenylisted = from.customerDenylisted;
+				break;
+		}
+	}
+
+	/** payments.fraud.timeout-action as an Action. */
+	private static Action timeoutAction(String name) {
+		try {
+			return Action.valueOf(name == null ? "" : name.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("payments.fraud.timeout-action must be REVIEW or REQUEST_3DS, not " + name);
+		}
+	}
+
+	private static Action checkedTimeoutAction(Action a) {
+		if (a != Action.REVIEW && a != Action.REQUEST_3DS) {
+			throw new IllegalArgumentException("payments.fraud.timeout-action must be REVIEW or REQUEST_3DS, not " + a);
+		}
+		return a;
+	}
+
+	/** Reason names of the set bits in bit order, then timeout_<group> per timed-out group; reads the verdict's current bits. */
+	private static final class ReasonList extends AbstractList<String> {
+		private final Verdict v;
+
+		ReasonList(Verdict v) {
+			this.v = v;
+		}
+
+		@Override
+		public String get(int index) {
+			long bits = v.reasonBits;
+			if (index < 0) throw new IndexOutOfBoundsException(index);
+			int rules = Long.bitCount(bits);
+			if (index >= rules) {
+				int groups = v.timedOut;
+				for (int i = rules; i < index && groups != 0; i++) groups &= groups - 1;
+				if (groups == 0) throw new IndexOutOfBoundsException(index);
+				return GROUPS[Integer.numberOfTrailingZeros(groups)].timeoutReason;
+			}
+			for (int i = 0; i < index; i++) bits &= bits - 1;
+			return v.reasonNames[Long.numberOfTrailingZeros(bits)];
+		}
+
+		@Override
+		public int size() {
+			return Long.bitCount(v.reasonBits) + Integer.bitCount(v.timedOut);
+		}
+	}
+}
@@ -0,0 +1,474 @@
+package com.tcs.payments.risk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcs.payments.model.Amount;
+import com.tcs.payments.model.Currency;
+import com.tcs.payments.model.Customer;
+import com.tcs.payments.model.PaymentMethod;
+import com.tcs.payments.model.PaymentRequest;
+import com.tcs.payments.model.RegionCode;
+
+/**
+ * A fraud ruleset compiled from a rules file (see src/main/resources/fraud-rules.json):
+ *
+ *   {"version": "...", "thresholds": {"review": 40, "request3ds": 50, "block": 80},
+ *    "rules": [{"reason": "high_amount", "score": 30, "when": {"amountAtLeast": 100000}}, ...]}
+ *
+ * A rule adds its score when every condition in "when" holds (an empty "when" always holds):
+ * amountAtLeast / amountBelow (minor units), region / method / currency (one value or a list, any
+ * case), noEmail / noPhone / hasCoupon / saveCard (true or false), couponPrefix, and velocity counts
+ * from VelocityTracker as &lt;email|phone|cardToken|walletToken&gt;Per&lt;1m|1h|24h&gt;AtLeast (this attempt
+ * included, so cardTokenPer1mAtLeast: 5 fires on the fifth attempt within a minute), denylisted (key
+ * types, any of which is on the Denylist) and customerDenylisted (true or false, see CustomerRiskProfiles).
+ *
+ * Compiling turns each condition into precomputed rule bitsets: per region/method/currency value, per
+ * combination of the boolean flags, per coupon prefix, per combination of denylist hits, and per
+ * interval between the amount (and each velocity count's) cut points.
+ * evaluate() looks up the request's bitset in each and ANDs them a 64-rule word at a time, so 256 rules
+ * cost a few dozen word operations plus one step per rule that fired, whatever the rules say. Reasons
+ * come out as a bitmask over reasonNames(); nothing is allocated per evaluation. Instances are
+ * immutable; FraudEngine swaps them.
+ */
+public final class FraudRules {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final Pattern REASON = Pattern.compile("[a-z0-9_]{1,64}");
+
+    // Feature word: flags in the low byte, then one bit per distinct couponPrefix
+    private static final long NO_EMAIL = 1;
+    private static final long NO_PHONE = 1 << 1;
+    private static final long HAS_COUPON = 1 << 2;
+    private static final long SAVE_CARD = 1 << 3;
+    private static final int PREFIX_SHIFT = 8;
+    private static final int MAX_PREFIXES = 64 - PREFIX_SHIFT;
+    private static final int MAX_REASONS = 64;
+
+    // Enum conditions are masks over 1 << ordinal; a missing value has its own bit
+    private static final int NULL_BIT = 1 << 31;
+    private static final int ANY = -1;
+
+    // Denylist slot: Verdict.denylisted in the low bits, then customerDenylisted
+    private static final int KEY_TYPES = VelocityTracker.Key.values().length;
+    private static final int CUSTOMER_DENYLISTED = 1 << KEY_TYPES;
+
+    private static final Map<String, Integer> VELOCITY_CONDITIONS = new HashMap<>();
+    static {
+        for (int d = 0; d < VelocityTracker.DIMENSIONS; d++) VELOCITY_CONDITIONS.put(VelocityTracker.conditionName(d), d);
+    }
+
+    private final String version;
+    private final int review;
+    private final int request3ds;
+    private final int block;
+    private final String[] reasonNames;
+    private final String[] prefixes;
+
+    // Rule sets are bitsets of `words` longs (bit i = rule i), stored back to back in one array per dimension
+    private final int size;
+    private final int words;
+    private final long[] regionSets;   // [RegionCode ordinal, or values().length for null]
+    private final long[] methodSets;   // [PaymentMethod ordinal / null]
+    private final long[] currencySets; // [Currency ordinal / null]
+    private final long[] flagSets;     // [low 4 bits of the feature word]
+    private final long[] prefixSets;   // [prefix]: rules that need that coupon prefix
+    private final long[] denylistSets; // [denylisted | CUSTOMER_DENYLISTED if set]
+    private final long[] minCuts;      // sorted distinct amountAtLeast values
+    private final long[] minSets;      // [number of minCuts <= amount]: rules whose minimum is met
+    private final long[] maxCuts;      // sorted distinct amountBelow values
+    private final long[] maxSets;      // [number of maxCuts <= amount]: rules whose maximum is not reached
+    private final int[] velocityDims;   // Verdict.velocity indexes some rule has a condition on
+    private final long[][] velocityCuts; // per used dimension, like minCuts
+    private final long[][] velocitySets; // per used dimension, like minSets
+    private final int[] points;
+    private final long[] reasonBit;
+
+    private FraudRules(String version, int review, int request3ds, int block, List<String> reasonNames,
+                       List<String> prefixes, List<Rule> rules) {
+        this.version = version;
+        this.review = review;
+        this.request3ds = request3ds;
+        this.block = block;
+        this.reasonNames = reasonNames.toArray(new String[0]);
+        this.prefixes = prefixes.toArray(new String[0]);
+        this.size = rules.size();
+        this.words = Math.max(1, (size + 63) >>> 6);
+        this.points = new int[size];
+        this.reasonBit = new long[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = rules.get(i).points;
+            reasonBit[i] = 1L << rules.get(i).reason;
+        }
+
+        this.regionSets = enumSets(rules, RegionCode.values().length, r -> r.regionMask);
+        this.methodSets = enumSets(rules, PaymentMethod.values().length, r -> r.methodMask);
+        this.currencySets = enumSets(rules, Currency.values().length, r -> r.currencyMask);
+        this.flagSets = new long[16 * words];
+        for (int f = 0; f < 16; f++) {
+            for (int i = 0; i < size; i++) {
+                Rule r = rules.get(i);
+                long flags = r.required & 0xF;
+                if ((f & flags) == flags && (f & r.forbidden) == 0) set(flagSets, f, i);
+            }
+        }
+        this.prefixSets = new long[this.prefixes.length * words];
+        for (int i = 0; i < size; i++) {
+            long needed = rules.get(i).required >>> PREFIX_SHIFT;
+            for (int p = 0; needed != 0; p++, needed >>>= 1) {
+                if ((needed & 1) != 0) set(prefixSets, p, i);
+            }
+        }
+
+        this.denylistSets = new long[2 * CUSTOMER_DENYLISTED * words];
+        for (int d = 0; d < 2 * CUSTOMER_DENYLISTED; d++) {
+            boolean customer = (d & CUSTOMER_DENYLISTED) != 0;
+            for (int i = 0; i < size; i++) {
+                Rule r = rules.get(i);
+                if ((r.denylistMask == 0 || (d & r.denylistMask) != 0)
+                        && (r.customerDenylisted == null || r.customerDenylisted == customer)) set(denylistSets, d, i);
+            }
+        }
+
+        this.minCuts = rules.stream().mapToLong(r -> r.minAmount).distinct().sorted().toArray();
+        this.minSets = atLeastSets(rules, minCuts, r -> r.minAmount);
+        this.maxCuts = rules.stream().mapToLong(r -> r.maxAmount).distinct().sorted().toArray();
+        this.maxSets = new long[(maxCuts.length + 1) * words];
+        for (int k = 0; k <= maxCuts.length; k++) {
+            for (int i = 0; i < size; i++) {
+                // amount < max exactly when max is not one of the k cuts <= amount
+                if (k == 0 || rules.get(i).maxAmount > maxCuts[k - 1]) set(maxSets, k, i);
+            }
+        }
+
+        int[] used = IntStream.range(0, VelocityTracker.DIMENSIONS)
+                .filter(d -> rules.stream().anyMatch(r -> r.velocityMin[d] > 0)).toArray();
+        this.velocityDims = used;
+        this.velocityCuts = new long[used.length][];
+        this.velocitySets = new long[used.length][];
+        for (int j = 0; j < used.length; j++) {
+            int d = used[j];
+            velocityCuts[j] = rules.stream().mapToLong(r -> r.velocityMin[d]).distinct().sorted().toArray();
+            velocitySets[j] = atLeastSets(rules, velocityCuts[j], r -> r.velocityMin[d]);
+        }
+    }
+
+    public static FraudRules parse(InputStream in) throws IOException {
+        return compile(JSON.readTree(in));
+    }
+
+    public static FraudRules parse(String json) throws IOException {
+        return compile(JSON.readTree(json));
+    }
+
+    /** Throws IllegalArgumentException naming the offending rule. */
+    public static FraudRules compile(JsonNode root) {
+        if (root == null || !root.isObject()) throw new IllegalArgumentException("Rules file must be a JSON object");
+        String version = root.path("version").asText("");
+        if (version.isBlank()) throw new IllegalArgumentException("Rules file has no version");
+        JsonNode t = root.path("thresholds");
+        int review = threshold(t, "review");
+        int request3ds = threshold(t, "request3ds");
+        int block = threshold(t, "block");
+        if (review > request3ds || request3ds > block) {
+            throw new IllegalArgumentException("Thresholds must satisfy review <= request3ds <= block");
+        }
+
+        Map<String, Integer> reasons = new LinkedHashMap<>();
+        Map<String, Integer> prefixes = new LinkedHashMap<>();
+        List<Rule> rules = new ArrayList<>();
+        JsonNode list = root.path("rules");
+        if (!list.isArray()) throw new IllegalArgumentException("Rules file has no rules array");
+        for (int i = 0; i < list.size(); i++) {
+            JsonNode node = list.get(i);
+            String reason = node.path("reason").asText("");
+            String where = "rule #" + (i + 1) + " (" + reason + ")";
+            if (!REASON.matcher(reason).matches()) throw new IllegalArgumentException(where + ": reason must match " + REASON);
+            if (!node.path("score").canConvertToInt()) throw new IllegalArgumentException(where + ": score must be an int");
+            Integer bit = reasons.get(reason);
+            if (bit == null) {
+                if (reasons.size() == MAX_REASONS) throw new IllegalArgumentException(where + ": more than " + MAX_REASONS + " reasons");
+                bit = reasons.size();
+                reasons.put(reason, bit);
+            }
+            Rule r = new Rule(bit, node.path("score").intValue());
+            JsonNode when = node.path("when");
+            if (!when.isMissingNode() && !when.isObject()) throw new IllegalArgumentException(where + ": when must be an object");
+            for (Iterator<Map.Entry<String, JsonNode>> it = when.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> c = it.next();
+                condition(r, c.getKey(), c.getValue(), prefixes, where);
+            }
+            rules.add(r);
+        }
+        return new FraudRules(version, review, request3ds, block, new ArrayList<>(reasons.keySet()),
+                new ArrayList<>(prefixes.keySet()), rules);
+    }
+
+    /** Scores req into out (velocity and denylist conditions read out's): score, action, reasonBits/reasonNames and rulesVersion. */
+    public void evaluate(PaymentRequest req, FraudEngine.Verdict out) {
+        Amount a = req.getAmount();
+        long amount = a == null ? 0 : a.getValue();
+        long features = features(req);
+        int region = offset(req.getRegion(), regionSets);
+        int method = offset(req.getMethod(), methodSets);
+        int currency = offset(a == null ? null : a.getCurrency(), currencySets);
+        int flags = (int) (features & 0xF) * words;
+        int min = upperBound(minCuts, amount) * words;
+        int max = upperBound(maxCuts, amount) * words;
+        long missingPrefixes = ~(features >>> PREFIX_SHIFT);
+        int[] velocity = out.velocity;
+        int denylist = ((out.denylisted & (CUSTOMER_DENYLISTED - 1)) | (out.customerDenylisted ? CUSTOMER_DENYLISTED : 0)) * words;
+
+        int score = 0;
+        long reasons = 0;
+        for (int w = 0; w < words; w++) {
+            long hits = regionSets[region + w] & methodSets[method + w] & currencySets[currency + w]
+                    & flagSets[flags + w] & minSets[min + w] & maxSets[max + w] & denylistSets[denylist + w];
+            for (int p = 0; p < prefixes.length; p++) {
+                // Rules needing a prefix the coupon does not have drop out
+                hits &= ~(prefixSets[p * words + w] & -((missingPrefixes >>> p) & 1));
+            }
+            for (int j = 0; j < velocityDims.length; j++) {
+                hits &= velocitySets[j][upperBound(velocityCuts[j], velocity[velocityDims[j]]) * words + w];
+            }
+            int base = w << 6;
+            while (hits != 0) {
+                int i = base + Long.numberOfTrailingZeros(hits);
+                score += points[i];
+                reasons |= reasonBit[i];
+                hits &= hits - 1;
+            }
+        }
+
+        out.score = score;
+        out.action = score >= block ? FraudEngine.Action.BLOCK
+                : score >= request3ds ? FraudEngine.Action.REQUEST_3DS
+                : score >= review ? FraudEngine.Action.REVIEW
+                : FraudEngine.Action.ALLOW;
+        out.reasonBits = reasons;
+        out.reasonNames = reasonNames;
+        out.rulesVersion = version;
+    }
+
+    public String version() { return version; }
+
+    public int size() { return size; }
+
+    /** Reason for each bit of Verdict.reasonBits. */
+    public List<String> reasonNames() { return List.of(reasonNames); }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("version", version);
+        out.put("rules", size);
+        out.put("reasons", reasonNames());
+        out.put("thresholds", Map.of("review", review, "request3ds", request3ds, "block", block));
+        return out;
+    }
+
+    private long features(PaymentRequest req) {
+        Customer c = req.getCustomer();
+        String coupon = req.getCouponCode();
+        long f = 0;
+        if (c == null || c.getEmail() == null || c.getEmail().isBlank()) f |= NO_EMAIL;
+        if (c == null || c.getPhone() == null || c.getPhone().isBlank()) f |= NO_PHONE;
+        if (req.isSaveCard()) f |= SAVE_CARD;
+        if (coupon != null && !coupon.isBlank()) {
+            f |= HAS_COUPON;
+            for (int i = 0; i < prefixes.length; i++) {
+                if (coupon.startsWith(prefixes[i])) f |= 1L << (PREFIX_SHIFT + i);
+            }
+        }
+        return f;
+    }
+
+    private static int bit(Enum<?> e) {
+        return e == null ? NULL_BIT : 1 << e.ordinal();
+    }
+
+    /** Start of the value's bitset; null uses the slot after the last constant. */
+    private int offset(Enum<?> e, long[] sets) {
+        return e == null ? sets.length - words : e.ordinal() * words;
+    }
+
+    /** For each number k of cuts <= x: the rules whose minimum (min.applyAsLong) is one of those k cuts. */
+    private long[] atLeastSets(List<Rule> rules, long[] cuts, ToLongFunction<Rule> min) {
+        long[] sets = new long[(cuts.length + 1) * words];
+        for (int k = 1; k <= cuts.length; k++) {
+            for (int i = 0; i < rules.size(); i++) {
+                if (min.applyAsLong(rules.get(i)) <= cuts[k - 1]) set(sets, k, i);
+            }
+        }
+        return sets;
+    }
+
+    /** Number of cuts <= v. */
+    private static int upperBound(long[] cuts, long v) {
+        int lo = 0;
+        int hi = cuts.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cuts[mid] <= v) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private void set(long[] sets, int slot, int rule) {
+        sets[slot * words + (rule >>> 6)] |= 1L << rule;
+    }
+
+    /** One bitset per constant plus one for null, from each rule's mask. */
+    private long[] enumSets(List<Rule> rules, int constants, ToIntFunction<Rule> mask) {
+        long[] sets = new long[(constants + 1) * words];
+        for (int i = 0; i < rules.size(); i++) {
+            int m = mask.applyAsInt(rules.get(i));
+            for (int c = 0; c < constants; c++) {
+                if ((m & (1 << c)) != 0) set(sets, c, i);
+            }
+            if ((m & NULL_BIT) != 0) set(sets, constants, i);
+        }
+        return sets;
+    }
+
+    private static int threshold(JsonNode t, String name) {
+        JsonNode v = t.path(name);
+        if (!v.canConvertToInt()) throw new IllegalArgumentException("thresholds." + name + " must be an int");
+        return v.intValue();
+    }
+
+    private static void condition(Rule r, String name, JsonNode v, Map<String, Integer> prefixes, String where) {
+        switch (name) {
+            case "amountAtLeast":
+                r.minAmount = amount(v, name, where);
+                break;
+            case "amountBelow":
+                r.maxAmount = amount(v, name, where);
+                break;
+            case "region":
+                r.regionMask = mask(v, RegionCode.values(), name, where);
+                break;
+            case "method":
+                r.methodMask = mask(v, PaymentMethod.values(), name, where);
+                break;
+            case "currency":
+                r.currencyMask = mask(v, Currency.values(), name, where);
+                break;
+            case "noEmail":
+                flag(r, NO_EMAIL, v, name, where);
+                break;
+            case "noPhone":
+                flag(r, NO_PHONE, v, name, where);
+                break;
+            case "hasCoupon":
+                flag(r, HAS_COUPON, v, name, where);
+                break;
+            case "saveCard":
+                flag(r, SAVE_CARD, v, name, where);
+                break;
+            case "denylisted":
+                r.denylistMask = keyMask(v, where);
+                break;
+            case "customerDenylisted":
+                if (!v.isBoolean()) throw new IllegalArgumentException(where + ": customerDenylisted must be true or false");
+                r.customerDenylisted = v.booleanValue();
+                break;
+            case "couponPrefix": {
+                String prefix = v.asText("");
+                if (!v.isTextual() || prefix.isEmpty()) throw new IllegalArgumentException(where + ": couponPrefix must be a non-empty string");
+                Integer i = prefixes.get(prefix);
+                if (i == null) {
+                    if (prefixes.size() == MAX_PREFIXES) throw new IllegalArgumentException(where + ": more than " + MAX_PREFIXES + " coupon prefixes");
+                    i = prefixes.size();
+                    prefixes.put(prefix, i);
+                }
+                r.required |= 1L << (PREFIX_SHIFT + i);
+                break;
+            }
+            default: {
+                Integer d = VELOCITY_CONDITIONS.get(name);
+                if (d == null) throw new IllegalArgumentException(where + ": unknown condition " + name);
+                if (!v.canConvertToInt() || v.intValue() < 1) throw new IllegalArgumentException(where + ": " + name + " must be a positive int");
+                r.velocityMin[d] = v.intValue();
+            }
+        }
+    }
+
+    private static long amount(JsonNode v, String name, String where) {
+        if (!v.canConvertToLong()) throw new IllegalArgumentException(where + ": " + name + " must be a number");
+        return v.longValue();
+    }
+
+    private static void flag(Rule r, long bit, JsonNode v, String name, String where) {
+        if (!v.isBoolean()) throw new IllegalArgumentException(where + ": " + name + " must be true or false");
+        if (v.booleanValue()) r.required |= bit;
+        else r.forbidden |= bit;
+    }
+
+    private static int mask(JsonNode v, Enum<?>[] values, String name, String where) {
+        int mask = 0;
+        if (v.isTextual()) return bit(lookup(v.textValue(), values, name, where));
+        if (!v.isArray() || v.isEmpty()) throw new IllegalArgumentException(where + ": " + name + " must be a value or a non-empty list");
+        for (JsonNode e : v) mask |= bit(lookup(e.asText(), values, name, where));
+        return mask;
+    }
+
+    /** Bits by VelocityTracker.Key ordinal from one key type label or a list of them (any case). */
+    private static int keyMask(JsonNode v, String where) {
+        if (!v.isTextual() && (!v.isArray() || v.isEmpty())) {
+            throw new IllegalArgumentException(where + ": denylisted must be a key type or a non-empty list");
+        }
+        int mask = 0;
+        for (JsonNode e : v.isArray() ? v : List.of(v)) {
+            int bit = 0;
+            for (VelocityTracker.Key k : VelocityTracker.Key.values()) {
+                if (k.label.equalsIgnoreCase(e.asText())) bit = 1 << k.ordinal();
+            }
+            if (bit == 0) throw new IllegalArgumentException(where + ": unknown denylisted key type " + e.asText());
+            mask |= bit;
+        }
+        return mask;
+    }
+
+    private static Enum<?> lookup(String s, Enum<?>[] values, String name, String where) {
+        String upper = s.toUpperCase(Locale.ROOT);
+        for (Enum<?> e : values) {
+            if (e.name().equals(upper)) return e;
+        }
+        throw new IllegalArgumentException(where + ": unknown " + name + " " + s);
+    }
+
+    /** One rule while compiling; every condition defaults to "always true". */
+    private static final class Rule {
+        final int reason;
+        final int points;
+        long minAmount = Long.MIN_VALUE;
+        long maxAmount = Long.MAX_VALUE;
+        int regionMask = ANY;
+        int methodMask = ANY;
+        int currencyMask = ANY;
+        long required;
+        long forbidden;
+        final int[] velocityMin = new int[VelocityTracker.DIMENSIONS];
+        int denylistMask;
+        Boolean customerDenylisted;
+
+        Rule(int reason, int points) {
+            this.reason = reason;
+            this.points = points;
+        }
+    }
+}
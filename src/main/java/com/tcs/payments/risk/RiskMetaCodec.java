@@ -0,0 +1,222 @@
+package com.tcs.payments.risk;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.tcs.payments.security.ThreeDSDecider;
+
+/**
+ * Binary form of the fraud verdict and 3DS decision that PaymentOrchestrator encrypts into encMeta
+ * (replaces the {"reasons":[...],"threeDS":{...}} JSON, which was ~100-170 bytes before encryption).
+ *
+ * Version 1 layout:
+ *   byte    version (1)
+ *   varint  bitset of known reasons (bit i = REASONS[i])
+ *   varint  score
+ *   byte    bits 0-1 action ordinal, bit 2 request3ds, bit 3 challengePreferred,
+ *           bits 4-6 3DS reason (index into DECISION_REASONS + 1, 0 = none, 7 = custom), bit 7 extras follow
+ *   extras  varint count, then (varint length, UTF-8) per reason not in REASONS, then the custom 3DS reason if any
+ *
+ * A typical verdict is 4 bytes. REASONS and DECISION_REASONS are part of the format: append only.
+ * No reflection. encode(v, d) returns an exactly sized array, which PaymentOrchestrator hands to the
+ * cipher as is; encode(v, d, dst, off) is for writing the verdict into a larger buffer.
+ */
+public final class RiskMetaCodec {
+
+    public static final byte VERSION = 1;
+
+    // Append only: the index is the bit on the wire
+    static final String[] REASONS = {"high_amount", "region_method_mismatch", "low_customer_signal", "generic_coupon",
+            "velocity_email", "velocity_phone", "velocity_card_token", "velocity_wallet_token", "velocity_email_daily",
+            "denylisted", "customer_denylisted", "timeout_velocity", "timeout_denylist"};
+    private static final String[] DECISION_REASONS = {"blocked", "risk_based", "prefer_not"};
+    private static final int CUSTOM_DECISION_REASON = 7;
+    private static final FraudEngine.Action[] ACTIONS = FraudEngine.Action.values();
+
+    private RiskMetaCodec() {}
+
+    /** Decoded encMeta payload. */
+    public static final class RiskMeta {
+        public final int score;
+        public final FraudEngine.Action action;
+        public final List<String> reasons;
+        public final boolean request3ds;
+        public final boolean challengePreferred;
+        public final String threeDsReason;
+
+        RiskMeta(int score, FraudEngine.Action action, List<String> reasons, boolean request3ds,
+                 boolean challengePreferred, String threeDsReason) {
+            this.score = score;
+            this.action = action;
+            this.reasons = reasons;
+            this.request3ds = request3ds;
+            this.challengePreferred = challengePreferred;
+            this.threeDsReason = threeDsReason;
+        }
+    }
+
+    /** Exact number of bytes encode() writes. */
+    public static int sizeOf(FraudEngine.Verdict v, ThreeDSDecider.Decision d) {
+        int size = 1 + varintSize(reasonBits(v.reasons)) + varintSize(v.score) + 1;
+        int extras = 0;
+        int extraBytes = 0;
+        for (String r : v.reasons) {
+            if (indexOf(REASONS, r) < 0) {
+                extras++;
+                extraBytes += stringSize(r);
+            }
+        }
+        boolean customDecision = decisionCode(d.reason) == CUSTOM_DECISION_REASON;
+        if (customDecision) extraBytes += stringSize(d.reason);
+        if (extras > 0 || customDecision) size += varintSize(extras) + extraBytes;
+        return size;
+    }
+
+    /** Writes v and d at dst[off..]; returns the offset after the last byte. dst needs sizeOf(v, d) bytes free. */
+    public static int encode(FraudEngine.Verdict v, ThreeDSDecider.Decision d, byte[] dst, int off) {
+        int extras = 0;
+        for (String r : v.reasons) {
+            if (indexOf(REASONS, r) < 0) extras++;
+        }
+        int decision = decisionCode(d.reason);
+        boolean hasExtras = extras > 0 || decision == CUSTOM_DECISION_REASON;
+
+        dst[off++] = VERSION;
+        off = putVarint(dst, off, reasonBits(v.reasons));
+        off = putVarint(dst, off, v.score);
+        int flags = v.action.ordinal()
+                | (d.request3ds ? 1 << 2 : 0)
+                | (d.challengePreferred ? 1 << 3 : 0)
+                | decision << 4
+                | (hasExtras ? 1 << 7 : 0);
+        dst[off++] = (byte) flags;
+        if (hasExtras) {
+            off = putVarint(dst, off, extras);
+            for (String r : v.reasons) {
+                if (indexOf(REASONS, r) < 0) off = putString(dst, off, r);
+            }
+            if (decision == CUSTOM_DECISION_REASON) off = putString(dst, off, d.reason);
+        }
+        return off;
+    }
+
+    public static byte[] encode(FraudEngine.Verdict v, ThreeDSDecider.Decision d) {
+        byte[] out = new byte[sizeOf(v, d)];
+        encode(v, d, out, 0);
+        return out;
+    }
+
+    public static RiskMeta decode(byte[] src) {
+        return decode(src, 0, src.length);
+    }
+
+    public static RiskMeta decode(byte[] src, int off, int len) {
+        Reader in = new Reader(src, off, off + len);
+        int version = in.readByte();
+        if (version != VERSION) throw new IllegalArgumentException("Unsupported risk meta version " + version);
+        long bits = in.readVarint();
+        int score = (int) in.readVarint();
+        int flags = in.readByte();
+
+        List<String> reasons = new ArrayList<>(Long.bitCount(bits));
+        for (int i = 0; i < REASONS.length; i++) {
+            if ((bits & (1L << i)) != 0) reasons.add(REASONS[i]);
+        }
+        int decision = (flags >>> 4) & 7;
+        String threeDsReason = decision == 0 || decision == CUSTOM_DECISION_REASON ? null
+                : decision <= DECISION_REASONS.length ? DECISION_REASONS[decision - 1] : null;
+        if ((flags & 0x80) != 0) {
+            int extras = (int) in.readVarint();
+            for (int i = 0; i < extras; i++) reasons.add(in.readString());
+            if (decision == CUSTOM_DECISION_REASON) threeDsReason = in.readString();
+        }
+        return new RiskMeta(score, ACTIONS[flags & 3], Collections.unmodifiableList(reasons),
+                (flags & 4) != 0, (flags & 8) != 0, threeDsReason);
+    }
+
+    private static long reasonBits(List<String> reasons) {
+        long bits = 0;
+        for (String r : reasons) {
+            int i = indexOf(REASONS, r);
+            if (i >= 0) bits |= 1L << i;
+        }
+        return bits;
+    }
+
+    private static int decisionCode(String reason) {
+        if (reason == null) return 0;
+        int i = indexOf(DECISION_REASONS, reason);
+        return i >= 0 ? i + 1 : CUSTOM_DECISION_REASON;
+    }
+
+    private static int indexOf(String[] table, String s) {
+        for (int i = 0; i < table.length; i++) {
+            if (table[i].equals(s)) return i;
+        }
+        return -1;
+    }
+
+    private static int varintSize(long v) {
+        int n = 1;
+        while ((v >>>= 7) != 0) n++;
+        return n;
+    }
+
+    private static int stringSize(String s) {
+        int len = s.getBytes(StandardCharsets.UTF_8).length;
+        return varintSize(len) + len;
+    }
+
+    private static int putVarint(byte[] dst, int off, long v) {
+        while ((v & ~0x7FL) != 0) {
+            dst[off++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        dst[off++] = (byte) v;
+        return off;
+    }
+
+    private static int putString(byte[] dst, int off, String s) {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        off = putVarint(dst, off, b.length);
+        System.arraycopy(b, 0, dst, off, b.length);
+        return off + b.length;
+    }
+
+    private static final class Reader {
+        private final byte[] src;
+        private final int end;
+        private int pos;
+
+        Reader(byte[] src, int off, int end) {
+            this.src = src;
+            this.pos = off;
+            this.end = end;
+        }
+
+        int readByte() {
+            if (pos >= end) throw new IllegalArgumentException("Truncated risk meta");
+            return src[pos++] & 0xFF;
+        }
+
+        long readVarint() {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+            throw new IllegalArgumentException("Malformed varint in risk meta");
+        }
+
+        String readString() {
+            int len = (int) readVarint();
+            if (len < 0 || len > end - pos) throw new IllegalArgumentException("Truncated risk meta");
+            String s = new String(src, pos, len, StandardCharsets.UTF_8);
+            pos += len;
+            return s;
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.tcs.payments.risk;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.stereotype.Component;
+
+import com.tcs.payments.model.Customer;
+import com.tcs.payments.model.PaymentRequest;
+import com.tcs.payments.service.PaymentsProperties;
+
+/**
+ * Attempt counts per customer email, phone, card token and wallet token over sliding 1m/1h/24h
+ * windows, for the velocity conditions in FraudRules (emailPer1mAtLeast, cardTokenPer1hAtLeast, ...).
+ *
+ * Each window is a ring of time buckets (10s, 5min, 1h). A bucket is one long holding
+ * bucket number << 24 | count, bumped with a CAS, so a stale bucket is reset by the first writer of the
+ * new period and no lock or clean-up thread is needed. Two tiers:
+ *  - exact: up to max-keys keys with their own rings, in a ConcurrentHashMap keyed by a 64-bit hash of
+ *    the normalised value (raw emails/phones are not kept). Keys idle for 24h are swept when it fills.
+ *    While it is full, a key the sketch vouches for more 24h attempts than the least recently seen of a
+ *    sample of exact keys takes that key's place, so heavy hitters get exact counts even when the tier
+ *    filled up with one-off keys first.
+ *  - sketch: one count-min sketch per key type (depth x width cells, each with the same rings) that every
+ *    attempt goes into, with conservative update (only the rows holding the minimum are raised). It
+ *    answers for keys outside the exact tier, and for keys admitted too recently for the exact ring to
+ *    cover the window. It never under-counts, and over-counts by at most e * N / width with high
+ *    probability (N = attempts of that key type in the window, kept in a ring per type), so a sketch
+ *    answer is reported minus that bound: a rule only fires on a count the sketch can vouch for.
+ * A key admitted to the exact tier is complete (exact rings cover every window) unless a key of its type
+ * was turned away or evicted in the last 24h, in which case it may have earlier attempts only the sketch saw.
+ * Memory is fixed: about 350 bytes per exact key plus 4 * depth * width * 336 bytes for the sketches.
+ */
+@Component
+public class VelocityTracker {
+
+    public enum Key {
+        EMAIL("email"), PHONE("phone"), CARD_TOKEN("cardToken"), WALLET_TOKEN("walletToken");
+
+        final String label;
+
+        Key(String label) {
+            this.label = label;
+        }
+    }
+
+    public enum Window {
+        MINUTE("1m", 60_000L, 6), HOUR("1h", 3_600_000L, 12), DAY("24h", 86_400_000L, 24);
+
+        final String label;
+        final long millis;
+        final int buckets;
+        final long bucketMillis;
+
+        Window(String label, long millis, int buckets) {
+            this.label = label;
+            this.millis = millis;
+            this.buckets = buckets;
+            this.bucketMillis = millis / buckets;
+        }
+    }
+
+    private static final Key[] KEYS = Key.values();
+    private static final Window[] WINDOWS = Window.values();
+    // First slot of each window's ring within a key's (or sketch cell's) slots
+    private static final int[] OFFSET = new int[WINDOWS.length];
+    private static final int SLOTS;
+    static {
+        int slots = 0;
+        for (Window w : WINDOWS) {
+            OFFSET[w.ordinal()] = slots;
+            slots += w.buckets;
+        }
+        SLOTS = slots;
+    }
+
+    /** Length of Verdict.velocity: one count per key and window. */
+    public static final int DIMENSIONS = KEYS.length * WINDOWS.length;
+
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long SWEEP_INTERVAL_MILLIS = 10_000;
+    private static final int LOCKS = 64;
+    // Exact keys looked at per promotion; the least recently seen of them is the one that may go
+    private static final int EVICT_SAMPLE = 16;
+
+    private final boolean enabled;
+    private final int maxKeys;
+    private final int depth;
+    private final int widthMask;
+    // Expected over-count per attempt in the window: e / width
+    private final double errorPerAttempt;
+    private final AtomicLongArray[] sketches = new AtomicLongArray[KEYS.length];
+    // Attempts per key type, one set of rings each
+    private final AtomicLongArray totals = new AtomicLongArray(KEYS.length * SLOTS);
+    // Last time a key of each type was refused by, or evicted from, a full exact tier
+    private final AtomicLongArray refusedAt = new AtomicLongArray(KEYS.length);
+    // Conservative update reads then raises; updates of the same key must not interleave
+    private final Object[] locks = new Object[LOCKS];
+    private final Map<Long, Counters> exact = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong();
+    private final Object evictLock = new Object();
+    // Walks the exact tier across promotions so samples cover all of it; guarded by evictLock
+    private Iterator<Map.Entry<Long, Counters>> evictCursor;
+
+    public VelocityTracker(PaymentsProperties props) {
+        this(props.getVelocity().isEnabled(), props.getVelocity().getMaxKeys(),
+                props.getVelocity().getSketchDepth(), props.getVelocity().getSketchWidth() > 0
+                        ? props.getVelocity().getSketchWidth()
+                        : sketchWidth(props.getVelocity().getExpectedAttemptsPerSecond()));
+    }
+
+    public VelocityTracker(boolean enabled, int maxKeys, int sketchDepth, int sketchWidth) {
+        if (sketchDepth < 1 || sketchWidth < 1 || Integer.bitCount(sketchWidth) != 1) {
+            throw new IllegalArgumentException("velocity sketch-depth must be >= 1 and sketch-width a power of two");
+        }
+        this.enabled = enabled;
+        this.maxKeys = Math.max(0, maxKeys);
+        this.depth = sketchDepth;
+        this.widthMask = sketchWidth - 1;
+        this.errorPerAttempt = Math.E / sketchWidth;
+        for (Key k : KEYS) sketches[k.ordinal()] = new AtomicLongArray(enabled ? sketchDepth * sketchWidth * SLOTS : 0);
+        for (int i = 0; i < LOCKS; i++) locks[i] = new Object();
+        // Nothing refused yet: fresh keys are complete from the start
+        for (Key k : KEYS) refusedAt.set(k.ordinal(), Long.MIN_VALUE / 2);
+    }
+
+    /**
+     * Sketch width for a steady attemptsPerSecond: the smallest power of two that keeps the over-count
+     * bound of the 1m window at one attempt (e * attempts per minute / width <= 1).
+     */
+    public static int sketchWidth(int attemptsPerSecond) {
+        long cells = (long) Math.ceil(Math.E * Math.max(1, attemptsPerSecond) * 60);
+        return (int) Math.min(1 << 24, Long.highestOneBit(cells - 1) << 1);
+    }
+
+    public static int dimension(Key key, Window window) {
+        return key.ordinal() * WINDOWS.length + window.ordinal();
+    }
+
+    /** Rules-file condition for a dimension, e.g. emailPer1mAtLeast. */
+    public static String conditionName(int dimension) {
+        return KEYS[dimension / WINDOWS.length].label + "Per" + WINDOWS[dimension % WINDOWS.length].label + "AtLeast";
+    }
+
+    /**
+     * Counts this attempt against each key the request carries and writes the window counts, this
+     * attempt included, to counts[dimension(key, window)] (0 for keys the request does not have).
+     */
+    public void record(PaymentRequest req, long nowMillis, int[] counts) {
+        Customer c = req.getCustomer();
+        for (Key k : KEYS) {
+            String value;
+            switch (k) {
+                case EMAIL: value = c == null ? null : c.getEmail(); break;
+                case PHONE: value = c == null ? null : c.getPhone(); break;
+                case CARD_TOKEN: value = req.getCardToken(); break;
+                default: value = req.getWalletToken();
+            }
+            long h = enabled ? hash(k, value) : 0;
+            if (h == 0) {
+                for (Window w : WINDOWS) counts[dimension(k, w)] = 0;
+            } else {
+                record(k, h, nowMillis, counts);
+            }
+        }
+    }
+
+    /** Window counts for one key without recording an attempt. */
+    public int count(Key key, String value, Window window, long nowMillis) {
+        long h = enabled ? hash(key, value) : 0;
+        if (h == 0) return 0;
+        Counters c = exact.get(h);
+        int n = c == null ? 0 : sum(c.slots, 0, window, nowMillis);
+        return c != null && c.covers(window, nowMillis) ? n : Math.max(n, sketchCount(key, h, window, nowMillis));
+    }
+
+    /** Keys currently in the exact tier. */
+    public int exactKeys() {
+        return exact.size();
+    }
+
+    /** Whether value has exact counters. */
+    boolean isExact(Key key, String value) {
+        return exact.containsKey(hash(key, value));
+    }
+
+    private void record(Key k, long h, long now, int[] counts) {
+        bumpSketch(k, h, now);
+        for (Window w : WINDOWS) bump(totals, k.ordinal() * SLOTS, w, now);
+        Counters c = exact.get(h);
+        if (c == null) {
+            if (exact.size() < maxKeys) {
+                // A key of this type turned away in the last 24h may have attempts only the sketch saw;
+                // otherwise a key not in the exact tier has none. The sketch never under-counts, so <= 1
+                // (this attempt) also proves there were none.
+                boolean complete = now - refusedAt.get(k.ordinal()) >= Window.DAY.millis
+                        || sketchEstimate(k, h, Window.DAY, now) <= 1;
+                c = exact.computeIfAbsent(h, x -> new Counters(k, complete, now));
+            } else {
+                maybeSweep(now);
+                c = promote(k, h, now);
+                if (c == null) refusedAt.set(k.ordinal(), now);
+            }
+        }
+        if (c != null) {
+            for (Window w : WINDOWS) bump(c.slots, 0, w, now);
+            c.lastSeen = now;
+        }
+        for (Window w : WINDOWS) {
+            // At least this attempt, and at least what the exact rings saw since admission
+            int n = c == null ? 1 : sum(c.slots, 0, w, now);
+            counts[dimension(k, w)] = c != null && c.covers(w, now) ? n : Math.max(n, sketchCount(k, h, w, now));
+        }
+    }
+
+    /**
+     * Full exact tier: admits h in place of the least recently seen of EVICT_SAMPLE exact keys if the sketch
+     * vouches for more attempts of h in the last 24h than that key has. Returns h's counters, or null.
+     */
+    private Counters promote(Key k, long h, long now) {
+        // This attempt is already in the sketch; a key seen once cannot beat anything
+        int estimate = sketchCount(k, h, Window.DAY, now);
+        if (estimate < 2) return null;
+        synchronized (evictLock) {
+            Map.Entry<Long, Counters> victim = null;
+            for (int i = 0; i < EVICT_SAMPLE; i++) {
+                if (evictCursor == null || !evictCursor.hasNext()) {
+                    evictCursor = exact.entrySet().iterator();
+                    if (!evictCursor.hasNext()) break;
+                }
+                Map.Entry<Long, Counters> e = evictCursor.next();
+                if (victim == null || e.getValue().lastSeen < victim.getValue().lastSeen) victim = e;
+            }
+            if (victim == null || estimate <= sum(victim.getValue().slots, 0, Window.DAY, now)) return null;
+            if (!exact.remove(victim.getKey(), victim.getValue())) return null;
+            // The evicted key's attempts now live only in the sketch, like a refused key's
+            refusedAt.set(victim.getValue().key.ordinal(), now);
+            // Earlier attempts of h are only in the sketch too
+            return exact.computeIfAbsent(h, x -> new Counters(k, false, now));
+        }
+    }
+
+    /** Conservative update: per window, raises each row's current bucket to at least the rows' minimum + 1. */
+    private void bumpSketch(Key k, long h, long now) {
+        AtomicLongArray sketch = sketches[k.ordinal()];
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        synchronized (locks[h1 & (LOCKS - 1)]) {
+            for (Window w : WINDOWS) {
+                long bucket = now / w.bucketMillis;
+                int slot = OFFSET[w.ordinal()] + (int) (bucket % w.buckets);
+                long min = COUNT_MASK;
+                for (int row = 0; row < depth; row++) {
+                    long v = sketch.get(cell(row, h1, h2) + slot);
+                    min = Math.min(min, (v >>> COUNT_BITS) == bucket ? v & COUNT_MASK : 0);
+                }
+                for (int row = 0; row < depth; row++) raise(sketch, cell(row, h1, h2) + slot, bucket, min + 1);
+            }
+        }
+    }
+
+    /** Sketch count for the window minus its over-count bound: a count the sketch can vouch for. */
+    private int sketchCount(Key k, long h, Window w, long now) {
+        long bound = (long) Math.ceil(sum(totals, k.ordinal() * SLOTS, w, now) * errorPerAttempt);
+        return (int) Math.max(0, sketchEstimate(k, h, w, now) - bound);
+    }
+
+    /** Raw count-min estimate; never below the true count. */
+    private int sketchEstimate(Key k, long h, Window w, long now) {
+        AtomicLongArray sketch = sketches[k.ordinal()];
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, sum(sketch, cell(row, h1, h2), w, now));
+        }
+        return min;
+    }
+
+    private int cell(int row, int h1, int h2) {
+        return (row * (widthMask + 1) + ((h1 + row * h2) & widthMask)) * SLOTS;
+    }
+
+    /** Sets slot i to at least count for the given bucket (a stale slot counts as 0). */
+    private static void raise(AtomicLongArray a, int i, long bucket, long count) {
+        count = Math.min(count, COUNT_MASK);
+        for (;;) {
+            long v = a.get(i);
+            long seen = v >>> COUNT_BITS;
+            if (seen > bucket || (seen == bucket && (v & COUNT_MASK) >= count)) return;
+            if (a.compareAndSet(i, v, bucket << COUNT_BITS | count)) return;
+        }
+    }
+
+    /** Adds one to the current bucket of w's ring in the slots starting at a[base]. */
+    private static void bump(AtomicLongArray a, int base, Window w, long now) {
+        long bucket = now / w.bucketMillis;
+        int i = base + OFFSET[w.ordinal()] + (int) (bucket % w.buckets);
+        for (;;) {
+            long v = a.get(i);
+            long seen = v >>> COUNT_BITS;
+            long next;
+            if (seen == bucket) {
+                if ((v & COUNT_MASK) == COUNT_MASK) return; // saturated
+                next = v + 1;
+            } else if (seen < bucket) {
+                next = bucket << COUNT_BITS | 1; // slot last used a full ring ago
+            } else {
+                return; // a caller with a later clock already moved this slot on
+            }
+            if (a.compareAndSet(i, v, next)) return;
+        }
+    }
+
+    /** Sum of the buckets of w that fall inside the window ending at now. */
+    private static int sum(AtomicLongArray a, int base, Window w, long now) {
+        long bucket = now / w.bucketMillis;
+        int start = base + OFFSET[w.ordinal()];
+        long total = 0;
+        for (int s = 0; s < w.buckets; s++) {
+            long v = a.get(start + s);
+            long age = bucket - (v >>> COUNT_BITS);
+            if (age >= 0 && age < w.buckets) total += v & COUNT_MASK;
+        }
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    private void maybeSweep(long now) {
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL_MILLIS || !lastSweep.compareAndSet(last, now)) return;
+        exact.values().removeIf(c -> now - c.lastSeen >= Window.DAY.millis);
+    }
+
+    /**
+     * 64-bit hash of the normalised value (emails trimmed and lower-cased, phones reduced to digits,
+     * tokens trimmed), salted by key type; 0 = absent or empty. Allocation-free.
+     */
+    static long hash(Key k, String s) {
+        return s == null ? 0 : hash(k, s, 0, s.length());
+    }
+
+    /** hash(k, s.substring(start, end)) without the substring. */
+    static long hash(Key k, String s, int start, int end) {
+        while (start < end && s.charAt(start) <= ' ') start++;
+        while (end > start && s.charAt(end - 1) <= ' ') end--;
+        long h = 0xcbf29ce484222325L ^ (k.ordinal() + 1) * 0x9E3779B97F4A7C15L;
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            char ch = s.charAt(i);
+            if (k == Key.EMAIL) {
+                ch = Character.toLowerCase(ch);
+            } else if (k == Key.PHONE && (ch < '0' || ch > '9')) {
+                continue;
+            }
+            h = (h ^ ch) * 0x100000001b3L;
+            n++;
+        }
+        if (n == 0) return 0;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    private static final class Counters {
+        final AtomicLongArray slots = new AtomicLongArray(SLOTS);
+        final Key key;
+        // True if nothing was counted for this key before it got its own rings
+        final boolean complete;
+        final long admittedAt;
+        volatile long lastSeen;
+
+        Counters(Key key, boolean complete, long now) {
+            this.key = key;
+            this.complete = complete;
+            this.admittedAt = now;
+            this.lastSeen = now;
+        }
+
+        /** Whether the exact rings hold every attempt in the window ending at now. */
+        boolean covers(Window w, long now) {
+            return complete || now - admittedAt >= w.millis;
+        }
+    }
+}
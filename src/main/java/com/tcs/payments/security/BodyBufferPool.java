@@ -0,0 +1,44 @@
+package com.tcs.payments.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+import org.springframework.stereotype.Component;
+
+import com.tcs.payments.service.PaymentsProperties;
+
+/**
+ * Reusable byte[] buffers for MultiReadHttpServletRequest, so typical bodies don't allocate a fresh
+ * array per request. Holds at most pool-size idle buffers of buffer-bytes each; acquire() falls back
+ * to a new array when the pool is empty and release() drops buffers that don't fit.
+ */
+@Component
+public class BodyBufferPool {
+
+    private final int bufferBytes;
+    private final int maxBytes;
+    private final ArrayBlockingQueue<byte[]> idle;
+
+    public BodyBufferPool(PaymentsProperties props) {
+        PaymentsProperties.RequestBody cfg = props.getRequestBody();
+        this.maxBytes = cfg.getMaxBytes();
+        this.bufferBytes = Math.min(cfg.getBufferBytes(), maxBytes);
+        this.idle = cfg.getPoolSize() > 0 ? new ArrayBlockingQueue<>(cfg.getPoolSize()) : null;
+    }
+
+    public int maxBytes() {
+        return maxBytes;
+    }
+
+    public int bufferBytes() {
+        return bufferBytes;
+    }
+
+    public byte[] acquire() {
+        byte[] buf = idle != null ? idle.poll() : null;
+        return buf != null ? buf : new byte[bufferBytes];
+    }
+
+    public void release(byte[] buf) {
+        if (idle != null && buf.length == bufferBytes) idle.offer(buf);
+    }
+}
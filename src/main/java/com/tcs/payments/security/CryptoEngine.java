@@ -0,0 +1,250 @@
+package com.tcs.payments.security;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.tcs.payments.service.PaymentsProperties;
+
+/**
+ * AES-256-GCM envelope encryption for PCI metadata (encMeta).
+ *
+ * Blobs are 0xE1 | id length | key id | IV | ciphertext || tag; the header is authenticated as AAD.
+ * Keys come from a KeyRing: pciMetaKeyBase64 as "default" plus the entries of the optional keystore,
+ * which is re-read when the file changes, so a new key can be rolled out without a restart.
+ * Blobs without a header (IV || ciphertext || tag, written before key ids) are read with "default".
+ * open() and rekey() re-encrypt blobs under an older key so readers can replace them lazily;
+ * EncMetaRekeyJob does the same in bulk for stored data.
+ *
+ * Cipher instances are borrowed from a small pool rather than looked up per call; a pool instead of a
+ * ThreadLocal because virtual threads never live long enough to reuse one. IVs come from GcmNonceSource
+ * (counter-based, no SecureRandom per call). Thread-safe.
+ */
+@Component
+public class CryptoEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(CryptoEngine.class);
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int KEY_BYTES = 32;
+    private static final int TAG_BITS = 128;
+    private static final int TAG_BYTES = TAG_BITS / 8;
+
+    static final byte ENVELOPE_MAGIC = (byte) 0xE1;
+
+    private final byte[] defaultKey;
+    private final String keystoreFile;
+    private final String keystorePassword;
+    private final String activeKeyId;
+    private final long refreshNanos;
+    private volatile KeyRing ring;
+    private volatile long nextRefresh;
+
+    private final GcmNonceSource nonces = new GcmNonceSource();
+    private final ArrayBlockingQueue<Cipher> idle = new ArrayBlockingQueue<>(4 * Runtime.getRuntime().availableProcessors());
+
+    @Autowired
+    public CryptoEngine(PaymentsProperties props) throws Exception {
+        this(keyBytes(props.getSecurity().getPciMetaKeyBase64()), props.getSecurity().getKeystoreFile(),
+                props.getSecurity().getKeystorePassword(), props.getSecurity().getActiveKeyId(),
+                props.getSecurity().getKeystoreRefreshSeconds());
+    }
+
+    /** Ring with only the "default" key. */
+    public CryptoEngine(byte[] keyBytes) throws Exception {
+        this(keyBytes, null, null, null, 0);
+    }
+
+    public CryptoEngine(byte[] keyBytes, String keystoreFile, String keystorePassword, String activeKeyId,
+                        int refreshSeconds) throws Exception {
+        if (keyBytes == null || keyBytes.length != KEY_BYTES) {
+            throw new IllegalArgumentException("pciMetaKeyBase64 must be 32 bytes (AES-256).");
+        }
+        this.defaultKey = keyBytes.clone();
+        this.keystoreFile = keystoreFile == null || keystoreFile.isBlank() ? null : keystoreFile;
+        this.keystorePassword = keystorePassword;
+        this.activeKeyId = activeKeyId;
+        this.refreshNanos = this.keystoreFile != null && refreshSeconds > 0 ? TimeUnit.SECONDS.toNanos(refreshSeconds) : 0;
+        this.ring = KeyRing.load(defaultKey, this.keystoreFile, keystorePassword, activeKeyId);
+        this.nextRefresh = System.nanoTime() + refreshNanos;
+        log.info("encMeta key ring: {} key(s), active {}", ring.keys.size(), ring.active.id);
+    }
+
+    private static byte[] keyBytes(String base64) {
+        if (base64 == null || base64.isBlank()) {
+            byte[] k = new byte[KEY_BYTES];
+            new SecureRandom().nextBytes(k);
+            log.warn("Using ephemeral PCI key; data will not be decryptable after restart.");
+            return k;
+        }
+        return Base64.getDecoder().decode(base64.trim());
+    }
+
+    /** Encrypts under the active key. */
+    public byte[] encrypt(byte[] plaintext) throws GeneralSecurityException {
+        return encrypt(currentRing().active, plaintext);
+    }
+
+    public byte[] decrypt(byte[] blob) throws GeneralSecurityException {
+        KeyRing r = currentRing();
+        KeyRing.DataKey fallback = r.keys.get(KeyRing.DEFAULT_ID);
+        KeyRing.DataKey key = keyFor(r, blob);
+        if (key != null) {
+            try {
+                return decrypt(key, blob, key.header.length);
+            } catch (AEADBadTagException e) {
+                // A headerless blob whose IV happens to start like a header; anything else fails again below
+                try {
+                    return decrypt(fallback, blob, 0);
+                } catch (AEADBadTagException ignored) {
+                    throw e;
+                }
+            }
+        }
+        try {
+            return decrypt(fallback, blob, 0);
+        } catch (AEADBadTagException e) {
+            if (looksEnveloped(blob)) throw new GeneralSecurityException("Unknown encMeta key id " + keyId(blob), e);
+            throw e;
+        }
+    }
+
+    /** Key id a blob was written under ("default" for headerless blobs). */
+    public String keyId(byte[] blob) {
+        return looksEnveloped(blob) ? new String(blob, 2, blob[1] & 0xFF, StandardCharsets.US_ASCII) : KeyRing.DEFAULT_ID;
+    }
+
+    /** True if the blob is already under the active key. */
+    public boolean isCurrent(byte[] blob) {
+        KeyRing r = currentRing();
+        return keyFor(r, blob) == r.active;
+    }
+
+    /** Decrypts and, if the blob is under an older key, re-encrypts it under the active one. */
+    public Opened open(byte[] blob) throws GeneralSecurityException {
+        byte[] plaintext = decrypt(blob);
+        KeyRing r = currentRing();
+        return keyFor(r, blob) == r.active ? new Opened(plaintext, blob, false) : new Opened(plaintext, encrypt(r.active, plaintext), true);
+    }
+
+    /** The blob itself when already current, else the same plaintext under the active key. */
+    public byte[] rekey(byte[] blob) throws GeneralSecurityException {
+        return open(blob).blob;
+    }
+
+    public static final class Opened {
+        public final byte[] plaintext;
+        // Blob to keep: the input when current, else the re-encrypted one
+        public final byte[] blob;
+        public final boolean rekeyed;
+
+        Opened(byte[] plaintext, byte[] blob, boolean rekeyed) {
+            this.plaintext = plaintext;
+            this.blob = blob;
+            this.rekeyed = rekeyed;
+        }
+    }
+
+    public String encryptToBase64(String plaintext) throws GeneralSecurityException {
+        return Base64.getEncoder().encodeToString(encrypt(plaintext.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public String decryptFromBase64(String base64) throws GeneralSecurityException {
+        return new String(decrypt(Base64.getDecoder().decode(base64)), StandardCharsets.UTF_8);
+    }
+
+    /** Key ids in the ring and the active one; no key material. */
+    public Map<String, Object> describe() {
+        KeyRing r = currentRing();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("active", r.active.id);
+        out.put("keys", r.keys.keySet());
+        out.put("keystore", keystoreFile);
+        return out;
+    }
+
+    /** Re-reads the keystore now. */
+    public synchronized void reload() throws Exception {
+        ring = KeyRing.load(defaultKey, keystoreFile, keystorePassword, activeKeyId);
+        log.info("encMeta key ring reloaded: {} key(s), active {}", ring.keys.size(), ring.active.id);
+    }
+
+    private KeyRing currentRing() {
+        KeyRing r = ring;
+        if (refreshNanos > 0 && System.nanoTime() - nextRefresh >= 0) {
+            nextRefresh = System.nanoTime() + refreshNanos;
+            if (new File(keystoreFile).lastModified() != r.loadedMtime) {
+                try {
+                    reload();
+                } catch (Exception e) {
+                    log.warn("encMeta keystore reload failed, keeping the current ring: {}", e.getMessage());
+                }
+                r = ring;
+            }
+        }
+        return r;
+    }
+
+    private byte[] encrypt(KeyRing.DataKey key, byte[] plaintext) throws GeneralSecurityException {
+        byte[] h = key.header;
+        byte[] out = new byte[h.length + GcmNonceSource.NONCE_BYTES + plaintext.length + TAG_BYTES];
+        System.arraycopy(h, 0, out, 0, h.length);
+        nonces.next(out, h.length);
+        Cipher c = borrow();
+        c.init(Cipher.ENCRYPT_MODE, key.spec, new GCMParameterSpec(TAG_BITS, out, h.length, GcmNonceSource.NONCE_BYTES));
+        c.updateAAD(h);
+        c.doFinal(plaintext, 0, plaintext.length, out, h.length + GcmNonceSource.NONCE_BYTES);
+        idle.offer(c);
+        return out;
+    }
+
+    /** Throws AEADBadTagException if the blob was tampered with or encrypted under another key. */
+    private byte[] decrypt(KeyRing.DataKey key, byte[] blob, int headerLen) throws GeneralSecurityException {
+        int body = headerLen + GcmNonceSource.NONCE_BYTES;
+        if (blob.length < body + TAG_BYTES) throw new GeneralSecurityException("Invalid payload");
+        Cipher c = borrow();
+        c.init(Cipher.DECRYPT_MODE, key.spec, new GCMParameterSpec(TAG_BITS, blob, headerLen, GcmNonceSource.NONCE_BYTES));
+        if (headerLen > 0) c.updateAAD(blob, 0, headerLen);
+        byte[] pt = c.doFinal(blob, body, blob.length - body);
+        // Only returned on success; a failed doFinal leaves the instance to the GC
+        idle.offer(c);
+        return pt;
+    }
+
+    private static boolean looksEnveloped(byte[] blob) {
+        if (blob.length < 3 || blob[0] != ENVELOPE_MAGIC) return false;
+        int n = blob[1] & 0xFF;
+        return n >= 1 && n <= KeyRing.MAX_ID_BYTES && blob.length >= 2 + n + GcmNonceSource.NONCE_BYTES + TAG_BYTES;
+    }
+
+    /** The ring key named in the blob's header, or null (headerless blob or unknown id). */
+    private static KeyRing.DataKey keyFor(KeyRing r, byte[] blob) {
+        if (!looksEnveloped(blob)) return null;
+        int n = 2 + (blob[1] & 0xFF);
+        for (KeyRing.DataKey k : r.keys.values()) {
+            if (k.header.length == n && Arrays.equals(k.header, 0, n, blob, 0, n)) return k;
+        }
+        return null;
+    }
+
+    private Cipher borrow() throws GeneralSecurityException {
+        Cipher c = idle.poll();
+        return c != null ? c : Cipher.getInstance(TRANSFORMATION);
+    }
+}
@@ -0,0 +1,184 @@
+package com.tcs.payments.security;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.tcs.payments.service.PaymentsProperties;
+
+/**
+ * Bulk re-encryption of stored encMeta blobs under the active key.
+ *
+ * Input is payments.security.rekey.dir/&lt;jobId&gt;.in, one blob per line, either bare Base64 or
+ * "anything,&lt;blob&gt;" / "anything\t&lt;blob&gt;" (the text before the last separator is kept as is).
+ * Lines are cut into batches and re-keyed on one worker per core; batches are written back in input
+ * order to &lt;jobId&gt;.out, which only appears once the whole file is done. Blobs already under the
+ * active key are copied unchanged, so a job can be re-run safely. Lines that fail to decrypt are copied
+ * unchanged and counted.
+ */
+@Component
+public class EncMetaRekeyJob {
+    private static final Logger log = LoggerFactory.getLogger(EncMetaRekeyJob.class);
+    private static final Pattern JOB_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final CryptoEngine crypto;
+    private final PaymentsProperties.Security.Rekey cfg;
+    private final Map<String, Progress> jobs = new ConcurrentHashMap<>();
+
+    public EncMetaRekeyJob(CryptoEngine crypto, PaymentsProperties props) {
+        this.crypto = crypto;
+        this.cfg = props.getSecurity().getRekey();
+    }
+
+    public static boolean isValidJobId(String jobId) {
+        return jobId != null && JOB_ID.matcher(jobId).matches();
+    }
+
+    /** Starts the job in the background; throws IllegalStateException if it is already running. */
+    public Map<String, Object> start(String jobId) throws IOException {
+        File in = new File(cfg.getDir(), jobId + ".in");
+        if (!in.isFile()) throw new FileNotFoundException(in.getPath());
+        Progress p = new Progress();
+        Progress running = jobs.compute(jobId, (k, prev) -> prev != null && prev.state.equals("RUNNING") ? prev : p);
+        if (running != p) throw new IllegalStateException("rekey job " + jobId + " is already running");
+
+        Thread t = new Thread(() -> run(jobId, in, p), "rekey-" + jobId);
+        t.setDaemon(true);
+        t.start();
+        return p.toMap();
+    }
+
+    public Map<String, Object> status(String jobId) {
+        Progress p = jobs.get(jobId);
+        return p == null ? null : p.toMap();
+    }
+
+    private void run(String jobId, File in, Progress p) {
+        int threads = cfg.getThreads() > 0 ? cfg.getThreads() : Runtime.getRuntime().availableProcessors();
+        int batchLines = Math.max(1, cfg.getBatchLines());
+        File out = new File(cfg.getDir(), jobId + ".out");
+        File tmp = new File(cfg.getDir(), jobId + ".out.tmp");
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try (BufferedReader reader = Files.newBufferedReader(in.toPath(), StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+            // Bounded look-ahead keeps memory flat while every worker has a batch queued
+            ArrayDeque<Future<String[]>> pending = new ArrayDeque<>();
+            String[] batch;
+            while ((batch = readBatch(reader, batchLines)) != null) {
+                String[] lines = batch;
+                pending.add(workers.submit(() -> rekeyBatch(lines, p)));
+                if (pending.size() >= 2 * threads) write(writer, pending.poll().get());
+            }
+            while (!pending.isEmpty()) write(writer, pending.poll().get());
+        } catch (Exception e) {
+            log.error("rekey job {} failed", jobId, e);
+            p.finish("FAILED", e.getMessage());
+            return;
+        } finally {
+            workers.shutdownNow();
+        }
+        try {
+            Files.move(tmp.toPath(), out.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            p.finish("DONE", null);
+            log.info("rekey job {} done: {}", jobId, p.toMap());
+        } catch (IOException e) {
+            log.error("rekey job {} could not publish {}", jobId, out, e);
+            p.finish("FAILED", e.getMessage());
+        }
+    }
+
+    private String[] rekeyBatch(String[] lines, Progress p) {
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            int sep = Math.max(line.lastIndexOf(','), line.lastIndexOf('\t'));
+            String blob = line.substring(sep + 1).trim();
+            if (blob.isEmpty()) continue;
+            try {
+                CryptoEngine.Opened o = crypto.open(Base64.getDecoder().decode(blob));
+                if (o.rekeyed) {
+                    lines[i] = line.substring(0, sep + 1) + Base64.getEncoder().encodeToString(o.blob);
+                    p.rekeyed.increment();
+                } else {
+                    p.current.increment();
+                }
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                p.failed.increment();
+            }
+        }
+        p.lines.add(lines.length);
+        return lines;
+    }
+
+    private static String[] readBatch(BufferedReader reader, int max) throws IOException {
+        String[] batch = new String[max];
+        int n = 0;
+        String line;
+        while (n < max && (line = reader.readLine()) != null) batch[n++] = line;
+        if (n == 0) return null;
+        if (n < max) {
+            String[] trimmed = new String[n];
+            System.arraycopy(batch, 0, trimmed, 0, n);
+            return trimmed;
+        }
+        return batch;
+    }
+
+    private static void write(BufferedWriter writer, String[] lines) throws IOException {
+        for (String l : lines) {
+            writer.write(l);
+            writer.newLine();
+        }
+    }
+
+    private final class Progress {
+        final long started = System.currentTimeMillis();
+        final LongAdder lines = new LongAdder();
+        final LongAdder rekeyed = new LongAdder();
+        final LongAdder current = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        volatile String state = "RUNNING";
+        volatile String error;
+        volatile long finished;
+
+        void finish(String state, String error) {
+            this.error = error;
+            this.finished = System.currentTimeMillis();
+            this.state = state;
+        }
+
+        Map<String, Object> toMap() {
+            long elapsed = (finished > 0 ? finished : System.currentTimeMillis()) - started;
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("state", state);
+            m.put("activeKey", crypto.describe().get("active"));
+            m.put("lines", lines.sum());
+            m.put("rekeyed", rekeyed.sum());
+            m.put("alreadyCurrent", current.sum());
+            m.put("failed", failed.sum());
+            m.put("elapsedMs", elapsed);
+            m.put("linesPerMinute", elapsed > 0 ? lines.sum() * 60_000 / elapsed : 0);
+            if (error != null) m.put("error", error);
+            return m;
+        }
+    }
+}
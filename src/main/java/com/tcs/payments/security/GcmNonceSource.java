@@ -0,0 +1,41 @@
+package com.tcs.payments.security;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 96-bit GCM nonces in the deterministic construction of NIST SP 800-38D 8.2.1: a 32-bit fixed field
+ * drawn once per instance, then a 64-bit invocation counter.
+ *
+ * Within an instance nonces are unique by construction (one atomic increment, never wraps in
+ * practice), and next() never blocks. The counter starts at a random value too, so instances sharing
+ * a key (restarts, replicas) only collide if both random draws line up.
+ */
+final class GcmNonceSource {
+
+    static final int NONCE_BYTES = 12;
+
+    private final int fixed;
+    private final AtomicLong counter;
+
+    GcmNonceSource() {
+        SecureRandom rnd = new SecureRandom();
+        this.fixed = rnd.nextInt();
+        this.counter = new AtomicLong(rnd.nextLong());
+    }
+
+    /** Writes the next nonce into dst[off, off + 12). */
+    void next(byte[] dst, int off) {
+        long n = counter.getAndIncrement();
+        putInt(dst, off, fixed);
+        putInt(dst, off + 4, (int) (n >>> 32));
+        putInt(dst, off + 8, (int) n);
+    }
+
+    private static void putInt(byte[] dst, int off, int v) {
+        dst[off] = (byte) (v >>> 24);
+        dst[off + 1] = (byte) (v >>> 16);
+        dst[off + 2] = (byte) (v >>> 8);
+        dst[off + 3] = (byte) v;
+    }
+}
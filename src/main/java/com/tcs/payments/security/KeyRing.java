@@ -0,0 +1,99 @@
+package com.tcs.payments.security;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Immutable snapshot of the encMeta data keys: "default" (pciMetaKeyBase64) plus every AES
+ * secret-key entry of the keystore, by alias. CryptoEngine swaps in a new snapshot when the
+ * keystore file changes. Key ids are ASCII, at most MAX_ID_BYTES long.
+ */
+final class KeyRing {
+
+    static final String DEFAULT_ID = "default";
+    static final int MAX_ID_BYTES = 64;
+
+    static final class DataKey {
+        final String id;
+        final SecretKeySpec spec;
+        // Envelope header for blobs under this key, also authenticated as GCM AAD
+        final byte[] header;
+
+        DataKey(String id, byte[] keyBytes) {
+            byte[] idBytes = id.getBytes(StandardCharsets.US_ASCII);
+            if (idBytes.length == 0 || idBytes.length > MAX_ID_BYTES) {
+                throw new IllegalArgumentException("Key id must be 1-" + MAX_ID_BYTES + " ASCII bytes: " + id);
+            }
+            if (keyBytes.length != 32) {
+                throw new IllegalArgumentException("Key " + id + " must be 32 bytes (AES-256)");
+            }
+            this.id = id;
+            this.spec = new SecretKeySpec(keyBytes, "AES");
+            this.header = new byte[2 + idBytes.length];
+            header[0] = CryptoEngine.ENVELOPE_MAGIC;
+            header[1] = (byte) idBytes.length;
+            System.arraycopy(idBytes, 0, header, 2, idBytes.length);
+        }
+    }
+
+    final Map<String, DataKey> keys;
+    final DataKey active;
+    // Keystore file timestamp this snapshot was read at (0 without a keystore)
+    final long loadedMtime;
+
+    private KeyRing(Map<String, DataKey> keys, DataKey active, long loadedMtime) {
+        this.keys = Collections.unmodifiableMap(keys);
+        this.active = active;
+        this.loadedMtime = loadedMtime;
+    }
+
+    static KeyRing load(byte[] defaultKey, String keystoreFile, String password, String activeKeyId)
+            throws IOException, GeneralSecurityException {
+        Map<String, DataKey> keys = new LinkedHashMap<>();
+        keys.put(DEFAULT_ID, new DataKey(DEFAULT_ID, defaultKey));
+        String newest = DEFAULT_ID;
+        long mtime = 0;
+
+        if (keystoreFile != null && !keystoreFile.isBlank()) {
+            File f = new File(keystoreFile);
+            mtime = f.lastModified();
+            char[] pw = password == null ? new char[0] : password.toCharArray();
+            KeyStore ks = KeyStore.getInstance("PKCS12");
+            try (InputStream in = Files.newInputStream(f.toPath())) {
+                ks.load(in, pw);
+            }
+            Date newestDate = null;
+            for (Enumeration<String> aliases = ks.aliases(); aliases.hasMoreElements(); ) {
+                String alias = aliases.nextElement();
+                if (!ks.isKeyEntry(alias)) continue;
+                Key k = ks.getKey(alias, pw);
+                if (!(k instanceof SecretKey) || !"AES".equalsIgnoreCase(k.getAlgorithm())) continue;
+                keys.put(alias, new DataKey(alias, k.getEncoded()));
+                Date created = ks.getCreationDate(alias);
+                if (created != null && (newestDate == null || created.after(newestDate))) {
+                    newestDate = created;
+                    newest = alias;
+                }
+            }
+        }
+
+        String activeId = activeKeyId == null || activeKeyId.isBlank() ? newest : activeKeyId;
+        DataKey active = keys.get(activeId);
+        if (active == null) throw new IllegalStateException("Active key " + activeId + " is not in the key ring");
+        return new KeyRing(keys, active, mtime);
+    }
+}
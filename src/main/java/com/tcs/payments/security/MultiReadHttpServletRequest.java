@@ -2,30 +2,104 @@ package com.tcs.payments.security;
 
 
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import jakarta.servlet.ReadListener;
 import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
 
+/**
+ * Buffers the request body once so it can be scanned and then bound by Spring.
+ *
+ * The body lives in a buffer from BodyBufferPool (or a one-off array when it is larger than the
+ * pooled size) and is served from there without copies: getBody() is a read-only view for the PCI
+ * scanner, getInputStream() supports bulk reads for Jackson. Bodies over the pool's max-bytes are
+ * refused with BodyTooLargeException, from Content-Length when present, else as soon as the limit
+ * is crossed. release() hands the buffer back; the request must not be read after that.
+ */
 public class MultiReadHttpServletRequest extends HttpServletRequestWrapper {
 
-    private final byte[] cached;
+    private final BodyBufferPool pool;
+    private byte[] buf;
+    private final int length;
 
-    public MultiReadHttpServletRequest(HttpServletRequest request) throws IOException {
+    public MultiReadHttpServletRequest(HttpServletRequest request, BodyBufferPool pool) throws IOException {
         super(request);
-        this.cached = request.getInputStream().readAllBytes();
+        this.pool = pool;
+        int max = pool.maxBytes();
+        long declared = request.getContentLengthLong();
+        if (declared > max) throw new BodyTooLargeException(max);
+
+        byte[] b = declared > pool.bufferBytes() ? new byte[(int) declared] : pool.acquire();
+        int len = 0;
+        try {
+            InputStream in = request.getInputStream();
+            while (true) {
+                if (len == b.length) {
+                    // Full: probe for one more byte before growing, so an exact Content-Length never grows
+                    int next = in.read();
+                    if (next < 0) break;
+                    if (len >= max) throw new BodyTooLargeException(max);
+                    byte[] grown = Arrays.copyOf(b, (int) Math.min(max, 2L * b.length));
+                    pool.release(b);
+                    b = grown;
+                    b[len++] = (byte) next;
+                    continue;
+                }
+                int n = in.read(b, len, b.length - len);
+                if (n < 0) break;
+                len += n;
+            }
+        } catch (IOException | RuntimeException e) {
+            pool.release(b);
+            throw e;
+        }
+        this.buf = b;
+        this.length = len;
+    }
+
+    /** Read-only view of the buffered body (position 0, limit = body length). */
+    public ByteBuffer getBody() {
+        return ByteBuffer.wrap(buffer(), 0, length).asReadOnlyBuffer();
+    }
+
+    public int getBodyLength() {
+        return length;
     }
 
     @Override
     public ServletInputStream getInputStream() {
-        ByteArrayInputStream bais = new ByteArrayInputStream(cached);
+        byte[] b = buffer();
         return new ServletInputStream() {
-            @Override public int read() { return bais.read(); }
-            @Override public boolean isFinished() { return bais.available() == 0; }
+            private int pos;
+
+            @Override public int read() {
+                checkOpen();
+                return pos < length ? b[pos++] & 0xFF : -1;
+            }
+            @Override public int read(byte[] dst, int off, int len) {
+                checkOpen();
+                if (len == 0) return 0;
+                if (pos >= length) return -1;
+                int n = Math.min(len, length - pos);
+                System.arraycopy(b, pos, dst, off, n);
+                pos += n;
+                return n;
+            }
+            @Override public long skip(long n) {
+                int skipped = (int) Math.max(0, Math.min(n, length - pos));
+                pos += skipped;
+                return skipped;
+            }
+            @Override public int available() { return length - pos; }
+            @Override public boolean isFinished() { return pos >= length; }
             @Override public boolean isReady() { return true; }
             @Override public void setReadListener(ReadListener readListener) { /* no-op */ }
         };
@@ -33,11 +107,35 @@ public class MultiReadHttpServletRequest extends HttpServletRequestWrapper {
 
     @Override
     public BufferedReader getReader() {
-        return new BufferedReader(new InputStreamReader(getInputStream()));
+        String enc = getCharacterEncoding();
+        Charset cs = enc != null ? Charset.forName(enc) : StandardCharsets.UTF_8;
+        return new BufferedReader(new InputStreamReader(getInputStream(), cs));
+    }
+
+    /** Returns the buffer to the pool. Call once the request has been fully handled. */
+    public void release() {
+        byte[] b = buf;
+        buf = null;
+        if (b != null) pool.release(b);
+    }
+
+    private byte[] buffer() {
+        checkOpen();
+        return buf;
     }
 
-    public String getCachedBody(String charset) throws IOException {
-        String cs = (charset != null ? charset : "UTF-8");
-        return new String(cached, cs);
+    private void checkOpen() {
+        if (buf == null) throw new IllegalStateException("Request body already released");
+    }
+
+    public static class BodyTooLargeException extends IOException {
+        private final int maxBytes;
+
+        public BodyTooLargeException(int maxBytes) {
+            super("Request body exceeds " + maxBytes + " bytes");
+            this.maxBytes = maxBytes;
+        }
+
+        public int getMaxBytes() { return maxBytes; }
     }
-}
\ No newline at end of file
+}
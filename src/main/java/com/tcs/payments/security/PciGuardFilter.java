@@ -1,7 +1,8 @@
 package com.tcs.payments.security;
 
 import java.io.IOException;
-import java.util.stream.Collectors;
+import java.nio.ByteBuffer;
+import java.util.Set;
 
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -11,10 +12,27 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+import com.tcs.payments.service.PaymentsProperties;
+
 
 @Component
 public class PciGuardFilter extends OncePerRequestFilter {
 
+    // Streamed uploads with a fixed row schema; BulkRefundProcessor runs PciScanner on each row instead of buffering here
+    private static final Set<String> STREAMING_PATHS = Set.of("/api/payments/refund/bulk");
+    // Bound by PaymentRequestConverter, which scans tokens while parsing (payments.request-body.parse-once)
+    private static final Set<String> PARSE_ONCE_PATHS = Set.of("/api/payments/initiate");
+
+    private final PciScanner scanner;
+    private final BodyBufferPool buffers;
+    private final boolean parseOnce;
+
+    public PciGuardFilter(PaymentsProperties props, BodyBufferPool buffers) {
+        this.scanner = new PciScanner(props.getSecurity().isPciLuhnCheck());
+        this.buffers = buffers;
+        this.parseOnce = props.getRequestBody().isParseOnce();
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
@@ -23,24 +41,33 @@ public class PciGuardFilter extends OncePerRequestFilter {
 
         // Only inspect relevant requests
         if ("POST".equalsIgnoreCase(request.getMethod())
-                && request.getRequestURI().startsWith("/api")) {
+                && request.getRequestURI().startsWith("/api")
+                && !STREAMING_PATHS.contains(request.getRequestURI())) {
 
-            // Wrap to allow multiple reads
-            MultiReadHttpServletRequest wrapped = new MultiReadHttpServletRequest(request);
+            // Wrap to allow multiple reads (pooled buffer, size-capped)
+            MultiReadHttpServletRequest wrapped;
+            try {
+                wrapped = new MultiReadHttpServletRequest(request, buffers);
+            } catch (MultiReadHttpServletRequest.BodyTooLargeException e) {
+                reject(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                        "{\"error\":\"body_too_large\",\"maxBytes\":" + e.getMaxBytes() + "}");
+                return;
+            }
 
-            String body = wrapped.getCachedBody(wrapped.getCharacterEncoding());
-            request.setAttribute("rawBody", body); // optional
+            try {
+                boolean scannedWhileParsing = parseOnce && PARSE_ONCE_PATHS.contains(request.getRequestURI());
+                if (!scannedWhileParsing && containsPciData(wrapped.getBody())) {
+                    reject(response, HttpServletResponse.SC_BAD_REQUEST,
+                            "{\"error\":\"pci_violation\",\"message\":\"Do not send PAN/CVV; use PSP tokenization.\"}");
+                    return; // BLOCK the request here
+                }
 
-            if (containsPciData(body)) {
-                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                response.setContentType("application/json");
-                response.setCharacterEncoding("UTF-8");
-                response.getWriter().write("{\"error\":\"pci_violation\",\"message\":\"Do not send PAN/CVV; use PSP tokenization.\"}");
-                return; // BLOCK the request here
+                // Pass the wrapped request so Spring can bind @RequestBody safely
+                filterChain.doFilter(wrapped, response);
+            } finally {
+                // @RequestBody is bound before the handler returns, async handlers included
+                wrapped.release();
             }
-
-            // Pass the wrapped request so Spring can bind @RequestBody safely
-            filterChain.doFilter(wrapped, response);
             return;
         }
 
@@ -48,11 +75,15 @@ public class PciGuardFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
-    private boolean containsPciData(String body) {
-        boolean hasPan = body.matches(".*\\b\\d{12,19}\\b.*");
-        boolean hasCvv = body.matches(".*\\b(cvv|cvc)\\b.*");
-        boolean hasExpiry = body.matches(".*\\b(expiry|expMonth|expYear)\\b.*");
-        boolean hasCardNumberKey = body.matches(".*\\b(cardNumber)\\b.*");
-        return hasPan || hasCvv || hasExpiry || hasCardNumberKey;
+    private static void reject(HttpServletResponse response, int status, String json) throws IOException {
+        response.setStatus(status);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write(json);
+    }
+
+    // Package-private for the JMH benchmarks (src/jmh/java)
+    boolean containsPciData(ByteBuffer body) {
+        return scanner.containsPciData(body);
     }
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package com.tcs.payments.security;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Single pass over a request body looking for card data, without decoding it to a String.
+ *
+ * The body is split into word tokens ([A-Za-z0-9_], as regex \b sees them). A token is a hit when it is
+ * - all digits and 12-19 long (a PAN), and passes the Luhn check when luhnCheck is on, or
+ * - exactly one of the forbidden keys: cvv, cvc, expiry, expMonth, expYear, cardNumber.
+ *
+ * Keys are matched by a DFA built once from a trie of the keys: each token start begins at the root,
+ * each byte is one table lookup, and a mismatch parks the token in a dead state until the next boundary.
+ * Works on any ASCII-compatible encoding (UTF-8 JSON); bytes >= 0x80 count as boundaries.
+ * Reads the buffer with absolute gets (position and limit are left alone), so read-only views work.
+ * The char[] form scans single decoded JSON tokens for PciScanningParser.
+ * Thread-safe and allocation-free per call.
+ */
+public final class PciScanner {
+
+    static final String[] FORBIDDEN_KEYS = {"cvv", "cvc", "expiry", "expMonth", "expYear", "cardNumber"};
+
+    private static final int MIN_PAN = 12;
+    private static final int MAX_PAN = 19;
+    private static final int DEAD = 0;
+    private static final int ROOT = 1;
+
+    // Word-byte classes for the tokenizer
+    private static final byte OTHER = 0;
+    private static final byte DIGIT = 1;
+    private static final byte WORD = 2;
+    private static final byte[] CLASS = new byte[128];
+
+    // next[state * 128 + byte] -> state; accept[state] marks the end of a forbidden key
+    private static final int[] NEXT;
+    private static final boolean[] ACCEPT;
+
+    static {
+        for (int c = '0'; c <= '9'; c++) CLASS[c] = DIGIT;
+        for (int c = 'a'; c <= 'z'; c++) CLASS[c] = WORD;
+        for (int c = 'A'; c <= 'Z'; c++) CLASS[c] = WORD;
+        CLASS['_'] = WORD;
+
+        int maxStates = 2;
+        for (String k : FORBIDDEN_KEYS) maxStates += k.length();
+        int[] next = new int[maxStates * 128];
+        boolean[] accept = new boolean[maxStates];
+        int states = 2;
+        for (String k : FORBIDDEN_KEYS) {
+            int s = ROOT;
+            for (int i = 0; i < k.length(); i++) {
+                int idx = s * 128 + k.charAt(i);
+                if (next[idx] == DEAD) next[idx] = states++;
+                s = next[idx];
+            }
+            accept[s] = true;
+        }
+        NEXT = next;
+        ACCEPT = accept;
+    }
+
+    private final boolean luhnCheck;
+
+    public PciScanner(boolean luhnCheck) {
+        this.luhnCheck = luhnCheck;
+    }
+
+    public boolean containsPciData(byte[] body) {
+        return containsPciData(body, 0, body.length);
+    }
+
+    public boolean containsPciData(byte[] body, int off, int len) {
+        return containsPciData(ByteBuffer.wrap(body, off, len));
+    }
+
+    /** Scans body between its position and limit. */
+    public boolean containsPciData(ByteBuffer body) {
+        return scan(body, null, body.position(), body.limit());
+    }
+
+    public boolean containsPciData(char[] text, int off, int len) {
+        return scan(null, text, off, off + len);
+    }
+
+    // Exactly one of bytes / chars is set; the check is loop-invariant and hoisted by the JIT
+    private boolean scan(ByteBuffer bytes, char[] chars, int off, int end) {
+        int tokenLen = 0;     // length of the current word token, 0 between tokens
+        boolean allDigits = false;
+        int state = DEAD;     // key DFA state for the current token
+        // Luhn sums for the digits so far, as if the last digit is (not) doubled; swapped on every digit
+        int sumPlain = 0;
+        int sumDoubled = 0;
+
+        for (int i = off; i <= end; i++) {
+            int b = i >= end ? 0 : chars != null ? chars[i] : bytes.get(i) & 0xFF;
+            byte cls = b < 128 ? CLASS[b] : OTHER;
+            if (cls == OTHER) {
+                if (tokenLen > 0) {
+                    if (ACCEPT[state]) return true;
+                    if (allDigits && tokenLen >= MIN_PAN && tokenLen <= MAX_PAN
+                            && (!luhnCheck || sumPlain % 10 == 0)) return true;
+                    tokenLen = 0;
+                }
+                continue;
+            }
+            if (tokenLen == 0) {
+                allDigits = true;
+                state = ROOT;
+                sumPlain = 0;
+                sumDoubled = 0;
+            }
+            tokenLen++;
+            if (state != DEAD) state = NEXT[state * 128 + b];
+            if (allDigits) {
+                if (cls == DIGIT && tokenLen <= MAX_PAN) {
+                    int d = b - '0';
+                    int doubled = d < 5 ? d * 2 : d * 2 - 9;
+                    int plain = sumDoubled + d;
+                    sumDoubled = sumPlain + doubled;
+                    sumPlain = plain;
+                } else {
+                    allDigits = false;
+                }
+            }
+        }
+        return false;
+    }
+}
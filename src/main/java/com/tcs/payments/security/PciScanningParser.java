@@ -0,0 +1,61 @@
+package com.tcs.payments.security;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+
+/**
+ * Runs PciScanner over every field name and scalar value as Jackson pulls tokens, so a body is checked
+ * and bound in the same pass. Throws PciViolationException on the first hit, before the rest of the
+ * body is read. Subtrees the deserializer skips (unknown properties) are walked token by token so
+ * they are still scanned.
+ */
+public class PciScanningParser extends JsonParserDelegate {
+
+    private final PciScanner scanner;
+
+    public PciScanningParser(JsonParser delegate, PciScanner scanner) {
+        super(delegate);
+        this.scanner = scanner;
+    }
+
+    @Override
+    public JsonToken nextToken() throws IOException {
+        JsonToken t = delegate.nextToken();
+        if (t == JsonToken.FIELD_NAME || (t != null && t.isScalarValue() && t != JsonToken.VALUE_NULL)) {
+            if (scanner.containsPciData(delegate.getTextCharacters(), delegate.getTextOffset(), delegate.getTextLength())) {
+                throw new PciViolationException();
+            }
+        }
+        return t;
+    }
+
+    @Override
+    public JsonToken nextValue() throws IOException {
+        JsonToken t = nextToken();
+        return t == JsonToken.FIELD_NAME ? nextToken() : t;
+    }
+
+    @Override
+    public JsonParser skipChildren() throws IOException {
+        JsonToken t = currentToken();
+        if (t != JsonToken.START_OBJECT && t != JsonToken.START_ARRAY) return this;
+        int open = 1;
+        while (open > 0) {
+            t = nextToken();
+            if (t == null) return this;
+            if (t.isStructStart()) open++;
+            else if (t.isStructEnd()) open--;
+        }
+        return this;
+    }
+
+    /** A field name or value looked like card data. Plain IOException so Jackson rethrows it unwrapped. */
+    public static class PciViolationException extends IOException {
+        public PciViolationException() {
+            super("Do not send PAN/CVV; use PSP tokenization.");
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.tcs.payments.security;
 
 import com.tcs.payments.risk.FraudEngine;
 
+// Pure function of pref and action. FraudEngine settles check-group timeouts into the action (timeout-action)
+// before this runs, so the same verdict always gets the same decision.
 public class ThreeDSDecider {
 
 	public enum Pref {
@@ -0,0 +1,139 @@
+package com.tcs.payments.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcs.payments.model.PaymentMethod;
+import com.tcs.payments.model.PaymentRequest;
+import com.tcs.payments.model.PaymentResponse;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Fans a batch of PaymentRequests out to PaymentOrchestrator.initiate.
+ *
+ * Each provider group (stripe, razorpay, cod) gets its own fixed pool sized from
+ * payments.batch.concurrency, so a slow PSP only queues its own items.
+ * Results are written as NDJSON lines in completion order.
+ */
+@Service
+public class BatchPaymentService {
+    private static final Logger log = LoggerFactory.getLogger(BatchPaymentService.class);
+
+    private final PaymentOrchestrator orchestrator;
+    private final PaymentsProperties paymentsProperties;
+    private final ObjectMapper mapper;
+    private final Map<String, ExecutorService> pools = new HashMap<>();
+
+    public BatchPaymentService(PaymentOrchestrator orchestrator, PaymentsProperties paymentsProperties, ObjectMapper mapper) {
+        this.orchestrator = orchestrator;
+        this.paymentsProperties = paymentsProperties;
+        this.mapper = mapper;
+        for (Map.Entry<String, Integer> e : paymentsProperties.getBatch().getConcurrency().entrySet()) {
+            int size = Math.max(1, e.getValue());
+            pools.put(e.getKey().toLowerCase(), Executors.newFixedThreadPool(size));
+        }
+    }
+
+    public int maxItems() {
+        return paymentsProperties.getBatch().getMaxItems();
+    }
+
+    /**
+     * Submits every item and writes one JSON line per item as soon as it finishes.
+     * Blocks the calling (streaming) thread until all items are written.
+     */
+    public void stream(List<PaymentRequest> requests, OutputStream out) throws IOException {
+        BlockingQueue<Map<String, Object>> done = new LinkedBlockingQueue<>();
+        for (int i = 0; i < requests.size(); i++) {
+            final int index = i;
+            final PaymentRequest req = requests.get(i);
+            ExecutorService pool = pools.get(providerGroup(req == null ? null : req.getMethod()));
+            if (req == null || pool == null) {
+                done.add(errorLine(index, req, "unsupported_method"));
+                continue;
+            }
+            CompletableFuture.supplyAsync(() -> {
+                try {
+                    return orchestrator.initiate(req);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+            }, pool).whenComplete((result, err) -> {
+                if (err != null) {
+                    log.error("batch_item_error index={}", index, err);
+                    Throwable cause = err.getCause() != null ? err.getCause() : err;
+                    done.add(errorLine(index, req, String.valueOf(cause.getMessage())));
+                } else {
+                    done.add(resultLine(index, req, result));
+                }
+            });
+        }
+
+        for (int written = 0; written < requests.size(); written++) {
+            Map<String, Object> line;
+            try {
+                line = done.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("batch interrupted", e);
+            }
+            out.write(mapper.writeValueAsBytes(line));
+            out.write('\n');
+            out.flush();
+        }
+    }
+
+    /** Provider group used for concurrency limits; matches the routing in PaymentOrchestrator.initiate. */
+    static String providerGroup(PaymentMethod method) {
+        if (method == null) return null;
+        switch (method) {
+            case CARD:
+            case APPLE_PAY:
+            case GOOGLE_PAY:
+                return "stripe";
+            case EMI:
+                return "razorpay";
+            case COD:
+                return "cod";
+            default:
+                return null;
+        }
+    }
+
+    private static Map<String, Object> resultLine(int index, PaymentRequest req, PaymentResponse result) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("index", index);
+        line.put("idempotencyKey", req.getIdempotencyKey());
+        line.put("result", result);
+        return line;
+    }
+
+    private static Map<String, Object> errorLine(int index, PaymentRequest req, String message) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("index", index);
+        line.put("idempotencyKey", req == null ? null : req.getIdempotencyKey());
+        line.put("error", "server_error");
+        line.put("message", message);
+        return line;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pools.values().forEach(ExecutorService::shutdown);
+    }
+}
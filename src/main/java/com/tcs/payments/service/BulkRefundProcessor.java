@@ -0,0 +1,322 @@
+package com.tcs.payments.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcs.payments.model.PaymentResponse;
+import com.tcs.payments.security.PciScanner;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Streams a CSV or NDJSON upload of (provider, paymentId, amount) rows into refunds.
+ *
+ * Rows are read one at a time and handed to a per-provider pool; a semaphore per provider
+ * bounds in-flight rows, so the reader blocks instead of buffering the upload.
+ *
+ * Each job (jobId) has a journal under payments.bulk-refund.dir, keyed by what a row refunds rather
+ * than where it sits in the file: a hash of (provider, paymentId, amount) plus which occurrence of that
+ * triple in the upload it is, so a re-upload with rows reordered, edited or added still matches up.
+ * "S key" is written before the refund call and "D key status" after it. A re-run of the same job skips
+ * rows finished as refunded/failed, retries rows that ended in an error, and does not retry rows that only
+ * have "S" (the PSP may already have refunded them); those are reported as needs_reconciliation instead.
+ * Every refund call carries "bulk-refund:jobId:key" as its idempotency key, so a retried error row that did
+ * reach Stripe is not refunded twice.
+ * Results are appended to <jobId>.results.ndjson as rows complete.
+ *
+ * The upload skips PciGuardFilter's buffered body scan, so each row is run through PciScanner before it
+ * is parsed; a row holding card data is refused as pci_data and none of its values reach the PSP, the
+ * journal or the results file.
+ */
+@Service
+public class BulkRefundProcessor {
+    private static final Logger log = LoggerFactory.getLogger(BulkRefundProcessor.class);
+    private static final Pattern JOB_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final Pattern AMOUNT = Pattern.compile("[0-9]{1,10}");
+    private static final Set<String> ROW_FIELDS = Set.of("provider", "paymentId", "amount");
+    // Journal status of a row whose refund call threw; retried on the next run
+    private static final String ERROR = "error";
+
+    private final PaymentOrchestrator orchestrator;
+    private final PaymentsProperties.BulkRefund cfg;
+    private final ObjectMapper json;
+    private final PciScanner pciScanner;
+    private final Map<String, ExecutorService> pools = new ConcurrentHashMap<>();
+    private final Set<String> runningJobs = ConcurrentHashMap.newKeySet();
+
+    public BulkRefundProcessor(PaymentOrchestrator orchestrator, PaymentsProperties props, ObjectMapper json) {
+        this.orchestrator = orchestrator;
+        this.cfg = props.getBulkRefund();
+        this.json = json;
+        this.pciScanner = new PciScanner(props.getSecurity().isPciLuhnCheck());
+    }
+
+    public static boolean isValidJobId(String jobId) {
+        return jobId != null && JOB_ID.matcher(jobId).matches();
+    }
+
+    public File resultFile(String jobId) {
+        return new File(cfg.getDir(), jobId + ".results.ndjson");
+    }
+
+    /** Processes the upload; blocks until every row has finished and returns a summary. */
+    public Map<String, Object> process(String jobId, InputStream upload, boolean csv) throws IOException {
+        if (!runningJobs.add(jobId)) {
+            throw new IllegalStateException("refund job " + jobId + " is already running");
+        }
+        try (Job job = new Job(jobId)) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(upload, StandardCharsets.UTF_8));
+            String line;
+            long row = 0;
+            try {
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    if (csv && row == 0 && line.toLowerCase().startsWith("provider")) continue; // header
+                    row++;
+                    job.submit(row, line, csv);
+                }
+            } finally {
+                // Let in-flight rows record their outcome even if the upload breaks off
+                job.awaitAll();
+            }
+            return job.summary(row);
+        } finally {
+            runningJobs.remove(jobId);
+        }
+    }
+
+    private final class Job implements AutoCloseable {
+        final String jobId;
+        final Set<String> done = new HashSet<>();
+        final Set<String> started = new HashSet<>();
+        // Occurrences so far of each (provider, paymentId, amount) hash in this upload
+        final Map<String, Integer> seen = new HashMap<>();
+        final BufferedWriter journal;
+        final BufferedWriter results;
+        final Map<String, Semaphore> permits = new HashMap<>();
+        final Map<String, Integer> limits = new HashMap<>();
+        final LongAdder refunded = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+        final LongAdder reconcile = new LongAdder();
+        final LongAdder invalid = new LongAdder();
+
+        Job(String jobId) throws IOException {
+            this.jobId = jobId;
+            File dir = new File(cfg.getDir());
+            dir.mkdirs();
+            File journalFile = new File(dir, jobId + ".journal");
+            if (journalFile.exists()) {
+                Set<String> finished = new HashSet<>();
+                for (String l : Files.readAllLines(journalFile.toPath(), StandardCharsets.UTF_8)) {
+                    String[] f = l.split(" ", 3);
+                    if (f.length < 2) continue;
+                    if ("D".equals(f[0])) {
+                        finished.add(f[1]);
+                        // The last outcome wins: an error retried into refunded is done, a done row never errors
+                        if (f.length > 2 && ERROR.equals(f[2])) done.remove(f[1]);
+                        else done.add(f[1]);
+                    } else if ("S".equals(f[0])) {
+                        started.add(f[1]);
+                    }
+                }
+                started.removeAll(finished);
+            }
+            this.journal = Files.newBufferedWriter(journalFile.toPath(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            this.results = Files.newBufferedWriter(resultFile(jobId).toPath(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+
+        void submit(long row, String line, boolean csv) throws IOException {
+            if (pciScanner.containsPciData(line.toCharArray(), 0, line.length())) {
+                invalid.increment();
+                writeResult(row, null, null, null, "invalid_row", "pci_data");
+                return;
+            }
+            String provider, paymentId;
+            Integer amount;
+            try {
+                if (csv) {
+                    String[] f = line.split(",", -1);
+                    // Fixed schema: this upload bypasses PciGuardFilter's body scan, so extra columns are refused
+                    if (f.length < 2 || f.length > 3) throw new IllegalArgumentException("expected provider,paymentId[,amount]");
+                    provider = f[0].trim();
+                    paymentId = f[1].trim();
+                    amount = f.length > 2 && !f[2].isBlank() ? amount(f[2].trim()) : null;
+                } else {
+                    JsonNode n = json.readTree(line);
+                    n.fieldNames().forEachRemaining(name -> {
+                        if (!ROW_FIELDS.contains(name)) throw new IllegalArgumentException("unexpected_field:" + name);
+                    });
+                    provider = n.path("provider").asText(null);
+                    paymentId = n.path("paymentId").asText(null);
+                    amount = n.hasNonNull("amount") ? amount(n.get("amount")) : null;
+                }
+                if (provider == null || provider.isBlank() || paymentId == null || paymentId.isBlank()) {
+                    throw new IllegalArgumentException("missing_params");
+                }
+            } catch (RuntimeException | IOException e) {
+                invalid.increment();
+                writeResult(row, null, null, null, "invalid_row", e.getMessage());
+                return;
+            }
+            String hash = rowHash(provider, paymentId, amount);
+            String key = hash + "." + seen.merge(hash, 1, Integer::sum);
+            if (done.contains(key)) {
+                skipped.increment();
+                return;
+            }
+            if (started.contains(key)) {
+                // Started in an earlier run without a recorded outcome: never retry blindly
+                reconcile.increment();
+                writeResult(row, provider, paymentId, amount, "needs_reconciliation", null);
+                return;
+            }
+
+            String lane = provider.toLowerCase();
+            Semaphore sem = permits.computeIfAbsent(lane, k -> {
+                int limit = Math.max(1, cfg.getConcurrency().getOrDefault(k, cfg.getDefaultConcurrency()));
+                limits.put(k, limit);
+                return new Semaphore(limit);
+            });
+            sem.acquireUninterruptibly(); // backpressure: the upload is read no faster than refunds finish
+            writeJournal("S " + key);
+            pool(lane).execute(() -> {
+                try {
+                    PaymentResponse r = orchestrator.refund(provider, paymentId, amount, "bulk-refund:" + jobId + ":" + key);
+                    boolean ok = r.getStatus() != PaymentResponse.Status.FAILED;
+                    (ok ? refunded : failed).increment();
+                    writeJournal("D " + key + " " + (ok ? "refunded" : "failed"));
+                    writeResult(row, provider, paymentId, amount, ok ? "refunded" : "failed",
+                            ok ? r.getIntentId() : r.getFailureReason());
+                } catch (Exception e) {
+                    log.error("bulk_refund_error job={} row={}", jobId, row, e);
+                    failed.increment();
+                    writeJournal("D " + key + " " + ERROR);
+                    writeResult(row, provider, paymentId, amount, ERROR, e.getMessage());
+                } finally {
+                    sem.release();
+                }
+            });
+        }
+
+        void awaitAll() {
+            permits.forEach((lane, sem) -> sem.acquireUninterruptibly(limits.get(lane)));
+        }
+
+        Map<String, Object> summary(long rows) {
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("jobId", jobId);
+            out.put("rows", rows);
+            out.put("refunded", refunded.sum());
+            out.put("failed", failed.sum());
+            out.put("skippedAlreadyDone", skipped.sum());
+            out.put("needsReconciliation", reconcile.sum());
+            out.put("invalid", invalid.sum());
+            return out;
+        }
+
+        void writeJournal(String line) {
+            synchronized (journal) {
+                try {
+                    journal.write(line);
+                    journal.newLine();
+                    journal.flush();
+                } catch (IOException e) {
+                    log.error("bulk_refund_journal_write_failed job={} line={}", jobId, line, e);
+                }
+            }
+        }
+
+        void writeResult(long row, String provider, String paymentId, Integer amount, String status, String detail) {
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("row", row);
+            r.put("provider", provider);
+            r.put("paymentId", paymentId);
+            r.put("amount", amount);
+            r.put("status", status);
+            r.put("detail", detail);
+            synchronized (results) {
+                try {
+                    results.write(json.writeValueAsString(r));
+                    results.newLine();
+                    results.flush();
+                } catch (IOException e) {
+                    log.error("bulk_refund_result_write_failed job={} row={}", jobId, row, e);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            journal.close();
+            results.close();
+        }
+    }
+
+    // A row's amount must be a positive whole number of minor units; a blank/absent amount means a full
+    // refund, so a bad value must never degrade to 0 (or anything else the refund path treats as "full")
+    static Integer amount(String csv) {
+        if (!AMOUNT.matcher(csv).matches()) throw new IllegalArgumentException("invalid_amount");
+        long v = Long.parseLong(csv);
+        if (v <= 0 || v > Integer.MAX_VALUE) throw new IllegalArgumentException("invalid_amount");
+        return (int) v;
+    }
+
+    static Integer amount(JsonNode n) {
+        if (!n.isIntegralNumber() || !n.canConvertToInt() || n.intValue() <= 0) {
+            throw new IllegalArgumentException("invalid_amount");
+        }
+        return n.intValue();
+    }
+
+    /** Journal identity of a row: SHA-256 of what it refunds, so it does not depend on the row's position. */
+    static String rowHash(String provider, String paymentId, Integer amount) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            String row = provider.toLowerCase() + "\n" + paymentId + "\n" + (amount == null ? "full" : amount.toString());
+            // 128 bits is plenty to tell rows of one job apart and keeps the journal short
+            return HexFormat.of().formatHex(md.digest(row.getBytes(StandardCharsets.UTF_8)), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private ExecutorService pool(String lane) {
+        return pools.computeIfAbsent(lane, k ->
+                Executors.newFixedThreadPool(Math.max(1, cfg.getConcurrency().getOrDefault(k, cfg.getDefaultConcurrency()))));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pools.values().forEach(ExecutorService::shutdown);
+    }
+}
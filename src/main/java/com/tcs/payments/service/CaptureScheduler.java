@@ -0,0 +1,331 @@
+package com.tcs.payments.service;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.tcs.payments.model.CaptureJob;
+import com.tcs.payments.model.PaymentResponse;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bulk capture engine for authorized intents, built on PaymentOrchestrator.capture.
+ *
+ * - Jobs are deduplicated by provider + intentId (pending or captured jobs are not re-run); provider
+ *   names are lower-cased on the way in, so "Stripe" and "stripe" are the same job.
+ * - Each provider has its own lane: a fixed pool (payments.capture-scheduler.concurrency)
+ *   and a pacer that spaces call starts (payments.capture-scheduler.rate-per-second).
+ * - Progress is checkpointed to an append-only file ("Q provider intentId" when queued,
+ *   "D provider intentId status finishedAtMillis detail" when finished); on startup unfinished jobs are
+ *   resubmitted, and the file is compacted to those plus the captured jobs still inside the retention window.
+ * - Finished jobs are remembered for dedup for payments.capture-scheduler.captured-retention-hours, and at most
+ *   max-jobs jobs are tracked; the oldest finished ones go first, and new jobs are rejected while the limit
+ *   is taken up by pending ones.
+ */
+@Service
+public class CaptureScheduler {
+    private static final Logger log = LoggerFactory.getLogger(CaptureScheduler.class);
+
+    private enum State { PENDING, CAPTURED, FAILED }
+
+    // Finished jobs dropped per submit or completion, so eviction never scans the whole map
+    private static final int EVICT_PER_CALL = 4;
+
+    /** A job's state; finishedAt is 0 while pending. */
+    private record Tracked(State state, long finishedAt) {
+        static final Tracked PENDING = new Tracked(State.PENDING, 0);
+    }
+
+    /** Finished job in completion order, for retention. */
+    private record Finished(String key, Tracked tracked) {}
+
+    private final PaymentOrchestrator orchestrator;
+    private final PaymentsProperties.CaptureSchedulerConfig cfg;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Tracked> jobs = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Finished> finishedOrder = new ConcurrentLinkedQueue<>();
+    private final long retentionMillis;
+    private final long startedAt = System.currentTimeMillis();
+
+    private final Object checkpointLock = new Object();
+    private BufferedWriter checkpoint;
+
+    /** One provider's pool, pacing and counters. */
+    private static final class Lane {
+        final ExecutorService pool;
+        final long intervalNanos;
+        long nextSlot = System.nanoTime();
+        final LongAdder submitted = new LongAdder();
+        final LongAdder captured = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder inFlight = new LongAdder();
+        final LongAdder latencyMillis = new LongAdder();
+
+        Lane(int concurrency, int ratePerSecond) {
+            this.pool = Executors.newFixedThreadPool(Math.max(1, concurrency));
+            this.intervalNanos = ratePerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / ratePerSecond : 0;
+        }
+
+        /** Blocks until this lane may start another call. */
+        void pace() {
+            if (intervalNanos == 0) return;
+            long now = System.nanoTime();
+            long slot;
+            synchronized (this) {
+                slot = Math.max(now, nextSlot);
+                nextSlot = slot + intervalNanos;
+            }
+            if (slot > now) LockSupport.parkNanos(slot - now);
+        }
+    }
+
+    public CaptureScheduler(PaymentOrchestrator orchestrator, PaymentsProperties props) {
+        this.orchestrator = orchestrator;
+        this.cfg = props.getCaptureScheduler();
+        this.retentionMillis = TimeUnit.HOURS.toMillis(cfg.getCapturedRetentionHours());
+        resume();
+    }
+
+    /** Accepts a bulk of capture jobs; returns counts of accepted and deduplicated jobs. */
+    public Map<String, Object> submit(List<CaptureJob> batch) {
+        int accepted = 0, duplicates = 0, invalid = 0, rejected = 0;
+        for (CaptureJob submitted : batch) {
+            if (submitted == null || submitted.getProvider() == null || submitted.getProvider().isBlank()
+                    || submitted.getIntentId() == null) {
+                invalid++;
+                continue;
+            }
+            CaptureJob job = normalise(submitted);
+            evict(System.currentTimeMillis());
+            Tracked prev = jobs.get(job.key());
+            if (prev == null && jobs.size() >= cfg.getMaxJobs()) {
+                rejected++;
+                continue;
+            }
+            // Failed jobs may be resubmitted; pending or captured ones are duplicates
+            if ((prev == null && jobs.putIfAbsent(job.key(), Tracked.PENDING) == null)
+                    || (prev != null && prev.state() == State.FAILED && jobs.replace(job.key(), prev, Tracked.PENDING))) {
+                writeCheckpoint("Q " + job.getProvider() + " " + job.getIntentId());
+                schedule(job);
+                accepted++;
+            } else {
+                duplicates++;
+            }
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("accepted", accepted);
+        out.put("duplicates", duplicates);
+        out.put("invalid", invalid);
+        out.put("rejected", rejected);
+        return out;
+    }
+
+    /** Same job with the provider trimmed and lower-cased; PaymentOrchestrator.capture matches it case-insensitively. */
+    private static CaptureJob normalise(CaptureJob job) {
+        return new CaptureJob(job.getProvider().trim().toLowerCase(Locale.ROOT), job.getIntentId());
+    }
+
+    private void schedule(CaptureJob job) {
+        Lane lane = lane(job.getProvider());
+        lane.submitted.increment();
+        lane.pool.execute(() -> {
+            lane.pace();
+            lane.inFlight.increment();
+            long start = System.currentTimeMillis();
+            State result;
+            String detail;
+            try {
+                PaymentResponse r = orchestrator.capture(job.getProvider(), job.getIntentId());
+                result = r.getStatus() == PaymentResponse.Status.CAPTURED ? State.CAPTURED : State.FAILED;
+                detail = r.getStatus() + (r.getFailureReason() != null ? ":" + r.getFailureReason() : "");
+            } catch (Exception e) {
+                log.error("bulk_capture_error provider={} intent={}", job.getProvider(), job.getIntentId(), e);
+                result = State.FAILED;
+                detail = "error:" + e.getMessage();
+            } finally {
+                lane.inFlight.decrement();
+                lane.latencyMillis.add(System.currentTimeMillis() - start);
+            }
+            (result == State.CAPTURED ? lane.captured : lane.failed).increment();
+            long finishedAt = System.currentTimeMillis();
+            finish(job.key(), new Tracked(result, finishedAt));
+            writeCheckpoint("D " + job.getProvider() + " " + job.getIntentId() + " " + result + " " + finishedAt
+                    + " " + detail.replace('\n', ' '));
+            evict(finishedAt);
+        });
+    }
+
+    private void finish(String key, Tracked tracked) {
+        jobs.put(key, tracked);
+        finishedOrder.add(new Finished(key, tracked));
+    }
+
+    /** Forgets up to EVICT_PER_CALL of the oldest finished jobs that are past retention or leave no room under max-jobs. */
+    private void evict(long now) {
+        for (int i = 0; i < EVICT_PER_CALL; i++) {
+            Finished oldest = finishedOrder.peek();
+            if (oldest == null) return;
+            if (oldest.tracked().finishedAt() > now - retentionMillis && jobs.size() < cfg.getMaxJobs()) return;
+            if (!finishedOrder.remove(oldest)) continue;
+            // No-op if the job was resubmitted since; its new completion has its own queue entry
+            jobs.remove(oldest.key(), oldest.tracked());
+        }
+    }
+
+    /** provider as normalised by submit/resume. */
+    private Lane lane(String provider) {
+        return lanes.computeIfAbsent(provider, k -> new Lane(
+                cfg.getConcurrency().getOrDefault(k, cfg.getDefaultConcurrency()),
+                cfg.getRatePerSecond().getOrDefault(k, 0)));
+    }
+
+    /** Throughput and failure stats per provider lane. */
+    public Map<String, Object> stats() {
+        double uptimeSec = Math.max(1, (System.currentTimeMillis() - startedAt) / 1000.0);
+        Map<String, Object> out = new LinkedHashMap<>();
+        lanes.forEach((provider, lane) -> {
+            long done = lane.captured.sum() + lane.failed.sum();
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("submitted", lane.submitted.sum());
+            s.put("captured", lane.captured.sum());
+            s.put("failed", lane.failed.sum());
+            s.put("inFlight", lane.inFlight.sum());
+            s.put("pending", lane.submitted.sum() - done);
+            s.put("throughputPerSec", done / uptimeSec);
+            s.put("avgLatencyMs", done == 0 ? 0 : lane.latencyMillis.sum() / (double) done);
+            out.put(provider, s);
+        });
+        return out;
+    }
+
+    // ---- checkpointing ----
+
+    private void writeCheckpoint(String line) {
+        synchronized (checkpointLock) {
+            if (checkpoint == null) return;
+            try {
+                checkpoint.write(line);
+                checkpoint.newLine();
+                checkpoint.flush();
+            } catch (IOException e) {
+                log.warn("Capture checkpoint write failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Replays the checkpoint, compacts it to unfinished jobs plus captured ones within retention, and
+     * resubmits the unfinished ones.
+     */
+    private void resume() {
+        if (cfg.getCheckpointFile() == null || cfg.getCheckpointFile().isBlank()) return;
+        File file = new File(cfg.getCheckpointFile());
+        long now = System.currentTimeMillis();
+        Map<String, CaptureJob> unfinished = new LinkedHashMap<>();
+        Map<String, CaptureJob> captured = new LinkedHashMap<>();
+        Map<String, Long> capturedAt = new LinkedHashMap<>();
+        try {
+            if (file.getParentFile() != null) file.getParentFile().mkdirs();
+            if (file.exists()) {
+                for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                    String[] f = line.split(" ", 4);
+                    if (f.length < 3) continue;
+                    // Checkpoints from before normalisation may hold mixed-case names
+                    CaptureJob job = normalise(new CaptureJob(f[1], f[2]));
+                    if ("Q".equals(f[0])) {
+                        unfinished.put(job.key(), job);
+                    } else if ("D".equals(f[0])) {
+                        unfinished.remove(job.key());
+                        String[] result = f.length > 3 ? f[3].split(" ", 3) : new String[0];
+                        if (result.length > 0 && result[0].equals(State.CAPTURED.name())) {
+                            long at = finishedAt(result, now);
+                            if (at > now - retentionMillis) {
+                                // Re-inserted so iteration follows completion order
+                                captured.remove(job.key());
+                                captured.put(job.key(), job);
+                                capturedAt.put(job.key(), at);
+                            }
+                        }
+                    }
+                }
+            }
+            File tmp = new File(file.getPath() + ".tmp");
+            List<String> compacted = new ArrayList<>();
+            for (CaptureJob job : captured.values()) {
+                compacted.add("D " + job.getProvider() + " " + job.getIntentId() + " " + State.CAPTURED
+                        + " " + capturedAt.get(job.key()) + " " + PaymentResponse.Status.CAPTURED);
+            }
+            for (CaptureJob job : unfinished.values()) compacted.add("Q " + job.getProvider() + " " + job.getIntentId());
+            Files.write(tmp.toPath(), compacted, StandardCharsets.UTF_8);
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.checkpoint = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.warn("Capture checkpoint {} unavailable; progress will not survive a restart: {}", file, e.getMessage());
+            return;
+        }
+        for (CaptureJob job : captured.values()) {
+            // A captured job queued again later is resubmitted below; don't leave it marked done
+            if (!unfinished.containsKey(job.key())) finish(job.key(), new Tracked(State.CAPTURED, capturedAt.get(job.key())));
+        }
+        for (CaptureJob job : unfinished.values()) {
+            jobs.put(job.key(), Tracked.PENDING);
+            schedule(job);
+        }
+        if (!unfinished.isEmpty()) log.info("Resumed {} unfinished capture jobs from checkpoint", unfinished.size());
+    }
+
+    // "D" lines written before finish times were recorded count as finished now, so they get a full window
+    private static long finishedAt(String[] result, long now) {
+        if (result.length < 2) return now;
+        try {
+            return Long.parseLong(result[1]);
+        } catch (NumberFormatException e) {
+            return now;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Queued jobs stay "Q" in the checkpoint and are resumed on the next start
+        lanes.values().forEach(l -> l.pool.shutdownNow());
+        for (Lane l : lanes.values()) {
+            try {
+                l.pool.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        synchronized (checkpointLock) {
+            if (checkpoint == null) return;
+            try {
+                checkpoint.close();
+            } catch (IOException e) {
+                log.warn("Capture checkpoint close failed: {}", e.getMessage());
+            }
+            checkpoint = null;
+        }
+    }
+}
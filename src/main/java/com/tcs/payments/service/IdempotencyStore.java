@@ -0,0 +1,369 @@
+package com.tcs.payments.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcs.payments.model.PaymentResponse;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Local idempotency store in front of PaymentOrchestrator.initiate.
+ *
+ * - Hot tier: bounded ConcurrentHashMap of key -> future. Every insert evicts a few entries from the head
+ *   of the insertion-order queue (expired ones, or the oldest completed ones while over max-entries);
+ *   the TTL is the same for every key, so the head is always the next to expire.
+ * - Cold tier: append-only memory-mapped file so completed results survive a restart.
+ *   Record layout: [int length][int crc32][json bytes]; a zero length marks the end.
+ *   When it fills up, the live records are written to a new file that is renamed over the old one,
+ *   so a crash mid-compaction leaves the previous file intact. Recovery keeps the newest max-entries.
+ *
+ * A retry that arrives while the first attempt is running waits on the same future.
+ * Attempts that throw are not stored, so the client can retry them.
+ * Each key is bound to a fingerprint of the request it was first used with; the same key with a
+ * different request is refused with KeyReusedException instead of being answered with the other result.
+ */
+@Component
+public class IdempotencyStore {
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+    private static final int HEADER_BYTES = 8;
+    // Entries looked at per insert; more than one so the queue drains faster than it fills
+    private static final int EVICT_PER_INSERT = 4;
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final ObjectMapper json = new ObjectMapper();
+
+    private final Object fileLock = new Object();
+    private File file;
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private int writePos;
+
+    private static final class Entry {
+        final CompletableFuture<PaymentResponse> future = new CompletableFuture<>();
+        final String key;
+        final String fingerprint;
+        final long expiresAt;
+        Entry(String key, String fingerprint, long expiresAt) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /** On-disk form of a completed entry. */
+    public static class Record {
+        public String key;
+        public String fingerprint;
+        public long expiresAt;
+        public PaymentResponse response;
+    }
+
+    /** The key was first used with a different request (HTTP 422). */
+    public static class KeyReusedException extends Exception {
+        public KeyReusedException(String key) {
+            super("idempotency key " + key + " was already used with a different request");
+        }
+    }
+
+    public IdempotencyStore(PaymentsProperties props) {
+        PaymentsProperties.Idempotency cfg = props.getIdempotency();
+        this.enabled = cfg.isEnabled();
+        this.ttlMillis = cfg.getTtlSeconds() * 1000L;
+        this.maxEntries = cfg.getMaxEntries();
+        if (enabled && cfg.getFile() != null && !cfg.getFile().isBlank()) {
+            openFile(new File(cfg.getFile()), cfg.getFileSizeMb() * 1024L * 1024L);
+        }
+    }
+
+    /** execute(key, null, call): no check that retries carry the same request. */
+    public PaymentResponse execute(String key, Callable<PaymentResponse> call) throws Exception {
+        return execute(key, null, call);
+    }
+
+    /**
+     * Returns the stored response for key, waits for an in-flight attempt with the same key,
+     * or runs call and stores its result. fingerprint identifies the request (null = not checked);
+     * a stored or in-flight attempt with another fingerprint fails with KeyReusedException.
+     */
+    public PaymentResponse execute(String key, String fingerprint, Callable<PaymentResponse> call) throws Exception {
+        if (!enabled || key == null || key.isBlank()) {
+            return call.call();
+        }
+        long now = System.currentTimeMillis();
+        Entry mine = new Entry(key, fingerprint, now + ttlMillis);
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, mine);
+            if (existing == null) break;
+            if (existing.expiresAt > now) {
+                if (fingerprint != null && existing.fingerprint != null && !fingerprint.equals(existing.fingerprint)) {
+                    throw new KeyReusedException(key);
+                }
+                return await(existing);
+            }
+            entries.remove(key, existing);
+        }
+        insertionOrder.add(mine);
+        evict(now);
+
+        try {
+            PaymentResponse result = call.call();
+            mine.future.complete(result);
+            persist(key, fingerprint, mine.expiresAt, result);
+            return result;
+        } catch (Exception e) {
+            // Do not remember failures that never produced a response; let the client retry
+            entries.remove(key, mine);
+            mine.future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static PaymentResponse await(Entry e) throws Exception {
+        try {
+            return e.future.get();
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw ee;
+        }
+    }
+
+    /** Removes up to EVICT_PER_INSERT entries from the head while they are expired or the map is over size. */
+    private void evict(long now) {
+        for (int i = 0; i < EVICT_PER_INSERT; i++) {
+            Entry oldest = insertionOrder.peek();
+            if (oldest == null || (oldest.expiresAt > now && entries.size() <= maxEntries)) return;
+            if (!insertionOrder.remove(oldest)) continue; // another thread took it
+            if (!oldest.future.isDone()) {
+                // Never evict an attempt that is still running; waiters depend on it
+                insertionOrder.add(oldest);
+                continue;
+            }
+            entries.remove(oldest.key, oldest);
+        }
+    }
+
+    // ---- memory-mapped cold tier ----
+
+    private void openFile(File file, long size) {
+        try {
+            if (file.getParentFile() != null) file.getParentFile().mkdirs();
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            if (raf.length() < size) raf.setLength(size);
+            this.file = file;
+            this.channel = raf.getChannel();
+            this.mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+            recover();
+        } catch (IOException e) {
+            log.warn("Idempotency file {} unavailable; running memory-only: {}", file, e.getMessage());
+            this.mapped = null;
+        }
+    }
+
+    private void recover() {
+        long now = System.currentTimeMillis();
+        int pos = 0;
+        // Records are in write order, so the last max-entries live ones are the newest
+        LinkedHashMap<String, Record> live = new LinkedHashMap<>();
+        while (pos + HEADER_BYTES <= mapped.capacity()) {
+            int len = mapped.getInt(pos);
+            if (len <= 0 || pos + HEADER_BYTES + len > mapped.capacity()) break;
+            int crc = mapped.getInt(pos + 4);
+            byte[] payload = new byte[len];
+            mapped.get(pos + HEADER_BYTES, payload);
+            if (crc32(payload) != crc) {
+                log.warn("Idempotency file: torn record at offset {}, truncating", pos);
+                break;
+            }
+            pos += HEADER_BYTES + len;
+            try {
+                Record r = json.readValue(payload, Record.class);
+                if (r.expiresAt > now) {
+                    live.remove(r.key);
+                    live.put(r.key, r);
+                    if (live.size() > maxEntries) {
+                        Iterator<Record> oldest = live.values().iterator();
+                        oldest.next();
+                        oldest.remove();
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Idempotency file: skipping unreadable record at offset {}", pos);
+            }
+        }
+        for (Record r : live.values()) {
+            Entry e = new Entry(r.key, r.fingerprint, r.expiresAt);
+            e.future.complete(r.response);
+            entries.put(r.key, e);
+            insertionOrder.add(e);
+        }
+        this.writePos = pos;
+        terminate(pos);
+        log.info("Idempotency store recovered {} live entries", live.size());
+    }
+
+    private void persist(String key, String fingerprint, long expiresAt, PaymentResponse response) {
+        if (mapped == null) return;
+        byte[] payload;
+        try {
+            Record r = new Record();
+            r.key = key;
+            r.fingerprint = fingerprint;
+            r.expiresAt = expiresAt;
+            r.response = response;
+            payload = json.writeValueAsBytes(r);
+        } catch (IOException e) {
+            log.warn("Idempotency record for {} not persisted: {}", key, e.getMessage());
+            return;
+        }
+        synchronized (fileLock) {
+            if (mapped == null) return;
+            if (writePos + HEADER_BYTES + payload.length + 4 > mapped.capacity()) {
+                // The entry completed before persist, so compaction writes it along with the other live ones
+                if (!compact(key)) {
+                    log.warn("Idempotency file full; record for {} kept in memory only", key);
+                }
+                return;
+            }
+            append(mapped, writePos, payload);
+            writePos += HEADER_BYTES + payload.length;
+        }
+    }
+
+    /** Writes one record at pos and returns the position after it. */
+    private static int append(MappedByteBuffer buf, int pos, byte[] payload) {
+        buf.putInt(pos + 4, crc32(payload));
+        buf.put(pos + HEADER_BYTES, payload);
+        terminate(buf, pos + HEADER_BYTES + payload.length);
+        // Length last so a crash mid-write leaves the previous terminator in place
+        buf.putInt(pos, payload.length);
+        return pos + HEADER_BYTES + payload.length;
+    }
+
+    /**
+     * Writes the live, completed entries to a new file (newest kept if they do not all fit) and renames it over
+     * the current one. Returns whether key's record is in it. Caller holds fileLock.
+     */
+    private boolean compact(String key) {
+        long now = System.currentTimeMillis();
+        List<Entry> live = new ArrayList<>();
+        for (Entry v : entries.values()) {
+            if (v.expiresAt > now && v.future.isDone() && !v.future.isCompletedExceptionally()) live.add(v);
+        }
+        // Same TTL for every key, so expiresAt orders entries by age
+        live.sort(Comparator.comparingLong((Entry v) -> v.expiresAt).reversed());
+        List<byte[]> kept = new ArrayList<>();
+        boolean keyKept = false;
+        long used = 4; // terminator
+        for (Entry v : live) {
+            byte[] p;
+            try {
+                Record r = new Record();
+                r.key = v.key;
+                r.fingerprint = v.fingerprint;
+                r.expiresAt = v.expiresAt;
+                r.response = v.future.getNow(null);
+                p = json.writeValueAsBytes(r);
+            } catch (IOException ex) {
+                continue; // still served from memory
+            }
+            if (used + HEADER_BYTES + p.length > mapped.capacity()) break;
+            used += HEADER_BYTES + p.length;
+            kept.add(p);
+            keyKept |= v.key.equals(key);
+        }
+
+        File tmp = new File(file.getPath() + ".tmp");
+        FileChannel next = null;
+        try {
+            RandomAccessFile raf = new RandomAccessFile(tmp, "rw");
+            next = raf.getChannel();
+            raf.setLength(mapped.capacity());
+            MappedByteBuffer buf = next.map(FileChannel.MapMode.READ_WRITE, 0, mapped.capacity());
+            int pos = 0;
+            terminate(buf, 0);
+            // Oldest first, as recovery expects
+            for (int i = kept.size() - 1; i >= 0; i--) pos = append(buf, pos, kept.get(i));
+            buf.force();
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            FileChannel old = channel;
+            channel = next;
+            mapped = buf;
+            writePos = pos;
+            next = null;
+            closeQuietly(old);
+        } catch (IOException e) {
+            log.warn("Idempotency file compaction failed, keeping the current file: {}", e.getMessage());
+            return false;
+        } finally {
+            if (next != null) {
+                closeQuietly(next);
+                tmp.delete();
+            }
+        }
+        log.info("Idempotency file compacted: {} of {} live records", kept.size(), live.size());
+        return keyKept;
+    }
+
+    private static void closeQuietly(FileChannel ch) {
+        try {
+            ch.close();
+        } catch (IOException e) {
+            log.warn("Idempotency file close failed: {}", e.getMessage());
+        }
+    }
+
+    private void terminate(int pos) {
+        terminate(mapped, pos);
+    }
+
+    private static void terminate(MappedByteBuffer buf, int pos) {
+        if (pos + 4 <= buf.capacity()) buf.putInt(pos, 0);
+    }
+
+    private static int crc32(byte[] b) {
+        CRC32 crc = new CRC32();
+        crc.update(b);
+        return (int) crc.getValue();
+    }
+
+    @PreDestroy
+    void close() {
+        synchronized (fileLock) {
+            if (mapped == null) return;
+            mapped.force();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Idempotency file close failed: {}", e.getMessage());
+            }
+            mapped = null;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.tcs.payments.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Micrometer meters for PaymentOrchestrator.initiate:
+ * - payments.initiate.stage (timer; tags stage, region, method, provider) with a percentile histogram
+ * - payments.initiate (timer of the whole call, same tags minus stage)
+ * - payments.initiate.outcome (counter; tags region, method, provider, status)
+ *
+ * Meters are looked up once per tag combination and cached; tag values are enums or the
+ * fixed provider labels, so the number of series stays small. Visible under /actuator/metrics.
+ */
+@Component
+public class InitiateMetrics {
+
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public InitiateMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void record(StageTimings t, String region, String method, String provider, String status) {
+        for (int i = 0; i < t.size(); i++) {
+            stageTimer(t.name(i), region, method, provider).record(t.nanos(i), TimeUnit.NANOSECONDS);
+        }
+        totalTimer(region, method, provider).record(t.totalNanos(), TimeUnit.NANOSECONDS);
+        String key = region + '|' + method + '|' + provider + '|' + status;
+        counters.computeIfAbsent(key, k -> Counter.builder("payments.initiate.outcome")
+                .tags("region", region, "method", method, "provider", provider, "status", status)
+                .register(registry)).increment();
+    }
+
+    private Timer stageTimer(String stage, String region, String method, String provider) {
+        String key = stage + '|' + region + '|' + method + '|' + provider;
+        return timers.computeIfAbsent(key, k -> Timer.builder("payments.initiate.stage")
+                .description("Time spent in one stage of PaymentOrchestrator.initiate")
+                .tags("stage", stage, "region", region, "method", method, "provider", provider)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(1000))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry));
+    }
+
+    private Timer totalTimer(String region, String method, String provider) {
+        String key = "total|" + region + '|' + method + '|' + provider;
+        return timers.computeIfAbsent(key, k -> Timer.builder("payments.initiate")
+                .description("PaymentOrchestrator.initiate end to end")
+                .tags("region", region, "method", method, "provider", provider)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry));
+    }
+}
@@ -1,81 +1,212 @@
 package com.tcs.payments.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stripe.StripeClient;
+import com.tcs.payments.ledger.LedgerEntry;
+import com.tcs.payments.ledger.PaymentLedger;
+import com.tcs.payments.ledger.PaymentState;
 import com.tcs.payments.model.Amount;
+import com.tcs.payments.model.Currency;
+import com.tcs.payments.model.Customer;
+import com.tcs.payments.model.EmiPlan;
 import com.tcs.payments.model.PaymentRequest;
 import com.tcs.payments.model.PaymentResponse;
 import com.tcs.payments.provider.ApplePayProviderStripe;
+import com.tcs.payments.provider.AuthorizationContext;
 import com.tcs.payments.provider.CardProviderStripe;
 import com.tcs.payments.provider.CodProvider;
 import com.tcs.payments.provider.EmiProviderRazorpay;
 import com.tcs.payments.provider.GooglePayProviderStripe;
+import com.tcs.payments.provider.PaymentProvider;
+import com.tcs.payments.resilience.ProviderResilience;
 import com.tcs.payments.risk.FraudEngine;
-import com.tcs.payments.security.CryptoUtil;
+import com.tcs.payments.risk.RiskMetaCodec;
+import com.tcs.payments.security.CryptoEngine;
 import com.tcs.payments.security.ThreeDSDecider;
 
 import java.nio.charset.StandardCharsets;
-import java.security.SecureRandom;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 @Service
 public class PaymentOrchestrator {
     private static final Logger log = LoggerFactory.getLogger(PaymentOrchestrator.class);
 
-    private final CardProviderStripe card;
-    private final ApplePayProviderStripe apple;
-    private final GooglePayProviderStripe gpay;
-    private final CodProvider cod = new CodProvider();
-    private final EmiProviderRazorpay emi;
-    private final FraudEngine fraud = new FraudEngine();
+    // Each provider sits behind its own bulkhead + circuit breaker (see ProviderResilience)
+    private final PaymentProvider card;
+    private final PaymentProvider apple;
+    private final PaymentProvider gpay;
+    private final PaymentProvider cod;
+    private final PaymentProvider emi;
+    private final FraudEngine fraud;
     private final ThreeDSDecider decider = new ThreeDSDecider();
-    private final CryptoUtil cryptoUtil;
+    private final CryptoEngine crypto;
     private final PaymentsProperties paymentsProperties;
+    private final Executor executor;
+    private final IdempotencyStore idempotency;
+    private final PaymentLedger ledger;
+    private final InitiateMetrics metrics;
 
-    public PaymentOrchestrator(PaymentsProperties paymentsProperties) throws Exception {
+    public PaymentOrchestrator(PaymentsProperties paymentsProperties,
+                               @Qualifier("paymentExecutor") Executor executor,
+                               IdempotencyStore idempotency,
+                               PaymentLedger ledger,
+                               ProviderResilience resilience,
+                               InitiateMetrics metrics,
+                               CryptoEngine crypto,
+                               FraudEngine fraud) throws Exception {
         this.paymentsProperties = paymentsProperties;
+        this.executor = executor;
+        this.idempotency = idempotency;
+        this.ledger = ledger;
+        this.metrics = metrics;
+        this.crypto = crypto;
+        this.fraud = fraud;
 
-        // Initialize Providers using injected properties
-        String stripeKey = paymentsProperties.getStripe().getSecretKey();
-        this.card = new CardProviderStripe(stripeKey);
-        this.apple = new ApplePayProviderStripe(stripeKey);
-        this.gpay = new GooglePayProviderStripe(stripeKey);
+        // Initialize Providers using injected properties. The Stripe providers share one client: stripe-java
+        // sends over HttpURLConnection, whose keep-alive pool is JVM-wide, so separate clients would not get
+        // separate connections anyway
+        PaymentsProperties.Stripe stripe = paymentsProperties.getStripe();
+        StripeClient stripeClient = stripeClient(stripe);
+        this.card = resilience.wrap("card", "Stripe", new CardProviderStripe(stripeClient));
+        this.apple = resilience.wrap("applePay", "Stripe", new ApplePayProviderStripe(stripeClient));
+        this.gpay = resilience.wrap("googlePay", "Stripe", new GooglePayProviderStripe(stripeClient));
+        this.cod = resilience.wrap("cod", "COD", new CodProvider());
         
-        this.emi = new EmiProviderRazorpay(
+        this.emi = resilience.wrap("emi", "Razorpay", new EmiProviderRazorpay(
             paymentsProperties.getRazorpay().getKeyId(),
             paymentsProperties.getRazorpay().getKeySecret()
-        );
+        ));
+    }
 
-        // Initialize Crypto logic
-        byte[] keyBytes;
-        String pciKey = paymentsProperties.getSecurity().getPciMetaKeyBase64();
-        
-        if (pciKey == null || pciKey.isBlank()) {
-            keyBytes = new byte[32];
-            new SecureRandom().nextBytes(keyBytes);
-            log.warn("Using ephemeral PCI key; data will not be decryptable after restart.");
-        } else {
-            keyBytes = Base64.getDecoder().decode(pciKey);
+    private static StripeClient stripeClient(PaymentsProperties.Stripe cfg) {
+        StripeClient.StripeClientBuilder builder = StripeClient.builder()
+                .setApiKey(cfg.getSecretKey())
+                .setConnectTimeout(cfg.getConnectTimeoutMillis())
+                .setReadTimeout(cfg.getReadTimeoutMillis())
+                .setMaxNetworkRetries(cfg.getMaxNetworkRetries());
+        if (cfg.getApiBase() != null && !cfg.getApiBase().isBlank()) {
+            builder.setApiBase(cfg.getApiBase());
         }
+        return builder.build();
+    }
 
-        if (keyBytes.length != 32) {
-            throw new IllegalArgumentException("pciMetaKeyBase64 must be 32 bytes (AES-256).");
+    /** Opens PSP connections once the app is up so the first payments skip the TCP/TLS handshake. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpProviders() {
+        Map<String, PaymentProvider> remote = new java.util.LinkedHashMap<>();
+        if (paymentsProperties.getStripe().isWarmUp()) {
+            remote.put("card", card);
+            remote.put("applePay", apple);
+            remote.put("googlePay", gpay);
         }
-        this.cryptoUtil = new CryptoUtil(keyBytes);
+        if (paymentsProperties.getRazorpay().isWarmUp()) {
+            remote.put("emi", emi);
+        }
+        remote.forEach((name, provider) -> executor.execute(() -> {
+            long start = System.currentTimeMillis();
+            try {
+                provider.warmUp();
+                log.info("provider_warmup name={} ms={}", name, System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                log.warn("provider_warmup_failed name={} reason={}", name, e.getMessage());
+            }
+        }));
     }
 
     public PaymentResponse initiate(PaymentRequest req) throws Exception {
+        return initiate(req, new StageTimings());
+    }
+
+    /** As initiate(req), filling timings with per-stage durations (empty for idempotent replays). */
+    public PaymentResponse initiate(PaymentRequest req, StageTimings timings) throws Exception {
+        String region = String.valueOf(req.getRegion());
+        String method = String.valueOf(req.getMethod());
+        PaymentResponse result;
+        try {
+            // Duplicate keys get the stored response; concurrent retries wait for the first attempt
+            result = idempotency.execute(req.getIdempotencyKey(), fingerprint(req), () -> doInitiate(req, timings));
+        } catch (Exception e) {
+            metrics.record(timings, region, method, "none", "ERROR");
+            throw e;
+        }
+        metrics.record(timings, region, method, String.valueOf(result.getProvider()), String.valueOf(result.getStatus()));
+        return result;
+    }
+
+    /**
+     * SHA-256 (hex) over every request field that shapes the payment, taken before doInitiate rewrites the
+     * amount and metadata; binds the idempotency key to the request it was first used with.
+     */
+    static String fingerprint(PaymentRequest req) {
+        StringBuilder b = new StringBuilder(256);
+        Amount amount = req.getAmount();
+        Customer c = req.getCustomer();
+        EmiPlan emi = req.getEmiPlan();
+        field(b, req.getRegion());
+        field(b, req.getMethod());
+        field(b, amount == null ? null : amount.getValue());
+        field(b, amount == null ? null : amount.getCurrency());
+        field(b, c == null ? null : c.getId());
+        field(b, c == null ? null : c.getEmail());
+        field(b, c == null ? null : c.getPhone());
+        field(b, req.getCardToken());
+        field(b, req.getWalletToken());
+        field(b, req.getProvider());
+        field(b, req.isSaveCard());
+        field(b, emi == null ? null : emi.getTenureMonths());
+        field(b, emi == null ? null : emi.getProvider());
+        field(b, req.getCodNote());
+        field(b, req.getCouponCode());
+        field(b, req.getReturnUrl());
+        if (req.getMetadata() != null) {
+            new TreeMap<>(req.getMetadata()).forEach((k, v) -> {
+                field(b, k);
+                field(b, v);
+            });
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(b.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Length-prefixed so no value can run into the next one
+    private static void field(StringBuilder b, Object value) {
+        if (value == null) {
+            b.append("-;");
+            return;
+        }
+        String s = String.valueOf(value);
+        b.append(s.length()).append(':').append(s).append(';');
+    }
+
+    private PaymentResponse doInitiate(PaymentRequest req, StageTimings timings) throws Exception {
+        timings.lap("idempotency");
         // --- FIXED POLICY CHECK ---
         // Dynamically find the region from the loaded YAML configuration
     	PaymentsProperties.RegionConfig regionConfig = paymentsProperties.getSupportedRegions().stream()
     	        .filter(r -> r.getCode().equalsIgnoreCase(req.getRegion().name())) 
     	        .findFirst()
     	        .orElse(null);
+        timings.lap("region");
 
         if (regionConfig == null) {
             log.error("Validation failed: Region {} not found in configuration", req.getRegion());
@@ -86,46 +217,62 @@ public class PaymentOrchestrator {
         CouponsService.Result cr = new CouponsService()
                 .apply(req.getRegion(), req.getAmount(), req.getCouponCode());
         Amount toCharge = cr.finalAmount();
+        timings.lap("coupon");
 
         // Fraud and Risk evaluation
         FraudEngine.Verdict verdict = fraud.evaluate(req);
+        timings.lap("fraud");
         if (verdict.action == FraudEngine.Action.BLOCK) {
             return fail("Risk", "blocked:" + String.join(",", verdict.reasons));
         }
 
         ThreeDSDecider.Decision d = decider.decide(ThreeDSDecider.Pref.RISK_BASED, verdict.action);
-        card.setRequest3ds(d.request3ds);
+        // Per-call context: providers are shared singletons and must not hold request state
+        AuthorizationContext ctx = new AuthorizationContext(d.request3ds, d.challengePreferred, verdict.reasons,
+                Map.of("region", req.getRegion().name(), "regionProvider", String.valueOf(regionConfig.getProvider())));
+        timings.lap("threeds");
 
         // Metadata Encryption
         Map<String, String> md = req.getMetadata() == null ? new HashMap<>() : new HashMap<>(req.getMetadata());
-        ObjectMapper mapper = new ObjectMapper();
-        String json = "{\"reasons\":" + mapper.writeValueAsString(verdict.reasons)
-                    + ",\"threeDS\":" + mapper.writeValueAsString(d) + "}";
+        // Compact binary verdict (RiskMetaCodec) keeps encMeta well inside Stripe's 500-char metadata values
+        byte[] riskMeta = RiskMetaCodec.encode(verdict, d);
+        timings.lap("serialize");
 
-        String encMeta = Base64.getEncoder().encodeToString(
-            cryptoUtil.encrypt(json.getBytes(StandardCharsets.UTF_8))
-        );
+        String encMeta = Base64.getEncoder().encodeToString(crypto.encrypt(riskMeta));
 
         md.put("encMeta", encMeta);
         req.setMetadata(md);
         req.setAmount(toCharge);
+        timings.lap("encrypt");
+
+        ledger.record(entry(LedgerEntry.Type.INITIATED, null, null, toCharge, req.getIdempotencyKey()));
+        timings.lap("ledger_initiated");
+        PaymentResponse result = route(req, ctx, regionConfig);
+        timings.lap("provider");
+        ledger.record(entry(outcome(result.getStatus()), result.getProvider(), result.getIntentId(), toCharge,
+                req.getIdempotencyKey()));
+        timings.lap("ledger_outcome");
+        return result;
+    }
 
+    private PaymentResponse route(PaymentRequest req, AuthorizationContext ctx,
+                                  PaymentsProperties.RegionConfig regionConfig) throws Exception {
         // Routing to correct provider
         switch (req.getMethod()) {
             case CARD:
                 if (req.getCardToken() == null || req.getCardToken().isBlank())
                     return fail("Card", "missing_card_token");
-                return card.authorize(req);
+                return card.authorize(req, ctx);
 
             case APPLE_PAY:
                 if (req.getWalletToken() == null || req.getWalletToken().isBlank())
                     return fail("ApplePay", "missing_wallet_token");
-                return apple.authorize(req);
+                return apple.authorize(req, ctx);
 
             case GOOGLE_PAY:
                 if (req.getWalletToken() == null || req.getWalletToken().isBlank())
                     return fail("GooglePay", "missing_wallet_token");
-                return gpay.authorize(req);
+                return gpay.authorize(req, ctx);
 
             case EMI:
                 if (req.getEmiPlan() == null) return fail("EMI", "missing_emi_plan");
@@ -133,35 +280,85 @@ public class PaymentOrchestrator {
                 if (!"razorpay".equalsIgnoreCase(regionConfig.getProvider())) {
                     return fail("EMI", "emi_not_allowed_for_region");
                 }
-                return emi.authorize(req);
+                return emi.authorize(req, ctx);
 
             case COD:
-                return cod.authorize(req);
+                return cod.authorize(req, ctx);
 
             default:
                 return fail("Unknown", "unsupported_method");
         }
     }
 
+    /** provider is matched case-insensitively, as in refund. */
     public PaymentResponse capture(String provider, String intentId) throws Exception {
-        switch (provider) {
-            case "Stripe": return card.capture(intentId);
-            case "COD": return cod.capture(intentId);
-            case "Razorpay": return PaymentResponse.of(PaymentResponse.Status.AUTHORIZED, provider);
+        // Authorized amount/currency come from the local ledger instead of trusting the caller
+        PaymentState state;
+        PaymentResponse result;
+        switch (provider.toLowerCase(Locale.ROOT)) {
+            case "stripe":
+                state = ledger.find(intentId);
+                result = card.capture(intentId);
+                break;
+            case "cod":
+                state = ledger.find(intentId);
+                result = cod.capture(intentId);
+                break;
+            case "razorpay":
+                state = razorpayState(intentId);
+                if (state == null || state.getAuthorizedAmount() <= 0 || state.getCurrency() == null) {
+                    return fail("Razorpay", "authorization_not_found");
+                }
+                result = emi.capture(intentId, new Amount(state.getAuthorizedAmount(), Currency.valueOf(state.getCurrency())));
+                break;
             default: return fail(provider, "capture_not_supported_for_provider");
         }
+        if (result.getStatus() == PaymentResponse.Status.CAPTURED) {
+            ledger.record(LedgerEntry.of(LedgerEntry.Type.CAPTURED, result.getProvider(), intentId, 0,
+                    state != null ? state.getCurrency() : null));
+        }
+        return result;
+    }
+
+    /**
+     * Ledger state for a Razorpay payment id. authorize() records the order_ id, but capture and refund
+     * take the pay_ id, so the first lookup of a pay_ id asks Razorpay for its order and records the
+     * order's authorization under the pay_ id; later lookups hit the ledger directly.
+     */
+    private PaymentState razorpayState(String paymentId) throws Exception {
+        PaymentState state = ledger.find(paymentId);
+        if (state != null) return state;
+        String orderId = emi.authorizationId(paymentId);
+        PaymentState order = orderId == null || orderId.equals(paymentId) ? null : ledger.find(orderId);
+        if (order == null) return null;
+        ledger.record(LedgerEntry.of(LedgerEntry.Type.AUTHORIZED, order.getProvider(), paymentId,
+                order.getAuthorizedAmount(), order.getCurrency()));
+        state = ledger.find(paymentId);
+        return state != null ? state : order;
     }
 
     //this method added for refund option
     public PaymentResponse refund(String provider, String paymentId, Integer amount) throws Exception {
+        return refund(provider, paymentId, amount, null);
+    }
+
+    /** Refund with an idempotency key for the PSP (see PaymentProvider.refund), e.g. one per bulk refund row. */
+    public PaymentResponse refund(String provider, String paymentId, Integer amount, String idempotencyKey) throws Exception {
+        PaymentState state = "razorpay".equalsIgnoreCase(provider) ? razorpayState(paymentId) : ledger.find(paymentId);
+        if (state != null && amount != null && amount > state.getRefundableAmount()) {
+            return fail(provider, "refund_exceeds_refundable_amount");
+        }
+        PaymentResponse result;
         switch (provider.toLowerCase()) {
             case "stripe":
                 // Assuming card is your CardProviderStripe instance
-                return card.refund(paymentId, amount); 
+                result = card.refund(paymentId, amount, idempotencyKey);
+                break;
                 
             case "razorpay":
                 // Call the emi (EmiProviderRazorpay) instance
-                return emi.refund(paymentId, amount);
+                result = emi.refund(paymentId, amount, idempotencyKey);
+                break;
 
             case "cod":
                 return fail("COD", "refund_not_supported_for_cod");
@@ -169,8 +366,71 @@ public class PaymentOrchestrator {
             default:
                 return fail(provider, "unknown_provider");
         }
+        if (result.getStatus() != PaymentResponse.Status.FAILED) {
+            // Recorded against the original payment id; the response carries the refund id
+            ledger.record(LedgerEntry.of(LedgerEntry.Type.REFUNDED, result.getProvider(), paymentId,
+                    amount != null ? amount : 0, state != null ? state.getCurrency() : null));
+        }
+        return result;
     }
     
+    /** Remote PSP calls per provider and operation, for checking each method's call budget. */
+    public Map<String, Map<String, Long>> remoteCallCounts() {
+        Map<String, Map<String, Long>> out = new java.util.LinkedHashMap<>();
+        out.put("card", card.remoteCalls().snapshot());
+        out.put("applePay", apple.remoteCalls().snapshot());
+        out.put("googlePay", gpay.remoteCalls().snapshot());
+        out.put("emi", emi.remoteCalls().snapshot());
+        out.put("cod", cod.remoteCalls().snapshot());
+        return out;
+    }
+
+    // Async variants: run on the configured payment executor (see ExecutionConfig)
+    public CompletableFuture<PaymentResponse> initiateAsync(PaymentRequest req) {
+        return initiateAsync(req, new StageTimings());
+    }
+
+    public CompletableFuture<PaymentResponse> initiateAsync(PaymentRequest req, StageTimings timings) {
+        return submit(() -> initiate(req, timings));
+    }
+
+    public CompletableFuture<PaymentResponse> captureAsync(String provider, String intentId) {
+        return submit(() -> capture(provider, intentId));
+    }
+
+    public CompletableFuture<PaymentResponse> refundAsync(String provider, String paymentId, Integer amount) {
+        return submit(() -> refund(provider, paymentId, amount));
+    }
+
+    private CompletableFuture<PaymentResponse> submit(Callable<PaymentResponse> call) {
+        CompletableFuture<PaymentResponse> f = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                f.complete(call.call());
+            } catch (Exception e) {
+                f.completeExceptionally(e);
+            }
+        });
+        return f;
+    }
+
+    private static LedgerEntry entry(LedgerEntry.Type type, String provider, String intentId, Amount amount,
+                                     String idempotencyKey) {
+        LedgerEntry e = LedgerEntry.of(type, provider, intentId, amount.getValue(), amount.getCurrency().name());
+        e.idempotencyKey = idempotencyKey;
+        return e;
+    }
+
+    private static LedgerEntry.Type outcome(PaymentResponse.Status status) {
+        switch (status) {
+            case AUTHORIZED: return LedgerEntry.Type.AUTHORIZED;
+            case CAPTURED: return LedgerEntry.Type.CAPTURED;
+            case REQUIRES_ACTION: return LedgerEntry.Type.INITIATED;
+            case FAILED:
+            default: return LedgerEntry.Type.FAILED;
+        }
+    }
+
     private PaymentResponse fail(String provider, String reason) {
         PaymentResponse r = new PaymentResponse();
         r.setStatus(PaymentResponse.Status.FAILED);
@@ -3,6 +3,8 @@ package com.tcs.payments.service;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @ConfigurationProperties(prefix = "payments")
 public class PaymentsProperties {
@@ -10,12 +12,36 @@ public class PaymentsProperties {
     private Stripe stripe = new Stripe();
     private Razorpay razorpay = new Razorpay();
     private Security security = new Security();
+    private Execution execution = new Execution();
+    private Batch batch = new Batch();
+    private Idempotency idempotency = new Idempotency();
+    private Ledger ledger = new Ledger();
+    private CaptureSchedulerConfig captureScheduler = new CaptureSchedulerConfig();
+    private BulkRefund bulkRefund = new BulkRefund();
+    private Resilience resilience = new Resilience();
+    private Metrics metrics = new Metrics();
+    private RequestBody requestBody = new RequestBody();
+    private Fraud fraud = new Fraud();
+    private Velocity velocity = new Velocity();
+    private Denylist denylist = new Denylist();
     // NEW: Add this list to match the YAML "supported-regions"
     private List<RegionConfig> supportedRegions = new ArrayList<>();
 
     public Stripe getStripe() { return stripe; }
     public Razorpay getRazorpay() { return razorpay; }
     public Security getSecurity() { return security; }
+    public Execution getExecution() { return execution; }
+    public Batch getBatch() { return batch; }
+    public Idempotency getIdempotency() { return idempotency; }
+    public Ledger getLedger() { return ledger; }
+    public CaptureSchedulerConfig getCaptureScheduler() { return captureScheduler; }
+    public BulkRefund getBulkRefund() { return bulkRefund; }
+    public Resilience getResilience() { return resilience; }
+    public Metrics getMetrics() { return metrics; }
+    public RequestBody getRequestBody() { return requestBody; }
+    public Fraud getFraud() { return fraud; }
+    public Velocity getVelocity() { return velocity; }
+    public Denylist getDenylist() { return denylist; }
     
     // NEW: Getter and Setter for the regions list
     public List<RegionConfig> getSupportedRegions() { return supportedRegions; }
@@ -38,24 +64,369 @@ public class PaymentsProperties {
     public static class Stripe {
         private String secretKey;
         private String webhookSecret;
+        // StripeClient settings shared by the card/Apple Pay/Google Pay providers (SDK defaults are 30s connect / 80s read)
+        private int connectTimeoutMillis = 5000;
+        private int readTimeoutMillis = 20000;
+        // Retries stay off by default: the resilience layer and idempotency keys own retry policy
+        private int maxNetworkRetries = 0;
+        // Open the TLS connection to the PSP at startup instead of on the first payment
+        private boolean warmUp = true;
+        // Override the API host, e.g. http://localhost:12111 for the psp-simulator module
+        private String apiBase;
         public String getSecretKey() { return secretKey; }
         public void setSecretKey(String secretKey) { this.secretKey = secretKey; }
         public String getWebhookSecret() { return webhookSecret; }
         public void setWebhookSecret(String webhookSecret) { this.webhookSecret = webhookSecret; }
+        public int getConnectTimeoutMillis() { return connectTimeoutMillis; }
+        public void setConnectTimeoutMillis(int connectTimeoutMillis) { this.connectTimeoutMillis = connectTimeoutMillis; }
+        public int getReadTimeoutMillis() { return readTimeoutMillis; }
+        public void setReadTimeoutMillis(int readTimeoutMillis) { this.readTimeoutMillis = readTimeoutMillis; }
+        public int getMaxNetworkRetries() { return maxNetworkRetries; }
+        public void setMaxNetworkRetries(int maxNetworkRetries) { this.maxNetworkRetries = maxNetworkRetries; }
+        public boolean isWarmUp() { return warmUp; }
+        public void setWarmUp(boolean warmUp) { this.warmUp = warmUp; }
+        public String getApiBase() { return apiBase; }
+        public void setApiBase(String apiBase) { this.apiBase = apiBase; }
     }
 
     public static class Razorpay {
         private String keyId;
         private String keySecret;
+        private boolean warmUp = true;
         public String getKeyId() { return keyId; }
         public void setKeyId(String keyId) { this.keyId = keyId; }
         public String getKeySecret() { return keySecret; }
         public void setKeySecret(String keySecret) { this.keySecret = keySecret; }
+        public boolean isWarmUp() { return warmUp; }
+        public void setWarmUp(boolean warmUp) { this.warmUp = warmUp; }
     }
 
     public static class Security {
         private String pciMetaKeyBase64;
+        // Only block 12-19 digit runs that pass the Luhn check (real PANs always do; phone numbers, order ids mostly don't)
+        private boolean pciLuhnCheck = true;
+        // Envelope keys for encMeta: AES secret-key entries in a PKCS12 keystore, alias = key id.
+        // pciMetaKeyBase64 stays in the ring as "default" and reads blobs written before key ids existed
+        private String keystoreFile;
+        private String keystorePassword;
+        // Blank = the newest entry in the keystore (or "default" without one)
+        private String activeKeyId;
+        // How often encrypt() checks the keystore file for new keys
+        private int keystoreRefreshSeconds = 30;
+        private Rekey rekey = new Rekey();
         public String getPciMetaKeyBase64() { return pciMetaKeyBase64; }
         public void setPciMetaKeyBase64(String pciMetaKeyBase64) { this.pciMetaKeyBase64 = pciMetaKeyBase64; }
+        public boolean isPciLuhnCheck() { return pciLuhnCheck; }
+        public void setPciLuhnCheck(boolean pciLuhnCheck) { this.pciLuhnCheck = pciLuhnCheck; }
+        public String getKeystoreFile() { return keystoreFile; }
+        public void setKeystoreFile(String keystoreFile) { this.keystoreFile = keystoreFile; }
+        public String getKeystorePassword() { return keystorePassword; }
+        public void setKeystorePassword(String keystorePassword) { this.keystorePassword = keystorePassword; }
+        public String getActiveKeyId() { return activeKeyId; }
+        public void setActiveKeyId(String activeKeyId) { this.activeKeyId = activeKeyId; }
+        public int getKeystoreRefreshSeconds() { return keystoreRefreshSeconds; }
+        public void setKeystoreRefreshSeconds(int keystoreRefreshSeconds) { this.keystoreRefreshSeconds = keystoreRefreshSeconds; }
+        public Rekey getRekey() { return rekey; }
+        public void setRekey(Rekey rekey) { this.rekey = rekey; }
+
+        public static class Rekey {
+            // <jobId>.in is read from here, <jobId>.out written next to it
+            private String dir = "data/rekey";
+            // 0 = one worker per core
+            private int threads = 0;
+            private int batchLines = 4096;
+            public String getDir() { return dir; }
+            public void setDir(String dir) { this.dir = dir; }
+            public int getThreads() { return threads; }
+            public void setThreads(int threads) { this.threads = threads; }
+            public int getBatchLines() { return batchLines; }
+            public void setBatchLines(int batchLines) { this.batchLines = batchLines; }
+        }
+    }
+
+    public static class Execution {
+        // "platform" keeps thread-per-request; "virtual" hands orchestrator work to virtual threads
+        private String mode = "platform";
+        public String getMode() { return mode; }
+        public void setMode(String mode) { this.mode = mode; }
+    }
+
+    public static class Batch {
+        private int maxItems = 500;
+        // Max in-flight authorizations per provider group: stripe (card + wallets), razorpay (EMI), cod
+        private Map<String, Integer> concurrency = new LinkedHashMap<>(Map.of("stripe", 16, "razorpay", 4, "cod", 32));
+        public int getMaxItems() { return maxItems; }
+        public void setMaxItems(int maxItems) { this.maxItems = maxItems; }
+        public Map<String, Integer> getConcurrency() { return concurrency; }
+        public void setConcurrency(Map<String, Integer> concurrency) { this.concurrency = concurrency; }
+    }
+
+    public static class Idempotency {
+        private boolean enabled = true;
+        private long ttlSeconds = 86400;
+        private int maxEntries = 100_000;
+        // Memory-mapped backing file; blank keeps the store memory-only
+        private String file = "data/idempotency.dat";
+        private int fileSizeMb = 64;
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public long getTtlSeconds() { return ttlSeconds; }
+        public void setTtlSeconds(long ttlSeconds) { this.ttlSeconds = ttlSeconds; }
+        public int getMaxEntries() { return maxEntries; }
+        public void setMaxEntries(int maxEntries) { this.maxEntries = maxEntries; }
+        public String getFile() { return file; }
+        public void setFile(String file) { this.file = file; }
+        public int getFileSizeMb() { return fileSizeMb; }
+        public void setFileSizeMb(int fileSizeMb) { this.fileSizeMb = fileSizeMb; }
+    }
+
+    public static class Ledger {
+        private boolean enabled = true;
+        private String dir = "data/ledger";
+        private int segmentSizeMb = 64;
+        // fsync once per group-committed batch; false leaves flushing to the OS page cache
+        private boolean forceOnCommit = true;
+        private int maxBatch = 512;
+        private int queueCapacity = 8192;
+        private int snapshotEverySegments = 4;
+        // Index entries are dropped this long after their last transition: failed or fully refunded
+        // intents first, the rest once past the refund window
+        private int terminalRetentionHours = 24;
+        private int retentionDays = 180;
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public String getDir() { return dir; }
+        public void setDir(String dir) { this.dir = dir; }
+        public int getSegmentSizeMb() { return segmentSizeMb; }
+        public void setSegmentSizeMb(int segmentSizeMb) { this.segmentSizeMb = segmentSizeMb; }
+        public boolean isForceOnCommit() { return forceOnCommit; }
+        public void setForceOnCommit(boolean forceOnCommit) { this.forceOnCommit = forceOnCommit; }
+        public int getMaxBatch() { return maxBatch; }
+        public void setMaxBatch(int maxBatch) { this.maxBatch = maxBatch; }
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+        public int getSnapshotEverySegments() { return snapshotEverySegments; }
+        public void setSnapshotEverySegments(int snapshotEverySegments) { this.snapshotEverySegments = snapshotEverySegments; }
+        public int getTerminalRetentionHours() { return terminalRetentionHours; }
+        public void setTerminalRetentionHours(int terminalRetentionHours) { this.terminalRetentionHours = terminalRetentionHours; }
+        public int getRetentionDays() { return retentionDays; }
+        public void setRetentionDays(int retentionDays) { this.retentionDays = retentionDays; }
+    }
+
+    public static class CaptureSchedulerConfig {
+        private String checkpointFile = "data/capture-checkpoint.log";
+        private int defaultConcurrency = 4;
+        // Per provider (lower case): max in-flight captures and max call starts per second (0 = unpaced)
+        private Map<String, Integer> concurrency = new LinkedHashMap<>(Map.of("stripe", 8, "razorpay", 4, "cod", 16));
+        private Map<String, Integer> ratePerSecond = new LinkedHashMap<>(Map.of("stripe", 50, "razorpay", 10));
+        // How long captured jobs are remembered (and kept in the checkpoint) to reject duplicate captures
+        private long capturedRetentionHours = 72;
+        // Upper bound on tracked jobs, pending plus finished
+        private int maxJobs = 1_000_000;
+        public String getCheckpointFile() { return checkpointFile; }
+        public void setCheckpointFile(String checkpointFile) { this.checkpointFile = checkpointFile; }
+        public int getDefaultConcurrency() { return defaultConcurrency; }
+        public void setDefaultConcurrency(int defaultConcurrency) { this.defaultConcurrency = defaultConcurrency; }
+        public Map<String, Integer> getConcurrency() { return concurrency; }
+        public void setConcurrency(Map<String, Integer> concurrency) { this.concurrency = concurrency; }
+        public Map<String, Integer> getRatePerSecond() { return ratePerSecond; }
+        public void setRatePerSecond(Map<String, Integer> ratePerSecond) { this.ratePerSecond = ratePerSecond; }
+        public long getCapturedRetentionHours() { return capturedRetentionHours; }
+        public void setCapturedRetentionHours(long capturedRetentionHours) { this.capturedRetentionHours = capturedRetentionHours; }
+        public int getMaxJobs() { return maxJobs; }
+        public void setMaxJobs(int maxJobs) { this.maxJobs = maxJobs; }
+    }
+
+    public static class BulkRefund {
+        // Journals and result files, one pair per jobId
+        private String dir = "data/refunds";
+        private int defaultConcurrency = 4;
+        private Map<String, Integer> concurrency = new LinkedHashMap<>(Map.of("stripe", 8, "razorpay", 4));
+        public String getDir() { return dir; }
+        public void setDir(String dir) { this.dir = dir; }
+        public int getDefaultConcurrency() { return defaultConcurrency; }
+        public void setDefaultConcurrency(int defaultConcurrency) { this.defaultConcurrency = defaultConcurrency; }
+        public Map<String, Integer> getConcurrency() { return concurrency; }
+        public void setConcurrency(Map<String, Integer> concurrency) { this.concurrency = concurrency; }
+    }
+
+    public static class Resilience {
+        private boolean enabled = true;
+        private Settings defaults = new Settings();
+        // Per-provider overrides keyed by card, applePay, googlePay, emi, cod; fields not set keep the defaults
+        private Map<String, Overrides> providers = new LinkedHashMap<>();
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public Settings getDefaults() { return defaults; }
+        public void setDefaults(Settings defaults) { this.defaults = defaults; }
+        public Map<String, Overrides> getProviders() { return providers; }
+        public void setProviders(Map<String, Overrides> providers) { this.providers = providers; }
+
+        /** Settings for one provider: the defaults with its overrides applied. */
+        public Settings settingsFor(String provider) {
+            Overrides o = providers.get(provider);
+            return o == null ? defaults : o.applyTo(defaults);
+        }
+
+        public static class Settings {
+            // Bulkhead
+            private int maxConcurrent = 32;
+            private long maxWaitMillis = 0;
+            // Circuit breaker
+            private int windowSize = 50;
+            private int minCalls = 20;
+            private int failureRateThreshold = 50;
+            private long slowCallMillis = 3000;
+            private int slowCallRateThreshold = 80;
+            private long openMillis = 30000;
+            private int halfOpenCalls = 5;
+            public int getMaxConcurrent() { return maxConcurrent; }
+            public void setMaxConcurrent(int maxConcurrent) { this.maxConcurrent = maxConcurrent; }
+            public long getMaxWaitMillis() { return maxWaitMillis; }
+            public void setMaxWaitMillis(long maxWaitMillis) { this.maxWaitMillis = maxWaitMillis; }
+            public int getWindowSize() { return windowSize; }
+            public void setWindowSize(int windowSize) { this.windowSize = windowSize; }
+            public int getMinCalls() { return minCalls; }
+            public void setMinCalls(int minCalls) { this.minCalls = minCalls; }
+            public int getFailureRateThreshold() { return failureRateThreshold; }
+            public void setFailureRateThreshold(int failureRateThreshold) { this.failureRateThreshold = failureRateThreshold; }
+            public long getSlowCallMillis() { return slowCallMillis; }
+            public void setSlowCallMillis(long slowCallMillis) { this.slowCallMillis = slowCallMillis; }
+            public int getSlowCallRateThreshold() { return slowCallRateThreshold; }
+            public void setSlowCallRateThreshold(int slowCallRateThreshold) { this.slowCallRateThreshold = slowCallRateThreshold; }
+            public long getOpenMillis() { return openMillis; }
+            public void setOpenMillis(long openMillis) { this.openMillis = openMillis; }
+            public int getHalfOpenCalls() { return halfOpenCalls; }
+            public void setHalfOpenCalls(int halfOpenCalls) { this.halfOpenCalls = halfOpenCalls; }
+        }
+
+        /** Same fields as Settings; null means "as in defaults". */
+        public static class Overrides {
+            private Integer maxConcurrent;
+            private Long maxWaitMillis;
+            private Integer windowSize;
+            private Integer minCalls;
+            private Integer failureRateThreshold;
+            private Long slowCallMillis;
+            private Integer slowCallRateThreshold;
+            private Long openMillis;
+            private Integer halfOpenCalls;
+            public Integer getMaxConcurrent() { return maxConcurrent; }
+            public void setMaxConcurrent(Integer maxConcurrent) { this.maxConcurrent = maxConcurrent; }
+            public Long getMaxWaitMillis() { return maxWaitMillis; }
+            public void setMaxWaitMillis(Long maxWaitMillis) { this.maxWaitMillis = maxWaitMillis; }
+            public Integer getWindowSize() { return windowSize; }
+            public void setWindowSize(Integer windowSize) { this.windowSize = windowSize; }
+            public Integer getMinCalls() { return minCalls; }
+            public void setMinCalls(Integer minCalls) { this.minCalls = minCalls; }
+            public Integer getFailureRateThreshold() { return failureRateThreshold; }
+            public void setFailureRateThreshold(Integer failureRateThreshold) { this.failureRateThreshold = failureRateThreshold; }
+            public Long getSlowCallMillis() { return slowCallMillis; }
+            public void setSlowCallMillis(Long slowCallMillis) { this.slowCallMillis = slowCallMillis; }
+            public Integer getSlowCallRateThreshold() { return slowCallRateThreshold; }
+            public void setSlowCallRateThreshold(Integer slowCallRateThreshold) { this.slowCallRateThreshold = slowCallRateThreshold; }
+            public Long getOpenMillis() { return openMillis; }
+            public void setOpenMillis(Long openMillis) { this.openMillis = openMillis; }
+            public Integer getHalfOpenCalls() { return halfOpenCalls; }
+            public void setHalfOpenCalls(Integer halfOpenCalls) { this.halfOpenCalls = halfOpenCalls; }
+
+            Settings applyTo(Settings d) {
+                Settings s = new Settings();
+                s.setMaxConcurrent(maxConcurrent != null ? maxConcurrent : d.getMaxConcurrent());
+                s.setMaxWaitMillis(maxWaitMillis != null ? maxWaitMillis : d.getMaxWaitMillis());
+                s.setWindowSize(windowSize != null ? windowSize : d.getWindowSize());
+                s.setMinCalls(minCalls != null ? minCalls : d.getMinCalls());
+                s.setFailureRateThreshold(failureRateThreshold != null ? failureRateThreshold : d.getFailureRateThreshold());
+                s.setSlowCallMillis(slowCallMillis != null ? slowCallMillis : d.getSlowCallMillis());
+                s.setSlowCallRateThreshold(slowCallRateThreshold != null ? slowCallRateThreshold : d.getSlowCallRateThreshold());
+                s.setOpenMillis(openMillis != null ? openMillis : d.getOpenMillis());
+                s.setHalfOpenCalls(halfOpenCalls != null ? halfOpenCalls : d.getHalfOpenCalls());
+                return s;
+            }
+        }
+    }
+
+    public static class RequestBody {
+        // Bodies PciGuardFilter buffers (POST /api) above this are refused with 413 before being read in full
+        private int maxBytes = 1024 * 1024;
+        // Reusable buffers for bodies up to buffer-bytes; larger ones get a one-off array. pool-size 0 disables pooling
+        private int bufferBytes = 16 * 1024;
+        private int poolSize = 64;
+        // Bind /initiate bodies with PaymentRequestConverter: PCI scan + validation in the Jackson pass
+        private boolean parseOnce = true;
+        public int getMaxBytes() { return maxBytes; }
+        public void setMaxBytes(int maxBytes) { this.maxBytes = maxBytes; }
+        public int getBufferBytes() { return bufferBytes; }
+        public void setBufferBytes(int bufferBytes) { this.bufferBytes = bufferBytes; }
+        public int getPoolSize() { return poolSize; }
+        public void setPoolSize(int poolSize) { this.poolSize = poolSize; }
+        public boolean isParseOnce() { return parseOnce; }
+        public void setParseOnce(boolean parseOnce) { this.parseOnce = parseOnce; }
+    }
+
+    public static class Metrics {
+        // Adds a Server-Timing header with per-stage durations to /initiate responses (exposes internal timings)
+        private boolean serverTimingHeader = false;
+        public boolean isServerTimingHeader() { return serverTimingHeader; }
+        public void setServerTimingHeader(boolean serverTimingHeader) { this.serverTimingHeader = serverTimingHeader; }
+    }
+
+    public static class Fraud {
+        // FraudRules JSON; blank = the bundled fraud-rules.json (no reloading)
+        private String rulesFile = "";
+        // How often the file's timestamp is checked; a changed file is compiled and swapped in
+        private int refreshSeconds = 30;
+        // Run the check groups (velocity, denylist) concurrently on the fraud executor under deadlineMillis
+        private boolean parallel = true;
+        private int deadlineMillis = 50;
+        // Applied (at least) when a check group misses the deadline: REVIEW or REQUEST_3DS
+        private String timeoutAction = "REVIEW";
+        public String getRulesFile() { return rulesFile; }
+        public void setRulesFile(String rulesFile) { this.rulesFile = rulesFile; }
+        public int getRefreshSeconds() { return refreshSeconds; }
+        public void setRefreshSeconds(int refreshSeconds) { this.refreshSeconds = refreshSeconds; }
+        public boolean isParallel() { return parallel; }
+        public void setParallel(boolean parallel) { this.parallel = parallel; }
+        public int getDeadlineMillis() { return deadlineMillis; }
+        public void setDeadlineMillis(int deadlineMillis) { this.deadlineMillis = deadlineMillis; }
+        public String getTimeoutAction() { return timeoutAction; }
+        public void setTimeoutAction(String timeoutAction) { this.timeoutAction = timeoutAction; }
+    }
+
+    public static class Velocity {
+        private boolean enabled = true;
+        // Keys (email/phone/token) with exact 1m/1h/24h counters, ~350 bytes each; the rest use the sketch
+        // until it shows them busier than a least recently seen exact key, which they then replace
+        private int maxKeys = 50000;
+        // Count-min sketches for the long tail, one per key type: depth * width * 336 bytes each
+        private int sketchDepth = 4;
+        // Power of two; 0 = sized from expectedAttemptsPerSecond (see VelocityTracker.sketchWidth)
+        private int sketchWidth = 0;
+        private int expectedAttemptsPerSecond = 50;
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public int getMaxKeys() { return maxKeys; }
+        public void setMaxKeys(int maxKeys) { this.maxKeys = maxKeys; }
+        public int getSketchDepth() { return sketchDepth; }
+        public void setSketchDepth(int sketchDepth) { this.sketchDepth = sketchDepth; }
+        public int getSketchWidth() { return sketchWidth; }
+        public void setSketchWidth(int sketchWidth) { this.sketchWidth = sketchWidth; }
+        public int getExpectedAttemptsPerSecond() { return expectedAttemptsPerSecond; }
+        public void setExpectedAttemptsPerSecond(int expectedAttemptsPerSecond) { this.expectedAttemptsPerSecond = expectedAttemptsPerSecond; }
+    }
+
+    public static class Denylist {
+        // type:value lines (email/phone/cardToken/walletToken); blank = no denylist. Index files go next to it
+        private String file = "";
+        // How often appended lines are applied; a replaced file is re-read in full
+        private int refreshSeconds = 10;
+        // Initial index size (~18 bytes per entry on disk); it grows by re-hashing when half full
+        private int expectedEntries = 1000000;
+        public String getFile() { return file; }
+        public void setFile(String file) { this.file = file; }
+        public int getRefreshSeconds() { return refreshSeconds; }
+        public void setRefreshSeconds(int refreshSeconds) { this.refreshSeconds = refreshSeconds; }
+        public int getExpectedEntries() { return expectedEntries; }
+        public void setExpectedEntries(int expectedEntries) { this.expectedEntries = expectedEntries; }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package com.tcs.payments.service;
+
+import java.util.Locale;
+
+/**
+ * Stage durations for one initiate call, in the order they ran.
+ * Filled by PaymentOrchestrator, reported by InitiateMetrics and as a Server-Timing header.
+ * Not thread-safe: one instance per request.
+ */
+public final class StageTimings {
+
+    private static final int MAX_STAGES = 16;
+
+    private final String[] names = new String[MAX_STAGES];
+    private final long[] nanos = new long[MAX_STAGES];
+    private int size;
+    private final long started = System.nanoTime();
+    private long mark = started;
+
+    /** Closes the current stage under this name and starts the next one. */
+    public void lap(String stage) {
+        long now = System.nanoTime();
+        if (size < MAX_STAGES) {
+            names[size] = stage;
+            nanos[size++] = now - mark;
+        }
+        mark = now;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String name(int i) {
+        return names[i];
+    }
+
+    public long nanos(int i) {
+        return nanos[i];
+    }
+
+    public long totalNanos() {
+        return System.nanoTime() - started;
+    }
+
+    /** Server-Timing header value, durations in milliseconds: "fraud;dur=0.041, provider;dur=212.3, total;dur=213.0". */
+    public String toServerTiming() {
+        StringBuilder sb = new StringBuilder(32 * (size + 1));
+        for (int i = 0; i < size; i++) {
+            append(sb, names[i], nanos[i]).append(", ");
+        }
+        return append(sb, "total", totalNanos()).toString();
+    }
+
+    private static StringBuilder append(StringBuilder sb, String name, long nanos) {
+        return sb.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.3f", nanos / 1e6));
+    }
+}
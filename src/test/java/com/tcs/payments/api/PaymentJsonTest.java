@@ -0,0 +1,162 @@
+package com.tcs.payments.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.tcs.payments.model.Currency;
+import com.tcs.payments.model.PaymentMethod;
+import com.tcs.payments.model.PaymentRequest;
+import com.tcs.payments.model.PaymentResponse;
+import com.tcs.payments.model.RegionCode;
+
+/** PaymentJson against Jackson's reflective binding with the application's settings. */
+class PaymentJsonTest {
+
+    // What PaymentJson replaces: Boot's mapper (unknown properties ignored) plus accept-case-insensitive-enums
+    private final ObjectMapper reflective = JsonMapper.builder()
+            .enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .serializationInclusion(JsonInclude.Include.NON_NULL)
+            .build();
+    private final ObjectMapper codec = JsonMapper.builder().addModule(new PaymentJsonModule()).build();
+
+    @Test
+    void enumsBindInAnyCaseOrByIndex() throws Exception {
+        PaymentRequest r = sameAsReflective("{\"region\":\"us\",\"method\":\"apple_Pay\",\"amount\":{\"value\":1,\"currency\":\"Inr\"}}");
+        assertEquals(RegionCode.US, r.getRegion());
+        assertEquals(PaymentMethod.APPLE_PAY, r.getMethod());
+        assertEquals(Currency.INR, r.getAmount().getCurrency());
+
+        r = sameAsReflective("{\"region\":1,\"method\":4,\"amount\":{\"currency\":2}}");
+        assertEquals(RegionCode.US, r.getRegion());
+        assertEquals(PaymentMethod.EMI, r.getMethod());
+        assertEquals(Currency.INR, r.getAmount().getCurrency());
+
+        bothReject("{\"region\":\"MARS\"}");
+        bothReject("{\"method\":99}");
+        bothReject("{\"amount\":{\"currency\":{\"code\":\"USD\"}}}");
+    }
+
+    @Test
+    void numericStringsAndScalarsAreCoerced() throws Exception {
+        PaymentRequest r = sameAsReflective("{\"amount\":{\"value\":\"5000\",\"currency\":\"USD\"},"
+                + "\"emiPlan\":{\"tenureMonths\":\"6\",\"provider\":\"hdfc\"},\"saveCard\":\"true\","
+                + "\"cardToken\":12345,\"couponCode\":true,\"codNote\":1.5}");
+        assertEquals(5000, r.getAmount().getValue());
+        assertEquals(6, r.getEmiPlan().getTenureMonths());
+        assertTrue(r.isSaveCard());
+        assertEquals("12345", r.getCardToken());
+        assertEquals("true", r.getCouponCode());
+
+        assertEquals(12, sameAsReflective("{\"amount\":{\"value\":12.0}}").getAmount().getValue());
+        bothReject("{\"amount\":{\"value\":\"12abc\"}}");
+        bothReject("{\"emiPlan\":{\"tenureMonths\":\"99999999999\"}}");
+        bothReject("{\"saveCard\":\"yes\"}");
+        bothReject("{\"cardToken\":[\"pm_1\"]}");
+    }
+
+    @Test
+    void nullsAndUnknownNestedFieldsAreSkipped() throws Exception {
+        PaymentRequest r = sameAsReflective("{\"idempotencyKey\":\"idem-1\",\"region\":null,\"amount\":null,\"emiPlan\":null,"
+                + "\"customer\":{\"id\":\"cus_1\",\"address\":{\"line1\":\"x\",\"tags\":[1,{\"a\":null}]},\"email\":null},"
+                + "\"unknown\":[{\"x\":1},[]],\"alsoUnknown\":null,\"returnUrl\":\"https://shop.example/return\"}");
+        assertEquals("idem-1", r.getIdempotencyKey());
+        assertNull(r.getRegion());
+        assertNull(r.getAmount());
+        assertEquals("cus_1", r.getCustomer().getId());
+        assertNull(r.getCustomer().getEmail());
+        assertEquals("https://shop.example/return", r.getReturnUrl());
+        bothReject("{\"customer\":\"cus_1\"}");
+        bothReject("{\"amount\":{\"value\":1}");
+    }
+
+    @Test
+    void metadataValuesAreReadAsStrings() throws Exception {
+        PaymentRequest r = sameAsReflective("{\"metadata\":{\"orderRef\":\"A-1\",\"count\":3,\"flag\":false,\"empty\":null}}");
+        assertEquals(Map.of("orderRef", "A-1", "count", "3", "flag", "false"),
+                Map.of("orderRef", r.getMetadata().get("orderRef"), "count", r.getMetadata().get("count"),
+                        "flag", r.getMetadata().get("flag")));
+        assertTrue(r.getMetadata().containsKey("empty"));
+        assertNull(sameAsReflective("{\"metadata\":null}").getMetadata());
+        bothReject("{\"metadata\":{\"nested\":{\"a\":\"b\"}}}");
+    }
+
+    @Test
+    void nullResponseFieldsAreLeftOut() throws Exception {
+        PaymentResponse r = PaymentResponse.of(PaymentResponse.Status.AUTHORIZED, "Stripe");
+        r.setIntentId("pi_1");
+        assertEquals("{\"status\":\"AUTHORIZED\",\"provider\":\"Stripe\",\"intentId\":\"pi_1\"}", codec.writeValueAsString(r));
+        assertEquals("{}", codec.writeValueAsString(new PaymentResponse()));
+    }
+
+    @Test
+    void everyRequestFieldSurvivesTheCodec() throws Exception {
+        // Filled by reflection, so a field added to the model but not to PaymentJson.readRequest fails here
+        String json = reflective.writeValueAsString(populated(PaymentRequest.class));
+        PaymentRequest back = codec.readValue(json, PaymentRequest.class);
+        assertEquals(reflective.readTree(json), tree(back));
+    }
+
+    @Test
+    void everyResponseFieldIsWritten() throws Exception {
+        PaymentResponse r = populated(PaymentResponse.class);
+        assertEquals(tree(r), codec.readTree(codec.writeValueAsString(r)));
+    }
+
+    /** Reads json both ways, checks they agree and returns the PaymentJson result. */
+    private PaymentRequest sameAsReflective(String json) throws Exception {
+        PaymentRequest viaCodec = codec.readValue(json, PaymentRequest.class);
+        PaymentRequest viaReflection = reflective.readValue(json, PaymentRequest.class);
+        assertEquals(tree(viaReflection), tree(viaCodec), json);
+        return viaCodec;
+    }
+
+    /** Via text, so int and long values compare equal. */
+    private JsonNode tree(Object value) throws Exception {
+        return reflective.readTree(reflective.writeValueAsString(value));
+    }
+
+    private void bothReject(String json) {
+        assertThrows(JsonProcessingException.class, () -> reflective.readValue(json, PaymentRequest.class), json);
+        assertThrows(JsonProcessingException.class, () -> codec.readValue(json, PaymentRequest.class), json);
+    }
+
+    /** An instance with every field set to a non-default value, nested model objects included. */
+    private static <T> T populated(Class<T> type) throws Exception {
+        T o = type.getDeclaredConstructor().newInstance();
+        for (Field f : type.getDeclaredFields()) {
+            if (Modifier.isStatic(f.getModifiers())) continue;
+            f.setAccessible(true);
+            f.set(o, sample(f.getType(), f.getName()));
+        }
+        return o;
+    }
+
+    private static Object sample(Class<?> type, String name) throws Exception {
+        if (type == String.class) return name + "-value";
+        if (type == boolean.class) return true;
+        if (type == int.class) return 7;
+        if (type == long.class) return 7L;
+        if (type.isEnum()) {
+            Object[] constants = type.getEnumConstants();
+            return constants[constants.length - 1];
+        }
+        if (Map.class.isAssignableFrom(type)) return Map.of(name + "-key", name + "-value");
+        return populated(type);
+    }
+}
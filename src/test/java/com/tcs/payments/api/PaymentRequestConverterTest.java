@@ -0,0 +1,163 @@
+package com.tcs.payments.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcs.payments.model.PaymentRequest;
+import com.tcs.payments.security.PciScanner;
+
+class PaymentRequestConverterTest {
+
+    private static final String VALID = "{\"idempotencyKey\":\"idem-1\",\"region\":\"US\",\"method\":\"CARD\","
+            + "\"amount\":{\"value\":5000,\"currency\":\"USD\"},\"customer\":{\"id\":\"cus_1\"},\"cardToken\":\"pm_card_visa\"}";
+
+    private static final String[] NOT_NULL = {"region", "method", "amount", "customer"};
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final PaymentRequestConverter converter = new PaymentRequestConverter(mapper, new PciScanner(true));
+
+    @Test
+    void readsASingleObject() throws Exception {
+        PaymentRequest req = read(VALID + "\n");
+        assertEquals("idem-1", req.getIdempotencyKey());
+    }
+
+    @Test
+    void rejectsASecondRootValue() {
+        assertThrows(HttpMessageNotReadableException.class, () -> read(VALID + " {\"region\":\"US\"}"));
+        assertThrows(HttpMessageNotReadableException.class, () -> read(VALID + " 42"));
+    }
+
+    @Test
+    void cardDataAfterTheObjectIsNotAccepted() {
+        // PciGuardFilter does not scan /initiate bodies, so this must never bind
+        assertThrows(HttpMessageNotReadableException.class,
+                () -> read(VALID + " {\"cardNumber\":\"4242424242424242\"}"));
+    }
+
+    @Test
+    void cardDataInsideTheObjectIsAPciViolation() {
+        PaymentRequestConverter.RejectedRequestException e = assertThrows(PaymentRequestConverter.RejectedRequestException.class,
+                () -> read(VALID.substring(0, VALID.length() - 1) + ",\"note\":\"4242424242424242\"}"));
+        assertEquals("pci_violation", e.getBody().get("error"));
+    }
+
+    @Test
+    void rejectsTrailingGarbage() {
+        assertThrows(HttpMessageNotReadableException.class, () -> read(VALID + " }"));
+    }
+
+    @Test
+    void missingOrBlankIdempotencyKeyIsAValidationError() throws Exception {
+        Map<String, String> blank = Map.of("idempotencyKey", "must not be blank");
+        assertEquals(blank, rejectedFields(without("idempotencyKey")));
+        assertEquals(blank, rejectedFields(with("idempotencyKey", null)));
+        assertEquals(blank, rejectedFields(with("idempotencyKey", "")));
+        assertEquals(blank, rejectedFields(with("idempotencyKey", " \t")));
+    }
+
+    @Test
+    void nullOrMissingRequiredFieldsAreValidationErrors() throws Exception {
+        for (String field : NOT_NULL) {
+            Map<String, String> expected = Map.of(field, "must not be null");
+            assertEquals(expected, rejectedFields(without(field)), "missing " + field);
+            assertEquals(expected, rejectedFields(with(field, null)), "null " + field);
+        }
+        // Every missing field is reported, as bean validation would
+        assertEquals(Map.of("idempotencyKey", "must not be blank", "region", "must not be null", "method", "must not be null",
+                "amount", "must not be null", "customer", "must not be null"), rejectedFields("{}"));
+    }
+
+    @Test
+    void requiredNamesOnlyCountAtTheTopLevel() throws Exception {
+        // A nested "region" neither satisfies nor fails the root constraint
+        Map<String, Object> fields = body();
+        fields.remove("region");
+        fields.put("customer", Map.of("id", "cus_1", "region", "US"));
+        assertEquals(Map.of("region", "must not be null"), rejectedFields(mapper.writeValueAsString(fields)));
+
+        Map<String, Object> extra = new LinkedHashMap<>();
+        extra.put("amount", Map.of());
+        extra.put("region", null);
+        assertEquals("idem-1", read(with("extra", extra)).getIdempotencyKey());
+    }
+
+    @Test
+    void cardDataInsideSkippedUnknownFieldsIsAPciViolation() throws Exception {
+        assertPciViolation(with("extra", Map.of("deep", new Object[] {Map.of("cvv", "123")})));
+        assertPciViolation(with("extra", new Object[] {1, new Object[] {Map.of("card", Map.of("expMonth", 12))}}));
+        assertPciViolation(with("customer", Map.of("id", "cus_1", "billing", Map.of("cardNumber", "x"))));
+        assertPciViolation(with("emiPlan", Map.of("tenureMonths", 6, "card", Map.of("pan", "4242424242424242"))));
+        assertPciViolation(with("extra", Map.of("expiry", Map.of())));
+        // Unknown but harmless subtrees still bind
+        assertEquals("idem-1", read(with("extra", Map.of("deep", new Object[] {Map.of("last4", "4242")}))).getIdempotencyKey());
+    }
+
+    @Test
+    void panValuesInMetadataAreAPciViolation() throws Exception {
+        assertPciViolation(with("metadata", Map.of("note", "4242424242424242")));
+        assertPciViolation(with("metadata", Map.of("note", "card 4242 4242 4242 4242 and 4111111111111111")));
+        assertPciViolation(with("metadata", Map.of("ref", 4242424242424242L)));
+        assertPciViolation(with("metadata", Map.of("cvc", "x")));
+        // Luhn-invalid numbers such as phone numbers are allowed
+        PaymentRequest req = read(with("metadata", Map.of("phone", "+919812345678")));
+        assertEquals("+919812345678", req.getMetadata().get("phone"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> body() throws Exception {
+        return new LinkedHashMap<>(mapper.readValue(VALID, Map.class));
+    }
+
+    private String with(String field, Object value) throws Exception {
+        Map<String, Object> fields = body();
+        fields.put(field, value);
+        return mapper.writeValueAsString(fields);
+    }
+
+    private String without(String field) throws Exception {
+        Map<String, Object> fields = body();
+        fields.remove(field);
+        return mapper.writeValueAsString(fields);
+    }
+
+    private Object rejectedFields(String body) {
+        PaymentRequestConverter.RejectedRequestException e = assertThrows(PaymentRequestConverter.RejectedRequestException.class,
+                () -> read(body), body);
+        assertEquals("validation_error", e.getBody().get("error"), body);
+        return e.getBody().get("fields");
+    }
+
+    private void assertPciViolation(String body) {
+        PaymentRequestConverter.RejectedRequestException e = assertThrows(PaymentRequestConverter.RejectedRequestException.class,
+                () -> read(body), body);
+        assertEquals("pci_violation", e.getBody().get("error"), body);
+    }
+
+    private PaymentRequest read(String body) throws Exception {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        return converter.readInternal(PaymentRequest.class, new HttpInputMessage() {
+            @Override
+            public InputStream getBody() {
+                return new ByteArrayInputStream(bytes);
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return new HttpHeaders();
+            }
+        });
+    }
+}
@@ -0,0 +1,46 @@
+package com.tcs.payments.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.jupiter.api.Test;
+
+import com.tcs.payments.service.PaymentsProperties;
+
+class ExecutionConfigTest {
+
+    @Test
+    void platformModeRunsInline() {
+        Executor executor = new ExecutionConfig().paymentExecutor(new PaymentsProperties());
+        Thread[] ran = new Thread[1];
+        executor.execute(() -> ran[0] = Thread.currentThread());
+        assertEquals(Thread.currentThread(), ran[0]);
+    }
+
+    @Test
+    void virtualModeUsesVirtualThreadsOrFailsFast() throws Exception {
+        PaymentsProperties props = new PaymentsProperties();
+        props.getExecution().setMode("virtual");
+        if (Runtime.version().feature() < 21) {
+            IllegalStateException e = assertThrows(IllegalStateException.class,
+                    () -> new ExecutionConfig().paymentExecutor(props));
+            assertTrue(e.getMessage().contains("JDK 21"), e.getMessage());
+            return;
+        }
+        ExecutorService executor = (ExecutorService) new ExecutionConfig().paymentExecutor(props);
+        Boolean virtual = CompletableFuture.supplyAsync(() -> {
+            try {
+                return (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }, executor).get();
+        executor.shutdown();
+        assertTrue(virtual);
+    }
+}
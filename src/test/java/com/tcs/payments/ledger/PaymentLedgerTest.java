@@ -0,0 +1,83 @@
+package com.tcs.payments.ledger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.tcs.payments.service.PaymentsProperties;
+
+class PaymentLedgerTest {
+
+    private Path dir;
+    private PaymentsProperties props;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dir = Files.createTempDirectory("ledger-test");
+        props = new PaymentsProperties();
+        props.getLedger().setDir(dir.toString());
+        props.getLedger().setSegmentSizeMb(1);
+        props.getLedger().setSnapshotEverySegments(1);
+        props.getLedger().setForceOnCommit(false);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void snapshotsCompactSegmentsAndKeepEveryIntent() {
+        PaymentLedger ledger = new PaymentLedger(props);
+        // About 60 bytes a record: several 1 MB segments, so several snapshots
+        for (int i = 0; i < 60_000; i++) {
+            ledger.record(LedgerEntry.of(LedgerEntry.Type.AUTHORIZED, "Stripe", "pi_" + i, 1_000, "USD"));
+        }
+        ledger.close();
+        assertTrue(new File(dir.toFile(), "snapshot.dat").isFile());
+        assertTrue(dir.toFile().list((d, n) -> n.endsWith(".seg")).length < 4, "compacted segments must be deleted");
+
+        PaymentLedger reopened = new PaymentLedger(props);
+        assertEquals(1_000, reopened.find("pi_0").getAuthorizedAmount());
+        assertEquals(1_000, reopened.find("pi_59999").getAuthorizedAmount());
+        reopened.close();
+    }
+
+    @Test
+    void finishedIntentsAreDroppedAfterTheirRetention() {
+        long twoDaysAgo = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2);
+        PaymentLedger ledger = new PaymentLedger(props);
+        ledger.record(at(LedgerEntry.of(LedgerEntry.Type.FAILED, "Stripe", "pi_failed", 1_000, "USD"), twoDaysAgo));
+        ledger.record(at(LedgerEntry.of(LedgerEntry.Type.AUTHORIZED, "Stripe", "pi_refunded", 1_000, "USD"), twoDaysAgo));
+        ledger.record(at(LedgerEntry.of(LedgerEntry.Type.REFUNDED, "Stripe", "pi_refunded", 0, "USD"), twoDaysAgo));
+        ledger.record(at(LedgerEntry.of(LedgerEntry.Type.AUTHORIZED, "Stripe", "pi_partial", 1_000, "USD"), twoDaysAgo));
+        ledger.record(at(LedgerEntry.of(LedgerEntry.Type.REFUNDED, "Stripe", "pi_partial", 400, "USD"), twoDaysAgo));
+        ledger.record(LedgerEntry.of(LedgerEntry.Type.FAILED, "Stripe", "pi_recent", 1_000, "USD"));
+        ledger.close();
+
+        PaymentLedger reopened = new PaymentLedger(props);
+        assertNull(reopened.find("pi_failed"));
+        assertNull(reopened.find("pi_refunded"));
+        assertEquals(600, reopened.find("pi_partial").getRefundableAmount());
+        assertEquals(LedgerEntry.Type.FAILED, reopened.find("pi_recent").getStatus());
+        reopened.close();
+    }
+
+    private static LedgerEntry at(LedgerEntry e, long timestamp) {
+        e.timestamp = timestamp;
+        return e;
+    }
+}
@@ -0,0 +1,99 @@
+package com.tcs.payments.provider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.stripe.StripeClient;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.tcs.payments.model.PaymentResponse;
+
+/** Each Stripe capture is one HTTP request; the card capture expands latest_charge on that request for the receipt. */
+class StripeCaptureCallBudgetTest {
+
+    private static final String CAPTURED_INTENT = "{\"id\":\"pi_1\",\"object\":\"payment_intent\",\"status\":\"succeeded\","
+            + "\"latest_charge\":{\"id\":\"ch_1\",\"object\":\"charge\",\"receipt_url\":\"https://pay.stripe.com/receipts/ch_1\"}}";
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private StripeClient client;
+
+    @BeforeEach
+    void startStandIn() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::answer);
+        server.start();
+        client = StripeClient.builder()
+                .setApiKey("sk_test_unit")
+                .setApiBase("http://127.0.0.1:" + server.getAddress().getPort())
+                .setMaxNetworkRetries(0)
+                .build();
+    }
+
+    @AfterEach
+    void stopStandIn() {
+        server.stop(0);
+    }
+
+    @Test
+    void cardCaptureIsOneRemoteCall() throws Exception {
+        assertSingleCapture(new CardProviderStripe(client), true);
+    }
+
+    @Test
+    void applePayCaptureIsOneRemoteCall() throws Exception {
+        assertSingleCapture(new ApplePayProviderStripe(client), false);
+    }
+
+    @Test
+    void googlePayCaptureIsOneRemoteCall() throws Exception {
+        assertSingleCapture(new GooglePayProviderStripe(client), false);
+    }
+
+    @Test
+    void sharedNoneCounterStaysAtZero() throws Exception {
+        PaymentProvider cod = new CodProvider();
+        cod.remoteCalls().increment("capture");
+        cod.capture("cod_1");
+        assertEquals(0, cod.remoteCalls().get("capture"));
+        assertTrue(RemoteCallCounter.NONE.snapshot().isEmpty());
+    }
+
+    private void assertSingleCapture(PaymentProvider provider, boolean receipt) throws Exception {
+        PaymentResponse r = provider.capture("pi_1");
+
+        assertEquals(PaymentResponse.Status.CAPTURED, r.getStatus());
+        assertEquals(1, requests.size(), "requests: " + requests);
+        assertTrue(requests.get(0).startsWith("POST /v1/payment_intents/pi_1/capture"), requests.get(0));
+        if (receipt) {
+            assertTrue(requests.get(0).contains("expand[0]=latest_charge"), requests.get(0));
+            assertEquals("https://pay.stripe.com/receipts/ch_1", r.getReceiptUrl());
+        }
+        assertEquals(1, provider.remoteCalls().get("capture"));
+        assertEquals(requests.size(), provider.remoteCalls().snapshot().values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    private void answer(HttpExchange ex) throws IOException {
+        String body = new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        requests.add(ex.getRequestMethod() + " " + ex.getRequestURI().getPath() + " "
+                + URLDecoder.decode(body, StandardCharsets.UTF_8));
+        byte[] out = CAPTURED_INTENT.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(200, out.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(out);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.tcs.payments.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.tcs.payments.model.PaymentRequest;
+import com.tcs.payments.model.PaymentResponse;
+import com.tcs.payments.provider.AuthorizationContext;
+import com.tcs.payments.provider.PaymentProvider;
+import com.tcs.payments.service.PaymentsProperties;
+
+/**
+ * Many threads authorize through one shared provider, each with its own 3DS decision, risk reasons and
+ * routing hint; every call must see exactly the context it was given.
+ */
+class AuthorizationContextStressTest {
+
+    private static final int THREADS = 64;
+    private static final int CALLS_PER_THREAD = 2_000;
+
+    @Test
+    void concurrentAuthorizationsDoNotSeeEachOthersContext() throws Exception {
+        AtomicInteger bleed = new AtomicInteger();
+        PaymentProvider echo = new PaymentProvider() {
+            @Override
+            public PaymentResponse authorize(PaymentRequest req, AuthorizationContext ctx) {
+                String id = req.getMetadata().get("call");
+                boolean want3ds = Integer.parseInt(id.substring(id.indexOf('-') + 1)) % 2 == 0;
+                // Give other threads a chance to run between reading the request and reading the context
+                Thread.yield();
+                if (ctx.isRequest3ds() != want3ds
+                        || !id.equals(ctx.getRoutingHints().get("call"))
+                        || !ctx.getRiskReasons().equals(List.of("reason-" + id))) {
+                    bleed.incrementAndGet();
+                }
+                PaymentResponse r = PaymentResponse.of(
+                        ctx.isRequest3ds() ? PaymentResponse.Status.REQUIRES_ACTION : PaymentResponse.Status.AUTHORIZED, "Stripe");
+                r.setIntentId(ctx.getRoutingHints().get("call"));
+                return r;
+            }
+
+            @Override
+            public PaymentResponse capture(String intentId) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public PaymentResponse refund(String paymentId, Integer amount) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        PaymentsProperties.Resilience.Settings cfg = new PaymentsProperties.Resilience.Settings();
+        cfg.setMaxConcurrent(THREADS);
+        ResilientPaymentProvider shared = new ResilientPaymentProvider("card", "Stripe", echo, cfg);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            results.add(pool.submit(() -> {
+                start.await();
+                int mismatched = 0;
+                for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                    String id = thread + "-" + i;
+                    boolean request3ds = i % 2 == 0;
+                    PaymentRequest req = new PaymentRequest();
+                    req.setMetadata(new HashMap<>(Map.of("call", id)));
+                    List<String> reasons = new ArrayList<>(List.of("reason-" + id));
+                    AuthorizationContext ctx = new AuthorizationContext(request3ds, false, reasons, Map.of("call", id));
+                    // The context is a snapshot: later changes to the caller's list must not reach the provider
+                    reasons.add("late");
+                    PaymentResponse r = shared.authorize(req, ctx);
+                    PaymentResponse.Status expected =
+                            request3ds ? PaymentResponse.Status.REQUIRES_ACTION : PaymentResponse.Status.AUTHORIZED;
+                    if (!id.equals(r.getIntentId()) || r.getStatus() != expected) mismatched++;
+                }
+                return mismatched;
+            }));
+        }
+        start.countDown();
+        int mismatched = 0;
+        for (Future<Integer> f : results) mismatched += f.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertEquals(0, bleed.get(), "provider saw another request's context");
+        assertEquals(0, mismatched, "caller got a response built from another request's context");
+    }
+
+    @Test
+    void contextIsImmutable() {
+        AuthorizationContext ctx = new AuthorizationContext(true, false, List.of("r"), Map.of("k", "v"));
+        assertThrows(UnsupportedOperationException.class, () -> ctx.getRiskReasons().add("x"));
+        assertThrows(UnsupportedOperationException.class, () -> ctx.getRoutingHints().put("k", "w"));
+    }
+}
@@ -0,0 +1,31 @@
+package com.tcs.payments.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.tcs.payments.service.PaymentsProperties;
+
+class ProviderResilienceTest {
+
+    @Test
+    void providerOverridesOnlyReplaceTheFieldsTheySet() {
+        PaymentsProperties.Resilience cfg = new PaymentsProperties().getResilience();
+        cfg.getDefaults().setWindowSize(100);
+        cfg.getDefaults().setOpenMillis(60_000);
+        PaymentsProperties.Resilience.Overrides emi = new PaymentsProperties.Resilience.Overrides();
+        emi.setMaxConcurrent(8);
+        emi.setSlowCallMillis(5_000L);
+        cfg.getProviders().put("emi", emi);
+
+        PaymentsProperties.Resilience.Settings s = cfg.settingsFor("emi");
+        assertEquals(8, s.getMaxConcurrent());
+        assertEquals(5_000, s.getSlowCallMillis());
+        assertEquals(100, s.getWindowSize());
+        assertEquals(60_000, s.getOpenMillis());
+        assertEquals(cfg.getDefaults().getMinCalls(), s.getMinCalls());
+        assertEquals(cfg.getDefaults().getHalfOpenCalls(), s.getHalfOpenCalls());
+
+        assertEquals(cfg.getDefaults(), cfg.settingsFor("card"));
+    }
+}
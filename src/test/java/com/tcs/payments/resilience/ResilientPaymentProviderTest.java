@@ -0,0 +1,99 @@
+package com.tcs.payments.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.ApiException;
+import com.stripe.exception.CardException;
+import com.tcs.payments.model.PaymentRequest;
+import com.tcs.payments.model.PaymentResponse;
+import com.tcs.payments.provider.AuthorizationContext;
+import com.tcs.payments.provider.PaymentProvider;
+import com.tcs.payments.service.IdempotencyStore;
+import com.tcs.payments.service.PaymentsProperties;
+
+class ResilientPaymentProviderTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void declinesDoNotOpenTheBreaker() throws Exception {
+        ResilientPaymentProvider p = wrap(new IllegalStateException("card_declined"));
+        for (int i = 0; i < 50; i++) {
+            assertThrows(IllegalStateException.class, () -> p.authorize(new PaymentRequest()));
+        }
+        assertEquals(50, calls.get());
+        assertEquals("CLOSED", String.valueOf(p.snapshot().get("state")));
+    }
+
+    @Test
+    void outagesOpenTheBreakerAndFailFast() throws Exception {
+        ResilientPaymentProvider p = wrap(new SocketTimeoutException("Read timed out"));
+        for (int i = 0; i < 4; i++) {
+            assertThrows(SocketTimeoutException.class, () -> p.authorize(new PaymentRequest()));
+        }
+        ProviderUnavailableException e =
+                assertThrows(ProviderUnavailableException.class, () -> p.authorize(new PaymentRequest()));
+        assertEquals("circuit_open", e.getMessage());
+        assertEquals("Stripe", e.getProvider());
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void onlyStripeConnectionErrorsAnd5xxAreOutages() {
+        assertTrue(ResilientPaymentProvider.isOutage(new ApiConnectionException("Read timed out")));
+        assertTrue(ResilientPaymentProvider.isOutage(new ApiException("overloaded", "req_1", null, 503, null)));
+        assertFalse(ResilientPaymentProvider.isOutage(
+                new CardException("declined", "req_2", "card_declined", null, "generic_decline", null, 402, null)));
+        assertFalse(ResilientPaymentProvider.isOutage(new ApiException("bad", "req_3", null, 400, null)));
+        assertTrue(ResilientPaymentProvider.isOutage(new RuntimeException(new IOException("Connection reset"))));
+        assertFalse(ResilientPaymentProvider.isOutage(new IllegalArgumentException("bad amount")));
+    }
+
+    @Test
+    void fastFailsAreNotStoredByTheIdempotencyStore() throws Exception {
+        PaymentsProperties props = new PaymentsProperties();
+        props.getIdempotency().setFile("");
+        IdempotencyStore store = new IdempotencyStore(props);
+        ResilientPaymentProvider p = wrap(new SocketTimeoutException("Read timed out"));
+        for (int i = 0; i < 4; i++) {
+            assertThrows(SocketTimeoutException.class, () -> p.authorize(new PaymentRequest()));
+        }
+        assertThrows(ProviderUnavailableException.class,
+                () -> store.execute("idem-1", () -> p.authorize(new PaymentRequest())));
+        PaymentResponse retried = store.execute("idem-1", () -> PaymentResponse.of(PaymentResponse.Status.AUTHORIZED, "Stripe"));
+        assertEquals(PaymentResponse.Status.AUTHORIZED, retried.getStatus());
+    }
+
+    private ResilientPaymentProvider wrap(Exception error) {
+        PaymentsProperties.Resilience.Settings cfg = new PaymentsProperties.Resilience.Settings();
+        cfg.setWindowSize(4);
+        cfg.setMinCalls(4);
+        return new ResilientPaymentProvider("card", "Stripe", new PaymentProvider() {
+            @Override
+            public PaymentResponse authorize(PaymentRequest req, AuthorizationContext ctx) throws Exception {
+                calls.incrementAndGet();
+                throw error;
+            }
+
+            @Override
+            public PaymentResponse capture(String intentId) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public PaymentResponse refund(String paymentId, Integer amount) {
+                throw new UnsupportedOperationException();
+            }
+        }, cfg);
+    }
+}
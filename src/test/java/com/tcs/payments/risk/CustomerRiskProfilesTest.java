@@ -0,0 +1,92 @@
+package com.tcs.payments.risk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.tcs.payments.model.Customer;
+import com.tcs.payments.model.PaymentRequest;
+import com.tcs.payments.risk.VelocityTracker.Key;
+
+class CustomerRiskProfilesTest {
+
+    private Path dir;
+    private Path file;
+    private Denylist denylist;
+    private CustomerRiskProfiles profiles;
+    private final FraudEngine.Verdict verdict = new FraudEngine.Verdict();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dir = Files.createTempDirectory("profiles-test");
+        file = dir.resolve("denylist.txt");
+        Files.writeString(file, "email:bad@example.com\ncardToken:pm_stolen\n");
+        denylist = new Denylist(file.toString(), 0, 1_000);
+        profiles = new CustomerRiskProfiles(denylist);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        denylist.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void listedTokenDoesNotStickToTheCustomerId() {
+        profiles.check(request("cus_1", "good@example.com", "pm_stolen"), verdict);
+        assertEquals(1 << Key.CARD_TOKEN.ordinal(), verdict.denylisted);
+        assertTrue(verdict.customerDenylisted);
+
+        // Anyone can send cus_1; the next clean request under it must not inherit the hit
+        profiles.check(request("cus_1", "good@example.com", "pm_clean"), verdict);
+        assertEquals(0, verdict.denylisted);
+        assertFalse(verdict.customerDenylisted);
+    }
+
+    @Test
+    void listedEmailFlagsTheCustomerUntilItIsRemoved() throws Exception {
+        profiles.check(request("cus_2", "bad@example.com", "pm_clean"), verdict);
+        assertEquals(1 << Key.EMAIL.ordinal(), verdict.denylisted);
+        assertTrue(verdict.customerDenylisted);
+
+        Files.writeString(file, "-email:bad@example.com\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        denylist.refresh();
+        profiles.check(request("cus_2", "bad@example.com", "pm_clean"), verdict);
+        assertEquals(0, verdict.denylisted);
+        assertFalse(verdict.customerDenylisted);
+    }
+
+    @Test
+    void identifierListedLaterIsSeenOnTheNextCheck() throws Exception {
+        profiles.check(request("cus_3", "late@example.com", "pm_clean"), verdict);
+        assertFalse(verdict.customerDenylisted);
+
+        Files.writeString(file, "email:late@example.com\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        denylist.refresh();
+        profiles.check(request("cus_3", "late@example.com", "pm_clean"), verdict);
+        assertTrue(verdict.customerDenylisted);
+    }
+
+    private static PaymentRequest request(String id, String email, String cardToken) {
+        PaymentRequest r = new PaymentRequest();
+        Customer c = new Customer();
+        c.setId(id);
+        c.setEmail(email);
+        r.setCustomer(c);
+        r.setCardToken(cardToken);
+        return r;
+    }
+}
@@ -0,0 +1,91 @@
+package com.tcs.payments.risk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.tcs.payments.risk.VelocityTracker.Key;
+
+class DenylistTest {
+
+    private Path dir;
+    private Path file;
+    private Denylist denylist;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dir = Files.createTempDirectory("denylist-test");
+        file = dir.resolve("denylist.txt");
+        Files.writeString(file, "email:kept@example.com\nemail:dropped@example.com\n");
+        denylist = new Denylist(file.toString(), 0, 1_000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        denylist.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void lookupsNeverSeeAHalfBuiltReplacement() throws Exception {
+        // Listed entry last, so a reader on the tables being built would miss it for most of the rebuild
+        StringBuilder big = new StringBuilder();
+        for (int i = 0; i < 200_000; i++) big.append("cardToken:pm_").append(i).append('\n');
+        big.append("email:kept@example.com\n");
+        Path next = dir.resolve("denylist.next");
+        Files.writeString(next, big, StandardCharsets.UTF_8);
+
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicLong misses = new AtomicLong();
+        Thread reader = new Thread(() -> {
+            while (!stop.get()) {
+                if (!denylist.contains(Key.EMAIL, "kept@example.com")) misses.incrementAndGet();
+            }
+        });
+        reader.start();
+        try {
+            Files.move(next, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            denylist.refresh();
+        } finally {
+            stop.set(true);
+            reader.join();
+        }
+
+        assertEquals(0, misses.get());
+        assertTrue(denylist.contains(Key.CARD_TOKEN, "pm_199999"));
+        assertFalse(denylist.contains(Key.EMAIL, "dropped@example.com"));
+    }
+
+    @Test
+    void appendsThatOutgrowTheIndexAreVisibleAfterRefresh() throws Exception {
+        long before = denylist.generation();
+        StringBuilder more = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) more.append("cardToken:pm_").append(i).append('\n');
+        more.append("-email:dropped@example.com\n");
+        Files.writeString(file, more, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        denylist.refresh();
+
+        assertTrue(denylist.generation() > before);
+        assertTrue(denylist.contains(Key.EMAIL, "kept@example.com"));
+        assertTrue(denylist.contains(Key.CARD_TOKEN, "pm_0"));
+        assertTrue(denylist.contains(Key.CARD_TOKEN, "pm_4999"));
+        assertFalse(denylist.contains(Key.EMAIL, "dropped@example.com"));
+        assertEquals(5_001L, denylist.describe().get("entries"));
+    }
+}
@@ -0,0 +1,59 @@
+package com.tcs.payments.risk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.tcs.payments.model.PaymentRequest;
+
+class FraudEngineDeadlineTest {
+
+    /** Velocity counting that takes far longer than the deadline. */
+    private static final class SlowVelocity extends VelocityTracker {
+        SlowVelocity() {
+            super(true, 1_000, 4, 1024);
+        }
+
+        @Override
+        public void record(PaymentRequest req, long nowMillis, int[] counts) {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.record(req, nowMillis, counts);
+        }
+    }
+
+    @Test
+    void deadlineAlsoBoundsTheVelocityGroup() {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            FraudEngine engine = FraudEngine.withRules(null, new SlowVelocity(), null, executor, 20,
+                    FraudEngine.Action.REQUEST_3DS);
+            long start = System.nanoTime();
+            FraudEngine.Verdict v = engine.evaluate(new PaymentRequest());
+            long tookMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertTrue(tookMillis < 400, "evaluate waited for the slow group: " + tookMillis + " ms");
+            assertEquals(1 << FraudEngine.CheckGroup.VELOCITY.ordinal(), v.timedOut);
+            assertTrue(v.reasons.contains("timeout_velocity"), String.valueOf(v.reasons));
+            assertEquals(FraudEngine.Action.REQUEST_3DS, v.action);
+            for (int c : v.velocity) assertEquals(0, c);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void withoutAnExecutorGroupsRunInlineWithoutADeadline() {
+        FraudEngine engine = FraudEngine.withRules(null, new SlowVelocity(), null, null, 20, FraudEngine.Action.REVIEW);
+        FraudEngine.Verdict v = engine.evaluate(new PaymentRequest());
+        assertEquals(0, v.timedOut);
+    }
+}
@@ -0,0 +1,120 @@
+package com.tcs.payments.risk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.tcs.payments.security.ThreeDSDecider;
+
+class RiskMetaCodecTest {
+
+    @Test
+    void typicalVerdictsRoundTrip() {
+        FraudEngine.Verdict v = verdict(70, FraudEngine.Action.REQUEST_3DS, "high_amount", "generic_coupon");
+        ThreeDSDecider.Decision d = new ThreeDSDecider().decide(ThreeDSDecider.Pref.RISK_BASED, v.action);
+        RiskMetaCodec.RiskMeta m = roundTrip(v, d);
+        assertTrue(m.request3ds);
+        assertTrue(m.challengePreferred);
+        assertEquals("risk_based", m.threeDsReason);
+
+        assertEquals(4, RiskMetaCodec.encode(verdict(5, FraudEngine.Action.ALLOW, "generic_coupon"), decision(false, false, null)).length);
+        assertNull(roundTrip(verdict(0, FraudEngine.Action.ALLOW), decision(false, false, null)).threeDsReason);
+        // Every known reason at once
+        roundTrip(verdict(99, FraudEngine.Action.BLOCK, RiskMetaCodec.REASONS), decision(false, false, "blocked"));
+    }
+
+    @Test
+    void customReasonsRoundTripInOrderAfterKnownOnes() {
+        FraudEngine.Verdict v = verdict(40, FraudEngine.Action.REVIEW, "rule:night_shift", "high_amount", "", "ünïcode_reason",
+                "timeout_denylist", "r".repeat(200));
+        RiskMetaCodec.RiskMeta m = roundTrip(v, decision(false, false, null));
+        assertEquals(List.of("high_amount", "timeout_denylist", "rule:night_shift", "", "ünïcode_reason", "r".repeat(200)),
+                m.reasons);
+    }
+
+    @Test
+    void custom3dsReasonsRoundTrip() {
+        FraudEngine.Verdict v = verdict(10, FraudEngine.Action.ALLOW, "generic_coupon");
+        assertEquals("exemption_low_value", roundTrip(v, decision(false, false, "exemption_low_value")).threeDsReason);
+        assertEquals("", roundTrip(v, decision(true, false, "")).threeDsReason);
+        // Custom 3DS reason together with custom verdict reasons
+        FraudEngine.Verdict custom = verdict(10, FraudEngine.Action.REVIEW, "rule:a", "velocity_email");
+        RiskMetaCodec.RiskMeta m = roundTrip(custom, decision(true, true, "issuer_mandate"));
+        assertEquals("issuer_mandate", m.threeDsReason);
+        assertEquals(List.of("velocity_email", "rule:a"), m.reasons);
+        for (String known : new String[] {"blocked", "risk_based", "prefer_not"}) {
+            assertEquals(known, roundTrip(v, decision(false, false, known)).threeDsReason);
+        }
+    }
+
+    @Test
+    void scoresRoundTripAcrossTheIntRange() {
+        for (int score : new int[] {0, 1, 127, 128, 16_384, -1, -50, Integer.MIN_VALUE, Integer.MAX_VALUE}) {
+            assertEquals(score, roundTrip(verdict(score, FraudEngine.Action.ALLOW), decision(false, false, null)).score);
+        }
+    }
+
+    @Test
+    void encodesAtAnOffsetInALargerBuffer() {
+        FraudEngine.Verdict v = verdict(-3, FraudEngine.Action.REVIEW, "rule:x", "denylisted");
+        ThreeDSDecider.Decision d = decision(true, false, "custom");
+        byte[] buf = new byte[7 + RiskMetaCodec.sizeOf(v, d) + 5];
+        Arrays.fill(buf, (byte) 0x5A);
+        int end = RiskMetaCodec.encode(v, d, buf, 7);
+        assertEquals(7 + RiskMetaCodec.sizeOf(v, d), end);
+        assertEquals(0x5A, buf[end]);
+        assertEquals(0x5A, buf[6]);
+        RiskMetaCodec.RiskMeta m = RiskMetaCodec.decode(buf, 7, end - 7);
+        assertEquals(List.of("denylisted", "rule:x"), m.reasons);
+        assertEquals("custom", m.threeDsReason);
+    }
+
+    @Test
+    void rejectsTruncatedAndUnknownVersions() {
+        byte[] full = RiskMetaCodec.encode(verdict(300, FraudEngine.Action.REVIEW, "rule:x"), decision(false, false, null));
+        for (int len = 0; len < full.length; len++) {
+            int n = len;
+            assertThrows(IllegalArgumentException.class, () -> RiskMetaCodec.decode(full, 0, n));
+        }
+        byte[] v2 = full.clone();
+        v2[0] = 2;
+        assertThrows(IllegalArgumentException.class, () -> RiskMetaCodec.decode(v2));
+    }
+
+    /** Encodes, checks sizeOf, decodes and checks every field that was written. */
+    private static RiskMetaCodec.RiskMeta roundTrip(FraudEngine.Verdict v, ThreeDSDecider.Decision d) {
+        byte[] encoded = RiskMetaCodec.encode(v, d);
+        assertEquals(RiskMetaCodec.sizeOf(v, d), encoded.length);
+        RiskMetaCodec.RiskMeta m = RiskMetaCodec.decode(encoded);
+        assertEquals(v.score, m.score);
+        assertEquals(v.action, m.action);
+        assertEquals(v.reasons.size(), m.reasons.size());
+        assertTrue(m.reasons.containsAll(v.reasons));
+        assertEquals(d.request3ds, m.request3ds);
+        assertEquals(d.challengePreferred, m.challengePreferred);
+        assertEquals(d.reason, m.threeDsReason);
+        return m;
+    }
+
+    private static FraudEngine.Verdict verdict(int score, FraudEngine.Action action, String... reasons) {
+        FraudEngine.Verdict v = new FraudEngine.Verdict();
+        v.score = score;
+        v.action = action;
+        v.reasons = List.of(reasons);
+        return v;
+    }
+
+    private static ThreeDSDecider.Decision decision(boolean request3ds, boolean challengePreferred, String reason) {
+        ThreeDSDecider.Decision d = new ThreeDSDecider.Decision();
+        d.request3ds = request3ds;
+        d.challengePreferred = challengePreferred;
+        d.reason = reason;
+        return d;
+    }
+}
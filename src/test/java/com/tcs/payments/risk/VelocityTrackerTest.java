@@ -0,0 +1,96 @@
+package com.tcs.payments.risk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.tcs.payments.model.Customer;
+import com.tcs.payments.model.PaymentRequest;
+import com.tcs.payments.risk.VelocityTracker.Key;
+import com.tcs.payments.risk.VelocityTracker.Window;
+
+class VelocityTrackerTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    private final int[] counts = new int[VelocityTracker.DIMENSIONS];
+
+    @Test
+    void freshKeysAreExactWhileTheExactTierHasRoom() {
+        VelocityTracker t = new VelocityTracker(true, 100_000, 4, 1024);
+        // Enough other traffic to push every narrow sketch cell well above 1
+        for (int i = 0; i < 5_000; i++) t.record(request("user" + i + "@example.com", "pm_" + i), NOW, counts);
+        t.record(request("new@example.com", "pm_new"), NOW, counts);
+        assertEquals(1, counts[VelocityTracker.dimension(Key.EMAIL, Window.MINUTE)]);
+        assertEquals(1, counts[VelocityTracker.dimension(Key.CARD_TOKEN, Window.DAY)]);
+        for (int i = 0; i < 4; i++) t.record(request("new@example.com", "pm_new"), NOW + i, counts);
+        assertEquals(5, counts[VelocityTracker.dimension(Key.EMAIL, Window.HOUR)]);
+    }
+
+    @Test
+    void longTailKeysAreNotOverCountedByTheSketch() {
+        // Exact tier full after 100 keys; everything else is answered by a deliberately narrow sketch
+        VelocityTracker t = new VelocityTracker(true, 100, 4, 1024);
+        for (int i = 0; i < 200_000; i++) {
+            t.record(request("user" + i + "@example.com", "pm_" + i), NOW + i / 10, counts);
+        }
+        long now = NOW + 20_000;
+        int overCounted = 0;
+        for (int i = 0; i < 1_000; i++) {
+            t.record(request("tail" + i + "@example.com", "pm_tail_" + i), now, counts);
+            for (Window w : Window.values()) {
+                if (counts[VelocityTracker.dimension(Key.EMAIL, w)] > 1) overCounted++;
+            }
+        }
+        assertEquals(0, overCounted);
+    }
+
+    @Test
+    void burstsOutsideTheExactTierAreStillCounted() {
+        VelocityTracker t = new VelocityTracker(true, 100, 4, 8192);
+        for (int i = 0; i < 1_000; i++) t.record(request("user" + i + "@example.com", "pm_" + i), NOW, counts);
+        for (int i = 0; i < 50; i++) t.record(request("card-tester@example.com", "pm_" + i), NOW + 1_000, counts);
+        // True count 50; the sketch reports it minus its error bound (e * 1,050 / 8192 -> 1)
+        int perMinute = counts[VelocityTracker.dimension(Key.EMAIL, Window.MINUTE)];
+        assertTrue(perMinute >= 49 && perMinute <= 50, "per minute " + perMinute);
+    }
+
+    @Test
+    void heavyHittersTakeTheirPlaceInAFullExactTier() {
+        VelocityTracker t = new VelocityTracker(true, 100, 4, 8192);
+        // One-off keys fill the exact tier first
+        for (int i = 0; i < 1_000; i++) t.record(request("user" + i + "@example.com", "pm_" + i), NOW, counts);
+        t.record(request("heavy@example.com", "pm_h0"), NOW + 1_000, counts);
+        assertFalse(t.isExact(Key.EMAIL, "heavy@example.com"));
+        for (int i = 1; i < 5; i++) t.record(request("heavy@example.com", "pm_h" + i), NOW + 1_000 + i, counts);
+        assertTrue(t.isExact(Key.EMAIL, "heavy@example.com"));
+        assertEquals(100, t.exactKeys());
+
+        // More one-off keys do not push it out again
+        for (int i = 0; i < 1_000; i++) t.record(request("late" + i + "@example.com", "pm_late" + i), NOW + 2_000, counts);
+        assertTrue(t.isExact(Key.EMAIL, "heavy@example.com"));
+        assertEquals(100, t.exactKeys());
+        t.record(request("heavy@example.com", "pm_h5"), NOW + 3_000, counts);
+        // True count 6; until its rings cover the day, attempts from before promotion come from the sketch (bound 1)
+        int perDay = counts[VelocityTracker.dimension(Key.EMAIL, Window.DAY)];
+        assertTrue(perDay >= 5 && perDay <= 6, "per day " + perDay);
+    }
+
+    @Test
+    void sketchWidthFollowsThroughput() {
+        assertEquals(8192, VelocityTracker.sketchWidth(50));
+        assertEquals(16384, VelocityTracker.sketchWidth(100));
+        assertEquals(256, VelocityTracker.sketchWidth(1));
+    }
+
+    private static PaymentRequest request(String email, String cardToken) {
+        PaymentRequest r = new PaymentRequest();
+        Customer c = new Customer();
+        c.setEmail(email);
+        r.setCustomer(c);
+        r.setCardToken(cardToken);
+        return r;
+    }
+}
@@ -0,0 +1,161 @@
+package com.tcs.payments.security;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CryptoEngineKeyRingTest {
+
+    static final char[] PASSWORD = "changeit".toCharArray();
+    static final byte[] DEFAULT_KEY = key("default");
+    static final byte[] PLAINTEXT = "{\"bin\":\"424242\",\"last4\":\"4242\"}".getBytes(StandardCharsets.UTF_8);
+
+    private Path dir;
+    private Path keystore;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dir = Files.createTempDirectory("keyring-test");
+        keystore = dir.resolve("encmeta.p12");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void legacyBlobsWithoutAHeaderAreReadWithTheDefaultKey() throws Exception {
+        byte[] legacy = legacyBlob(new byte[] {9, 8, 7, 6, 5, 4, 3, 2, 1, 0, 1, 2}, PLAINTEXT);
+
+        CryptoEngine defaultOnly = new CryptoEngine(DEFAULT_KEY);
+        assertArrayEquals(PLAINTEXT, defaultOnly.decrypt(legacy));
+        assertEquals(KeyRing.DEFAULT_ID, defaultOnly.keyId(legacy));
+        // Even with "default" active a headerless blob is rewritten, to the enveloped format
+        assertFalse(defaultOnly.isCurrent(legacy));
+        CryptoEngine.Opened upgraded = defaultOnly.open(legacy);
+        assertTrue(upgraded.rekeyed);
+        assertEquals(KeyRing.DEFAULT_ID, defaultOnly.keyId(upgraded.blob));
+        assertTrue(defaultOnly.isCurrent(upgraded.blob));
+
+        writeKeystore(keystore, "k1");
+        CryptoEngine rotated = engine();
+        assertArrayEquals(PLAINTEXT, rotated.decrypt(legacy));
+        assertFalse(rotated.isCurrent(legacy));
+        CryptoEngine.Opened o = rotated.open(legacy);
+        assertTrue(o.rekeyed);
+        assertEquals("k1", rotated.keyId(o.blob));
+        assertArrayEquals(PLAINTEXT, rotated.decrypt(o.blob));
+    }
+
+    @Test
+    void unknownKeyIdsAreReported() throws Exception {
+        writeKeystore(keystore, "k1");
+        byte[] blob = engine().encrypt(PLAINTEXT);
+
+        CryptoEngine defaultOnly = new CryptoEngine(DEFAULT_KEY);
+        assertEquals("k1", defaultOnly.keyId(blob));
+        assertFalse(defaultOnly.isCurrent(blob));
+        GeneralSecurityException e = assertThrows(GeneralSecurityException.class, () -> defaultOnly.decrypt(blob));
+        assertTrue(e.getMessage().contains("Unknown encMeta key id k1"), e.getMessage());
+    }
+
+    @Test
+    void legacyIvsThatLookLikeAHeaderFallBackToTheDefaultKey() throws Exception {
+        writeKeystore(keystore, "k1");
+        CryptoEngine engine = engine();
+
+        // IV starts with the "default" header: tried as an envelope first, then as a legacy blob
+        byte[] iv = Arrays.copyOf(new KeyRing.DataKey(KeyRing.DEFAULT_ID, DEFAULT_KEY).header, 12);
+        byte[] asDefault = legacyBlob(iv, PLAINTEXT);
+        assertArrayEquals(PLAINTEXT, engine.decrypt(asDefault));
+
+        // IV starts with a header naming a key that is not in the ring
+        byte[] asUnknown = legacyBlob(new byte[] {CryptoEngine.ENVELOPE_MAGIC, 2, 'z', 'z', 0, 0, 0, 0, 0, 0, 0, 1}, PLAINTEXT);
+        assertArrayEquals(PLAINTEXT, engine.decrypt(asUnknown));
+
+        // IV starts with the active key's own header
+        byte[] asActive = legacyBlob(new byte[] {CryptoEngine.ENVELOPE_MAGIC, 2, 'k', '1', 0, 0, 0, 0, 0, 0, 0, 1}, PLAINTEXT);
+        assertArrayEquals(PLAINTEXT, engine.decrypt(asActive));
+    }
+
+    @Test
+    void openReencryptsUnderTheKeyActiveAfterAReload() throws Exception {
+        writeKeystore(keystore, "k1");
+        CryptoEngine engine = engine();
+        byte[] underK1 = engine.encrypt(PLAINTEXT);
+        CryptoEngine.Opened before = engine.open(underK1);
+        assertFalse(before.rekeyed);
+        assertSame(underK1, before.blob);
+
+        writeKeystore(keystore, "k1", "k2");
+        engine.reload();
+        assertEquals("k2", engine.describe().get("active"));
+
+        CryptoEngine.Opened after = engine.open(underK1);
+        assertTrue(after.rekeyed);
+        assertArrayEquals(PLAINTEXT, after.plaintext);
+        assertEquals("k2", engine.keyId(after.blob));
+        assertTrue(engine.isCurrent(after.blob));
+        assertArrayEquals(PLAINTEXT, engine.decrypt(after.blob));
+        assertSame(after.blob, engine.rekey(after.blob));
+    }
+
+    private CryptoEngine engine() throws Exception {
+        return new CryptoEngine(DEFAULT_KEY, keystore.toString(), new String(PASSWORD), null, 0);
+    }
+
+    /** Keystore holding key(id) for each id, newest last, so the last id is the active one. */
+    static void writeKeystore(Path file, String... ids) throws Exception {
+        KeyStore ks = KeyStore.getInstance("PKCS12");
+        ks.load(null, PASSWORD);
+        for (String id : ids) {
+            ks.setEntry(id, new KeyStore.SecretKeyEntry(new SecretKeySpec(key(id), "AES")),
+                    new KeyStore.PasswordProtection(PASSWORD));
+            Thread.sleep(5);
+        }
+        try (OutputStream out = Files.newOutputStream(file)) {
+            ks.store(out, PASSWORD);
+        }
+    }
+
+    /** IV || ciphertext || tag under the default key, the format written before key ids. */
+    static byte[] legacyBlob(byte[] iv, byte[] plaintext) throws Exception {
+        Cipher c = Cipher.getInstance("AES/GCM/NoPadding");
+        c.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(DEFAULT_KEY, "AES"), new GCMParameterSpec(128, iv));
+        byte[] body = c.doFinal(plaintext);
+        byte[] blob = Arrays.copyOf(iv, iv.length + body.length);
+        System.arraycopy(body, 0, blob, iv.length, body.length);
+        return blob;
+    }
+
+    static byte[] key(String id) {
+        byte[] k = new byte[32];
+        byte[] seed = id.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < k.length; i++) k[i] = (byte) (seed[i % seed.length] + i);
+        return k;
+    }
+}
@@ -0,0 +1,90 @@
+package com.tcs.payments.security;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * CryptoEngine must never repeat a GCM nonce under concurrency: platform and (on JDK 21+) virtual threads
+ * encrypt through one shared engine, and every IV is collected and checked for duplicates.
+ */
+class CryptoEngineNonceTest {
+
+    private static final int THREADS = 16;
+    private static final int PER_THREAD = 20_000;
+
+    @Test
+    void noNonceRepeatsAcrossThreads() throws Exception {
+        CryptoEngine engine = new CryptoEngine(new byte[32]);
+        byte[] plaintext = {1};
+        // The first 4 nonce bytes are fixed per engine; the other 8 must never repeat
+        int[] fixed = new int[THREADS];
+        long[][] counters = new long[THREADS][PER_THREAD];
+        ExecutorService platform = Executors.newFixedThreadPool(THREADS);
+        ExecutorService virtual = virtualThreads();
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int id = t;
+                Runnable work = () -> {
+                    try {
+                        for (int i = 0; i < PER_THREAD; i++) {
+                            byte[] blob = engine.encrypt(plaintext);
+                            // IV follows the key id header
+                            ByteBuffer iv = ByteBuffer.wrap(blob, 2 + blob[1], 12);
+                            int f = iv.getInt();
+                            if (i == 0) fixed[id] = f;
+                            else if (f != fixed[id]) throw new IllegalStateException("Fixed field changed");
+                            counters[id][i] = iv.getLong();
+                        }
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                };
+                // Half platform, half virtual threads
+                workers.add((t % 2 == 1 && virtual != null ? virtual : platform).submit(work));
+            }
+            for (Future<?> w : workers) w.get();
+        } finally {
+            platform.shutdown();
+            if (virtual != null) virtual.shutdown();
+        }
+
+        int[] sameField = new int[THREADS];
+        Arrays.fill(sameField, fixed[0]);
+        assertArrayEquals(sameField, fixed, "fixed field differs between threads");
+        long[] all = new long[THREADS * PER_THREAD];
+        for (int t = 0; t < THREADS; t++) System.arraycopy(counters[t], 0, all, t * PER_THREAD, PER_THREAD);
+        Arrays.sort(all);
+        long duplicates = 0;
+        for (int i = 1; i < all.length; i++) {
+            if (all[i] == all[i - 1]) duplicates++;
+        }
+        assertEquals(0, duplicates, "repeated nonces");
+    }
+
+    @Test
+    void roundTrips() throws Exception {
+        CryptoEngine engine = new CryptoEngine(new byte[32]);
+        byte[] plaintext = "risk".getBytes();
+        assertArrayEquals(plaintext, engine.decrypt(engine.encrypt(plaintext)));
+    }
+
+    // Same lookup as ExecutionConfig: the build targets 17, virtual threads need 21
+    private static ExecutorService virtualThreads() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.tcs.payments.security;
+
+import static com.tcs.payments.security.CryptoEngineKeyRingTest.DEFAULT_KEY;
+import static com.tcs.payments.security.CryptoEngineKeyRingTest.PASSWORD;
+import static com.tcs.payments.security.CryptoEngineKeyRingTest.PLAINTEXT;
+import static com.tcs.payments.security.CryptoEngineKeyRingTest.legacyBlob;
+import static com.tcs.payments.security.CryptoEngineKeyRingTest.writeKeystore;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.tcs.payments.service.PaymentsProperties;
+
+class EncMetaRekeyJobTest {
+
+    private Path dir;
+    private PaymentsProperties props;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dir = Files.createTempDirectory("rekey-test");
+        props = new PaymentsProperties();
+        props.getSecurity().getRekey().setDir(dir.toString());
+        // Small batches on several workers, so output order depends on the reassembly
+        props.getSecurity().getRekey().setThreads(3);
+        props.getSecurity().getRekey().setBatchLines(2);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void mixedInputIsRekeyedInOrder() throws Exception {
+        Path keystore = dir.resolve("encmeta.p12");
+        writeKeystore(keystore, "k1");
+        CryptoEngine old = new CryptoEngine(DEFAULT_KEY, keystore.toString(), new String(PASSWORD), null, 0);
+        String underK1 = b64(old.encrypt(PLAINTEXT));
+        String underDefault = b64(new CryptoEngine(DEFAULT_KEY).encrypt(PLAINTEXT));
+        String legacy = b64(legacyBlob(new byte[12], PLAINTEXT));
+        byte[] tampered = old.encrypt(PLAINTEXT);
+        tampered[tampered.length - 1] ^= 1;
+
+        writeKeystore(keystore, "k1", "k2");
+        CryptoEngine crypto = new CryptoEngine(DEFAULT_KEY, keystore.toString(), new String(PASSWORD), null, 0);
+        String underK2 = b64(crypto.encrypt(PLAINTEXT));
+
+        List<String> in = List.of(
+                legacy,
+                "pay_1," + underK1,
+                "pay_2\t" + underDefault,
+                "pay_3," + underK2,
+                "",
+                "pay_4,not base64!",
+                "pay_5,with,commas," + b64(tampered),
+                "pay_6,",
+                "pay_7\t" + underK1);
+        Files.write(dir.resolve("job-1.in"), in, StandardCharsets.UTF_8);
+
+        EncMetaRekeyJob job = new EncMetaRekeyJob(crypto, props);
+        job.start("job-1");
+        Map<String, Object> status = awaitDone(job, "job-1");
+        assertEquals("DONE", status.get("state"));
+        assertEquals("k2", status.get("activeKey"));
+        assertEquals((long) in.size(), status.get("lines"));
+        assertEquals(4L, status.get("rekeyed"));
+        assertEquals(1L, status.get("alreadyCurrent"));
+        assertEquals(2L, status.get("failed"));
+
+        List<String> out = Files.readAllLines(dir.resolve("job-1.out"), StandardCharsets.UTF_8);
+        assertEquals(in.size(), out.size());
+        assertFalse(Files.exists(dir.resolve("job-1.out.tmp")));
+        // Prefixes kept, blobs under older keys replaced by k2 blobs of the same plaintext
+        for (int i : new int[] {0, 1, 2, 8}) {
+            String line = out.get(i);
+            assertTrue(line.startsWith(prefix(in.get(i))), line);
+            assertRekeyed(crypto, line);
+        }
+        // Current, blank and undecryptable lines copied unchanged
+        for (int i : new int[] {3, 4, 5, 6, 7}) assertEquals(in.get(i), out.get(i));
+
+        // A second pass finds everything current
+        Files.move(dir.resolve("job-1.out"), dir.resolve("job-2.in"));
+        job.start("job-2");
+        status = awaitDone(job, "job-2");
+        assertEquals(0L, status.get("rekeyed"));
+        assertEquals(5L, status.get("alreadyCurrent"));
+        assertEquals(Files.readAllLines(dir.resolve("job-2.in")), Files.readAllLines(dir.resolve("job-2.out")));
+    }
+
+    private static void assertRekeyed(CryptoEngine crypto, String line) throws Exception {
+        byte[] blob = Base64.getDecoder().decode(line.substring(prefix(line).length()));
+        assertEquals("k2", crypto.keyId(blob));
+        assertArrayEquals(PLAINTEXT, crypto.decrypt(blob));
+    }
+
+    private static String prefix(String line) {
+        return line.substring(0, Math.max(line.lastIndexOf(','), line.lastIndexOf('\t')) + 1);
+    }
+
+    private static String b64(byte[] blob) {
+        return Base64.getEncoder().encodeToString(blob);
+    }
+
+    private static Map<String, Object> awaitDone(EncMetaRekeyJob job, String jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        Map<String, Object> status = job.status(jobId);
+        while ("RUNNING".equals(status.get("state")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            status = job.status(jobId);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,130 @@
+package com.tcs.payments.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+/** PciScanner against the regexes PciGuardFilter used before it, over every entry point. */
+class PciScannerTest {
+
+    // The old checks, with find() for their ".*" wrapping: the scanner reads past the first line on purpose
+    private static final Pattern OLD_PAN = Pattern.compile("\\b\\d{12,19}\\b");
+    private static final Pattern OLD_KEYS = Pattern.compile("\\b(cvv|cvc)\\b|\\b(expiry|expMonth|expYear)\\b|\\b(cardNumber)\\b");
+
+    private static final String[] EDGES = {"", " ", "\"", ":", "-", "\n", "_", "a", "Z", "7", "0", "\u00e9", "\u20ac", "\u00a0"};
+
+    @Test
+    void matchesTheOldRegexesWithoutLuhn() {
+        check(new PciScanner(false), false);
+    }
+
+    @Test
+    void matchesTheOldRegexesWithLuhnOnPans() {
+        check(new PciScanner(true), true);
+    }
+
+    @Test
+    void panLengthAndLuhnBoundaries() {
+        PciScanner scanner = new PciScanner(true);
+        assertFalse(scanner.containsPciData(utf8(json(pan(11, true)))));
+        assertTrue(scanner.containsPciData(utf8(json(pan(12, true)))));
+        assertTrue(scanner.containsPciData(utf8(json(pan(19, true)))));
+        assertFalse(scanner.containsPciData(utf8(json(pan(20, true)))));
+        assertFalse(scanner.containsPciData(utf8(json(pan(16, false)))));
+        // A phone number the old regex rejected
+        assertFalse(scanner.containsPciData(utf8("{\"phone\":\"+919812345678\"}")));
+        assertTrue(new PciScanner(false).containsPciData(utf8("{\"phone\":\"+919812345678\"}")));
+    }
+
+    private static void check(PciScanner scanner, boolean luhn) {
+        int checked = 0;
+        for (String core : cores()) {
+            for (String before : EDGES) {
+                for (String after : EDGES) {
+                    String text = before + core + after;
+                    // Bytes >= 0x80 are boundaries for the scanner, while \b treats letters like é as word characters
+                    boolean expected = old(text.replaceAll("[^\\x00-\\x7F]", " "), luhn);
+                    String body = "{\"x\":\"" + text + "\"}";
+                    assertEquals(expected, scanner.containsPciData(utf8(body)), "byte[] " + body);
+                    // Bare text between digits: reading past either end would change the token
+                    assertEquals(expected, scanner.containsPciData(window(text)), "ByteBuffer " + text);
+                    char[] chars = ("99" + text + "99").toCharArray();
+                    assertEquals(expected, scanner.containsPciData(chars, 2, text.length()), "char[] " + text);
+                    checked++;
+                }
+            }
+        }
+        assertTrue(checked > 1_000);
+    }
+
+    private static boolean old(String body, boolean luhn) {
+        if (OLD_KEYS.matcher(body).find()) return true;
+        for (Matcher m = OLD_PAN.matcher(body); m.find(); ) {
+            if (!luhn || luhnValid(m.group())) return true;
+        }
+        return false;
+    }
+
+    private static List<String> cores() {
+        List<String> cores = new ArrayList<>();
+        for (int len : new int[] {11, 12, 13, 16, 19, 20}) {
+            cores.add(pan(len, true));
+            cores.add(pan(len, false));
+        }
+        for (String k : PciScanner.FORBIDDEN_KEYS) {
+            cores.add(k);
+            cores.add(k.toUpperCase());
+            cores.add(k + "s");
+            cores.add("x" + k);
+            cores.add(k.substring(0, k.length() - 1));
+        }
+        cores.add("ExpMonth");
+        cores.add("card_number");
+        return cores;
+    }
+
+    /** Digits of the given length that pass (or fail) the Luhn check. */
+    private static String pan(int len, boolean valid) {
+        StringBuilder sb = new StringBuilder("4");
+        for (int i = 1; i < len - 1; i++) sb.append((char) ('0' + (i * 7) % 10));
+        for (char d = '0'; d <= '9'; d++) {
+            if (luhnValid(sb.toString() + d) == valid) return sb.append(d).toString();
+        }
+        throw new AssertionError();
+    }
+
+    private static boolean luhnValid(String digits) {
+        int sum = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            int d = digits.charAt(digits.length() - 1 - i) - '0';
+            if (i % 2 == 1) d = d < 5 ? d * 2 : d * 2 - 9;
+            sum += d;
+        }
+        return sum % 10 == 0;
+    }
+
+    /** The text as a read-only view with digits on either side. */
+    private static ByteBuffer window(String text) {
+        byte[] b = utf8(text);
+        ByteBuffer all = ByteBuffer.allocate(b.length + 8);
+        all.put(utf8("1234")).put(b).put(utf8("5678"));
+        return all.asReadOnlyBuffer().position(4).limit(4 + b.length);
+    }
+
+    private static String json(String pan) {
+        return "{\"cardToken\":\"" + pan + "\"}";
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
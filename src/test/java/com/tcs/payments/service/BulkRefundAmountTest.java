@@ -0,0 +1,39 @@
+package com.tcs.payments.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class BulkRefundAmountTest {
+
+    private final ObjectMapper json = new ObjectMapper();
+
+    @Test
+    void csvAcceptsPositiveIntegers() {
+        assertEquals(1, BulkRefundProcessor.amount("1"));
+        assertEquals(2500, BulkRefundProcessor.amount("2500"));
+        assertEquals(Integer.MAX_VALUE, BulkRefundProcessor.amount(String.valueOf(Integer.MAX_VALUE)));
+    }
+
+    @Test
+    void csvRejectsEverythingElse() {
+        for (String bad : new String[] {"0", "-5", "00", "12.5", "1e3", "abc", "+", "2147483648", "99999999999"}) {
+            assertThrows(IllegalArgumentException.class, () -> BulkRefundProcessor.amount(bad), bad);
+        }
+    }
+
+    @Test
+    void ndjsonAcceptsPositiveIntegers() throws Exception {
+        assertEquals(2500, BulkRefundProcessor.amount(json.readTree("2500")));
+    }
+
+    @Test
+    void ndjsonRejectsEverythingElse() throws Exception {
+        for (String bad : new String[] {"0", "-5", "12.5", "\"2500\"", "\"abc\"", "true", "{}", "[]", "2147483648"}) {
+            assertThrows(IllegalArgumentException.class, () -> BulkRefundProcessor.amount(json.readTree(bad)), bad);
+        }
+    }
+}
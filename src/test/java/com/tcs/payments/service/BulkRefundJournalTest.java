@@ -0,0 +1,137 @@
+package com.tcs.payments.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.tcs.payments.ledger.PaymentLedger;
+import com.tcs.payments.model.PaymentResponse;
+import com.tcs.payments.resilience.ProviderResilience;
+import com.tcs.payments.resilience.ProviderUnavailableException;
+import com.tcs.payments.risk.FraudEngine;
+import com.tcs.payments.security.CryptoEngine;
+
+class BulkRefundJournalTest {
+
+    private final List<String> refunds = new CopyOnWriteArrayList<>();
+    private final Map<String, String> keys = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> unavailable = new ConcurrentHashMap<>();
+    private Path dir;
+    private BulkRefundProcessor processor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dir = Files.createTempDirectory("bulk-refund-test");
+        PaymentsProperties props = new PaymentsProperties();
+        props.getStripe().setSecretKey("sk_test_unit");
+        props.getRazorpay().setKeyId("rzp_test_unit");
+        props.getRazorpay().setKeySecret("unit");
+        props.getSecurity().setPciMetaKeyBase64("mB0Ltl3zlH8BFn6Xp0biUHk4owazHPF4In8GKa8v6S0=");
+        props.getIdempotency().setEnabled(false);
+        props.getLedger().setEnabled(false);
+        props.getBulkRefund().setDir(dir.toString());
+        PaymentOrchestrator orchestrator = new PaymentOrchestrator(props, Runnable::run, new IdempotencyStore(props),
+                new PaymentLedger(props), new ProviderResilience(props), new InitiateMetrics(new SimpleMeterRegistry()),
+                new CryptoEngine(props), new FraudEngine(props, null, null, null)) {
+            @Override
+            public PaymentResponse refund(String provider, String paymentId, Integer amount, String idempotencyKey)
+                    throws Exception {
+                if (unavailable.containsKey(paymentId)) throw new ProviderUnavailableException("Stripe", "circuit_open");
+                refunds.add(paymentId + "/" + amount);
+                keys.merge(paymentId + "/" + amount, idempotencyKey, (a, b) -> a + "|" + b);
+                PaymentResponse r = PaymentResponse.of(PaymentResponse.Status.CAPTURED, "Stripe");
+                r.setIntentId("re_" + paymentId);
+                return r;
+            }
+        };
+        processor = new BulkRefundProcessor(orchestrator, props, new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) Files.delete(p);
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    void reorderedReuploadSkipsDoneRowsAndRetriesErrors() throws Exception {
+        unavailable.put("pi_b", true);
+        Map<String, Object> first = run("provider,paymentId,amount\nstripe,pi_a,100\nstripe,pi_b,200\nstripe,pi_c,300\n");
+        assertEquals(2L, first.get("refunded"));
+        assertEquals(1L, first.get("failed"));
+
+        unavailable.clear();
+        refunds.clear();
+        // Same job, rows reordered, one row prepended and one amount edited
+        Map<String, Object> second = run("provider,paymentId,amount\nstripe,pi_new,50\nstripe,pi_c,300\nstripe,pi_b,200\nstripe,pi_a,150\n");
+        assertEquals(1L, second.get("skippedAlreadyDone"));
+        // Rows run on a pool, so order is not fixed
+        assertEquals(3, refunds.size());
+        assertEquals(Set.of("pi_new/50", "pi_b/200", "pi_a/150"), Set.copyOf(refunds));
+        assertEquals(3L, second.get("refunded"));
+    }
+
+    @Test
+    void repeatedRowsAreSeparateRefundsWithStableKeys() throws Exception {
+        run("stripe,pi_a,100\nstripe,pi_a,100\n");
+        assertEquals(2, refunds.size());
+        String[] firstRun = keys.get("pi_a/100").split("\\|");
+        assertEquals(2, firstRun.length);
+        assertNotEquals(firstRun[0], firstRun[1]);
+
+        refunds.clear();
+        Map<String, Object> again = run("stripe,pi_a,100\nstripe,pi_a,100\nstripe,pi_a,100\n");
+        assertEquals(2L, again.get("skippedAlreadyDone"));
+        assertEquals(1, refunds.size());
+    }
+
+    @Test
+    void startedRowWithoutOutcomeNeedsReconciliation() throws Exception {
+        String key = BulkRefundProcessor.rowHash("stripe", "pi_a", 100) + ".1";
+        Files.write(dir.resolve("job1.journal"), List.of("S " + key), StandardCharsets.UTF_8);
+        Map<String, Object> out = run("stripe,pi_a,100\n");
+        assertEquals(1L, out.get("needsReconciliation"));
+        assertEquals(0, refunds.size());
+    }
+
+    @Test
+    void rowsWithCardDataAreRefusedAndNotWritten() throws Exception {
+        Map<String, Object> out = run("stripe,4242424242424242,100\n4111111111111111,pi_a,100\nstripe,pi_ok,100\n");
+        assertEquals(2L, out.get("invalid"));
+        assertEquals(List.of("pi_ok/100"), refunds);
+        String journal = Files.readString(dir.resolve("job1.journal"));
+        String results = Files.readString(dir.resolve("job1.results.ndjson"));
+        assertFalse(journal.contains("4242424242424242") || journal.contains("4111111111111111"), journal);
+        assertFalse(results.contains("4242424242424242") || results.contains("4111111111111111"), results);
+        assertTrue(results.contains("pci_data"), results);
+
+        Map<String, Object> ndjson = processor.process("job2", new ByteArrayInputStream(
+                "{\"provider\":\"stripe\",\"paymentId\":\"pi_b\",\"cvv\":\"123\"}\n".getBytes(StandardCharsets.UTF_8)), false);
+        assertEquals(1L, ndjson.get("invalid"));
+    }
+
+    private Map<String, Object> run(String csv) throws IOException {
+        return processor.process("job1", new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), true);
+    }
+}
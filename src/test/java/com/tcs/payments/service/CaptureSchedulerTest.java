@@ -0,0 +1,130 @@
+package com.tcs.payments.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.tcs.payments.ledger.PaymentLedger;
+import com.tcs.payments.model.CaptureJob;
+import com.tcs.payments.resilience.ProviderResilience;
+import com.tcs.payments.risk.FraudEngine;
+import com.tcs.payments.security.CryptoEngine;
+
+/** Runs against the real PaymentOrchestrator.capture; COD captures never leave the process. */
+class CaptureSchedulerTest {
+
+    @Test
+    void restartKeepsRecentCapturesAndDropsExpiredOnes() throws Exception {
+        Path dir = Files.createTempDirectory("capture-test");
+        Path file = dir.resolve("capture-checkpoint.log");
+        long now = System.currentTimeMillis();
+        long old = now - TimeUnit.HOURS.toMillis(100);
+        Files.write(file, List.of(
+                "Q COD cod_old",
+                "D COD cod_old CAPTURED " + old + " CAPTURED",
+                "Q COD cod_recent",
+                "D COD cod_recent CAPTURED " + (now - 1000) + " CAPTURED",
+                "Q cod cod_failed",
+                "D cod cod_failed FAILED " + now + " FAILED:card_declined"), StandardCharsets.UTF_8);
+
+        PaymentsProperties props = props(file);
+        CaptureScheduler scheduler = new CaptureScheduler(orchestrator(props), props);
+
+        List<String> compacted = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(List.of("D cod cod_recent CAPTURED " + (now - 1000) + " CAPTURED"), compacted);
+
+        Map<String, Object> out = scheduler.submit(List.of(
+                new CaptureJob("cod", "cod_recent"), new CaptureJob("COD", "cod_old"), new CaptureJob("Cod", "cod_failed")));
+        assertEquals(1, out.get("duplicates"));
+        assertEquals(2, out.get("accepted"));
+        awaitDone(scheduler, 2);
+        scheduler.shutdown();
+
+        // A second restart still knows cod_recent was captured, whatever the case it is submitted in
+        PaymentsProperties again = props(file);
+        CaptureScheduler restarted = new CaptureScheduler(orchestrator(again), again);
+        assertEquals(1, restarted.submit(List.of(new CaptureJob("COD", "cod_recent"))).get("duplicates"));
+        restarted.shutdown();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(dir);
+    }
+
+    @Test
+    void providerCaseDoesNotMatterForDedupOrCapture() throws Exception {
+        PaymentsProperties props = props(null);
+        CaptureScheduler scheduler = new CaptureScheduler(orchestrator(props), props);
+        Map<String, Object> out = scheduler.submit(List.of(
+                new CaptureJob("COD", "cod_1"), new CaptureJob("cod", "cod_1"), new CaptureJob(" Cod ", "cod_1"),
+                new CaptureJob("cod", "cod_2"), new CaptureJob("", "cod_3")));
+        assertEquals(2, out.get("accepted"));
+        assertEquals(2, out.get("duplicates"));
+        assertEquals(1, out.get("invalid"));
+        awaitDone(scheduler, 2);
+        assertEquals(2L, lane(scheduler, "cod").get("captured"));
+        assertEquals(0L, lane(scheduler, "cod").get("failed"));
+        assertEquals(1, scheduler.stats().size());
+        scheduler.shutdown();
+    }
+
+    @Test
+    void trackedJobsStayBounded() throws Exception {
+        PaymentsProperties props = props(null);
+        props.getCaptureScheduler().setMaxJobs(100);
+        props.getCaptureScheduler().getRatePerSecond().clear();
+        CaptureScheduler scheduler = new CaptureScheduler(orchestrator(props), props);
+        int accepted = 0;
+        for (int i = 0; i < 5_000; i++) {
+            Map<String, Object> out = scheduler.submit(List.of(new CaptureJob("cod", "cod_" + i)));
+            accepted += (Integer) out.get("accepted");
+            if ((Integer) out.get("rejected") > 0) Thread.sleep(1);
+        }
+        awaitDone(scheduler, accepted);
+        assertEquals((long) accepted, lane(scheduler, "cod").get("captured"));
+        assertTrue(accepted > 100, "accepted=" + accepted);
+        // Older captured jobs were forgotten to make room, so they are accepted again
+        assertEquals(1, scheduler.submit(List.of(new CaptureJob("cod", "cod_0"))).get("accepted"));
+        scheduler.shutdown();
+    }
+
+    private static PaymentsProperties props(Path checkpoint) {
+        PaymentsProperties props = new PaymentsProperties();
+        props.getStripe().setSecretKey("sk_test_unit");
+        props.getRazorpay().setKeyId("rzp_test_unit");
+        props.getRazorpay().setKeySecret("unit");
+        props.getSecurity().setPciMetaKeyBase64("mB0Ltl3zlH8BFn6Xp0biUHk4owazHPF4In8GKa8v6S0=");
+        props.getIdempotency().setEnabled(false);
+        props.getLedger().setEnabled(false);
+        props.getCaptureScheduler().setCheckpointFile(checkpoint == null ? "" : checkpoint.toString());
+        return props;
+    }
+
+    private static PaymentOrchestrator orchestrator(PaymentsProperties props) throws Exception {
+        return new PaymentOrchestrator(props, Runnable::run, new IdempotencyStore(props), new PaymentLedger(props),
+                new ProviderResilience(props), new InitiateMetrics(new SimpleMeterRegistry()),
+                new CryptoEngine(props), new FraudEngine(props, null, null, null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> lane(CaptureScheduler scheduler, String provider) {
+        return (Map<String, Object>) scheduler.stats().get(provider);
+    }
+
+    /** Waits until the cod lane has finished n jobs, captured or failed. */
+    private static void awaitDone(CaptureScheduler scheduler, long n) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            Map<String, Object> s = lane(scheduler, "cod");
+            if (s != null && (Long) s.get("captured") + (Long) s.get("failed") >= n) return;
+            Thread.sleep(5);
+        }
+    }
+}
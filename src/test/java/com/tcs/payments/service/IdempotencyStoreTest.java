@@ -0,0 +1,188 @@
+package com.tcs.payments.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcs.payments.model.PaymentResponse;
+
+class IdempotencyStoreTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void sameKeyAndRequestReplaysTheStoredResponse() throws Exception {
+        IdempotencyStore store = memoryStore(100);
+        PaymentResponse first = store.execute("k1", "fp-a", this::authorize);
+        PaymentResponse again = store.execute("k1", "fp-a", this::authorize);
+        assertEquals(first.getIntentId(), again.getIntentId());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void sameKeyWithAnotherRequestIsRefused() throws Exception {
+        IdempotencyStore store = memoryStore(100);
+        store.execute("k1", "fp-a", this::authorize);
+        assertThrows(IdempotencyStore.KeyReusedException.class, () -> store.execute("k1", "fp-b", this::authorize));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void fingerprintSurvivesARestart() throws Exception {
+        Path dir = Files.createTempDirectory("idempotency-test");
+        PaymentsProperties props = new PaymentsProperties();
+        props.getIdempotency().setFile(dir.resolve("idempotency.dat").toString());
+        props.getIdempotency().setFileSizeMb(1);
+        IdempotencyStore store = new IdempotencyStore(props);
+        store.execute("k1", "fp-a", this::authorize);
+        store.close();
+
+        IdempotencyStore reopened = new IdempotencyStore(props);
+        assertThrows(IdempotencyStore.KeyReusedException.class, () -> reopened.execute("k1", "fp-b", this::authorize));
+        assertEquals("pi_1", reopened.execute("k1", "fp-a", this::authorize).getIntentId());
+        reopened.close();
+        dir.resolve("idempotency.dat").toFile().delete();
+        dir.toFile().delete();
+    }
+
+    @Test
+    void compactionSwapsInANewFileWithEachRecordOnce() throws Exception {
+        Path dir = Files.createTempDirectory("idempotency-test");
+        Path file = dir.resolve("idempotency.dat");
+        PaymentsProperties props = fileProps(file, 100);
+        IdempotencyStore store = new IdempotencyStore(props);
+        Object before = Files.readAttributes(file, "unix:ino").get("ino");
+        // 1 MB holds a few thousand records; well past that forces several compactions
+        for (int i = 0; i < 20_000; i++) store.execute("k" + i, "fp", this::authorize);
+        store.close();
+
+        assertFalse(before.equals(Files.readAttributes(file, "unix:ino").get("ino")), "compaction must rename a new file in");
+        assertFalse(Files.exists(dir.resolve("idempotency.dat.tmp")));
+        List<String> keys = recordKeys(file);
+        assertEquals(keys.size(), new HashSet<>(keys).size(), "duplicate records: " + keys.size());
+        assertTrue(keys.contains("k19999"));
+        deleteDir(dir);
+    }
+
+    @Test
+    void recoveryKeepsTheNewestEntries() throws Exception {
+        Path dir = Files.createTempDirectory("idempotency-test");
+        Path file = dir.resolve("idempotency.dat");
+        IdempotencyStore store = new IdempotencyStore(fileProps(file, 1_000));
+        for (int i = 0; i < 500; i++) store.execute("k" + i, "fp", this::authorize);
+        store.close();
+
+        IdempotencyStore reopened = new IdempotencyStore(fileProps(file, 100));
+        calls.set(0);
+        reopened.execute("k499", "fp", this::authorize);
+        reopened.execute("k400", "fp", this::authorize);
+        assertEquals(0, calls.get());
+        reopened.execute("k0", "fp", this::authorize);
+        assertEquals(1, calls.get());
+        reopened.close();
+        deleteDir(dir);
+    }
+
+    @Test
+    void staysWithinMaxEntriesUnderSustainedInserts() throws Exception {
+        IdempotencyStore store = memoryStore(1_000);
+        for (int i = 0; i < 200_000; i++) {
+            store.execute("k" + i, "fp", this::authorize);
+        }
+        // Only the most recent keys are still answered from the store
+        calls.set(0);
+        store.execute("k199999", "fp", this::authorize);
+        assertEquals(0, calls.get());
+        store.execute("k0", "fp", this::authorize);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void runningAttemptsAreNotEvicted() throws Exception {
+        IdempotencyStore store = memoryStore(10);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<PaymentResponse> slow = CompletableFuture.supplyAsync(() -> {
+            try {
+                return store.execute("slow", "fp", () -> {
+                    started.countDown();
+                    release.await();
+                    return authorize();
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        started.await();
+        for (int i = 0; i < 1_000; i++) store.execute("k" + i, "fp", this::authorize);
+        CompletableFuture<PaymentResponse> retry = CompletableFuture.supplyAsync(() -> {
+            try {
+                return store.execute("slow", "fp", this::authorize);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        release.countDown();
+        assertEquals(slow.get().getIntentId(), retry.get().getIntentId());
+        assertTrue(calls.get() == 1_001, "retry of a running attempt must wait for it, calls=" + calls.get());
+    }
+
+    private IdempotencyStore memoryStore(int maxEntries) {
+        PaymentsProperties props = new PaymentsProperties();
+        props.getIdempotency().setFile("");
+        props.getIdempotency().setMaxEntries(maxEntries);
+        return new IdempotencyStore(props);
+    }
+
+    private static PaymentsProperties fileProps(Path file, int maxEntries) {
+        PaymentsProperties props = new PaymentsProperties();
+        props.getIdempotency().setFile(file.toString());
+        props.getIdempotency().setFileSizeMb(1);
+        props.getIdempotency().setMaxEntries(maxEntries);
+        return props;
+    }
+
+    /** Keys of the records in the file, in file order. */
+    private static List<String> recordKeys(Path file) throws Exception {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file));
+        ObjectMapper json = new ObjectMapper();
+        List<String> keys = new ArrayList<>();
+        int pos = 0;
+        while (pos + 8 <= buf.capacity()) {
+            int len = buf.getInt(pos);
+            if (len <= 0) break;
+            byte[] payload = new byte[len];
+            buf.get(pos + 8, payload);
+            keys.add(json.readValue(payload, IdempotencyStore.Record.class).key);
+            pos += 8 + len;
+        }
+        return keys;
+    }
+
+    private static void deleteDir(Path dir) throws Exception {
+        try (var files = Files.list(dir)) {
+            files.forEach(p -> p.toFile().delete());
+        }
+        dir.toFile().delete();
+    }
+
+    private PaymentResponse authorize() {
+        PaymentResponse r = PaymentResponse.of(PaymentResponse.Status.AUTHORIZED, "Stripe");
+        r.setIntentId("pi_" + calls.incrementAndGet());
+        return r;
+    }
+}
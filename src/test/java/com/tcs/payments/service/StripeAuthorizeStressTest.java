@@ -0,0 +1,198 @@
+package com.tcs.payments.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.tcs.payments.ledger.PaymentLedger;
+import com.tcs.payments.model.Amount;
+import com.tcs.payments.model.Currency;
+import com.tcs.payments.model.Customer;
+import com.tcs.payments.model.PaymentMethod;
+import com.tcs.payments.model.PaymentRequest;
+import com.tcs.payments.model.PaymentResponse;
+import com.tcs.payments.model.RegionCode;
+import com.tcs.payments.resilience.ProviderResilience;
+import com.tcs.payments.risk.FraudEngine;
+import com.tcs.payments.risk.RiskMetaCodec;
+import com.tcs.payments.security.CryptoEngine;
+
+/**
+ * Many threads initiate card payments through one PaymentOrchestrator and its shared CardProviderStripe,
+ * against a local HTTP stand-in for Stripe. Large amounts score into REQUEST_3DS, small ones do not, so
+ * every request on the wire must carry the 3DS choice, metadata and encMeta verdict of its own payment.
+ */
+class StripeAuthorizeStressTest {
+
+    private static final int THREADS = 32;
+    private static final int CALLS_PER_THREAD = 150;
+    private static final long HIGH_AMOUNT = 150_000;
+    private static final long LOW_AMOUNT = 5_000;
+
+    private final AtomicInteger bleed = new AtomicInteger();
+    private final Queue<String> mismatches = new ConcurrentLinkedQueue<>();
+    private Path dir;
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private PaymentsProperties props;
+    private CryptoEngine crypto;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dir = Files.createTempDirectory("stripe-stress");
+        // One rule: 3DS exactly when the amount is high
+        Path rules = dir.resolve("fraud-rules.json");
+        Files.writeString(rules, "{\"version\":\"stress\",\"thresholds\":{\"review\":40,\"request3ds\":50,\"block\":80},"
+                + "\"rules\":[{\"reason\":\"high_amount\",\"score\":60,\"when\":{\"amountAtLeast\":100000}}]}");
+
+        serverThreads = Executors.newFixedThreadPool(THREADS);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.createContext("/", this::answer);
+        server.setExecutor(serverThreads);
+        server.start();
+
+        props = new PaymentsProperties();
+        props.getStripe().setSecretKey("sk_test_unit");
+        props.getStripe().setApiBase("http://127.0.0.1:" + server.getAddress().getPort());
+        props.getStripe().setMaxNetworkRetries(0);
+        props.getRazorpay().setKeyId("rzp_test_unit");
+        props.getRazorpay().setKeySecret("unit");
+        props.getSecurity().setPciMetaKeyBase64("mB0Ltl3zlH8BFn6Xp0biUHk4owazHPF4In8GKa8v6S0=");
+        props.getIdempotency().setEnabled(false);
+        props.getLedger().setEnabled(false);
+        props.getFraud().setRulesFile(rules.toString());
+        props.getResilience().getDefaults().setMaxConcurrent(THREADS);
+        PaymentsProperties.RegionConfig us = new PaymentsProperties.RegionConfig();
+        us.setCode("US");
+        us.setCurrency("USD");
+        us.setProvider("stripe");
+        props.getSupportedRegions().add(us);
+        crypto = new CryptoEngine(props);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.stop(0);
+        serverThreads.shutdownNow();
+        Files.deleteIfExists(dir.resolve("fraud-rules.json"));
+        Files.deleteIfExists(dir);
+    }
+
+    @Test
+    void everyAuthorizeCarriesItsOwnThreeDsDecision() throws Exception {
+        PaymentOrchestrator orchestrator = new PaymentOrchestrator(props, Runnable::run, new IdempotencyStore(props),
+                new PaymentLedger(props), new ProviderResilience(props), new InitiateMetrics(new SimpleMeterRegistry()),
+                new CryptoEngine(props), new FraudEngine(props, null, null, null));
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            results.add(pool.submit(() -> {
+                start.await();
+                int wrong = 0;
+                for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                    String id = thread + "-" + i;
+                    boolean high = i % 2 == thread % 2;
+                    PaymentResponse r = orchestrator.initiate(request(id, high ? HIGH_AMOUNT : LOW_AMOUNT));
+                    PaymentResponse.Status expected = high ? PaymentResponse.Status.REQUIRES_ACTION : PaymentResponse.Status.AUTHORIZED;
+                    if (!("pi_" + id).equals(r.getIntentId()) || r.getStatus() != expected) {
+                        mismatches.add(id + " got " + r.getIntentId() + " " + r.getStatus() + " " + r.getFailureReason());
+                        wrong++;
+                    }
+                }
+                return wrong;
+            }));
+        }
+        start.countDown();
+        int wrong = 0;
+        for (Future<Integer> f : results) wrong += f.get(120, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertEquals(0, bleed.get(), "Stripe saw another payment's 3DS choice or verdict: " + mismatches);
+        assertEquals(0, wrong, "caller got another payment's response: " + mismatches);
+    }
+
+    private static PaymentRequest request(String id, long value) {
+        PaymentRequest req = new PaymentRequest();
+        req.setIdempotencyKey("idem-" + id);
+        req.setRegion(RegionCode.US);
+        req.setMethod(PaymentMethod.CARD);
+        req.setCardToken("pm_card_visa");
+        Amount amount = new Amount();
+        amount.setValue(value);
+        amount.setCurrency(Currency.USD);
+        req.setAmount(amount);
+        Customer customer = new Customer();
+        customer.setId("cus_" + id);
+        customer.setEmail(id + "@example.com");
+        req.setCustomer(customer);
+        req.setMetadata(new HashMap<>(Map.of("call", id)));
+        return req;
+    }
+
+    /** Checks the form Stripe received against the call it names, and answers as Stripe would for that 3DS choice. */
+    private void answer(HttpExchange ex) throws IOException {
+        Map<String, String> form = new HashMap<>();
+        for (String pair : new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8).split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                form.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        String id = form.get("metadata[call]");
+        String threeDs = form.get("payment_method_options[card][request_three_d_secure]");
+        boolean high = String.valueOf(HIGH_AMOUNT).equals(form.get("amount"));
+        boolean consistent = id != null
+                && ("idem-" + id).equals(ex.getRequestHeaders().getFirst("Idempotency-Key"))
+                && (high ? "any" : "automatic").equals(threeDs);
+        try {
+            RiskMetaCodec.RiskMeta meta = RiskMetaCodec.decode(crypto.decrypt(Base64.getDecoder().decode(form.get("metadata[encMeta]"))));
+            consistent &= meta.request3ds == high && meta.challengePreferred == high
+                    && meta.reasons.equals(high ? List.of("high_amount") : List.of());
+        } catch (Exception e) {
+            consistent = false;
+        }
+        if (!consistent) {
+            bleed.incrementAndGet();
+            mismatches.add(id + " sent amount=" + form.get("amount") + " 3ds=" + threeDs);
+        }
+
+        String intent = "{\"id\":\"pi_" + id + "\",\"object\":\"payment_intent\",\"status\":\""
+                + ("any".equals(threeDs) ? "requires_action" : "requires_capture") + "\",\"client_secret\":\"pi_" + id + "_secret\"}";
+        byte[] out = intent.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(200, out.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(out);
+        }
+    }
+}